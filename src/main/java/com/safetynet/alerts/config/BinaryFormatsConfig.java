@@ -0,0 +1,35 @@
+package com.safetynet.alerts.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+
+/**
+ * Registers the CBOR and Smile message converters, for the request and response bodies of every controller.
+ * Their mappers are copies of the application ObjectMapper with a binary factory, so the DTOs keep the same
+ * shape, date formats and modules as in JSON. They replace the default converters Spring MVC adds for these formats.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see MappingJackson2CborHttpMessageConverter
+ * @see MappingJackson2SmileHttpMessageConverter
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2CborHttpMessageConverter(objectMapper.copyWith(new CBORFactory()));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(objectMapper.copyWith(new SmileFactory()));
+    }
+}
@@ -4,17 +4,26 @@ import org.springdoc.core.customizers.OperationCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Set;
+
 @Configuration
 public class OpenApiConfig {
 
+    private static final Set<String> CONFLICT_OPERATIONS = Set.of(
+            "create", "updateById", "getPersonByLastname", "getEmailsByCity", "getPersonsStationCoverage", "getHomesByStations");
+
+    private static final Set<String> NO_NOT_FOUND_OPERATIONS = Set.of(
+            "create", "createBatch", "ingest", "transform", "query", "getFloodReport", "getResponseCacheStats", "getHotKeys", "getAdmissionStats",
+            "getSurgeStatus", "setSurgeMode");
+
     @Bean
     public OperationCustomizer customize() {
         return (operation, handlerMethod) -> {
             String methodName = handlerMethod.getMethod().getName();
-            if (methodName.equals("create")) {
+            if (NO_NOT_FOUND_OPERATIONS.contains(methodName)) {
                 operation.getResponses().remove("404");
             }
-            if (!methodName.equals("create")) {
+            if (!CONFLICT_OPERATIONS.contains(methodName)) {
                 operation.getResponses().remove("409");
             }
             operation.getResponses().remove("500");
@@ -0,0 +1,140 @@
+package com.safetynet.alerts.config;
+
+import com.safetynet.alerts.dto.PageDTO;
+import com.safetynet.alerts.exception.NotFoundException;
+import com.safetynet.alerts.service.JsonPayload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+
+/**
+ * Measures every public method of the services : its duration, with a percentile histogram so that the p99 can be
+ * computed by Prometheus, the size of its result when it is a collection, a map or a page, and the not found errors
+ * it throws, which become the 404 of the endpoints. The meters are tagged with the class and the method.
+ * A method returning a lazy result, a Stream or a JsonPayload, does its work while the result is consumed : it is
+ * timed until the stream is closed or the payload is written, and its exception is the one thrown meanwhile.
+ * The meters are registered once per class, method and exception, then reused by every call.
+ * The requests of the controllers are measured by Spring MVC, in http.server.requests.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see NotFoundException
+ * @see PageDTO
+ * @see JsonPayload
+ */
+@Aspect
+@Component
+public class ServiceMetrics {
+
+    static final String DURATION = "alerts.service";
+    static final String RESULT_SIZE = "alerts.service.result.size";
+    static final String NOT_FOUND = "alerts.service.not.found";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<MeterKey, DistributionSummary> resultSizes = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Counter> notFounds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+
+    /**
+     * Measures a call of a public method of a service.
+     *
+     * @param joinPoint The call of the method.
+     * @return The result of the method, wrapped to be timed until it is consumed if it is lazy.
+     * @throws Throwable the exception thrown by the method, after it was counted.
+     */
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable ex) {
+            stop(sample, className, method, ex);
+            throw ex;
+        }
+
+        if (result instanceof Stream<?> stream) {
+            AtomicBoolean stopped = new AtomicBoolean();
+            return stream.onClose(() -> {
+                if (stopped.compareAndSet(false, true)) stop(sample, className, method, null);
+            });
+        }
+        if (result instanceof JsonPayload payload) {
+            AtomicBoolean stopped = new AtomicBoolean();
+            return (JsonPayload) generator -> {
+                Throwable failure = null;
+                try {
+                    payload.writeTo(generator);
+                } catch (Throwable ex) {
+                    failure = ex;
+                    throw ex;
+                } finally {
+                    if (stopped.compareAndSet(false, true)) stop(sample, className, method, failure);
+                }
+            };
+        }
+        stop(sample, className, method, null);
+        recordSize(className, method, result);
+        return result;
+    }
+
+
+    private void stop(Timer.Sample sample, String className, String method, Throwable failure) {
+        if (failure instanceof NotFoundException) {
+            notFounds.computeIfAbsent(new MeterKey(className, method, null), key -> Counter.builder(NOT_FOUND)
+                            .tags("class", className, "method", method)
+                            .register(meterRegistry))
+                    .increment();
+        }
+        String exception = failure == null ? "none" : failure.getClass().getSimpleName();
+        sample.stop(timers.computeIfAbsent(new MeterKey(className, method, exception), key -> Timer.builder(DURATION)
+                .description("Duration of the methods of the services")
+                .tags("class", className, "method", method, "exception", exception)
+                .publishPercentileHistogram()
+                .register(meterRegistry)));
+    }
+
+    private void recordSize(String className, String method, Object result) {
+        if (result instanceof PageDTO<?> page) result = page.content();
+
+        int size;
+        if (result instanceof Collection<?> collection) {
+            size = collection.size();
+        } else if (result instanceof Map<?, ?> map) {
+            size = map.size();
+        } else {
+            return;
+        }
+        resultSizes.computeIfAbsent(new MeterKey(className, method, null), key -> DistributionSummary.builder(RESULT_SIZE)
+                        .description("Number of elements returned by the methods of the services")
+                        .tags("class", className, "method", method)
+                        .register(meterRegistry))
+                .record(size);
+    }
+
+
+    private record MeterKey(String className, String method, String exception) {
+    }
+}
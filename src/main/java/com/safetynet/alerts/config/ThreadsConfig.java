@@ -0,0 +1,26 @@
+package com.safetynet.alerts.config;
+
+import com.safetynet.alerts.util.TaskScope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.tinylog.Logger;
+
+
+/**
+ * Chooses between virtual threads and platform threads, with the alerts.threads.virtual property, so that both
+ * modes can be run and compared. The property drives spring.threads.virtual.enabled, for the threads of the requests,
+ * of the asynchronous responses and of the scheduled tasks, and the threads of the subtasks of the queries.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see TaskScope
+ */
+@Configuration
+public class ThreadsConfig {
+
+    public ThreadsConfig(@Value("${alerts.threads.virtual:true}") boolean virtual) {
+        TaskScope.useVirtualThreads(virtual);
+        Logger.info("Running on {} threads", virtual ? "virtual" : "platform");
+    }
+}
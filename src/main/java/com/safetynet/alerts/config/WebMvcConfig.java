@@ -0,0 +1,40 @@
+package com.safetynet.alerts.config;
+
+import com.safetynet.alerts.controller.AdmissionInterceptor;
+import com.safetynet.alerts.controller.DeadlineInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+
+/**
+ * Registers the admission control and the deadlines of the requests in front of every endpoint, except the
+ * operations endpoints, which must stay reachable while the server is overloaded to observe it.
+ * The deadline is set first, so that it also covers the time spent waiting for admission.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see AdmissionInterceptor
+ * @see DeadlineInterceptor
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final AdmissionInterceptor admissionInterceptor;
+    private final DeadlineInterceptor deadlineInterceptor;
+
+    @Autowired
+    public WebMvcConfig(AdmissionInterceptor admissionInterceptor, DeadlineInterceptor deadlineInterceptor) {
+        this.admissionInterceptor = admissionInterceptor;
+        this.deadlineInterceptor = deadlineInterceptor;
+    }
+
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(deadlineInterceptor).excludePathPatterns("/ops/**");
+        registry.addInterceptor(admissionInterceptor).excludePathPatterns("/ops/**");
+    }
+}
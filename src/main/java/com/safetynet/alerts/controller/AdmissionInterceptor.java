@@ -0,0 +1,216 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.AdmissionStatsDTO;
+import com.safetynet.alerts.exception.OverloadedException;
+import com.safetynet.alerts.util.Deadline;
+import com.safetynet.alerts.util.RateLimiter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Admits the requests by class of endpoint, each class with its own limit of concurrent requests and its own queue.
+ * The emergency reads (/fire, /phonealert, /childalert, /flood/stations) get the largest share, the other reads and
+ * the writes are capped, so a burst of CRUD requests waiting on the data file can only hold a few request threads.
+ * While emergency reads are queued, the other classes are refused, so the emergency reads get capacity first.
+ * A request that finds its queue full, or waits longer than the maximum wait or its deadline, gets a 503 with a Retry-After header.
+ * The limits and queues of the non emergency classes should stay well under the number of request threads of the server.
+ * During a surge, the rate of the non emergency classes can also be limited.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see OverloadedException
+ * @see RateLimiter
+ * @see AdmissionStatsDTO
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String LANE_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".lane";
+
+    /**
+     * The classes of endpoints, from the most to the least critical.
+     */
+    public enum EndpointClass {
+        EMERGENCY,
+        READ,
+        WRITE
+    }
+
+    private final Set<String> emergencyPaths;
+    private final Set<String> readPaths;
+    private final int retryAfterSeconds;
+    private final Map<EndpointClass, Lane> lanes = new EnumMap<>(EndpointClass.class);
+
+    public AdmissionInterceptor(
+            @Value("${alerts.admission.emergency-paths:/fire,/fire/addresses,/phonealert,/childalert,/flood/stations,/flood/stations/all}") Set<String> emergencyPaths,
+            @Value("${alerts.admission.read-paths:/query}") Set<String> readPaths,
+            @Value("${alerts.admission.emergency.limit:100}") int emergencyLimit,
+            @Value("${alerts.admission.emergency.queue:100}") int emergencyQueue,
+            @Value("${alerts.admission.read.limit:16}") int readLimit,
+            @Value("${alerts.admission.read.queue:32}") int readQueue,
+            @Value("${alerts.admission.write.limit:2}") int writeLimit,
+            @Value("${alerts.admission.write.queue:16}") int writeQueue,
+            @Value("${alerts.admission.max-wait-ms:2000}") long maxWaitMillis,
+            @Value("${alerts.admission.retry-after:1}") int retryAfterSeconds) {
+        this.emergencyPaths = Set.copyOf(emergencyPaths);
+        this.readPaths = Set.copyOf(readPaths);
+        this.retryAfterSeconds = retryAfterSeconds;
+        lanes.put(EndpointClass.EMERGENCY, new Lane(emergencyLimit, emergencyQueue, maxWaitMillis));
+        lanes.put(EndpointClass.READ, new Lane(readLimit, readQueue, maxWaitMillis));
+        lanes.put(EndpointClass.WRITE, new Lane(writeLimit, writeQueue, maxWaitMillis));
+    }
+
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // The error dispatches and the dispatches of an asynchronous request already admitted are not counted again
+        if (request.getDispatcherType() != DispatcherType.REQUEST || request.getAttribute(LANE_ATTRIBUTE) != null) {
+            return true;
+        }
+
+        EndpointClass endpointClass = classify(request);
+        Lane lane = lanes.get(endpointClass);
+        if (endpointClass != EndpointClass.EMERGENCY && lanes.get(EndpointClass.EMERGENCY).queued.get() > 0) {
+            lane.rejected.increment();
+            throw new OverloadedException("Server busy with emergency requests, please retry later", retryAfterSeconds);
+        }
+        if (!lane.rateLimiter.tryAcquire()) {
+            lane.rejected.increment();
+            throw new OverloadedException("Rate of " + endpointClass.name().toLowerCase(Locale.ROOT) + " requests limited during the surge, please retry later", retryAfterSeconds);
+        }
+        if (!lane.enter()) {
+            throw new OverloadedException("Too many " + endpointClass.name().toLowerCase(Locale.ROOT) + " requests, please retry later", retryAfterSeconds);
+        }
+        request.setAttribute(LANE_ATTRIBUTE, lane);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(LANE_ATTRIBUTE) instanceof Lane lane) {
+            request.removeAttribute(LANE_ATTRIBUTE);
+            lane.leave();
+        }
+    }
+
+
+    /**
+     * Classifies a request : the emergency paths, the writes, and the other reads.
+     *
+     * @param request The request.
+     * @return The class of the endpoint requested.
+     */
+    EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (emergencyPaths.contains(path)) return EndpointClass.EMERGENCY;
+
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        boolean safe = method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS;
+        return safe || readPaths.contains(path) ? EndpointClass.READ : EndpointClass.WRITE;
+    }
+
+    /**
+     * Limits the rate of the requests of the non emergency classes, the emergency reads are never rate limited.
+     *
+     * @param permitsPerSecond The number of requests admitted per second in each non emergency class, 0 for no limit.
+     */
+    public void setRateLimit(double permitsPerSecond) {
+        lanes.get(EndpointClass.READ).rateLimiter.setRate(permitsPerSecond);
+        lanes.get(EndpointClass.WRITE).rateLimiter.setRate(permitsPerSecond);
+    }
+
+    /**
+     * Retrieves the rate limit of the requests of the non emergency classes.
+     *
+     * @return The number of requests admitted per second in each non emergency class, 0 if there is no limit.
+     */
+    public double getRateLimit() {
+        return lanes.get(EndpointClass.READ).rateLimiter.getRate();
+    }
+
+    /**
+     * Retrieves the number of requests admitted in a class since the start.
+     *
+     * @param endpointClass The class of endpoints.
+     * @return The number of requests admitted.
+     */
+    public long getAdmitted(EndpointClass endpointClass) {
+        return lanes.get(endpointClass).admitted.sum();
+    }
+
+    /**
+     * Retrieves the statistics of each class of endpoints.
+     *
+     * @return The limit, the requests running and queued, and the requests admitted and rejected of each class.
+     */
+    public List<AdmissionStatsDTO> getStats() {
+        List<AdmissionStatsDTO> stats = new ArrayList<>();
+        lanes.forEach((endpointClass, lane) -> stats.add(new AdmissionStatsDTO(endpointClass.name(), lane.limit,
+                lane.limit - lane.permits.availablePermits(), lane.queued.get(), lane.admitted.sum(), lane.rejected.sum())));
+        return stats;
+    }
+
+
+    private static final class Lane {
+
+        private final int limit;
+        private final int queueSize;
+        private final long maxWaitMillis;
+        private final Semaphore permits;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final RateLimiter rateLimiter = new RateLimiter();
+
+        Lane(int limit, int queueSize, long maxWaitMillis) {
+            this.limit = limit;
+            this.queueSize = queueSize;
+            this.maxWaitMillis = maxWaitMillis;
+            this.permits = new Semaphore(limit, true);
+        }
+
+        boolean enter() throws InterruptedException {
+            boolean entered = permits.tryAcquire() || waitInQueue();
+            if (entered) {
+                admitted.increment();
+            } else {
+                rejected.increment();
+            }
+            return entered;
+        }
+
+        void leave() {
+            permits.release();
+        }
+
+        private boolean waitInQueue() throws InterruptedException {
+            if (queued.incrementAndGet() > queueSize) {
+                queued.decrementAndGet();
+                return false;
+            }
+            try {
+                return permits.tryAcquire(Deadline.remainingNanos(TimeUnit.MILLISECONDS.toNanos(maxWaitMillis)), TimeUnit.NANOSECONDS);
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+    }
+}
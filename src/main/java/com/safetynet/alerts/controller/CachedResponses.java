@@ -0,0 +1,120 @@
+package com.safetynet.alerts.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.PersonInfoField;
+import com.safetynet.alerts.dto.StationCoverageDTO;
+import com.safetynet.alerts.service.FireStationService;
+import com.safetynet.alerts.service.JsonPayload;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+
+/**
+ * Builds the cached responses of /fire, /phonealert and /firestation, shared by the controller serving them
+ * and by the warmer building the hottest of them ahead of the requests. The key of a response is its format,
+ * its path and its normalized parameters, so a request and a warm up of the same query share the same entry.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see ResponseCache
+ * @see HotKeyWarmer
+ * @see FireStationController
+ */
+@Component
+public class CachedResponses {
+
+    private final FireStationService fireStationService;
+    private final ResponseCache responseCache;
+    private final Map<ResponseFormat, ObjectMapper> mappers = new EnumMap<>(ResponseFormat.class);
+
+    @Autowired
+    public CachedResponses(FireStationService fireStationService, ResponseCache responseCache, ObjectMapper objectMapper) {
+        this.fireStationService = fireStationService;
+        this.responseCache = responseCache;
+        for (ResponseFormat format : ResponseFormat.values()) {
+            mappers.put(format, format.mapper(objectMapper));
+        }
+    }
+
+
+    /**
+     * Normalizes an address, so that the requests of the same address share their cached response and their count.
+     *
+     * @param address The address requested.
+     * @return The trimmed address in lower case.
+     */
+    static String normalizeAddress(String address) {
+        return address.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Retrieves the cached response of /fire, or builds it.
+     *
+     * @param address        The address requested.
+     * @param selectedFields The fields of the residents to return.
+     * @param format         The format of the response.
+     * @return The cached response.
+     */
+    ResponseCache.Entry getPersonsAndStationByAddress(String address, Set<PersonInfoField> selectedFields, ResponseFormat format) {
+        return getOrBuild("fire?" + normalizeAddress(address) + "&" + selectedFields, format,
+                () -> fireStationService.writePersonsAndStationByAddress(address, selectedFields));
+    }
+
+    /**
+     * Retrieves the cached response of /phonealert, or builds it.
+     *
+     * @param stationNumber The station number requested.
+     * @param format        The format of the response.
+     * @return The cached response.
+     */
+    ResponseCache.Entry getPersonsPhonesByStation(int stationNumber, ResponseFormat format) {
+        return getOrBuild("phonealert?" + stationNumber, format,
+                () -> fireStationService.writePersonsPhonesByStation(stationNumber));
+    }
+
+    /**
+     * Retrieves the cached response of /firestation, without pagination, or builds it.
+     *
+     * @param stationNumber The station number requested.
+     * @param format        The format of the response.
+     * @return The cached response.
+     */
+    ResponseCache.Entry getPersonsStationCoverage(int stationNumber, ResponseFormat format) {
+        return getOrBuild("firestation?" + stationNumber, format, () -> {
+            StationCoverageDTO coverage = fireStationService.getPersonsStationCoverage(stationNumber);
+            return generator -> generator.writeObject(coverage);
+        });
+    }
+
+    /**
+     * Retrieves the mapper writing a format.
+     *
+     * @param format The format of the response.
+     * @return The ObjectMapper whose factory writes this format.
+     */
+    ObjectMapper mapper(ResponseFormat format) {
+        return mappers.get(format);
+    }
+
+
+    // The version is read before the response is built, so a response is never cached for a version newer than its data
+    private ResponseCache.Entry getOrBuild(String key, ResponseFormat format, Supplier<JsonPayload> payload) {
+        long version = fireStationService.getDataVersion();
+        return responseCache.getOrBuild(format + " " + key, version, () -> {
+            try {
+                return JsonResponse.toBytes(mappers.get(format), payload.get());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+}
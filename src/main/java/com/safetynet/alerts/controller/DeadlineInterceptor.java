@@ -0,0 +1,91 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.util.Deadline;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Sets the deadline of each request, checked by the services at each chunk of their long loops.
+ * The deadline comes from the X-Request-Timeout header of the request, in milliseconds, so a client can give up
+ * the query when it gives up waiting. Without the header, the timeout configured for the endpoint applies, then
+ * the default timeout. A timeout is never longer than the maximum. A query past its deadline is aborted with a 504.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see Deadline
+ */
+@Component
+public class DeadlineInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final Map<String, Long> endpointTimeouts = new HashMap<>();
+    private final long defaultTimeoutMillis;
+    private final long maxTimeoutMillis;
+
+    public DeadlineInterceptor(
+            @Value("${alerts.deadline.timeouts:/flood/stations=5000,/flood/stations/all=10000}") List<String> endpointTimeouts,
+            @Value("${alerts.deadline.default-ms:30000}") long defaultTimeoutMillis,
+            @Value("${alerts.deadline.max-ms:60000}") long maxTimeoutMillis) {
+        for (String endpointTimeout : endpointTimeouts) {
+            int separator = endpointTimeout.lastIndexOf('=');
+            if (separator <= 0) throw new IllegalArgumentException("Endpoint timeout must be path=milliseconds : " + endpointTimeout);
+            this.endpointTimeouts.put(endpointTimeout.substring(0, separator).trim(), Long.parseLong(endpointTimeout.substring(separator + 1).trim()));
+        }
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.maxTimeoutMillis = maxTimeoutMillis;
+    }
+
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.REQUEST) {
+            Deadline.start(getTimeoutMillis(request));
+        }
+        return true;
+    }
+
+    // A streamed response goes on in another thread, the request thread is released without afterCompletion
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Deadline.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Deadline.clear();
+    }
+
+
+    /**
+     * Retrieves the timeout of a request : its header if valid, else the timeout of its endpoint, else the default one.
+     *
+     * @param request The request.
+     * @return The timeout in milliseconds, at most the maximum timeout.
+     */
+    long getTimeoutMillis(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        long timeout = endpointTimeouts.getOrDefault(path, defaultTimeoutMillis);
+
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null) {
+            try {
+                long requested = Long.parseLong(header.trim());
+                if (requested > 0) timeout = requested;
+            } catch (NumberFormatException ignored) {
+                // an invalid header is ignored, the timeout of the endpoint applies
+            }
+        }
+        return Math.min(timeout, maxTimeoutMillis);
+    }
+}
@@ -1,10 +1,20 @@
 package com.safetynet.alerts.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.AffectedRecordsDTO;
+import com.safetynet.alerts.dto.BatchItemResultDTO;
 import com.safetynet.alerts.dto.FireDTO;
 import com.safetynet.alerts.dto.FloodDTO;
+import com.safetynet.alerts.dto.FloodReportDTO;
+import com.safetynet.alerts.dto.FloodResidentDTO;
+import com.safetynet.alerts.dto.IngestProgressDTO;
+import com.safetynet.alerts.dto.PersonInfoField;
+import com.safetynet.alerts.dto.ResourceIdDTO;
 import com.safetynet.alerts.dto.StationCoverageDTO;
+import com.safetynet.alerts.dto.StationCoveragePersonInfoDTO;
 import com.safetynet.alerts.model.FireStation;
 import com.safetynet.alerts.service.FireStationService;
+import com.safetynet.alerts.util.RequestLog;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,12 +22,22 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.tinylog.Logger;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -27,30 +47,65 @@ import java.util.Set;
 @RestController
 public class FireStationController {
 
+    // The data version restarts with the application, so the ETags of two runs are told apart by their start time
+    private static final String INSTANCE_TAG = Long.toHexString(System.currentTimeMillis());
+
     private final FireStationService fireStationService;
+    private final ObjectMapper objectMapper;
+    private final CachedResponses cachedResponses;
+    private final HotKeyTracker hotKeyTracker;
 
     @Autowired
-    public FireStationController(FireStationService fireStationService) {
+    public FireStationController(FireStationService fireStationService, ObjectMapper objectMapper, CachedResponses cachedResponses, HotKeyTracker hotKeyTracker) {
         this.fireStationService = fireStationService;
+        this.objectMapper = objectMapper;
+        this.cachedResponses = cachedResponses;
+        this.hotKeyTracker = hotKeyTracker;
     }
 
 
 
     @Operation(summary = "Creates a fire station", description = "Creates a fire station with his number and the address.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "201", description = "Fire station has been created"),
+            @ApiResponse(responseCode = "201", description = "Fire station has been created, the body contains the ID of the mapping.",
+                    content = {@Content(schema = @Schema(implementation = ResourceIdDTO.class))}),
             @ApiResponse(responseCode = "400", description = "Fire station with specified data are not valid.",
                     content = {@Content(schema = @Schema(implementation = Map.class))}),
             @ApiResponse(responseCode = "409", description = "Fire station with specified number and address already exists.",
                     content = {@Content(schema = @Schema(implementation = Error.class))})
     })
     @PostMapping("/firestation")
-    public ResponseEntity<Void> create(@RequestBody @Valid FireStation fireStation) {
-        Logger.info("Request to create a new fire station : {}", fireStation);
+    public ResponseEntity<ResourceIdDTO> create(@RequestBody @Valid FireStation fireStation) {
+        RequestLog.info("Request to create a new fire station : {}", fireStation);
         return fireStationService.create(fireStation);
     }
 
 
+    @Operation(summary = "Creates several fire stations", description = "Creates several fire stations in one request. Each fire station is validated and checked independently, then all the accepted fire stations are saved at once. The result of each fire station is returned in the order of the request : 201 with its ID, 400 if it is not valid or 409 if it already exists.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The batch has been processed, the body contains the result of each fire station.",
+                    content = {@Content(schema = @Schema(implementation = BatchItemResultDTO.class))})
+    })
+    @PostMapping("/firestation/batch")
+    public List<BatchItemResultDTO> createBatch(@RequestBody List<FireStation> fireStations) {
+        RequestLog.info("Request to create a batch of {} fire stations", fireStations.size());
+        return fireStationService.createBatch(fireStations);
+    }
+
+
+    @Operation(summary = "Imports fire stations from a stream", description = "Imports fire stations from a newline delimited JSON body, one fire station per line, validated like a single fire station. The fire stations are saved by chunks of 1000 as the body is read. The response streams a line for each rejected fire station, with its line number, and a progress line after each chunk.",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {@Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = FireStation.class))}))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The import has started, the body streams the rejected fire stations and the progress.",
+                    content = {@Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = IngestProgressDTO.class))})
+    })
+    @PostMapping(value = "/firestation/ingest", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> ingest(@Parameter(hidden = true) InputStream body) {
+        RequestLog.info("Request to import a stream of fire stations");
+        return NdjsonIngest.of(objectMapper, body, FireStation.class, fireStationService::createBatch);
+    }
+
+
     @Operation(summary = "Updates a fire station", description = "Updates a fire station by the address")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Fire station has been updated"),
@@ -61,7 +116,7 @@ public class FireStationController {
     })
     @PutMapping("/firestation")
     public ResponseEntity<Void> update(@RequestBody @Valid FireStation fireStation) {
-        Logger.info("Request to update a fire station : {}", fireStation);
+        RequestLog.info("Request to update a fire station : {}", fireStation);
         return fireStationService.update(fireStation);
     }
 
@@ -74,45 +129,214 @@ public class FireStationController {
     })
     @DeleteMapping("/firestation")
     public ResponseEntity<Void> delete(@RequestBody @Valid FireStation fireStation) {
-        Logger.info("Request to delete a fire station : {}", fireStation);
+        RequestLog.info("Request to delete a fire station : {}", fireStation);
         return fireStationService.delete(fireStation);
     }
 
 
-    @Operation(summary = "Get the list of persons coverage by a station", description = "Get the list of persons coverage by a station number. The list contains the persons information (lastName, firstName, address, phone) and the number of children and adults.")
+    @Operation(summary = "Deletes all the mappings of a station", description = "Deletes all the address mappings of a station number at once, for example when a station is closed.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Mappings have been deleted, the body contains their number.",
+                    content = {@Content(schema = @Schema(implementation = AffectedRecordsDTO.class))}),
+            @ApiResponse(responseCode = "404", description = "Station with specified station number was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @DeleteMapping("/firestation/station/{station}")
+    public AffectedRecordsDTO deleteByStation(
+            @PathVariable("station")
+            @Parameter(description = "The number of the station to delete", example = "3")
+            int stationNumber) {
+        RequestLog.info("Request to delete all the mappings of the station : {}", stationNumber);
+        return fireStationService.deleteByStation(stationNumber);
+    }
+
+
+    @Operation(summary = "Reassigns all the addresses of a station", description = "Moves all the addresses of a station number to another station number at once, for example when a station is renumbered. Addresses already covered by the new station are only removed from the old one.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Mappings have been reassigned, the body contains their number.",
+                    content = {@Content(schema = @Schema(implementation = AffectedRecordsDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "New station number is not valid.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
+            @ApiResponse(responseCode = "404", description = "Station with specified station number was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @PutMapping("/firestation/station/{station}")
+    public AffectedRecordsDTO reassignStation(
+            @PathVariable("station")
+            @Parameter(description = "The number of the station whose addresses are moved", example = "3")
+            int stationNumber,
+            @RequestParam("newstation")
+            @Positive(message = "Station must be a positive number")
+            @Parameter(description = "The number of the station covering the addresses from now on", example = "4")
+            int newStationNumber) {
+        RequestLog.info("Request to reassign the mappings of the station {} to the station {}", stationNumber, newStationNumber);
+        return fireStationService.reassignStation(stationNumber, newStationNumber);
+    }
+
+
+    @Operation(summary = "Get the list of persons coverage by a station", description = "Get the list of persons coverage by a station number. The list contains the persons information (lastName, firstName, address, phone) and the number of children and adults. With a page size or a cursor, the persons are returned page by page and the number of children and adults are counted over the page. The response is cached until the data changes, and compressed with gzip when the request accepts it.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of persons for the specified station number.",
                     content = {@Content(schema = @Schema(implementation = StationCoverageDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Cursor is not valid.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
             @ApiResponse(responseCode = "404", description = "Station with specified station number was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
+            @ApiResponse(responseCode = "409", description = "Data changed since the previous page, pagination must be restarted.",
                     content = {@Content(schema = @Schema(implementation = Error.class))})
     })
     @GetMapping("/firestation")
-    public StationCoverageDTO getPersonsStationCoverage(
+    public ResponseEntity<?> getPersonsStationCoverage(
+            @RequestParam("stationnumber")
+            @Parameter(description = "The station number where we want to obtain the people covered by this one", example = "1")
+            int stationNumber,
+            @RequestParam(value = "pagesize", required = false)
+            @Parameter(description = "The maximum number of persons per page, enables pagination (up to 1000)", example = "100")
+            Integer pageSize,
+            @RequestParam(value = "cursor", required = false)
+            @Parameter(description = "The cursor of the next page, returned in the X-Next-Cursor header of the previous page")
+            String cursor,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+            @Parameter(hidden = true)
+            String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            @Parameter(hidden = true)
+            String acceptEncoding,
+            @Parameter(hidden = true)
+            HttpServletResponse response) throws IOException {
+        RequestLog.info("Request to get persons covered by the station : {}", stationNumber);
+        if (PageResponse.isPaginated(pageSize, cursor)) {
+            return PageResponse.of(fireStationService.getPersonsStationCoverage(stationNumber, cursor, pageSize));
+        }
+        // Written directly to the response, returning null tells Spring that the response is complete
+        ResponseFormat format = ResponseFormat.of(accept);
+        JsonResponse.write(response, cachedResponses.getPersonsStationCoverage(stationNumber, format), format.mediaType(), acceptEncoding);
+        hotKeyTracker.record(HotKeyTracker.Endpoint.STATION_COVERAGE, String.valueOf(stationNumber));
+        return null;
+    }
+
+
+    @Operation(summary = "Stream the persons covered by a station", description = "Stream the persons covered by a station number as newline delimited JSON, one person per line (lastName, firstName, address, phone), without the number of children and adults. The persons are written as they are read, the stream stops at the deadline of the request.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Persons covered by the specified station number, one per line.",
+                    content = {@Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = StationCoveragePersonInfoDTO.class))}),
+            @ApiResponse(responseCode = "404", description = "Station with specified station number was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @GetMapping(value = "/firestation", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPersonsStationCoverage(
             @RequestParam("stationnumber")
             @Parameter(description = "The station number where we want to obtain the people covered by this one", example = "1")
             int stationNumber) {
-        return fireStationService.getPersonsStationCoverage(stationNumber);
+        RequestLog.info("Request to stream persons covered by the station : {}", stationNumber);
+        return NdjsonResponse.of(objectMapper, fireStationService.streamPersonsStationCoverage(stationNumber));
     }
 
 
-    @Operation(summary = "Get all homes for each stations", description = "Get all homes for each stations order by station number and group by address. The information of each resident contains the last name, first name, the phone number, the age and the medical record.")
+    @Operation(summary = "Get all homes for each stations", description = "Get all homes for each stations order by station number and group by address. The information of each resident contains the last name, first name, the phone number, the age and the medical record. With a page size or a cursor, the residents are returned page by page. With fields, only the selected fields of the residents are computed and returned.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of information for specified stations numbers.",
                     content = {@Content(schema = @Schema(implementation = FloodDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Cursor or fields are not valid.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
             @ApiResponse(responseCode = "404", description = "Specified stations numbers were not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
+            @ApiResponse(responseCode = "409", description = "Data changed since the previous page, pagination must be restarted.",
                     content = {@Content(schema = @Schema(implementation = Error.class))})
     })
     @GetMapping("/flood/stations")
-    public List<FloodDTO> getHomesByStations(
+    public ResponseEntity<?> getHomesByStations(
+            @RequestParam("stations")
+            @Parameter(description = "The numbers of the stations for which we want to obtain residents' information", example = "[1, 2]")
+            List<Integer> stations,
+            @RequestParam(value = "fields", required = false)
+            @Parameter(description = "The fields of the residents to return, separated by commas, all by default : firstName, lastName, phone, age, medications, allergies", example = "firstName,lastName,phone")
+            String fields,
+            @RequestParam(value = "pagesize", required = false)
+            @Parameter(description = "The maximum number of residents per page, enables pagination (up to 1000)", example = "100")
+            Integer pageSize,
+            @RequestParam(value = "cursor", required = false)
+            @Parameter(description = "The cursor of the next page, returned in the X-Next-Cursor header of the previous page")
+            String cursor,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+            @Parameter(hidden = true)
+            String accept,
+            @Parameter(hidden = true)
+            HttpServletResponse response) throws IOException {
+        RequestLog.info("Request to get homes by this one or several stations : {}", stations);
+        Set<PersonInfoField> selectedFields = PersonInfoField.parse(fields);
+        if (PageResponse.isPaginated(pageSize, cursor)) {
+            return PageResponse.of(fireStationService.getHomesByStations(stations, cursor, pageSize, selectedFields));
+        }
+        // Written directly to the response, returning null tells Spring that the response is complete
+        ResponseFormat format = ResponseFormat.of(accept);
+        JsonResponse.write(cachedResponses.mapper(format), format.mediaType(), response, fireStationService.writeHomesByStations(stations, selectedFields));
+        return null;
+    }
+
+
+    @Operation(summary = "Stream all homes for each stations", description = "Stream the residents of the homes covered by the stations as newline delimited JSON, one resident per line with his station and address, ordered by station number and address. With fields, only the selected fields of the residents are computed and returned. The residents are written as they are read, the stream stops at the deadline of the request.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Residents of the specified stations numbers, one per line.",
+                    content = {@Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = FloodResidentDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Fields are not valid.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
+            @ApiResponse(responseCode = "404", description = "Specified stations numbers were not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @GetMapping(value = "/flood/stations", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamHomesByStations(
             @RequestParam("stations")
             @Parameter(description = "The numbers of the stations for which we want to obtain residents' information", example = "[1, 2]")
-            List<Integer> stations) {
-        Logger.info("Request to get homes by this one or several stations : {}", stations);
-        return fireStationService.getHomesByStations(stations);
+            List<Integer> stations,
+            @RequestParam(value = "fields", required = false)
+            @Parameter(description = "The fields of the residents to return, separated by commas, all by default : firstName, lastName, phone, age, medications, allergies", example = "firstName,lastName,phone")
+            String fields) {
+        RequestLog.info("Request to stream homes by this one or several stations : {}", stations);
+        return NdjsonResponse.of(objectMapper, fireStationService.streamHomesByStations(stations, PersonInfoField.parse(fields)));
     }
 
 
-    @Operation(summary = "Get all resident phone numbers for station coverage", description = "Get all resident phone numbers for station coverage.")
+    @Operation(summary = "Get all homes of every station", description = "Get all homes of every station, ordered by station number and grouped by address, in one pass over the data. The report is cached by version of the data and by day, since the ages change with the date : the ETag changes only when the data or the day changes, and a request with a matching If-None-Match header gets a 304 without body.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of information for every station.",
+                    content = {@Content(schema = @Schema(implementation = FloodDTO.class))}),
+            @ApiResponse(responseCode = "304", description = "The data and the day didn't change since the report with the given ETag.")
+    })
+    @GetMapping("/flood/stations/all")
+    public ResponseEntity<List<FloodDTO>> getFloodReport(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            @Parameter(hidden = true)
+            String ifNoneMatch) {
+        RequestLog.info("Request to get homes of every station");
+        FloodReportDTO report = fireStationService.getFloodReport();
+        String eTag = "\"" + INSTANCE_TAG + "-" + report.version() + "-" + report.date().format(DateTimeFormatter.BASIC_ISO_DATE) + "\"";
+        if (ifNoneMatch != null && Arrays.stream(ifNoneMatch.split(","))
+                .map(tag -> tag.trim().replaceFirst("^W/", ""))
+                .anyMatch(tag -> tag.equals(eTag) || tag.equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .header(PageResponse.DATA_VERSION_HEADER, String.valueOf(report.version()))
+                .body(report.stations());
+    }
+
+
+    @Operation(summary = "Stream all homes of every station", description = "Stream the residents of every station as newline delimited JSON, one resident per line with his station and address, ordered by station number and address. The residents are written as they are read, the stream stops at the deadline of the request.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Residents of every station, one per line.",
+                    content = {@Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = FloodResidentDTO.class))})
+    })
+    @GetMapping(value = "/flood/stations/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFloodReport() {
+        RequestLog.info("Request to stream homes of every station");
+        return NdjsonResponse.of(objectMapper, fireStationService.streamFloodReport());
+    }
+
+
+    @Operation(summary = "Get all resident phone numbers for station coverage", description = "Get all resident phone numbers for station coverage. The response is cached until the data changes, and compressed with gzip when the request accepts it.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of resident phone numbers for station coverage.",
                     content = {@Content(schema = @Schema(implementation = Set.class))}),
@@ -120,28 +344,76 @@ public class FireStationController {
                     content = {@Content(schema = @Schema(implementation = Error.class))})
     })
     @GetMapping("/phonealert")
-    public Set<String> getPersonsPhonesByStation(
+    public void getPersonsPhonesByStation(
             @RequestParam("firestation")
             @Parameter(description = "The station number where we want to obtain all the telephone numbers of the people covered by it", example = "1")
-            int stationNumber) {
-        Logger.info("Request to get telephone numbers of persons covered by the station : {}", stationNumber);
-        return fireStationService.getPersonsPhonesByStation(stationNumber);
+            int stationNumber,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+            @Parameter(hidden = true)
+            String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            @Parameter(hidden = true)
+            String acceptEncoding,
+            @Parameter(hidden = true)
+            HttpServletResponse response) throws IOException {
+        RequestLog.info("Request to get telephone numbers of persons covered by the station : {}", stationNumber);
+        ResponseFormat format = ResponseFormat.of(accept);
+        JsonResponse.write(response, cachedResponses.getPersonsPhonesByStation(stationNumber, format), format.mediaType(), acceptEncoding);
+        hotKeyTracker.record(HotKeyTracker.Endpoint.PHONE_ALERT, String.valueOf(stationNumber));
+    }
+
+
+    @Operation(summary = "Get all residents and the fire station of several addresses", description = "Get all residents and the fire station of several addresses in one request, for example for a fire spreading over a block. The addresses are grouped by station number, and the information of each resident contains the last name, first name, the phone number, the age and the medical record. With fields, only the selected fields of the residents are computed and returned.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of residents of the specified addresses, grouped by station and address.",
+                    content = {@Content(schema = @Schema(implementation = FloodDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Specified fields are not valid.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
+            @ApiResponse(responseCode = "404", description = "One of the specified addresses was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @GetMapping("/fire/addresses")
+    public List<FloodDTO> getPersonsAndStationByAddresses(
+            @RequestParam("addresses")
+            @Parameter(description = "The addresses from which you wish to obtain information on the inhabitants and the station number", example = "[\"1509 Culver St\", \"29 15th St\"]")
+            List<String> addresses,
+            @RequestParam(value = "fields", required = false)
+            @Parameter(description = "The fields of the residents to return, separated by commas, all by default : firstName, lastName, phone, age, medications, allergies", example = "firstName,lastName,phone")
+            String fields) {
+        RequestLog.info("Request to get persons and the station by the addresses : {}", addresses);
+        return fireStationService.getPersonsAndStationByAddresses(addresses, PersonInfoField.parse(fields));
     }
 
 
-    @Operation(summary = "Get all resident and the fire station by a specified address", description = "Get all resident and the fire station by a specified address. The list contains the persons information (last name, first name, phone, age, the medical record), and the fire station number")
+    @Operation(summary = "Get all resident and the fire station by a specified address", description = "Get all resident and the fire station by a specified address. The list contains the persons information (last name, first name, phone, age, the medical record), and the fire station number. With fields, only the selected fields of the residents are computed and returned. The response is cached until the data changes, and compressed with gzip when the request accepts it.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of resident and the fire station by a specified address.",
                     content = {@Content(schema = @Schema(implementation = FireDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Specified fields are not valid.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
             @ApiResponse(responseCode = "404", description = "Specified address was not found.",
                     content = {@Content(schema = @Schema(implementation = Error.class))})
     })
     @GetMapping("/fire")
-    public FireDTO getPersonsAndStationByAddress(
+    public void getPersonsAndStationByAddress(
             @RequestParam("address")
             @Parameter(description = "The address from which you wish to obtain information on the inhabitants and the station number", example = "\"1509 Culver St\"")
-            String address) {
-        Logger.info("Request to get persons and the station by the address : {}", address);
-        return fireStationService.getPersonsAndStationByAddress(address);
+            String address,
+            @RequestParam(value = "fields", required = false)
+            @Parameter(description = "The fields of the residents to return, separated by commas, all by default : firstName, lastName, phone, age, medications, allergies", example = "firstName,lastName,phone")
+            String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+            @Parameter(hidden = true)
+            String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            @Parameter(hidden = true)
+            String acceptEncoding,
+            @Parameter(hidden = true)
+            HttpServletResponse response) throws IOException {
+        RequestLog.info("Request to get persons and the station by the address : {}", address);
+        Set<PersonInfoField> selectedFields = PersonInfoField.parse(fields);
+        ResponseFormat format = ResponseFormat.of(accept);
+        JsonResponse.write(response, cachedResponses.getPersonsAndStationByAddress(address, selectedFields, format), format.mediaType(), acceptEncoding);
+        hotKeyTracker.record(HotKeyTracker.Endpoint.FIRE, CachedResponses.normalizeAddress(address));
     }
 }
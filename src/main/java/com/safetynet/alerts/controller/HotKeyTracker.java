@@ -0,0 +1,133 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.HotKeyDTO;
+import com.safetynet.alerts.util.CountMinSketch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Tracks the most requested keys of the cached endpoints : the addresses of /fire and the stations of /phonealert
+ * and /firestation. Each endpoint counts its keys in a count-min sketch and keeps the few keys with the highest
+ * estimates, so the memory used doesn't depend on the number of distinct keys. The counts are halved regularly,
+ * so that keys that stopped being requested leave the top.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see CountMinSketch
+ * @see HotKeyWarmer
+ */
+@Component
+public class HotKeyTracker {
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 2048;
+    private static final int DECAY_INTERVAL = 100_000;
+
+    /**
+     * The endpoints whose keys are tracked.
+     */
+    public enum Endpoint {
+        FIRE("/fire"),
+        PHONE_ALERT("/phonealert"),
+        STATION_COVERAGE("/firestation");
+
+        private final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+
+        public String path() {
+            return path;
+        }
+    }
+
+    private final int topSize;
+    private final Map<Endpoint, Tracker> trackers = new EnumMap<>(Endpoint.class);
+
+    public HotKeyTracker(@Value("${alerts.hot-keys.top:20}") int topSize) {
+        this.topSize = topSize;
+        for (Endpoint endpoint : Endpoint.values()) {
+            trackers.put(endpoint, new Tracker(endpoint));
+        }
+    }
+
+
+    /**
+     * Counts a request of a key.
+     *
+     * @param endpoint The endpoint requested.
+     * @param key      The key of the request, normalized the same way for all the requests of the endpoint.
+     */
+    public void record(Endpoint endpoint, String key) {
+        trackers.get(endpoint).record(key);
+    }
+
+    /**
+     * Retrieves the hottest keys of an endpoint.
+     *
+     * @param endpoint The endpoint.
+     * @return The keys with the highest estimated counts, the hottest first.
+     */
+    public List<String> getHotKeys(Endpoint endpoint) {
+        return trackers.get(endpoint).top().stream().map(HotKeyDTO::key).toList();
+    }
+
+    /**
+     * Retrieves the hottest keys of all the endpoints, with their estimated counts.
+     *
+     * @return The hottest keys of each endpoint, the hottest first.
+     */
+    public List<HotKeyDTO> getHotKeys() {
+        List<HotKeyDTO> hotKeys = new ArrayList<>();
+        trackers.values().forEach(tracker -> hotKeys.addAll(tracker.top()));
+        return hotKeys;
+    }
+
+
+    private final class Tracker {
+
+        private final Endpoint endpoint;
+        private final CountMinSketch sketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+        private final Map<String, Long> top = new HashMap<>();
+        private long records;
+
+        Tracker(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        synchronized void record(String key) {
+            long estimate = sketch.add(key);
+            if (top.containsKey(key) || top.size() < topSize) {
+                top.put(key, estimate);
+            } else {
+                Map.Entry<String, Long> coldest = top.entrySet().stream().min(Map.Entry.comparingByValue()).orElseThrow();
+                if (estimate > coldest.getValue()) {
+                    top.remove(coldest.getKey());
+                    top.put(key, estimate);
+                }
+            }
+
+            if (++records % DECAY_INTERVAL == 0) {
+                sketch.halve();
+                top.replaceAll((topKey, count) -> count >>> 1);
+            }
+        }
+
+        synchronized List<HotKeyDTO> top() {
+            return top.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                    .map(entry -> new HotKeyDTO(endpoint.path(), entry.getKey(), entry.getValue()))
+                    .toList();
+        }
+    }
+}
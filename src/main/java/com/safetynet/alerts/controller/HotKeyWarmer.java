@@ -0,0 +1,144 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.PersonInfoField;
+import com.safetynet.alerts.exception.NotFoundException;
+import com.safetynet.alerts.service.FireStationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+
+/**
+ * Builds the cached responses of the hottest keys before they are requested : on startup, once the tracker has been
+ * seeded from the request lines of the log file, and each time the data changes. So after a restart or a modification
+ * of the data, the first requests of the hottest addresses and stations are served from the cache.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see HotKeyTracker
+ * @see CachedResponses
+ */
+@Component
+public class HotKeyWarmer {
+
+    // The request lines logged by FireStationController, one per tracked endpoint
+    static final String FIRE_REQUEST = "Request to get persons and the station by the address : ";
+    static final String PHONE_ALERT_REQUEST = "Request to get telephone numbers of persons covered by the station : ";
+    static final String STATION_COVERAGE_REQUEST = "Request to get persons covered by the station : ";
+
+    private final HotKeyTracker hotKeyTracker;
+    private final CachedResponses cachedResponses;
+    private final FireStationService fireStationService;
+    private final Path logFile;
+    private volatile long warmedVersion = -1;
+
+    @Autowired
+    public HotKeyWarmer(HotKeyTracker hotKeyTracker, CachedResponses cachedResponses, FireStationService fireStationService,
+                        @Value("${alerts.hot-keys.log-file:logs/log.info.txt}") String logFile) {
+        this.hotKeyTracker = hotKeyTracker;
+        this.cachedResponses = cachedResponses;
+        this.fireStationService = fireStationService;
+        this.logFile = Path.of(logFile);
+    }
+
+
+    /**
+     * Seeds the tracker from the log file of the previous runs, then builds the responses of the hottest keys.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        seed();
+        warm();
+    }
+
+    /**
+     * Builds again the responses of the hottest keys if the data changed since they were last built.
+     */
+    @Scheduled(fixedDelayString = "${alerts.hot-keys.warm-interval:1000}", initialDelayString = "${alerts.hot-keys.warm-interval:1000}")
+    public void warmIfDataChanged() {
+        if (fireStationService.getDataVersion() != warmedVersion) {
+            warm();
+        }
+    }
+
+    /**
+     * Counts the requests of the tracked endpoints found in the log file.
+     *
+     * @return The number of requests counted.
+     */
+    int seed() {
+        if (!Files.isRegularFile(logFile)) return 0;
+
+        int seeded = 0;
+        try (Stream<String> lines = Files.lines(logFile)) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (seed(line.strip())) seeded++;
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            Logger.error("Unable to read the log file {} to seed the hot keys : {}", logFile, ex.getMessage());
+        }
+        Logger.info("{} requests of the log file seeded the hot keys", seeded);
+        return seeded;
+    }
+
+    /**
+     * Builds the responses of the hottest keys, in JSON with all the fields as requested by default.
+     *
+     * @return The number of responses built or found already cached.
+     */
+    int warm() {
+        long version = fireStationService.getDataVersion();
+        int warmed = 0;
+        for (String address : hotKeyTracker.getHotKeys(HotKeyTracker.Endpoint.FIRE)) {
+            if (warm(() -> cachedResponses.getPersonsAndStationByAddress(address, PersonInfoField.ALL, ResponseFormat.JSON))) warmed++;
+        }
+        for (String station : hotKeyTracker.getHotKeys(HotKeyTracker.Endpoint.PHONE_ALERT)) {
+            if (warm(() -> cachedResponses.getPersonsPhonesByStation(Integer.parseInt(station), ResponseFormat.JSON))) warmed++;
+        }
+        for (String station : hotKeyTracker.getHotKeys(HotKeyTracker.Endpoint.STATION_COVERAGE)) {
+            if (warm(() -> cachedResponses.getPersonsStationCoverage(Integer.parseInt(station), ResponseFormat.JSON))) warmed++;
+        }
+        warmedVersion = version;
+        if (warmed > 0) Logger.info("{} hot responses warmed for the version {} of the data", warmed, version);
+        return warmed;
+    }
+
+
+    private boolean seed(String line) {
+        if (line.startsWith(FIRE_REQUEST)) {
+            hotKeyTracker.record(HotKeyTracker.Endpoint.FIRE, CachedResponses.normalizeAddress(line.substring(FIRE_REQUEST.length())));
+        } else if (line.startsWith(PHONE_ALERT_REQUEST) && isStation(line.substring(PHONE_ALERT_REQUEST.length()))) {
+            hotKeyTracker.record(HotKeyTracker.Endpoint.PHONE_ALERT, line.substring(PHONE_ALERT_REQUEST.length()));
+        } else if (line.startsWith(STATION_COVERAGE_REQUEST) && isStation(line.substring(STATION_COVERAGE_REQUEST.length()))) {
+            hotKeyTracker.record(HotKeyTracker.Endpoint.STATION_COVERAGE, line.substring(STATION_COVERAGE_REQUEST.length()));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isStation(String station) {
+        return !station.isEmpty() && station.length() < 10 && station.chars().allMatch(Character::isDigit);
+    }
+
+    // A hot key can disappear with the data, it is simply not warmed until it is requested again
+    private static boolean warm(Runnable build) {
+        try {
+            build.run();
+            return true;
+        } catch (NotFoundException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.HouseholdDTO;
+import com.safetynet.alerts.dto.HouseholdIdsDTO;
+import com.safetynet.alerts.service.HouseholdService;
+import com.safetynet.alerts.util.RequestLog;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+
+@Tag(name = "Household API")
+@RestController
+public class HouseholdController {
+
+    private final HouseholdService householdService;
+
+    @Autowired
+    public HouseholdController(HouseholdService householdService) {
+        this.householdService = householdService;
+    }
+
+
+    @Operation(summary = "Creates a household", description = "Creates the members of a household, their medical records and the fire station mapping of their address in one transaction. Either everything is created or nothing is. The fire station mapping is only created if it does not exist yet.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Household has been created, the body contains the IDs of the created elements.",
+                    content = {@Content(schema = @Schema(implementation = HouseholdIdsDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Household with specified data is not valid.",
+                    content = {@Content(schema = @Schema(implementation = Map.class))}),
+            @ApiResponse(responseCode = "409", description = "A member appears twice, or a person or a medical record already exists.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @PostMapping("/household")
+    public ResponseEntity<HouseholdIdsDTO> create(@RequestBody @Valid HouseholdDTO household) {
+        RequestLog.info("Request to create a household : {}", household);
+        return householdService.create(household);
+    }
+}
@@ -0,0 +1,103 @@
+package com.safetynet.alerts.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.service.JsonPayload;
+import com.safetynet.alerts.util.ServerTiming;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+
+/**
+ * Writes the responses of the hottest queries directly to the servlet output stream.
+ * The payload is written with a JsonGenerator on the request thread, without going through the message converters,
+ * so no DTO is built and no reflection is needed to serialize it. The generator writes JSON or, when created by a
+ * binary mapper, CBOR or Smile. The bytes of a cached response are written as they are.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see JsonPayload
+ * @see ResponseCache
+ * @see ResponseFormat
+ * @see ServerTiming
+ */
+final class JsonResponse {
+
+    private JsonResponse() {
+    }
+
+
+    /**
+     * Writes a payload as the body of a response.
+     *
+     * @param objectMapper The ObjectMapper whose factory creates the generator.
+     * @param contentType  The media type written by the factory.
+     * @param response     The response to write to.
+     * @param payload      The payload to write.
+     * @throws IOException if the payload could not be written, for example when the client disconnected.
+     */
+    static void write(ObjectMapper objectMapper, MediaType contentType, HttpServletResponse response, JsonPayload payload) throws IOException {
+        response.setContentType(contentType.toString());
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            payload.writeTo(generator);
+        }
+    }
+
+
+    /**
+     * Writes a cached response as the body of a response, compressed with gzip if the client accepts it.
+     *
+     * @param response       The response to write to.
+     * @param entry          The cached response.
+     * @param contentType    The media type of the cached bytes.
+     * @param acceptEncoding The Accept-Encoding header of the request, can be null.
+     * @throws IOException if the response could not be written, for example when the client disconnected.
+     */
+    static void write(HttpServletResponse response, ResponseCache.Entry entry, MediaType contentType, String acceptEncoding) throws IOException {
+        byte[] body = entry.body();
+        response.setContentType(contentType.toString());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (entry.gzip() != null && acceptsGzip(acceptEncoding)) {
+            body = entry.gzip();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+
+    /**
+     * Writes a payload to an array of bytes, to be cached.
+     *
+     * @param objectMapper The ObjectMapper whose factory creates the generator.
+     * @param payload      The payload to write.
+     * @return The bytes of the payload, in the format of the factory.
+     * @throws IOException if the payload could not be written.
+     */
+    static byte[] toBytes(ObjectMapper objectMapper, JsonPayload payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (ServerTiming.Phase phase = ServerTiming.phase("serialize");
+             JsonGenerator generator = objectMapper.createGenerator(bytes)) {
+            payload.writeTo(generator);
+        }
+        return bytes.toByteArray();
+    }
+
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) continue;
+            return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+}
@@ -1,9 +1,17 @@
 package com.safetynet.alerts.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.AffectedRecordsDTO;
+import com.safetynet.alerts.dto.BatchItemResultDTO;
+import com.safetynet.alerts.dto.IngestProgressDTO;
+import com.safetynet.alerts.dto.MedicalRecordTransformDTO;
 import com.safetynet.alerts.dto.PersonIdentifierDTO;
+import com.safetynet.alerts.dto.ResourceIdDTO;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.service.MedicalRecordService;
+import com.safetynet.alerts.util.RequestLog;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -11,10 +19,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.tinylog.Logger;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 
 
@@ -24,16 +35,19 @@ import java.util.Map;
 public class MedicalRecordController {
 
     private final MedicalRecordService medicalRecordService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public MedicalRecordController(MedicalRecordService medicalRecordService) {
+    public MedicalRecordController(MedicalRecordService medicalRecordService, ObjectMapper objectMapper) {
         this.medicalRecordService = medicalRecordService;
+        this.objectMapper = objectMapper;
     }
 
 
     @Operation(summary = "Creates a medical record", description = "Creates a medical record with a last name, first name, birthdate, and medications.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "201", description = "Medical record has been created"),
+            @ApiResponse(responseCode = "201", description = "Medical record has been created, the body contains its ID.",
+                    content = {@Content(schema = @Schema(implementation = ResourceIdDTO.class))}),
             @ApiResponse(responseCode = "400", description = "Medical record with specified data are not valid.",
                     content = {@Content(schema = @Schema(implementation = Map.class))}),
             @ApiResponse(responseCode = "406", description = "Birthdate format is not valid to parse.",
@@ -42,12 +56,68 @@ public class MedicalRecordController {
                     content = {@Content(schema = @Schema(implementation = Error.class))})
     })
     @PostMapping
-    public ResponseEntity<Void> create(@RequestBody @Valid MedicalRecord medicalRecord) {
-        Logger.info("Request to create a new medical record : {}", medicalRecord);
+    public ResponseEntity<ResourceIdDTO> create(@RequestBody @Valid MedicalRecord medicalRecord) {
+        RequestLog.info("Request to create a new medical record : {}", medicalRecord);
         return medicalRecordService.create(medicalRecord);
     }
 
 
+    @Operation(summary = "Creates several medical records", description = "Creates several medical records in one request. Each medical record is validated and checked independently, then all the accepted medical records are saved at once. The result of each medical record is returned in the order of the request : 201 with its ID, 400 if it is not valid or 409 if it already exists.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The batch has been processed, the body contains the result of each medical record.",
+                    content = {@Content(schema = @Schema(implementation = BatchItemResultDTO.class))})
+    })
+    @PostMapping("/batch")
+    public List<BatchItemResultDTO> createBatch(@RequestBody List<MedicalRecord> medicalRecords) {
+        RequestLog.info("Request to create a batch of {} medical records", medicalRecords.size());
+        return medicalRecordService.createBatch(medicalRecords);
+    }
+
+
+    @Operation(summary = "Imports medical records from a stream", description = "Imports medical records from a newline delimited JSON body, one medical record per line, validated like a single medical record. The medical records are saved by chunks of 1000 as the body is read. The response streams a line for each rejected medical record, with its line number, and a progress line after each chunk.",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {@Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = MedicalRecord.class))}))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The import has started, the body streams the rejected medical records and the progress.",
+                    content = {@Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = IngestProgressDTO.class))})
+    })
+    @PostMapping(value = "/ingest", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> ingest(@Parameter(hidden = true) InputStream body) {
+        RequestLog.info("Request to import a stream of medical records");
+        return NdjsonIngest.of(objectMapper, body, MedicalRecord.class, medicalRecordService::createBatch);
+    }
+
+
+    @Operation(summary = "Transforms medical records", description = "Replaces or removes a medication or an allergy in every medical record containing it, for example when a medication is renamed or recalled. A medication given without dose matches every dose, and a new medication given without dose keeps the dose of the replaced one. All the medical records are saved at once.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Medical records have been transformed, the body contains the number of medical records changed.",
+                    content = {@Content(schema = @Schema(implementation = AffectedRecordsDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Transformation with specified data is not valid.",
+                    content = {@Content(schema = @Schema(implementation = Map.class))})
+    })
+    @PostMapping("/transform")
+    public AffectedRecordsDTO transform(@RequestBody @Valid MedicalRecordTransformDTO transform) {
+        RequestLog.info("Request to transform medical records : {}", transform);
+        return medicalRecordService.transform(transform);
+    }
+
+
+    @Operation(summary = "Get a medical record by its ID", description = "Get a medical record by the ID returned on its creation. An ID is only valid until the data is loaded again, on a restart : an older ID is not found.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Medical record with the specified ID.",
+                    content = {@Content(schema = @Schema(implementation = MedicalRecord.class))}),
+            @ApiResponse(responseCode = "404", description = "Medical record with specified ID was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @GetMapping("/{id}")
+    public MedicalRecord getById(
+            @PathVariable("id")
+            @Parameter(description = "The ID of the medical record", example = "4294967297")
+            long id) {
+        RequestLog.info("Request to get the medical record with id : {}", id);
+        return medicalRecordService.getById(id);
+    }
+
+
     @Operation(summary = "Updates a medical record", description = "Updates a medical record by the last name and the first name.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Medical record has been updated"),
@@ -60,11 +130,34 @@ public class MedicalRecordController {
     })
     @PutMapping
     public ResponseEntity<Void> update(@RequestBody @Valid MedicalRecord medicalRecord) {
-        Logger.info("Request to update a medical record : {}", medicalRecord);
+        RequestLog.info("Request to update a medical record : {}", medicalRecord);
         return medicalRecordService.update(medicalRecord);
     }
 
 
+    @Operation(summary = "Updates a medical record by its ID", description = "Updates a medical record by its ID. The last name and first name can be changed.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Medical record has been updated"),
+            @ApiResponse(responseCode = "400", description = "Medical record with specified data are not valid.",
+                    content = {@Content(schema = @Schema(implementation = Map.class))}),
+            @ApiResponse(responseCode = "406", description = "Birthdate format is not valid to parse.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
+            @ApiResponse(responseCode = "404", description = "Medical record with specified ID was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
+            @ApiResponse(responseCode = "409", description = "Another medical record with specified last name and first name already exists.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @PutMapping("/{id}")
+    public ResponseEntity<Void> updateById(
+            @PathVariable("id")
+            @Parameter(description = "The ID of the medical record", example = "4294967297")
+            long id,
+            @RequestBody @Valid MedicalRecord medicalRecord) {
+        RequestLog.info("Request to update the medical record with id {} : {}", id, medicalRecord);
+        return medicalRecordService.updateById(id, medicalRecord);
+    }
+
+
     @Operation(summary = "Deletes a medical record", description = "Deletes a medical record by the last name and the first name.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Medical record has been deleted"),
@@ -75,7 +168,23 @@ public class MedicalRecordController {
     })
     @DeleteMapping
     public ResponseEntity<Void> delete(@RequestBody @Valid PersonIdentifierDTO personIdentifier) {
-        Logger.info("Request to delete a medical record : {}", personIdentifier);
+        RequestLog.info("Request to delete a medical record : {}", personIdentifier);
         return medicalRecordService.delete(personIdentifier);
     }
+
+
+    @Operation(summary = "Deletes a medical record by its ID", description = "Deletes a medical record by its ID.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Medical record has been deleted"),
+            @ApiResponse(responseCode = "404", description = "Medical record with specified ID was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteById(
+            @PathVariable("id")
+            @Parameter(description = "The ID of the medical record", example = "4294967297")
+            long id) {
+        RequestLog.info("Request to delete the medical record with id : {}", id);
+        return medicalRecordService.deleteById(id);
+    }
 }
@@ -0,0 +1,223 @@
+package com.safetynet.alerts.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.safetynet.alerts.dto.BatchItemResultDTO;
+import com.safetynet.alerts.dto.IngestErrorDTO;
+import com.safetynet.alerts.dto.IngestProgressDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+
+/**
+ * Imports records read from a newline delimited JSON request body.
+ * The body is read line by line and the records are applied by chunks : the next line is only read once the
+ * previous chunk has been applied and its results written, so at most one chunk is held in memory and a client
+ * sending faster than the data can be applied is slowed down by the transport.
+ * The response is streamed as newline delimited JSON : one error line for each rejected record, followed by a
+ * progress line after each chunk, the last one being marked as done.
+ * A line is never read past its maximum length : the rest of a longer line is skipped without being kept,
+ * and the record is rejected with a 413, so a body without line breaks can't exhaust the memory.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see IngestErrorDTO
+ * @see IngestProgressDTO
+ * @see BatchItemResultDTO
+ */
+final class NdjsonIngest {
+
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_LINE_LENGTH = 16 * 1024;
+
+    private NdjsonIngest() {
+    }
+
+
+    /**
+     * Builds a streamed response importing the records of a request body.
+     *
+     * @param objectMapper The ObjectMapper used to read the records and write the results.
+     * @param body         The newline delimited JSON request body.
+     * @param type         The type of the records.
+     * @param batchCreator The function creating a chunk of records and returning the result of each of them.
+     * @param <T>          The type of the records.
+     * @return A ResponseEntity streaming the errors and the progress of the import.
+     */
+    static <T> ResponseEntity<StreamingResponseBody> of(ObjectMapper objectMapper, InputStream body, Class<T> type,
+                                                        Function<List<T>, List<BatchItemResultDTO>> batchCreator) {
+        StreamingResponseBody response = outputStream -> {
+            Import<T> recordImport = new Import<>(objectMapper.readerFor(type), batchCreator);
+            try (LineReader reader = new LineReader(new InputStreamReader(body, StandardCharsets.UTF_8), MAX_LINE_LENGTH);
+                 JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                recordImport.run(reader, generator);
+            } catch (IOException ex) {
+                Logger.info("Import interrupted after {} lines, {} records created : {}", recordImport.lines, recordImport.created, ex.getMessage());
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(response);
+    }
+
+
+    private static final class Import<T> {
+        private final ObjectReader recordReader;
+        private final Function<List<T>, List<BatchItemResultDTO>> batchCreator;
+        private final List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final List<Long> chunkLines = new ArrayList<>(CHUNK_SIZE);
+        private long lines;
+        private long created;
+        private long rejected;
+        private JsonGenerator generator;
+
+        private Import(ObjectReader recordReader, Function<List<T>, List<BatchItemResultDTO>> batchCreator) {
+            this.recordReader = recordReader;
+            this.batchCreator = batchCreator;
+        }
+
+        private void run(LineReader reader, JsonGenerator generator) throws IOException {
+            this.generator = generator;
+            while (reader.next()) {
+                if (reader.isTooLong()) {
+                    reject(reader.maxLength);
+                } else {
+                    read(reader.line());
+                }
+            }
+            finish();
+        }
+
+        private void reject(int maxLength) throws IOException {
+            lines++;
+            rejected++;
+            write(new IngestErrorDTO(lines, HttpStatus.PAYLOAD_TOO_LARGE.value(), "Record is longer than " + maxLength + " characters"));
+        }
+
+        private void read(String line) throws IOException {
+            lines++;
+            if (line.isBlank()) return;
+            try {
+                chunk.add(recordReader.readValue(line));
+                chunkLines.add(lines);
+            } catch (JsonProcessingException ex) {
+                rejected++;
+                write(new IngestErrorDTO(lines, HttpStatus.BAD_REQUEST.value(), "Record can't be read : " + ex.getOriginalMessage()));
+            }
+            if (chunk.size() == CHUNK_SIZE) applyChunk();
+        }
+
+        private void finish() throws IOException {
+            if (!chunk.isEmpty()) applyChunk();
+            write(new IngestProgressDTO(lines, created, rejected, true));
+            generator.flush();
+            Logger.info("Import done : {} lines read, {} records created, {} rejected", lines, created, rejected);
+        }
+
+        private void applyChunk() throws IOException {
+            for (BatchItemResultDTO result : batchCreator.apply(chunk)) {
+                if (result.id() != null) {
+                    created++;
+                } else {
+                    rejected++;
+                    write(new IngestErrorDTO(chunkLines.get(result.index()), result.status(), result.error()));
+                }
+            }
+            chunk.clear();
+            chunkLines.clear();
+            write(new IngestProgressDTO(lines, created, rejected, false));
+            generator.flush();
+        }
+
+        private void write(Object value) throws IOException {
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+        }
+    }
+
+
+    /**
+     * Reads the lines of a body, keeping at most a maximum number of characters of each line.
+     * A line ends with \n or \r\n, and the last line of the body may have no line break.
+     */
+    private static final class LineReader implements AutoCloseable {
+        private final Reader reader;
+        private final int maxLength;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean tooLong;
+
+        private LineReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * Reads the next line.
+         *
+         * @return false at the end of the body.
+         * @throws IOException if the body can't be read.
+         */
+        private boolean next() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(0, reader.read(buffer));
+                    position = 0;
+                    if (limit == 0) return read;
+                }
+                read = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') position++;
+                append(start, position);
+                if (position < limit) {
+                    position++;
+                    if (!tooLong && !line.isEmpty() && line.charAt(line.length() - 1) == '\r') line.setLength(line.length() - 1);
+                    return true;
+                }
+            }
+        }
+
+        private void append(int start, int end) {
+            int room = maxLength - line.length();
+            if (end - start > room) {
+                line.append(buffer, start, room);
+                tooLong = true;
+            } else {
+                line.append(buffer, start, end - start);
+            }
+        }
+
+        private boolean isTooLong() {
+            return tooLong;
+        }
+
+        private String line() {
+            return line.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
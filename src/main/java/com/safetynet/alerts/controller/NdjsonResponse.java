@@ -0,0 +1,97 @@
+package com.safetynet.alerts.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.exception.DeadlineExceededException;
+import com.safetynet.alerts.util.Deadline;
+import com.safetynet.alerts.util.ServerTiming;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.tinylog.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+
+/**
+ * Builds the responses of queries streamed as newline delimited JSON.
+ * Each element is written with a JsonGenerator as soon as it is read, so the memory used doesn't depend on the
+ * number of elements. The output is flushed every few elements, or every few milliseconds when they come slowly,
+ * so a client that disconnects is detected soon and the stream, and the scan feeding it, are closed at once.
+ * The handlers returning them are mapped apart, with produces = application/x-ndjson, so that the
+ * StreamingResponseBody is declared in their signature and picked by its return value handler.
+ * The body is written by a thread of the asynchronous requests : it runs with the deadline and the Server-Timing
+ * of the request, and stops at the deadline. The admission permit of the request is only released by the dispatch
+ * ending the asynchronous request, once the body is written, so a stream holds its permit while it runs.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see StreamingResponseBody
+ * @see Deadline
+ * @see ServerTiming
+ */
+final class NdjsonResponse {
+
+    private static final int FLUSH_INTERVAL = 256;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private NdjsonResponse() {
+    }
+
+
+    /**
+     * Converts a stream of elements to a streamed response, one JSON document per line.
+     *
+     * @param objectMapper The ObjectMapper used to serialize the elements.
+     * @param elements     The lazy stream of elements to write, closed once written.
+     * @return A ResponseEntity writing the elements as newline delimited JSON.
+     */
+    static ResponseEntity<StreamingResponseBody> of(ObjectMapper objectMapper, Stream<?> elements) {
+        // The context of the request is captured here, in the thread of the request, and set in the writing thread
+        AtomicReference<OutputStream> target = new AtomicReference<>();
+        Callable<Integer> write = Deadline.propagate(ServerTiming.propagate(() -> write(objectMapper, elements, target.get())));
+        StreamingResponseBody body = outputStream -> {
+            target.set(outputStream);
+            try {
+                write.call();
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+
+    private static int write(ObjectMapper objectMapper, Stream<?> elements, OutputStream outputStream) {
+        int count = 0;
+        try (elements; JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            long lastFlush = System.nanoTime();
+            Iterator<?> iterator = elements.iterator();
+            while (iterator.hasNext()) {
+                Deadline.check();
+                generator.writeObject(iterator.next());
+                generator.writeRaw('\n');
+                if (++count % FLUSH_INTERVAL == 0 || System.nanoTime() - lastFlush >= FLUSH_INTERVAL_NANOS) {
+                    generator.flush();
+                    lastFlush = System.nanoTime();
+                }
+            }
+        } catch (IOException ex) {
+            Logger.info("Client disconnected, streaming stopped after {} elements", count);
+        } catch (DeadlineExceededException ex) {
+            Logger.info("Request deadline reached, streaming stopped after {} elements", count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,96 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.AdmissionStatsDTO;
+import com.safetynet.alerts.dto.HotKeyDTO;
+import com.safetynet.alerts.dto.ResponseCacheStatsDTO;
+import com.safetynet.alerts.dto.SurgeStatusDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+
+@Tag(name = "Operations API")
+@RestController
+public class OperationsController {
+
+    private final ResponseCache responseCache;
+    private final HotKeyTracker hotKeyTracker;
+    private final AdmissionInterceptor admissionInterceptor;
+    private final SurgeMode surgeMode;
+
+    @Autowired
+    public OperationsController(ResponseCache responseCache, HotKeyTracker hotKeyTracker, AdmissionInterceptor admissionInterceptor, SurgeMode surgeMode) {
+        this.responseCache = responseCache;
+        this.hotKeyTracker = hotKeyTracker;
+        this.admissionInterceptor = admissionInterceptor;
+        this.surgeMode = surgeMode;
+    }
+
+
+    @Operation(summary = "Get the statistics of the response cache", description = "Get the number of responses and bytes cached for /fire, /phonealert and /firestation, the number of hits and misses, and the number of requests coalesced : identical requests that arrived while the same response was being built and waited for it instead of building their own.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics of the response cache.",
+                    content = {@Content(schema = @Schema(implementation = ResponseCacheStatsDTO.class))})
+    })
+    @GetMapping("/ops/responsecache")
+    public ResponseCacheStatsDTO getResponseCacheStats() {
+        return responseCache.getStats();
+    }
+
+
+    @Operation(summary = "Get the hottest keys of the cached endpoints", description = "Get the most requested addresses of /fire and stations of /phonealert and /firestation, with their estimated number of requests. The counts are estimated in a bounded memory and halved regularly, so they favor the recent requests. The responses of these keys are built ahead of the requests on startup and each time the data changes.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of the hottest keys of each endpoint, the hottest first.",
+                    content = {@Content(schema = @Schema(implementation = HotKeyDTO.class))})
+    })
+    @GetMapping("/ops/hotkeys")
+    public List<HotKeyDTO> getHotKeys() {
+        return hotKeyTracker.getHotKeys();
+    }
+
+
+    @Operation(summary = "Get the statistics of the admission control", description = "Get, for each class of endpoints (emergency reads, other reads and writes), the limit of concurrent requests, the requests running and queued, and the number of requests admitted and rejected with a 503 since the start.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistics of each class of endpoints.",
+                    content = {@Content(schema = @Schema(implementation = AdmissionStatsDTO.class))})
+    })
+    @GetMapping("/ops/admission")
+    public List<AdmissionStatsDTO> getAdmissionStats() {
+        return admissionInterceptor.getStats();
+    }
+
+
+    @Operation(summary = "Get the status of the surge mode", description = "Get whether the surge mode is active, whether it was entered by an operator or automatically and since when, the sample rate of the request logs, the rate limit of the non emergency endpoints, whether the cached responses are pinned, and whether the writes to the JSON file are deferred with the number of writes waiting for the next flush.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Status of the surge mode.",
+                    content = {@Content(schema = @Schema(implementation = SurgeStatusDTO.class))})
+    })
+    @GetMapping("/ops/surge")
+    public SurgeStatusDTO getSurgeStatus() {
+        return surgeMode.getStatus();
+    }
+
+    @Operation(summary = "Enters or leaves the surge mode", description = "Enters the surge mode for a major incident : the writes to the JSON file are deferred and flushed periodically, the request logs are sampled, the non emergency endpoints are rate limited and the cached responses are pinned. Leaving it flushes the deferred writes at once and restores the normal behavior. A surge entered by an operator is not left automatically.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Status of the surge mode after the change.",
+                    content = {@Content(schema = @Schema(implementation = SurgeStatusDTO.class))})
+    })
+    @PutMapping("/ops/surge")
+    public SurgeStatusDTO setSurgeMode(
+            @RequestParam("enabled")
+            @Parameter(description = "True to enter the surge mode, false to leave it", example = "true")
+            boolean enabled) {
+        return enabled ? surgeMode.enable(SurgeMode.Trigger.OPERATOR) : surgeMode.disable();
+    }
+}
@@ -0,0 +1,53 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.PageDTO;
+import org.springframework.http.ResponseEntity;
+
+
+/**
+ * Builds the responses of paginated queries.
+ * The body keeps the shape of the non-paginated response, while the cursor of the next page and the version
+ * of the data are returned in headers.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see PageDTO
+ */
+final class PageResponse {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String DATA_VERSION_HEADER = "X-Data-Version";
+
+    private PageResponse() {
+    }
+
+
+    /**
+     * Converts a page to a response. The next cursor header is only set when there is a next page.
+     *
+     * @param page The page to return.
+     * @param <T>  The type of the content of the page.
+     * @return A ResponseEntity with the content of the page and the pagination headers.
+     */
+    static <T> ResponseEntity<T> of(PageDTO<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(DATA_VERSION_HEADER, String.valueOf(page.version()));
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.content());
+    }
+
+
+    /**
+     * Checks whether a query is paginated.
+     *
+     * @param pageSize The requested page size, can be null.
+     * @param cursor   The requested cursor, can be null.
+     * @return true if a page size or a cursor was requested, false otherwise.
+     */
+    static boolean isPaginated(Integer pageSize, String cursor) {
+        return pageSize != null || cursor != null;
+    }
+}
@@ -1,10 +1,17 @@
 package com.safetynet.alerts.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.BatchItemResultDTO;
 import com.safetynet.alerts.dto.ChildInfoDTO;
+import com.safetynet.alerts.dto.IngestProgressDTO;
 import com.safetynet.alerts.dto.PersonIdentifierDTO;
 import com.safetynet.alerts.dto.PersonInfoDTO;
+import com.safetynet.alerts.dto.PersonSearchResultDTO;
+import com.safetynet.alerts.dto.PhoneLookupDTO;
+import com.safetynet.alerts.dto.ResourceIdDTO;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.service.PersonService;
+import com.safetynet.alerts.util.RequestLog;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,11 +20,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Pattern;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.tinylog.Logger;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -28,28 +38,73 @@ import java.util.Set;
 public class PersonController {
 
     private final PersonService personService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public PersonController(PersonService personService) {
+    public PersonController(PersonService personService, ObjectMapper objectMapper) {
         this.personService = personService;
+        this.objectMapper = objectMapper;
     }
 
 
     @Operation(summary = "Creates a person", description = "Creates a person with several information : last name, first name, address, city, zip, phone, email.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "201", description = "Person has been created"),
+            @ApiResponse(responseCode = "201", description = "Person has been created, the body contains his ID.",
+                    content = {@Content(schema = @Schema(implementation = ResourceIdDTO.class))}),
             @ApiResponse(responseCode = "400", description = "Person with specified data are not valid.",
                     content = {@Content(schema = @Schema(implementation = Map.class))}),
             @ApiResponse(responseCode = "409", description = "Person with specified last name and first name already exists.",
                     content = {@Content(schema = @Schema(implementation = Error.class))})
     })
     @PostMapping("/person")
-    public ResponseEntity<Void> create(@RequestBody @Valid Person person) {
-        Logger.info("Request to create a new person : {}", person);
+    public ResponseEntity<ResourceIdDTO> create(@RequestBody @Valid Person person) {
+        RequestLog.info("Request to create a new person : {}", person);
         return personService.create(person);
     }
 
 
+    @Operation(summary = "Creates several persons", description = "Creates several persons in one request. Each person is validated and checked independently, then all the accepted persons are saved at once. The result of each person is returned in the order of the request : 201 with its ID, 400 if it is not valid or 409 if it already exists.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The batch has been processed, the body contains the result of each person.",
+                    content = {@Content(schema = @Schema(implementation = BatchItemResultDTO.class))})
+    })
+    @PostMapping("/person/batch")
+    public List<BatchItemResultDTO> createBatch(@RequestBody List<Person> persons) {
+        RequestLog.info("Request to create a batch of {} persons", persons.size());
+        return personService.createBatch(persons);
+    }
+
+
+    @Operation(summary = "Imports persons from a stream", description = "Imports persons from a newline delimited JSON body, one person per line, validated like a single person. The persons are saved by chunks of 1000 as the body is read. The response streams a line for each rejected person, with its line number, and a progress line after each chunk.",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {@Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = Person.class))}))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The import has started, the body streams the rejected persons and the progress.",
+                    content = {@Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = IngestProgressDTO.class))})
+    })
+    @PostMapping(value = "/person/ingest", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> ingest(@Parameter(hidden = true) InputStream body) {
+        RequestLog.info("Request to import a stream of persons");
+        return NdjsonIngest.of(objectMapper, body, Person.class, personService::createBatch);
+    }
+
+
+    @Operation(summary = "Get a person by his ID", description = "Get a person by the ID returned on his creation. An ID is only valid until the data is loaded again, on a restart : an older ID is not found.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Person with the specified ID.",
+                    content = {@Content(schema = @Schema(implementation = Person.class))}),
+            @ApiResponse(responseCode = "404", description = "Person with specified ID was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @GetMapping("/person/{id}")
+    public Person getById(
+            @PathVariable("id")
+            @Parameter(description = "The ID of the person", example = "4294967297")
+            long id) {
+        RequestLog.info("Request to get the person with id : {}", id);
+        return personService.getById(id);
+    }
+
+
     @Operation(summary = "Updates a person", description = "Updates a person's information by last name and first name")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Person has been updated"),
@@ -60,11 +115,32 @@ public class PersonController {
     })
     @PutMapping("/person")
     public ResponseEntity<Void> update(@RequestBody @Valid Person person) {
-        Logger.info("Request to update a person : {}", person);
+        RequestLog.info("Request to update a person : {}", person);
         return personService.update(person);
     }
 
 
+    @Operation(summary = "Updates a person by his ID", description = "Updates a person's information by his ID. The last name and first name can be changed.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Person has been updated"),
+            @ApiResponse(responseCode = "400", description = "Person with specified data are not valid.",
+                    content = {@Content(schema = @Schema(implementation = Map.class))}),
+            @ApiResponse(responseCode = "404", description = "Person with specified ID was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
+            @ApiResponse(responseCode = "409", description = "Another person with specified last name and first name already exists.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @PutMapping("/person/{id}")
+    public ResponseEntity<Void> updateById(
+            @PathVariable("id")
+            @Parameter(description = "The ID of the person", example = "4294967297")
+            long id,
+            @RequestBody @Valid Person person) {
+        RequestLog.info("Request to update the person with id {} : {}", id, person);
+        return personService.updateById(id, person);
+    }
+
+
     @Operation(summary = "Deletes a person", description = "Deletes a person by last name and first name")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Person has been deleted"),
@@ -75,42 +151,161 @@ public class PersonController {
     })
     @DeleteMapping("/person")
     public ResponseEntity<Void> delete(@RequestBody @Valid PersonIdentifierDTO personIdentifier) {
-        Logger.info("Request to delete a person : {}", personIdentifier);
+        RequestLog.info("Request to delete a person : {}", personIdentifier);
         return personService.delete(personIdentifier);
     }
 
 
-    @Operation(summary = "Get all information of a person by his last name", description = "Get all information of a person by his last name. The information contains the last name, first name, address, age, email. and his medical record. Can return multiple persons with the same last name.")
+    @Operation(summary = "Deletes a person by his ID", description = "Deletes a person by his ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Person has been deleted"),
+            @ApiResponse(responseCode = "404", description = "Person with specified ID was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @DeleteMapping("/person/{id}")
+    public ResponseEntity<Void> deleteById(
+            @PathVariable("id")
+            @Parameter(description = "The ID of the person", example = "4294967297")
+            long id) {
+        RequestLog.info("Request to delete the person with id : {}", id);
+        return personService.deleteById(id);
+    }
+
+
+    @Operation(summary = "Get all information of a person by his last name", description = "Get all information of a person by his last name. The information contains the last name, first name, address, age, email. and his medical record. Can return multiple persons with the same last name. With a page size or a cursor, the persons are returned page by page, ordered by first name.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of information for the specified last name.",
                     content = {@Content(schema = @Schema(implementation = PersonInfoDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Cursor is not valid.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
             @ApiResponse(responseCode = "404", description = "Specified last name was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
+            @ApiResponse(responseCode = "409", description = "Data changed since the previous page, pagination must be restarted.",
                     content = {@Content(schema = @Schema(implementation = Error.class))})
     })
     @GetMapping("/personinfo")
-    public List<PersonInfoDTO> getPersonByLastname(
+    public ResponseEntity<?> getPersonByLastname(
+            @RequestParam("lastname")
+            @Parameter(description = "The last name of the person to be searched", example = "Boyd")
+            String lastname,
+            @RequestParam(value = "pagesize", required = false)
+            @Parameter(description = "The maximum number of persons per page, enables pagination (up to 1000)", example = "100")
+            Integer pageSize,
+            @RequestParam(value = "cursor", required = false)
+            @Parameter(description = "The cursor of the next page, returned in the X-Next-Cursor header of the previous page")
+            String cursor) {
+        RequestLog.info("Request to get one or several person by the last name : {}", lastname);
+        if (PageResponse.isPaginated(pageSize, cursor)) {
+            return PageResponse.of(personService.getPersonByLastname(lastname, cursor, pageSize));
+        }
+        return ResponseEntity.ok(personService.getPersonByLastname(lastname));
+    }
+
+
+    @Operation(summary = "Stream all information of persons by their last name", description = "Stream all information of the persons with a last name as newline delimited JSON, one person per line. The information contains the last name, first name, address, age, email and the medical record. The persons are written as they are read, the stream stops at the deadline of the request.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Persons with the specified last name, one per line.",
+                    content = {@Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = PersonInfoDTO.class))}),
+            @ApiResponse(responseCode = "404", description = "Specified last name was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @GetMapping(value = "/personinfo", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPersonByLastname(
             @RequestParam("lastname")
             @Parameter(description = "The last name of the person to be searched", example = "Boyd")
             String lastname) {
-        Logger.info("Request to get one or several person by the last name : {}", lastname);
-        return personService.getPersonByLastname(lastname);
+        RequestLog.info("Request to stream one or several person by the last name : {}", lastname);
+        return NdjsonResponse.of(objectMapper, personService.streamPersonByLastname(lastname));
+    }
+
+
+    @Operation(summary = "Search persons by the beginning of their name", description = "Search persons by the beginning of their last name and optionally of their first name. Typos are tolerated : one for names of 3 to 5 characters, two for longer names. Results are ordered from the closest match.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of persons matching the search.",
+                    content = {@Content(schema = @Schema(implementation = PersonSearchResultDTO.class))}),
+            @ApiResponse(responseCode = "404", description = "No person matches the search.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @GetMapping("/person/search")
+    public List<PersonSearchResultDTO> searchPersons(
+            @RequestParam("lastname")
+            @Parameter(description = "The beginning of the last name, typos are tolerated", example = "Boi")
+            String lastname,
+            @RequestParam(value = "firstname", required = false)
+            @Parameter(description = "The beginning of the first name, typos are tolerated", example = "Jo")
+            String firstname,
+            @RequestParam(value = "limit", defaultValue = "20")
+            @Parameter(description = "The maximum number of results, up to 100", example = "20")
+            int limit) {
+        RequestLog.info("Request to search persons by the last name : {} and the first name : {}", lastname, firstname);
+        return personService.searchPersons(lastname, firstname, limit);
     }
 
 
-    @Operation(summary = "Get the set of all person's email by the city", description = "Get the set of all person's email by the city.")
+    @Operation(summary = "Get the residents behind a phone number", description = "Get the residents registered with a phone number, grouped by address. Each address contains the city, the number of the fire station covering it and the residents information (last name, first name, phone, age and the medical record).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Residents registered with the specified phone number.",
+                    content = {@Content(schema = @Schema(implementation = PhoneLookupDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Phone number format is not valid.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
+            @ApiResponse(responseCode = "404", description = "Specified phone number was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @GetMapping("/phonelookup")
+    public PhoneLookupDTO getResidentsByPhone(
+            @RequestParam("phone")
+            @Parameter(description = "The phone number of the caller", example = "841-874-6512")
+            @Pattern(regexp = "^\\d{3}-\\d{3}-\\d{4}$", message = "Phone number must be in the format 123-456-7890")
+            String phone) {
+        RequestLog.info("Request to get residents by the phone number : {}", phone);
+        return personService.getResidentsByPhone(phone);
+    }
+
+
+    @Operation(summary = "Get the set of all person's email by the city", description = "Get the set of all person's email by the city. With a page size or a cursor, the emails are returned page by page, in alphabetical order.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Set of all emails for the specified city.",
                     content = {@Content(schema = @Schema(implementation = Set.class))}),
+            @ApiResponse(responseCode = "400", description = "Cursor is not valid.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
             @ApiResponse(responseCode = "404", description = "Specified city was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))}),
+            @ApiResponse(responseCode = "409", description = "Data changed since the previous page, pagination must be restarted.",
                     content = {@Content(schema = @Schema(implementation = Error.class))})
     })
     @GetMapping("/communityemail")
-    public Set<String> getEmailsByCity(
+    public ResponseEntity<?> getEmailsByCity(
+            @RequestParam("city")
+            @Parameter(description = "The city where we want all the residents' emails", example = "Culver")
+            String city,
+            @RequestParam(value = "pagesize", required = false)
+            @Parameter(description = "The maximum number of emails per page, enables pagination (up to 1000)", example = "100")
+            Integer pageSize,
+            @RequestParam(value = "cursor", required = false)
+            @Parameter(description = "The cursor of the next page, returned in the X-Next-Cursor header of the previous page")
+            String cursor) {
+        RequestLog.info("Request to get emails by the city : {}", city);
+        if (PageResponse.isPaginated(pageSize, cursor)) {
+            return PageResponse.of(personService.getEmailsByCity(city, cursor, pageSize));
+        }
+        return ResponseEntity.ok(personService.getEmailsByCity(city));
+    }
+
+
+    @Operation(summary = "Stream all person's email by the city", description = "Stream the emails of the residents of a city as newline delimited JSON, one email per line. The emails are written as they are read, the stream stops at the deadline of the request.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Emails for the specified city, one per line.",
+                    content = {@Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = String.class))}),
+            @ApiResponse(responseCode = "404", description = "Specified city was not found.",
+                    content = {@Content(schema = @Schema(implementation = Error.class))})
+    })
+    @GetMapping(value = "/communityemail", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEmailsByCity(
             @RequestParam("city")
             @Parameter(description = "The city where we want all the residents' emails", example = "Culver")
             String city) {
-        Logger.info("Request to get emails by the city : {}", city);
-        return personService.getEmailsByCity(city);
+        RequestLog.info("Request to stream emails by the city : {}", city);
+        return NdjsonResponse.of(objectMapper, personService.streamEmailsByCity(city));
     }
 
 
@@ -126,7 +321,7 @@ public class PersonController {
             @RequestParam("address")
             @Parameter(description = "The address where we want to retrieve the information of all the children", example = "\"1509 Culver St\"")
             String address) {
-        Logger.info("Request to get children by the address : {}", address);
+        RequestLog.info("Request to get children by the address : {}", address);
         return personService.getChildrenByAddress(address);
     }
 
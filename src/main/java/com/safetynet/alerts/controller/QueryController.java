@@ -0,0 +1,46 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.QueryBatchDTO;
+import com.safetynet.alerts.dto.QueryBatchResultDTO;
+import com.safetynet.alerts.service.QueryService;
+import com.safetynet.alerts.util.RequestLog;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+
+@Tag(name = "Query API")
+@RestController
+public class QueryController {
+
+    private final QueryService queryService;
+
+    @Autowired
+    public QueryController(QueryService queryService) {
+        this.queryService = queryService;
+    }
+
+
+    @Operation(summary = "Runs several queries", description = "Runs several read queries in one request, all against the same version of the data : FIRE and CHILD_ALERT take an address, PHONE_ALERT and FIRESTATION take a station number. Each query returns the same result as its own endpoint. The result of each query is returned in the order of the request : 200 with its result, 400 if its value is not valid or 404 if nothing was found.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The queries have been run, the body contains the version of the data and the result of each query.",
+                    content = {@Content(schema = @Schema(implementation = QueryBatchResultDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Queries with specified data are not valid.",
+                    content = {@Content(schema = @Schema(implementation = Map.class))})
+    })
+    @PostMapping("/query")
+    public QueryBatchResultDTO query(@RequestBody @Valid QueryBatchDTO batch) {
+        RequestLog.info("Request to run a batch of {} queries", batch.queries().size());
+        return queryService.query(batch.queries());
+    }
+}
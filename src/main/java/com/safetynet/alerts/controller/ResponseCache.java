@@ -0,0 +1,223 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.ResponseCacheStatsDTO;
+import com.safetynet.alerts.util.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.tinylog.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * Cache of the final bytes of the hottest responses, serialized in JSON, CBOR or Smile and compressed with gzip.
+ * Each query keeps a single entry, valid for the version of the data it was built from, so a change of the data
+ * makes the next request rebuild it. The least recently used entries are evicted once the size of the cached bytes
+ * goes over the budget. Identical requests missing the cache at the same time share a single build of the response.
+ * During a surge the cache is pinned : the responses already cached, warmed before the surge, are kept and the ones
+ * cached during the surge are evicted first, so that the size of the cache never goes over the budget.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see JsonResponse
+ * @see SingleFlight
+ * @see ResponseCacheStatsDTO
+ */
+@Component
+public class ResponseCache {
+
+    // Below this size the gzip header and the extra round trip through the encoder cost more than they save
+    private static final int MIN_GZIP_SIZE = 256;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long size;
+    private boolean pinned;
+    private Set<String> pinnedKeys = Set.of();
+    private final SingleFlight<Entry> builds = new SingleFlight<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ResponseCache(@Value("${alerts.response-cache.max-bytes:16777216}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+
+    /**
+     * Retrieves the cached response of a query, or builds and caches it if there is none for this version.
+     * While a response is being built, the identical requests wait for it instead of building their own.
+     *
+     * @param key     The key of the query, for example its format, path and parameters.
+     * @param version The current version of the data.
+     * @param body    Builds the serialized bytes of the response. Its exceptions are thrown to all the waiting requests.
+     * @return The cached response.
+     */
+    public Entry getOrBuild(String key, long version, Supplier<byte[]> body) {
+        Entry entry = get(key, version);
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+        // The version ends the key, after the last separator, so two different queries never share a build
+        return builds.execute(key + "@" + version, () -> {
+            Entry built = get(key, version);
+            if (built != null) return built;
+            misses.increment();
+            return put(key, version, body.get());
+        });
+    }
+
+    /**
+     * Retrieves the cached response of a query, if it was built from the current version of the data.
+     *
+     * @param key     The key of the query, for example its format, path and parameters.
+     * @param version The current version of the data.
+     * @return The cached response, or null if there is none for this version.
+     */
+    public synchronized Entry get(String key, long version) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.version() != version) {
+            remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the serialized response of a query, with its gzip compressed version.
+     * A response bigger than the whole budget is returned without being cached.
+     *
+     * @param key     The key of the query.
+     * @param version The version of the data the response was built from.
+     * @param body    The serialized bytes of the response, in JSON or in a binary format.
+     * @return The cached response.
+     */
+    public Entry put(String key, long version, byte[] body) {
+        Entry entry = new Entry(version, body, body.length >= MIN_GZIP_SIZE ? gzip(body) : null);
+        if (entry.size() > maxBytes) {
+            Logger.info("Response of {} is bigger than the cache budget, not cached", key);
+            return entry;
+        }
+
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) size -= previous.size();
+            size += entry.size();
+            evictOverBudget(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Pins or unpins the cached responses. While pinned, the queries cached when pinning, and their new versions,
+     * are only evicted once the responses cached since are not enough to stay within the budget.
+     *
+     * @param pinned True to pin the cached responses.
+     */
+    public synchronized void setPinned(boolean pinned) {
+        this.pinned = pinned;
+        pinnedKeys = pinned ? new HashSet<>(entries.keySet()) : Set.of();
+    }
+
+    /**
+     * Indicates whether the cached responses are pinned.
+     *
+     * @return True if the responses cached when pinning are evicted last.
+     */
+    public synchronized boolean isPinned() {
+        return pinned;
+    }
+
+    /**
+     * Retrieves the statistics of the cache.
+     *
+     * @return The number of entries and bytes cached, the number of hits and misses of getOrBuild
+     * and the number of requests that waited for an identical build instead of running their own.
+     */
+    public ResponseCacheStatsDTO getStats() {
+        int count;
+        long bytes;
+        synchronized (this) {
+            count = entries.size();
+            bytes = size;
+        }
+        return new ResponseCacheStatsDTO(count, bytes, hits.sum(), misses.sum(), builds.getCoalescedCount());
+    }
+
+    /**
+     * Removes all the cached responses.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Retrieves the size of the cached responses.
+     *
+     * @return The number of bytes cached, serialized and gzip.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) size -= removed.size();
+    }
+
+    // Keeps the entry just cached, even if it is the least recently used, and the pinned ones as long as possible
+    private void evictOverBudget(Entry kept) {
+        evictOverBudget(kept, false);
+        evictOverBudget(kept, true);
+    }
+
+    private void evictOverBudget(Entry kept, boolean evictPinned) {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (size > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            if (evicted.getValue() == kept || !evictPinned && pinnedKeys.contains(evicted.getKey())) continue;
+            size -= evicted.getValue().size();
+            eldest.remove();
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        // Kept only if it actually saves bytes
+        return compressed.size() < body.length ? compressed.toByteArray() : null;
+    }
+
+
+    /**
+     * A cached response.
+     *
+     * @param version The version of the data the response was built from.
+     * @param body    The serialized bytes of the response, in JSON or in a binary format.
+     * @param gzip    The gzip compressed bytes, null if compressing doesn't make the response smaller.
+     */
+    public record Entry(long version, byte[] body, byte[] gzip) {
+
+        long size() {
+            return body.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.safetynet.alerts.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+
+
+/**
+ * The formats of the responses written directly with a JsonGenerator : JSON, CBOR and Smile.
+ * The binary formats are written from the same payloads as JSON, with a copy of the application ObjectMapper
+ * using a binary factory, so they carry the same structure.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see JsonResponse
+ */
+enum ResponseFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR),
+    SMILE(new MediaType("application", "x-jackson-smile"));
+
+    private final MediaType mediaType;
+
+    ResponseFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+
+    MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Creates the mapper writing this format.
+     *
+     * @param objectMapper The application ObjectMapper, writing JSON.
+     * @return The ObjectMapper itself for JSON, or a copy of it with the binary factory of the format.
+     */
+    ObjectMapper mapper(ObjectMapper objectMapper) {
+        return switch (this) {
+            case JSON -> objectMapper;
+            case CBOR -> objectMapper.copyWith(new CBORFactory());
+            case SMILE -> objectMapper.copyWith(new SmileFactory());
+        };
+    }
+
+    /**
+     * Chooses the format of a response from the Accept header of the request.
+     *
+     * @param accept The Accept header of the request, can be null.
+     * @return The supported format preferred by the client, JSON if it prefers none of them or the header is not valid.
+     */
+    static ResponseFormat of(String accept) {
+        if (accept == null || accept.isBlank()) return JSON;
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            return JSON;
+        }
+        MimeTypeUtils.sortBySpecificity(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0) continue;
+            for (ResponseFormat format : values()) {
+                if (format.mediaType.equalsTypeAndSubtype(mediaType)) return format;
+            }
+        }
+        return JSON;
+    }
+}
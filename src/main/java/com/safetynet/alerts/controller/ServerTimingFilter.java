@@ -0,0 +1,95 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.util.ServerTiming;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+
+/**
+ * Returns the durations of the phases of a request in its Server-Timing header, when the timing is enabled for every
+ * request by configuration, or for a single request by its X-Server-Timing header. The header is added just before
+ * the body of the response starts, so it holds the phases completed before, and the total time until then.
+ * The phases of a body written as a stream, after its start, are not reported.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see ServerTiming
+ */
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String ENABLE_HEADER = "X-Server-Timing";
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final boolean enabled;
+
+    public ServerTimingFilter(@Value("${alerts.server-timing.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (!enabled && request.getHeader(ENABLE_HEADER) == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        TimedResponse timedResponse = new TimedResponse(response, ServerTiming.start());
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            // A response without body, or whose body is written asynchronously, gets the phases timed so far
+            timedResponse.addServerTiming();
+            ServerTiming.clear();
+        }
+    }
+
+
+    private static final class TimedResponse extends HttpServletResponseWrapper {
+
+        private final ServerTiming timing;
+        private final long start = System.nanoTime();
+        private boolean added;
+
+        TimedResponse(HttpServletResponse response, ServerTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        synchronized void addServerTiming() {
+            if (added) return;
+            added = true;
+            if (!isCommitted()) setHeader(SERVER_TIMING_HEADER, timing.toHeader(System.nanoTime() - start));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.SurgeStatusDTO;
+import com.safetynet.alerts.repository.JsonFileHandler;
+import com.safetynet.alerts.util.RequestLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.tinylog.Logger;
+
+import java.time.Instant;
+
+
+/**
+ * Emergency surge mode, for a major incident when the emergency reads go up by an order of magnitude.
+ * In surge mode the writes to the JSON file are deferred and flushed periodically, the request logs are sampled,
+ * the non emergency endpoints are rate limited and the cached responses are pinned. The mode is entered and left
+ * by an operator, or automatically when the rate of emergency reads goes over a threshold, and left automatically
+ * once it stayed under half the threshold for the cool down. A surge entered by an operator is only left by an operator.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see JsonFileHandler
+ * @see RequestLog
+ * @see AdmissionInterceptor
+ * @see ResponseCache
+ */
+@Component
+public class SurgeMode {
+
+    /**
+     * What started the surge mode.
+     */
+    public enum Trigger {
+        OPERATOR,
+        AUTOMATIC
+    }
+
+    private final JsonFileHandler jsonFileHandler;
+    private final ResponseCache responseCache;
+    private final AdmissionInterceptor admissionInterceptor;
+    private final int logSampleRate;
+    private final double rateLimit;
+    private final double autoThreshold;
+    private final int autoCoolDown;
+
+    private Trigger trigger;
+    private Instant since;
+    private long lastAdmitted = -1;
+    private long lastDetection;
+    private int calmSeconds;
+
+    @Autowired
+    public SurgeMode(JsonFileHandler jsonFileHandler, ResponseCache responseCache, AdmissionInterceptor admissionInterceptor,
+                     @Value("${alerts.surge.log-sample-rate:100}") int logSampleRate,
+                     @Value("${alerts.surge.rate-limit:20}") double rateLimit,
+                     @Value("${alerts.surge.auto-threshold:0}") double autoThreshold,
+                     @Value("${alerts.surge.auto-cool-down:60}") int autoCoolDown) {
+        this.jsonFileHandler = jsonFileHandler;
+        this.responseCache = responseCache;
+        this.admissionInterceptor = admissionInterceptor;
+        this.logSampleRate = logSampleRate;
+        this.rateLimit = rateLimit;
+        this.autoThreshold = autoThreshold;
+        this.autoCoolDown = autoCoolDown;
+    }
+
+
+    /**
+     * Enters the surge mode, or does nothing if it is already active.
+     * An operator entering a surge started automatically takes it over, so it is no longer left automatically.
+     *
+     * @param trigger What starts the surge mode.
+     * @return The status of the surge mode.
+     */
+    public synchronized SurgeStatusDTO enable(Trigger trigger) {
+        if (this.trigger == null) {
+            jsonFileHandler.setDeferred(true);
+            RequestLog.setSampleRate(logSampleRate);
+            admissionInterceptor.setRateLimit(rateLimit);
+            responseCache.setPinned(true);
+            since = Instant.now();
+            Logger.info("Surge mode entered, triggered by {}", trigger);
+        }
+        if (this.trigger != Trigger.OPERATOR) this.trigger = trigger;
+        calmSeconds = 0;
+        return getStatus();
+    }
+
+    /**
+     * Leaves the surge mode, or does nothing if it is not active. The deferred writes are flushed at once.
+     *
+     * @return The status of the surge mode.
+     */
+    public SurgeStatusDTO disable() {
+        leave(null);
+        return getStatus();
+    }
+
+    /**
+     * Retrieves the status of the surge mode.
+     *
+     * @return Whether the surge mode is active, what started it and since when, and the state of each measure.
+     */
+    public synchronized SurgeStatusDTO getStatus() {
+        return new SurgeStatusDTO(trigger != null, trigger == null ? null : trigger.name(), since,
+                RequestLog.getSampleRate(), admissionInterceptor.getRateLimit(), responseCache.isPinned(),
+                jsonFileHandler.isDeferred(), jsonFileHandler.getDeferredWrites());
+    }
+
+    /**
+     * Measures the rate of emergency reads, to enter or leave the surge mode automatically.
+     * Does nothing if the automatic surge mode is disabled, with a threshold of 0.
+     */
+    @Scheduled(fixedRate = 1000)
+    public void detect() {
+        if (autoThreshold <= 0) return;
+
+        boolean calm = false;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long admitted = admissionInterceptor.getAdmitted(AdmissionInterceptor.EndpointClass.EMERGENCY);
+            if (lastAdmitted >= 0 && now > lastDetection) {
+                double rate = (admitted - lastAdmitted) * 1_000_000_000d / (now - lastDetection);
+                if (rate >= autoThreshold) {
+                    if (trigger == null) Logger.info("{} emergency reads per second, over the threshold of {}", Math.round(rate), autoThreshold);
+                    enable(Trigger.AUTOMATIC);
+                } else if (trigger == Trigger.AUTOMATIC) {
+                    calmSeconds = rate < autoThreshold / 2 ? calmSeconds + 1 : 0;
+                    calm = calmSeconds >= autoCoolDown;
+                }
+            }
+            lastAdmitted = admitted;
+            lastDetection = now;
+        }
+        if (calm) leave(Trigger.AUTOMATIC);
+    }
+
+
+    // Leaves the surge mode if it is active, and was started by the given trigger unless it is null.
+    // The deferred writes are flushed outside the lock, so the status and the detection never wait for the disk.
+    private void leave(Trigger startedBy) {
+        synchronized (this) {
+            if (trigger == null || (startedBy != null && trigger != startedBy)) return;
+            trigger = null;
+            since = null;
+            responseCache.setPinned(false);
+            admissionInterceptor.setRateLimit(0);
+            RequestLog.setSampleRate(1);
+            jsonFileHandler.setDeferred(false);
+            Logger.info("Surge mode left");
+        }
+        jsonFileHandler.flush();
+    }
+}
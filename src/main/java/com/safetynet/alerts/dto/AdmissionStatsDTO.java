@@ -0,0 +1,11 @@
+package com.safetynet.alerts.dto;
+
+public record AdmissionStatsDTO(
+        String endpointClass,
+        int limit,
+        int active,
+        int queued,
+        long admitted,
+        long rejected
+) {
+}
@@ -0,0 +1,7 @@
+package com.safetynet.alerts.dto;
+
+
+public record AffectedRecordsDTO(
+        int affected
+) {
+}
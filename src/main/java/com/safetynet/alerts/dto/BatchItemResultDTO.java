@@ -0,0 +1,10 @@
+package com.safetynet.alerts.dto;
+
+
+public record BatchItemResultDTO(
+        int index,
+        int status,
+        Long id,
+        String error
+) {
+}
@@ -1,11 +1,14 @@
 package com.safetynet.alerts.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record FireFloodPersonInfoDTO(
         String firstName,
         String lastName,
         String phone,
-        int age,
+        Integer age,
         String[] medications,
         String[] allergies
 ) {
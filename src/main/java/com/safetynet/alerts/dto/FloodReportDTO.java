@@ -0,0 +1,12 @@
+package com.safetynet.alerts.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+
+public record FloodReportDTO(
+        long version,
+        LocalDate date,
+        List<FloodDTO> stations
+) {
+}
@@ -0,0 +1,17 @@
+package com.safetynet.alerts.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FloodResidentDTO(
+        int fireStation,
+        String address,
+        String firstName,
+        String lastName,
+        String phone,
+        Integer age,
+        String[] medications,
+        String[] allergies
+) {
+}
@@ -0,0 +1,8 @@
+package com.safetynet.alerts.dto;
+
+public record HotKeyDTO(
+        String endpoint,
+        String key,
+        long estimatedCount
+) {
+}
@@ -0,0 +1,34 @@
+package com.safetynet.alerts.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.safetynet.alerts.model.FireStation;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+
+public record HouseholdDTO(
+        @Schema(description = "Address of the household and number of the station covering it")
+        @NotNull(message = "Fire station is mandatory")
+        @Valid
+        FireStation fireStation,
+
+        @Schema(description = "Members of the household, each with his medical record")
+        @NotEmpty(message = "A household must have at least one member")
+        List<@NotNull(message = "Member is mandatory") @Valid HouseholdMemberDTO> members
+) {
+
+    @JsonIgnore
+    @Schema(hidden = true)
+    @AssertTrue(message = "Every member must live at the address of the household")
+    public boolean isSameAddress() {
+        if (fireStation == null || fireStation.address() == null || members == null) return true;
+        return members.stream()
+                .filter(member -> member != null && member.person() != null && member.person().address() != null)
+                .allMatch(member -> member.person().address().equalsIgnoreCase(fireStation.address()));
+    }
+}
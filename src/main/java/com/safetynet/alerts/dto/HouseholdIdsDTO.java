@@ -0,0 +1,11 @@
+package com.safetynet.alerts.dto;
+
+import java.util.List;
+
+
+public record HouseholdIdsDTO(
+        Long fireStationId,
+        List<Long> personIds,
+        List<Long> medicalRecordIds
+) {
+}
@@ -0,0 +1,32 @@
+package com.safetynet.alerts.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+
+
+public record HouseholdMemberDTO(
+        @Schema(description = "The member of the household")
+        @NotNull(message = "Person is mandatory")
+        @Valid
+        Person person,
+
+        @Schema(description = "The medical record of the member, with the same last name and first name")
+        @NotNull(message = "Medical record is mandatory")
+        @Valid
+        MedicalRecord medicalRecord
+) {
+
+    @JsonIgnore
+    @Schema(hidden = true)
+    @AssertTrue(message = "Medical record must have the same last name and first name as the person")
+    public boolean isSameName() {
+        if (person == null || medicalRecord == null || person.firstName() == null || person.lastName() == null) return true;
+        return person.firstName().equalsIgnoreCase(medicalRecord.firstName())
+                && person.lastName().equalsIgnoreCase(medicalRecord.lastName());
+    }
+}
@@ -0,0 +1,9 @@
+package com.safetynet.alerts.dto;
+
+
+public record IngestErrorDTO(
+        long line,
+        int status,
+        String error
+) {
+}
@@ -0,0 +1,10 @@
+package com.safetynet.alerts.dto;
+
+
+public record IngestProgressDTO(
+        long lines,
+        long created,
+        long rejected,
+        boolean done
+) {
+}
@@ -0,0 +1,25 @@
+package com.safetynet.alerts.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+
+public record MedicalRecordTransformDTO(
+        @Schema(description = "The list of the medical records to transform", example = "MEDICATION")
+        @NotNull(message = "Field is mandatory")
+        Field field,
+
+        @Schema(description = "The medication or allergy to replace or remove. A medication without dose matches every dose", example = "aznol")
+        @NotBlank(message = "The medication or allergy to transform is mandatory")
+        String from,
+
+        @Schema(description = "The new medication or allergy, or nothing to remove it. A medication without dose keeps the dose of the replaced one", example = "bznol")
+        String to
+) {
+
+    public enum Field {
+        MEDICATION,
+        ALLERGY
+    }
+}
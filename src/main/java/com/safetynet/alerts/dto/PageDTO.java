@@ -0,0 +1,9 @@
+package com.safetynet.alerts.dto;
+
+
+public record PageDTO<T>(
+        T content,
+        String nextCursor,
+        long version
+) {
+}
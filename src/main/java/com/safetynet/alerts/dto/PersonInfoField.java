@@ -0,0 +1,76 @@
+package com.safetynet.alerts.dto;
+
+import com.safetynet.alerts.exception.InvalidFieldsException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+
+/**
+ * The fields of the resident information returned by /fire and /flood/stations that a client can select.
+ * The fields left out are neither computed nor serialized, and the medical record of a resident is only
+ * looked up when one of its fields is selected.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see FireFloodPersonInfoDTO
+ * @see FloodResidentDTO
+ * @see InvalidFieldsException
+ */
+public enum PersonInfoField {
+
+    FIRST_NAME("firstName", false),
+    LAST_NAME("lastName", false),
+    PHONE("phone", false),
+    AGE("age", true),
+    MEDICATIONS("medications", true),
+    ALLERGIES("allergies", true);
+
+    public static final Set<PersonInfoField> ALL = Collections.unmodifiableSet(EnumSet.allOf(PersonInfoField.class));
+
+    private final String jsonName;
+    private final boolean fromMedicalRecord;
+
+    PersonInfoField(String jsonName, boolean fromMedicalRecord) {
+        this.jsonName = jsonName;
+        this.fromMedicalRecord = fromMedicalRecord;
+    }
+
+
+    /**
+     * Parses the fields requested by a client.
+     *
+     * @param fields The comma separated names of the fields, as serialized in JSON. Null or blank selects all the fields.
+     * @return The selected fields.
+     * @throws InvalidFieldsException if one of the names is not a field of the resident information.
+     */
+    public static Set<PersonInfoField> parse(String fields) {
+        if (fields == null || fields.isBlank()) return ALL;
+
+        Set<PersonInfoField> selected = EnumSet.noneOf(PersonInfoField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) continue;
+            selected.add(Arrays.stream(values())
+                    .filter(field -> field.jsonName.equalsIgnoreCase(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new InvalidFieldsException("Unknown field : " + trimmed + ", expected one of "
+                            + Arrays.stream(values()).map(field -> field.jsonName).collect(Collectors.joining(", ")))));
+        }
+        return selected.isEmpty() ? ALL : selected;
+    }
+
+    /**
+     * Checks whether the medical record of a resident is needed to build the selected fields.
+     *
+     * @param fields The selected fields.
+     * @return true if at least one selected field comes from the medical record, false otherwise.
+     */
+    public static boolean needsMedicalRecord(Set<PersonInfoField> fields) {
+        return fields.stream().anyMatch(field -> field.fromMedicalRecord);
+    }
+}
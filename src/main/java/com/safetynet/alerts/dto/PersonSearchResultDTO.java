@@ -0,0 +1,12 @@
+package com.safetynet.alerts.dto;
+
+
+public record PersonSearchResultDTO(
+        String firstName,
+        String lastName,
+        String address,
+        String city,
+        String phone,
+        int editDistance
+) {
+}
@@ -0,0 +1,11 @@
+package com.safetynet.alerts.dto;
+
+import java.util.List;
+
+public record PhoneLookupAddressDTO(
+        String address,
+        String city,
+        Integer fireStation,
+        List<FireFloodPersonInfoDTO> persons
+) {
+}
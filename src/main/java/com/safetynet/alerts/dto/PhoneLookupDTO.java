@@ -0,0 +1,9 @@
+package com.safetynet.alerts.dto;
+
+import java.util.List;
+
+public record PhoneLookupDTO(
+        String phone,
+        List<PhoneLookupAddressDTO> addresses
+) {
+}
@@ -0,0 +1,18 @@
+package com.safetynet.alerts.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+
+public record QueryBatchDTO(
+        @Schema(description = "The queries to run, at most 50")
+        @NotEmpty(message = "At least one query is mandatory")
+        @Size(max = 50, message = "At most 50 queries can be run at once")
+        List<@NotNull(message = "Query is mandatory") @Valid QueryDTO> queries
+) {
+}
@@ -0,0 +1,10 @@
+package com.safetynet.alerts.dto;
+
+import java.util.List;
+
+
+public record QueryBatchResultDTO(
+        long version,
+        List<QueryResultDTO> results
+) {
+}
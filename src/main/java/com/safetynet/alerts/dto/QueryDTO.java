@@ -0,0 +1,24 @@
+package com.safetynet.alerts.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+
+public record QueryDTO(
+        @Schema(description = "The query to run : FIRE and CHILD_ALERT take an address, PHONE_ALERT and FIRESTATION take a station number", example = "FIRE")
+        @NotNull(message = "Query type is mandatory")
+        Type type,
+
+        @Schema(description = "The address or the station number the query is about", example = "1509 Culver St")
+        @NotBlank(message = "Query value is mandatory")
+        String value
+) {
+
+    public enum Type {
+        FIRE,
+        CHILD_ALERT,
+        PHONE_ALERT,
+        FIRESTATION
+    }
+}
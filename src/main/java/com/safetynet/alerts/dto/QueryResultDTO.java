@@ -0,0 +1,10 @@
+package com.safetynet.alerts.dto;
+
+
+public record QueryResultDTO(
+        int index,
+        int status,
+        Object result,
+        String error
+) {
+}
@@ -0,0 +1,10 @@
+package com.safetynet.alerts.dto;
+
+public record ResponseCacheStatsDTO(
+        int entries,
+        long bytes,
+        long hits,
+        long misses,
+        long coalesced
+) {
+}
@@ -0,0 +1,15 @@
+package com.safetynet.alerts.dto;
+
+import java.time.Instant;
+
+public record SurgeStatusDTO(
+        boolean active,
+        String trigger,
+        Instant since,
+        int logSampleRate,
+        double rateLimit,
+        boolean cachePinned,
+        boolean deferredWrites,
+        long pendingWrites
+) {
+}
@@ -1,16 +1,21 @@
 package com.safetynet.alerts.exception;
 
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.tinylog.Logger;
 
 import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 
 @RestControllerAdvice
@@ -37,6 +42,18 @@ public class GlobalExceptionHandler {
         return errors;
     }
 
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Error handleHandlerMethodValidationException(HandlerMethodValidationException ex) {
+        String message = ex.getAllValidationResults().stream()
+                .flatMap(result -> result.getResolvableErrors().stream())
+                .map(MessageSourceResolvable::getDefaultMessage)
+                .collect(Collectors.joining(", "));
+
+        Logger.error("Validation failed : {}", message);
+        return new Error(message);
+    }
+
     @ExceptionHandler(NotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public Error handleNotFoundException(NotFoundException ex) {
@@ -49,6 +66,38 @@ public class GlobalExceptionHandler {
         return new Error(ex.getMessage());
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Error handleInvalidCursorException(InvalidCursorException ex) {
+        return new Error(ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidFieldsException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Error handleInvalidFieldsException(InvalidFieldsException ex) {
+        return new Error(ex.getMessage());
+    }
+
+    @ExceptionHandler(StaleCursorException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Error handleStaleCursorException(StaleCursorException ex) {
+        return new Error(ex.getMessage());
+    }
+
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<Error> handleOverloadedException(OverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new Error(ex.getMessage()));
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public Error handleDeadlineExceededException(DeadlineExceededException ex) {
+        Logger.error("Request aborted : {}", ex.getMessage());
+        return new Error(ex.getMessage());
+    }
+
     @ExceptionHandler(DateTimeParseException.class)
     @ResponseStatus(HttpStatus.NOT_ACCEPTABLE)
     public Error handleDateTimeParseException(DateTimeParseException ex) {
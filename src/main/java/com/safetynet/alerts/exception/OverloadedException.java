@@ -0,0 +1,15 @@
+package com.safetynet.alerts.exception;
+
+public class OverloadedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public OverloadedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
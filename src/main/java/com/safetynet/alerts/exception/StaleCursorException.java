@@ -0,0 +1,7 @@
+package com.safetynet.alerts.exception;
+
+public class StaleCursorException extends RuntimeException {
+    public StaleCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,1306 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.exception.InvalidCursorException;
+import com.safetynet.alerts.exception.NotFoundException;
+import com.safetynet.alerts.exception.StaleCursorException;
+import com.safetynet.alerts.model.Data;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import org.springframework.stereotype.Component;
+import org.tinylog.Logger;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+
+/**
+ * In-memory indexes built over the data read from the JSON file.
+ * The indexes are built the first time a Data instance is seen and are then kept up to date by the services
+ * on every mutation, so that lookups don't have to scan the whole data.
+ * Each person, medical record and fire station mapping is given an ID, in the order of the file when the data is
+ * indexed and then incrementally. An ID is kept when the element is replaced and is never reused after a deletion.
+ * The IDs are not written in the file, which is sorted on every write : they only last as long as the indexes.
+ * Each indexing of the data has its own epoch, picked at random at startup and incremented when the data is
+ * indexed again, and every ID carries the epoch it was given in, so an ID given by a previous run, or before the
+ * data was reloaded, is never taken for the element that now has the same position : it is not found. Several elements can share a name, or a station and an
+ * address, when the file holds duplicates : each keeps its own ID, the lookups by name return the one with the lowest
+ * ID, and an element is replaced or removed by its own ID, found from the element itself.
+ * A version number is incremented on every mutation, so that paginated reads can detect that the data changed
+ * between two pages.
+ * Streams are read chunk by chunk, so the lock on the indexes is never held while a stream is consumed. They are
+ * weakly consistent : changes made while a stream is consumed may or may not be seen.
+ * Every service changing the data runs its update under the write lock of the data, so the checks, the changes
+ * of the lists of the data and of the indexes, and the write of the file of concurrent updates never interleave.
+ * Lookups take the read lock, so they don't wait for each other, and a virtual thread waiting for the lock
+ * doesn't pin its carrier thread as it would on a monitor.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see NameTrie
+ * @see InvalidCursorException
+ * @see NotFoundException
+ * @see StaleCursorException
+ * @see Data
+ * @see FireStation
+ * @see MedicalRecord
+ * @see Person
+ */
+@Component
+public class DataIndex {
+
+    private static final char KEY_SEPARATOR = '\u0001';
+    // The epoch is in the high bits of the IDs, kept below 2^53 so that they are exact in the JSON numbers of any client
+    private static final int EPOCH_SHIFT = 32;
+    private static final int MAX_EPOCH = (1 << 21) - 1;
+    private static final int STREAM_CHUNK_SIZE = 256;
+
+    private final ReentrantReadWriteLock dataLock = new ReentrantReadWriteLock();
+    private volatile Data indexedData;
+    private long version;
+    private int epoch = ThreadLocalRandom.current().nextInt(1, MAX_EPOCH + 1);
+    private NameTrie lastNameTrie = new NameTrie(Person::lastName);
+    private final Map<String, List<Person>> personsByPhone = new HashMap<>();
+    private final Map<String, List<FireStation>> fireStationsByAddress = new HashMap<>();
+    private final Map<Integer, NavigableSet<String>> addressesByStation = new HashMap<>();
+    private final Map<String, NavigableMap<String, Person>> personsByAddress = new HashMap<>();
+    private final Map<String, NavigableMap<String, Person>> personsByLastName = new HashMap<>();
+    private final Map<String, NavigableMap<String, Integer>> emailsByCity = new HashMap<>();
+
+    private final List<Person> personsById = new ArrayList<>();
+    private final Map<String, NavigableSet<Integer>> personIdsByName = new HashMap<>();
+    private final List<MedicalRecord> medicalRecordsById = new ArrayList<>();
+    private final Map<String, NavigableSet<Integer>> medicalRecordIdsByName = new HashMap<>();
+    private final Map<String, NavigableSet<Integer>> medicalRecordIdsByMedication = new HashMap<>();
+    private final Map<String, NavigableSet<Integer>> medicalRecordIdsByAllergy = new HashMap<>();
+    private final List<FireStation> fireStationsById = new ArrayList<>();
+    private final Map<String, NavigableSet<Integer>> fireStationIdsByKey = new HashMap<>();
+
+
+    /**
+     * Runs an update of the data under the write lock of the data, shared by every service changing it.
+     * The lock is reentrant, so an update can call the methods of the indexes.
+     *
+     * @param update The update, checking, changing the data and the indexes, and writing the file.
+     * @param <T>    The type of the result of the update.
+     * @return The result of the update.
+     */
+    public <T> T update(Supplier<T> update) {
+        dataLock.writeLock().lock();
+        try {
+            return update.get();
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a read of the data under the read lock of the data, so that it never sees an update half done.
+     * Used to run several lookups of the indexes against the same version, the read should be short since it holds
+     * back the updates. It must not wait for other threads reading the indexes : with an update queued, their read
+     * lock would wait for the update, which waits for this read.
+     *
+     * @param read The read of the data.
+     * @param <T>  The type of the result of the read.
+     * @return The result of the read.
+     */
+    public <T> T read(Supplier<T> read) {
+        dataLock.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the indexes for the given data if they were not already built for it.
+     * The indexes are built under the write lock, the check is done first without it, so that reads of data
+     * already indexed don't wait for each other.
+     *
+     * @param data The data to index.
+     */
+    public void ensureIndexed(Data data) {
+        if (indexedData == data) return;
+
+        dataLock.writeLock().lock();
+        try {
+            if (indexedData == data) return;
+
+            Logger.info("Indexing {} persons, {} fire stations and {} medical records",
+                    data.persons().size(), data.fireStations().size(), data.medicalRecords().size());
+
+            lastNameTrie = new NameTrie(Person::lastName);
+            personsByPhone.clear();
+            fireStationsByAddress.clear();
+            addressesByStation.clear();
+            personsByAddress.clear();
+            personsByLastName.clear();
+            emailsByCity.clear();
+            personsById.clear();
+            personIdsByName.clear();
+            medicalRecordsById.clear();
+            medicalRecordIdsByName.clear();
+            medicalRecordIdsByMedication.clear();
+            medicalRecordIdsByAllergy.clear();
+            fireStationsById.clear();
+            fireStationIdsByKey.clear();
+            if (indexedData != null) epoch = epoch % MAX_EPOCH + 1;
+
+            data.persons().forEach(this::indexNewPerson);
+            data.fireStations().forEach(this::indexNewFireStation);
+            data.medicalRecords().forEach(this::indexNewMedicalRecord);
+            indexedData = data;
+            version++;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the version of the indexed data, incremented on every mutation.
+     *
+     * @return The version of the data.
+     */
+    public long getVersion() {
+        dataLock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Adds a person to the indexes and gives him a new ID.
+     *
+     * @param person The person to add.
+     * @return The ID of the person.
+     */
+    public long addPerson(Person person) {
+        dataLock.writeLock().lock();
+        try {
+            long id = publicId(indexNewPerson(person));
+            version++;
+            return id;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds several persons to the indexes in one update and gives each of them a new ID.
+     *
+     * @param persons The persons to add.
+     * @return The IDs of the persons, in the same order.
+     */
+    public List<Long> addPersons(List<Person> persons) {
+        dataLock.writeLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>(persons.size());
+            persons.forEach(person -> ids.add(publicId(indexNewPerson(person))));
+            version++;
+            return ids;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces a person in the indexes. The new version of the person keeps the ID of the old one.
+     *
+     * @param oldPerson The person to replace.
+     * @param newPerson The new version of the person.
+     * @return The ID of the person.
+     * @throws NotFoundException if the person to replace is not indexed.
+     */
+    public long replacePerson(Person oldPerson, Person newPerson) {
+        dataLock.writeLock().lock();
+        try {
+            String oldKey = nameKey(oldPerson.firstName(), oldPerson.lastName());
+            int id = requireId(personIdsByName, oldKey, personsById, oldPerson);
+            removeId(personIdsByName, oldKey, id);
+            unindexPerson(oldPerson, id);
+            personsById.set(id - 1, newPerson);
+            addId(personIdsByName, nameKey(newPerson.firstName(), newPerson.lastName()), id);
+            indexPerson(newPerson, id);
+            version++;
+            return publicId(id);
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a person from the indexes. His ID is not reused.
+     *
+     * @param person The person to remove.
+     */
+    public void removePerson(Person person) {
+        dataLock.writeLock().lock();
+        try {
+            String key = nameKey(person.firstName(), person.lastName());
+            Integer id = findId(personIdsByName, key, personsById, person);
+            if (id == null) return;
+            removeId(personIdsByName, key, id);
+            unindexPerson(person, id);
+            personsById.set(id - 1, null);
+            version++;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Adds a fire station mapping to the indexes and gives it a new ID.
+     *
+     * @param fireStation The fire station mapping to add.
+     * @return The ID of the fire station mapping.
+     */
+    public long addFireStation(FireStation fireStation) {
+        dataLock.writeLock().lock();
+        try {
+            long id = publicId(indexNewFireStation(fireStation));
+            version++;
+            return id;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds several fire station mappings to the indexes in one update and gives each of them a new ID.
+     *
+     * @param fireStations The fire station mappings to add.
+     * @return The IDs of the fire station mappings, in the same order.
+     */
+    public List<Long> addFireStations(List<FireStation> fireStations) {
+        dataLock.writeLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>(fireStations.size());
+            fireStations.forEach(fireStation -> ids.add(publicId(indexNewFireStation(fireStation))));
+            version++;
+            return ids;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces a fire station mapping in the indexes. The new version of the mapping keeps the ID of the old one.
+     *
+     * @param oldFireStation The fire station mapping to replace.
+     * @param newFireStation The new version of the fire station mapping.
+     * @return The ID of the fire station mapping.
+     * @throws NotFoundException if the fire station mapping to replace is not indexed.
+     */
+    public long replaceFireStation(FireStation oldFireStation, FireStation newFireStation) {
+        dataLock.writeLock().lock();
+        try {
+            long id = publicId(replaceFireStationEntry(oldFireStation, newFireStation));
+            version++;
+            return id;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a fire station mapping from the indexes. Its ID is not reused.
+     *
+     * @param fireStation The fire station mapping to remove.
+     */
+    public void removeFireStation(FireStation fireStation) {
+        dataLock.writeLock().lock();
+        try {
+            removeFireStationEntry(fireStation);
+            version++;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes and replaces several fire station mappings in one update.
+     * The new versions of the replaced mappings keep the IDs of the old ones.
+     *
+     * @param removed      The fire station mappings to remove.
+     * @param replacements The new version of each replaced fire station mapping, keyed by the old one.
+     * @throws NotFoundException if a fire station mapping to replace is not indexed.
+     */
+    public void updateFireStations(Collection<FireStation> removed, Map<FireStation, FireStation> replacements) {
+        dataLock.writeLock().lock();
+        try {
+            removed.forEach(this::removeFireStationEntry);
+            replacements.forEach(this::replaceFireStationEntry);
+            version++;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Adds persons, medical records and fire station mappings to the indexes in one update and gives each of them a new ID.
+     *
+     * @param persons        The persons to add.
+     * @param medicalRecords The medical records to add.
+     * @param fireStations   The fire station mappings to add.
+     * @return The IDs of the added elements, in the same order.
+     */
+    public AddedIds addAll(List<Person> persons, List<MedicalRecord> medicalRecords, List<FireStation> fireStations) {
+        dataLock.writeLock().lock();
+        try {
+            List<Long> personIds = new ArrayList<>(persons.size());
+            persons.forEach(person -> personIds.add(publicId(indexNewPerson(person))));
+            List<Long> medicalRecordIds = new ArrayList<>(medicalRecords.size());
+            medicalRecords.forEach(medicalRecord -> medicalRecordIds.add(publicId(indexNewMedicalRecord(medicalRecord))));
+            List<Long> fireStationIds = new ArrayList<>(fireStations.size());
+            fireStations.forEach(fireStation -> fireStationIds.add(publicId(indexNewFireStation(fireStation))));
+            version++;
+            return new AddedIds(personIds, medicalRecordIds, fireStationIds);
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Adds a medical record to the indexes and gives it a new ID.
+     *
+     * @param medicalRecord The medical record to add.
+     * @return The ID of the medical record.
+     */
+    public long addMedicalRecord(MedicalRecord medicalRecord) {
+        dataLock.writeLock().lock();
+        try {
+            long id = publicId(indexNewMedicalRecord(medicalRecord));
+            version++;
+            return id;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds several medical records to the indexes in one update and gives each of them a new ID.
+     *
+     * @param medicalRecords The medical records to add.
+     * @return The IDs of the medical records, in the same order.
+     */
+    public List<Long> addMedicalRecords(List<MedicalRecord> medicalRecords) {
+        dataLock.writeLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>(medicalRecords.size());
+            medicalRecords.forEach(medicalRecord -> ids.add(publicId(indexNewMedicalRecord(medicalRecord))));
+            version++;
+            return ids;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces a medical record in the indexes. The new version of the medical record keeps the ID of the old one.
+     *
+     * @param oldMedicalRecord The medical record to replace.
+     * @param newMedicalRecord The new version of the medical record.
+     * @return The ID of the medical record.
+     * @throws NotFoundException if the medical record to replace is not indexed.
+     */
+    public long replaceMedicalRecord(MedicalRecord oldMedicalRecord, MedicalRecord newMedicalRecord) {
+        dataLock.writeLock().lock();
+        try {
+            long id = publicId(replaceMedicalRecordEntry(oldMedicalRecord, newMedicalRecord));
+            version++;
+            return id;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces several medical records in the indexes in one update.
+     * The new versions of the medical records keep the IDs of the old ones.
+     *
+     * @param replacements The new version of each medical record, keyed by the old one.
+     * @throws NotFoundException if a medical record to replace is not indexed.
+     */
+    public void replaceMedicalRecords(Map<MedicalRecord, MedicalRecord> replacements) {
+        dataLock.writeLock().lock();
+        try {
+            replacements.forEach(this::replaceMedicalRecordEntry);
+            version++;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a medical record from the indexes. Its ID is not reused.
+     *
+     * @param medicalRecord The medical record to remove.
+     */
+    public void removeMedicalRecord(MedicalRecord medicalRecord) {
+        dataLock.writeLock().lock();
+        try {
+            String key = nameKey(medicalRecord.firstName(), medicalRecord.lastName());
+            Integer id = findId(medicalRecordIdsByName, key, medicalRecordsById, medicalRecord);
+            if (id != null) {
+                removeId(medicalRecordIdsByName, key, id);
+                unindexMedicalRecord(medicalRecord, id);
+                medicalRecordsById.set(id - 1, null);
+            }
+            version++;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Searches persons by the beginning of their last name, tolerating typos.
+     *
+     * @param lastname The beginning of the last name to search for.
+     * @param maxEdits The maximum number of typos allowed.
+     * @param limit    The maximum number of results.
+     * @param filter   An additional filter the persons must satisfy.
+     * @return The list of matching persons ordered by edit distance.
+     */
+    public List<NameTrie.Match> searchByLastName(String lastname, int maxEdits, int limit, Predicate<Person> filter) {
+        dataLock.readLock().lock();
+        try {
+            return lastNameTrie.search(lastname, maxEdits, limit, filter);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the persons sharing a phone number.
+     *
+     * @param phone The phone number, in the format 123-456-7890.
+     * @return The list of persons with this phone number, empty if none.
+     */
+    public List<Person> getPersonsByPhone(String phone) {
+        dataLock.readLock().lock();
+        try {
+            return List.copyOf(personsByPhone.getOrDefault(phone, List.of()));
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the persons living at an address, ignoring case.
+     *
+     * @param address The address.
+     * @return The list of persons living at the address ordered by last name and first name, empty if none.
+     */
+    public List<Person> getPersonsByAddress(String address) {
+        dataLock.readLock().lock();
+        try {
+            return List.copyOf(personsByAddress.getOrDefault(addressKey(address), Collections.emptyNavigableMap()).values());
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the persons with a last name, ignoring case.
+     *
+     * @param lastName The last name.
+     * @return The list of persons with the last name ordered by first name, empty if none.
+     */
+    public List<Person> getPersonsByLastName(String lastName) {
+        dataLock.readLock().lock();
+        try {
+            return List.copyOf(personsByLastName.getOrDefault(lastName.toLowerCase(Locale.ROOT), Collections.emptyNavigableMap()).values());
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the first fire station mapping covering an address, ignoring case.
+     *
+     * @param address The address.
+     * @return The fire station mapping covering the address, if any.
+     */
+    public Optional<FireStation> getFireStationByAddress(String address) {
+        dataLock.readLock().lock();
+        try {
+            List<FireStation> fireStations = fireStationsByAddress.get(addressKey(address));
+            return fireStations == null ? Optional.empty() : Optional.of(fireStations.get(0));
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the medical record of a person, by the exact case of his name.
+     * When several medical records have the name, the one with the lowest ID is returned.
+     *
+     * @param firstName The first name of the person.
+     * @param lastName  The last name of the person.
+     * @return The medical record of the person, if any.
+     */
+    public Optional<MedicalRecord> getMedicalRecord(String firstName, String lastName) {
+        dataLock.readLock().lock();
+        try {
+            return getFirst(medicalRecordIdsByName, nameKey(firstName, lastName), medicalRecordsById,
+                    medicalRecord -> medicalRecord.firstName().equals(firstName) && medicalRecord.lastName().equals(lastName));
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the medical record of a person by his name ignoring case.
+     * The medical record with the exact case of the name is preferred, else the one with the lowest ID is returned.
+     *
+     * @param firstName The first name of the person.
+     * @param lastName  The last name of the person.
+     * @return The medical record of the person, if any.
+     */
+    public Optional<MedicalRecord> getMedicalRecordIgnoringCase(String firstName, String lastName) {
+        dataLock.readLock().lock();
+        try {
+            return getMedicalRecord(firstName, lastName)
+                    .or(() -> getFirst(medicalRecordIdsByName, nameKey(firstName, lastName), medicalRecordsById, medicalRecord -> true));
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a medical record by its ID.
+     *
+     * @param id The ID of the medical record.
+     * @return The medical record, if any.
+     */
+    public Optional<MedicalRecord> getMedicalRecordById(long id) {
+        dataLock.readLock().lock();
+        try {
+            return Optional.ofNullable(getById(medicalRecordsById, id));
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the ID of a medical record in the current indexing.
+     *
+     * @param medicalRecord The medical record.
+     * @return The ID of the medical record, if indexed.
+     */
+    public Optional<Long> getMedicalRecordId(MedicalRecord medicalRecord) {
+        dataLock.readLock().lock();
+        try {
+            return Optional.ofNullable(findId(medicalRecordIdsByName, nameKey(medicalRecord.firstName(), medicalRecord.lastName()), medicalRecordsById, medicalRecord))
+                    .map(this::publicId);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Retrieves a person by the exact case of his first and last name.
+     * When several persons have the name, the one with the lowest ID is returned.
+     *
+     * @param firstName The first name of the person.
+     * @param lastName  The last name of the person.
+     * @return The person, if any.
+     */
+    public Optional<Person> getPersonByName(String firstName, String lastName) {
+        dataLock.readLock().lock();
+        try {
+            return getFirst(personIdsByName, nameKey(firstName, lastName), personsById,
+                    person -> person.firstName().equals(firstName) && person.lastName().equals(lastName));
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a person by his first and last name ignoring case.
+     * The person with the exact case of the name is preferred, else the one with the lowest ID is returned.
+     *
+     * @param firstName The first name of the person.
+     * @param lastName  The last name of the person.
+     * @return The person, if any.
+     */
+    public Optional<Person> getPersonByNameIgnoringCase(String firstName, String lastName) {
+        dataLock.readLock().lock();
+        try {
+            return getPersonByName(firstName, lastName)
+                    .or(() -> getFirst(personIdsByName, nameKey(firstName, lastName), personsById, person -> true));
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a person by his ID.
+     *
+     * @param id The ID of the person.
+     * @return The person, if any.
+     */
+    public Optional<Person> getPersonById(long id) {
+        dataLock.readLock().lock();
+        try {
+            return Optional.ofNullable(getById(personsById, id));
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the ID of a person in the current indexing.
+     *
+     * @param person The person.
+     * @return The ID of the person, if indexed.
+     */
+    public Optional<Long> getPersonId(Person person) {
+        dataLock.readLock().lock();
+        try {
+            return Optional.ofNullable(findId(personIdsByName, nameKey(person.firstName(), person.lastName()), personsById, person))
+                    .map(this::publicId);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the medical records with a medication, compared by name ignoring case and dose.
+     *
+     * @param medication The name of the medication, with or without its dose.
+     * @return The medical records with the medication, in the order of their IDs.
+     */
+    public List<MedicalRecord> getMedicalRecordsByMedication(String medication) {
+        dataLock.readLock().lock();
+        try {
+            return getMedicalRecordsByItem(medicalRecordIdsByMedication, medication);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the medical records with an allergy, ignoring case.
+     *
+     * @param allergy The allergy.
+     * @return The medical records with the allergy, in the order of their IDs.
+     */
+    public List<MedicalRecord> getMedicalRecordsByAllergy(String allergy) {
+        dataLock.readLock().lock();
+        try {
+            return getMedicalRecordsByItem(medicalRecordIdsByAllergy, allergy);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Retrieves a fire station mapping by its ID.
+     *
+     * @param id The ID of the fire station mapping.
+     * @return The fire station mapping, if any.
+     */
+    public Optional<FireStation> getFireStationById(long id) {
+        dataLock.readLock().lock();
+        try {
+            return Optional.ofNullable(getById(fireStationsById, id));
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Checks whether a fire station mapping exists, ignoring the case of the address.
+     *
+     * @param fireStation The fire station mapping.
+     * @return true if the same station already covers the same address, false otherwise.
+     */
+    public boolean hasFireStation(FireStation fireStation) {
+        dataLock.readLock().lock();
+        try {
+            return fireStationIdsByKey.containsKey(fireStationKey(fireStation));
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the fire station mappings of a station.
+     *
+     * @param station The station number.
+     * @return The fire station mappings of the station, ordered by address.
+     */
+    public List<FireStation> getFireStationsByStation(int station) {
+        dataLock.readLock().lock();
+        try {
+            List<FireStation> fireStations = new ArrayList<>();
+            for (String address : addressesByStation.getOrDefault(station, Collections.emptyNavigableSet())) {
+                fireStationsByAddress.get(address).stream()
+                        .filter(fireStation -> fireStation.station() == station)
+                        .forEach(fireStations::add);
+            }
+            return fireStations;
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the residents of the homes covered by a station, grouped by address.
+     *
+     * @param station The station number.
+     * @return The residents of each covered address with at least one resident, ordered by address then by name,
+     * empty if the station covers no address.
+     */
+    public List<List<Person>> getHomesByStation(int station) {
+        dataLock.readLock().lock();
+        try {
+            List<List<Person>> homes = new ArrayList<>();
+            for (String address : addressesByStation.getOrDefault(station, Collections.emptyNavigableSet())) {
+                NavigableMap<String, Person> persons = personsByAddress.get(address);
+                if (persons != null && !persons.isEmpty()) homes.add(List.copyOf(persons.values()));
+            }
+            return homes;
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the numbers of all the stations covering at least one address.
+     *
+     * @return The station numbers, in ascending order.
+     */
+    public List<Integer> getStations() {
+        dataLock.readLock().lock();
+        try {
+            return addressesByStation.keySet().stream().sorted().toList();
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether at least one address is covered by a station.
+     *
+     * @param station The station number.
+     * @return true if the station covers at least one address, false otherwise.
+     */
+    public boolean hasStation(int station) {
+        dataLock.readLock().lock();
+        try {
+            return addressesByStation.containsKey(station);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a page of the distinct emails of the persons living in a city, ignoring case, in alphabetical order.
+     *
+     * @param city            The city.
+     * @param afterKey        The key of the last element of the previous page, null for the first page.
+     * @param size            The maximum number of elements of the page.
+     * @param expectedVersion The version of the data the previous page was read from, null for the first page.
+     * @return The page of emails.
+     * @throws StaleCursorException if the data changed since the previous page.
+     */
+    public IndexPage<String> pageEmailsByCity(String city, String afterKey, int size, Long expectedVersion) {
+        dataLock.readLock().lock();
+        try {
+            checkVersion(expectedVersion);
+            PageCollector<String> collector = new PageCollector<>(size);
+            for (String email : tail(emailsByCity.get(city.toLowerCase(Locale.ROOT)), afterKey).keySet()) {
+                if (!collector.add(email, email)) break;
+            }
+            return collector.toPage(version);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a page of the persons with a last name, ignoring case, ordered by first name.
+     *
+     * @param lastName        The last name.
+     * @param afterKey        The key of the last element of the previous page, null for the first page.
+     * @param size            The maximum number of elements of the page.
+     * @param expectedVersion The version of the data the previous page was read from, null for the first page.
+     * @return The page of persons.
+     * @throws StaleCursorException if the data changed since the previous page.
+     */
+    public IndexPage<Person> pagePersonsByLastName(String lastName, String afterKey, int size, Long expectedVersion) {
+        dataLock.readLock().lock();
+        try {
+            checkVersion(expectedVersion);
+            PageCollector<Person> collector = new PageCollector<>(size);
+            for (Map.Entry<String, Person> entry : tail(personsByLastName.get(lastName.toLowerCase(Locale.ROOT)), afterKey).entrySet()) {
+                if (!collector.add(entry.getKey(), entry.getValue())) break;
+            }
+            return collector.toPage(version);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a page of the persons living at an address covered by a station, ordered by address then by name.
+     *
+     * @param station         The station number.
+     * @param afterKey        The key of the last element of the previous page, null for the first page.
+     * @param size            The maximum number of elements of the page.
+     * @param expectedVersion The version of the data the previous page was read from, null for the first page.
+     * @return The page of persons.
+     * @throws StaleCursorException if the data changed since the previous page.
+     */
+    public IndexPage<Person> pagePersonsByStation(int station, String afterKey, int size, Long expectedVersion) {
+        dataLock.readLock().lock();
+        try {
+            checkVersion(expectedVersion);
+            PageCollector<Person> collector = new PageCollector<>(size);
+            collectStation(station, afterKey, "", person -> person, collector);
+            return collector.toPage(version);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a page of the persons covered by several stations, ordered by station in the given order,
+     * then by address and by name.
+     *
+     * @param stations        The station numbers.
+     * @param afterKey        The key of the last element of the previous page, null for the first page.
+     * @param size            The maximum number of elements of the page.
+     * @param expectedVersion The version of the data the previous page was read from, null for the first page.
+     * @return The page of persons with the station covering them.
+     * @throws StaleCursorException if the data changed since the previous page.
+     */
+    public IndexPage<StationPerson> pagePersonsByStations(List<Integer> stations, String afterKey, int size, Long expectedVersion) {
+        dataLock.readLock().lock();
+        try {
+            checkVersion(expectedVersion);
+            int firstPosition = 0;
+            String afterStationKey = null;
+            if (afterKey != null) {
+                String[] parts = splitKey(afterKey);
+                try {
+                    firstPosition = Integer.parseInt(parts[0]);
+                } catch (NumberFormatException ex) {
+                    throw new InvalidCursorException("Cursor is not valid");
+                }
+                afterStationKey = parts[1];
+            }
+
+            PageCollector<StationPerson> collector = new PageCollector<>(size);
+            for (int position = firstPosition; position < stations.size(); position++) {
+                int station = stations.get(position);
+                String afterKeyInStation = position == firstPosition ? afterStationKey : null;
+                if (!collectStation(station, afterKeyInStation, position + "" + KEY_SEPARATOR, person -> new StationPerson(station, person), collector)) break;
+            }
+            return collector.toPage(version);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Retrieves all the persons covered by a station, with the station, in a single pass over the indexes.
+     * A person covered by several stations is returned once for each of them.
+     *
+     * @return All the persons ordered by station, then by address and by name, and the version they were read from.
+     */
+    public IndexPage<StationPerson> getAllPersonsByStation() {
+        dataLock.readLock().lock();
+        try {
+            List<StationPerson> items = new ArrayList<>();
+            for (int station : new TreeSet<>(addressesByStation.keySet())) {
+                for (String address : addressesByStation.get(station)) {
+                    NavigableMap<String, Person> persons = personsByAddress.get(address);
+                    if (persons != null) persons.values().forEach(person -> items.add(new StationPerson(station, person)));
+                }
+            }
+            return new IndexPage<>(items, null, version);
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Streams the distinct emails of the persons living in a city, in alphabetical order.
+     *
+     * @param city The city.
+     * @return A lazy stream of emails.
+     */
+    public Stream<String> streamEmailsByCity(String city) {
+        return streamPages(afterKey -> pageEmailsByCity(city, afterKey, STREAM_CHUNK_SIZE, null));
+    }
+
+    /**
+     * Streams the persons with a last name, ignoring case, ordered by first name.
+     *
+     * @param lastName The last name.
+     * @return A lazy stream of persons.
+     */
+    public Stream<Person> streamPersonsByLastName(String lastName) {
+        return streamPages(afterKey -> pagePersonsByLastName(lastName, afterKey, STREAM_CHUNK_SIZE, null));
+    }
+
+    /**
+     * Streams the persons living at an address covered by a station, ordered by address then by name.
+     *
+     * @param station The station number.
+     * @return A lazy stream of persons.
+     */
+    public Stream<Person> streamPersonsByStation(int station) {
+        return streamPages(afterKey -> pagePersonsByStation(station, afterKey, STREAM_CHUNK_SIZE, null));
+    }
+
+    /**
+     * Streams the persons covered by several stations, ordered by station in the given order, then by address and by name.
+     *
+     * @param stations The station numbers.
+     * @return A lazy stream of persons with the station covering them.
+     */
+    public Stream<StationPerson> streamPersonsByStations(List<Integer> stations) {
+        return streamPages(afterKey -> pagePersonsByStations(stations, afterKey, STREAM_CHUNK_SIZE, null));
+    }
+
+
+    private static <T> Stream<T> streamPages(Function<String, IndexPage<T>> pageReader) {
+        return Stream.iterate(pageReader.apply(null), Objects::nonNull,
+                        page -> page.nextKey() == null ? null : pageReader.apply(page.nextKey()))
+                .flatMap(page -> page.items().stream());
+    }
+
+    private <T> boolean collectStation(int station, String afterKey, String keyPrefix, Function<Person, T> mapper, PageCollector<T> collector) {
+        String afterAddress = null;
+        String afterPerson = null;
+        if (afterKey != null) {
+            String[] parts = splitKey(afterKey);
+            afterAddress = parts[0];
+            afterPerson = parts[1];
+        }
+
+        NavigableSet<String> addresses = addressesByStation.getOrDefault(station, Collections.emptyNavigableSet());
+        for (String address : afterAddress == null ? addresses : addresses.tailSet(afterAddress, true)) {
+            NavigableMap<String, Person> persons = personsByAddress.get(address);
+            if (persons == null) continue;
+            if (address.equals(afterAddress)) persons = persons.tailMap(afterPerson, false);
+
+            for (Map.Entry<String, Person> entry : persons.entrySet()) {
+                String key = keyPrefix + address + KEY_SEPARATOR + entry.getKey();
+                if (!collector.add(key, mapper.apply(entry.getValue()))) return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkVersion(Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != version) {
+            Logger.error("Data changed since version " + expectedVersion + ", current version is " + version);
+            throw new StaleCursorException("Data changed since the previous page, pagination must be restarted");
+        }
+    }
+
+    private static <V> NavigableMap<String, V> tail(NavigableMap<String, V> map, String afterKey) {
+        if (map == null) return Collections.emptyNavigableMap();
+        return afterKey == null ? map : map.tailMap(afterKey, false);
+    }
+
+    private static String[] splitKey(String key) {
+        int separator = key.indexOf(KEY_SEPARATOR);
+        if (separator < 0) throw new InvalidCursorException("Cursor is not valid");
+        return new String[]{key.substring(0, separator), key.substring(separator + 1)};
+    }
+
+
+    private int indexNewPerson(Person person) {
+        personsById.add(person);
+        int id = personsById.size();
+        addId(personIdsByName, nameKey(person.firstName(), person.lastName()), id);
+        indexPerson(person, id);
+        return id;
+    }
+
+    private int indexNewFireStation(FireStation fireStation) {
+        indexFireStation(fireStation);
+        fireStationsById.add(fireStation);
+        int id = fireStationsById.size();
+        addId(fireStationIdsByKey, fireStationKey(fireStation), id);
+        return id;
+    }
+
+    private int indexNewMedicalRecord(MedicalRecord medicalRecord) {
+        medicalRecordsById.add(medicalRecord);
+        int id = medicalRecordsById.size();
+        addId(medicalRecordIdsByName, nameKey(medicalRecord.firstName(), medicalRecord.lastName()), id);
+        indexMedicalRecord(medicalRecord, id);
+        return id;
+    }
+
+    private int replaceMedicalRecordEntry(MedicalRecord oldMedicalRecord, MedicalRecord newMedicalRecord) {
+        String oldKey = nameKey(oldMedicalRecord.firstName(), oldMedicalRecord.lastName());
+        int id = requireId(medicalRecordIdsByName, oldKey, medicalRecordsById, oldMedicalRecord);
+        removeId(medicalRecordIdsByName, oldKey, id);
+        unindexMedicalRecord(oldMedicalRecord, id);
+        medicalRecordsById.set(id - 1, newMedicalRecord);
+        addId(medicalRecordIdsByName, nameKey(newMedicalRecord.firstName(), newMedicalRecord.lastName()), id);
+        indexMedicalRecord(newMedicalRecord, id);
+        return id;
+    }
+
+    private void indexMedicalRecord(MedicalRecord medicalRecord, int id) {
+        forEachItem(medicalRecord.medications(), key -> medicalRecordIdsByMedication.computeIfAbsent(key, k -> new TreeSet<>()).add(id));
+        forEachItem(medicalRecord.allergies(), key -> medicalRecordIdsByAllergy.computeIfAbsent(key, k -> new TreeSet<>()).add(id));
+    }
+
+    private void unindexMedicalRecord(MedicalRecord medicalRecord, int id) {
+        forEachItem(medicalRecord.medications(), key -> removeId(medicalRecordIdsByMedication, key, id));
+        forEachItem(medicalRecord.allergies(), key -> removeId(medicalRecordIdsByAllergy, key, id));
+    }
+
+    private List<MedicalRecord> getMedicalRecordsByItem(Map<String, NavigableSet<Integer>> index, String item) {
+        List<MedicalRecord> medicalRecords = new ArrayList<>();
+        for (int id : index.getOrDefault(itemKey(item), Collections.emptyNavigableSet())) {
+            medicalRecords.add(medicalRecordsById.get(id - 1));
+        }
+        return medicalRecords;
+    }
+
+    private int replaceFireStationEntry(FireStation oldFireStation, FireStation newFireStation) {
+        String oldKey = fireStationKey(oldFireStation);
+        int id = requireId(fireStationIdsByKey, oldKey, fireStationsById, oldFireStation);
+        removeId(fireStationIdsByKey, oldKey, id);
+        unindexFireStation(oldFireStation);
+        indexFireStation(newFireStation);
+        fireStationsById.set(id - 1, newFireStation);
+        addId(fireStationIdsByKey, fireStationKey(newFireStation), id);
+        return id;
+    }
+
+    private void removeFireStationEntry(FireStation fireStation) {
+        String key = fireStationKey(fireStation);
+        Integer id = findId(fireStationIdsByKey, key, fireStationsById, fireStation);
+        if (id == null) return;
+        removeId(fireStationIdsByKey, key, id);
+        unindexFireStation(fireStation);
+        fireStationsById.set(id - 1, null);
+    }
+
+    private void indexPerson(Person person, int id) {
+        String personKey = personKey(person, id);
+        lastNameTrie.add(person);
+        personsByPhone.computeIfAbsent(person.phone(), key -> new ArrayList<>(1)).add(person);
+        personsByAddress.computeIfAbsent(addressKey(person.address()), key -> new TreeMap<>()).put(personKey, person);
+        personsByLastName.computeIfAbsent(person.lastName().toLowerCase(Locale.ROOT), key -> new TreeMap<>()).put(personKey, person);
+        emailsByCity.computeIfAbsent(person.city().toLowerCase(Locale.ROOT), key -> new TreeMap<>()).merge(person.email(), 1, Integer::sum);
+    }
+
+    private void unindexPerson(Person person, int id) {
+        String personKey = personKey(person, id);
+        lastNameTrie.remove(person);
+        removeFromList(personsByPhone, person.phone(), person);
+        removeFromMap(personsByAddress, addressKey(person.address()), personKey);
+        removeFromMap(personsByLastName, person.lastName().toLowerCase(Locale.ROOT), personKey);
+
+        NavigableMap<String, Integer> emails = emailsByCity.get(person.city().toLowerCase(Locale.ROOT));
+        if (emails != null) {
+            emails.computeIfPresent(person.email(), (email, count) -> count == 1 ? null : count - 1);
+            if (emails.isEmpty()) emailsByCity.remove(person.city().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private void indexFireStation(FireStation fireStation) {
+        fireStationsByAddress.computeIfAbsent(addressKey(fireStation.address()), key -> new ArrayList<>(1)).add(fireStation);
+        addressesByStation.computeIfAbsent(fireStation.station(), key -> new TreeSet<>()).add(addressKey(fireStation.address()));
+    }
+
+    private void unindexFireStation(FireStation fireStation) {
+        String addressKey = addressKey(fireStation.address());
+        removeFromList(fireStationsByAddress, addressKey, fireStation);
+
+        boolean stillCovered = fireStationsByAddress.getOrDefault(addressKey, List.of()).stream()
+                .anyMatch(other -> other.station() == fireStation.station());
+        NavigableSet<String> addresses = addressesByStation.get(fireStation.station());
+        if (!stillCovered && addresses != null) {
+            addresses.remove(addressKey);
+            if (addresses.isEmpty()) addressesByStation.remove(fireStation.station());
+        }
+    }
+
+    private <T> T getById(List<T> elementsById, long id) {
+        if (id >>> EPOCH_SHIFT != epoch) return null;
+        int position = (int) id;
+        return position >= 1 && position <= elementsById.size() ? elementsById.get(position - 1) : null;
+    }
+
+    private long publicId(int id) {
+        return (long) epoch << EPOCH_SHIFT | id;
+    }
+
+    private static <T> void removeFromList(Map<String, List<T>> index, String key, T value) {
+        List<T> values = index.get(key);
+        if (values == null) return;
+        values.remove(value);
+        if (values.isEmpty()) index.remove(key);
+    }
+
+    private static void addId(Map<String, NavigableSet<Integer>> index, String key, int id) {
+        index.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+    }
+
+    private static void removeId(Map<String, NavigableSet<Integer>> index, String key, int id) {
+        NavigableSet<Integer> ids = index.get(key);
+        if (ids == null) return;
+        ids.remove(id);
+        if (ids.isEmpty()) index.remove(key);
+    }
+
+    private static <T> Optional<T> getFirst(Map<String, NavigableSet<Integer>> index, String key, List<T> elementsById, Predicate<T> filter) {
+        for (int id : index.getOrDefault(key, Collections.emptyNavigableSet())) {
+            T element = elementsById.get(id - 1);
+            if (filter.test(element)) return Optional.of(element);
+        }
+        return Optional.empty();
+    }
+
+    // Among the elements sharing a key, the ID of this very element, else of the first one equal to it
+    private static <T> Integer findId(Map<String, NavigableSet<Integer>> index, String key, List<T> elementsById, T element) {
+        Integer equalId = null;
+        for (int id : index.getOrDefault(key, Collections.emptyNavigableSet())) {
+            T indexed = elementsById.get(id - 1);
+            if (indexed == element) return id;
+            if (equalId == null && indexed.equals(element)) equalId = id;
+        }
+        return equalId;
+    }
+
+    private static <T> int requireId(Map<String, NavigableSet<Integer>> index, String key, List<T> elementsById, T element) {
+        Integer id = findId(index, key, elementsById, element);
+        if (id == null) {
+            Logger.error("Not found in the indexes : " + element);
+            throw new NotFoundException("Not found : " + element);
+        }
+        return id;
+    }
+
+    private static void forEachItem(String[] items, Consumer<String> action) {
+        if (items == null) return;
+        for (String item : items) {
+            if (item != null) action.accept(itemKey(item));
+        }
+    }
+
+    private static <V> void removeFromMap(Map<String, NavigableMap<String, V>> index, String key, String subKey) {
+        NavigableMap<String, V> values = index.get(key);
+        if (values == null) return;
+        values.remove(subKey);
+        if (values.isEmpty()) index.remove(key);
+    }
+
+    private static String personKey(Person person, int id) {
+        return (person.lastName() + " " + person.firstName()).toLowerCase(Locale.ROOT) + KEY_SEPARATOR + id;
+    }
+
+    private static String addressKey(String address) {
+        return address.toLowerCase(Locale.ROOT);
+    }
+
+    // Ignoring case, so that a name can be found in any case : the lookups by the exact name filter the elements of the key
+    private static String nameKey(String firstName, String lastName) {
+        return (firstName + KEY_SEPARATOR + lastName).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Retrieves the key of a medication or an allergy : its name, without the dose, in lower case.
+     *
+     * @param item The medication or the allergy, like "aznol:350mg".
+     * @return The key of the item, like "aznol".
+     */
+    public static String itemKey(String item) {
+        int separator = item.indexOf(':');
+        return (separator < 0 ? item : item.substring(0, separator)).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String fireStationKey(FireStation fireStation) {
+        return fireStation.station() + " " + addressKey(fireStation.address());
+    }
+
+
+    /**
+     * A page of elements read from an index.
+     *
+     * @param items   The elements of the page.
+     * @param nextKey The key to resume from for the next page, null if this page is the last one.
+     * @param version The version of the data the page was read from.
+     * @param <T>     The type of the elements.
+     */
+    public record IndexPage<T>(List<T> items, String nextKey, long version) {
+    }
+
+    /**
+     * The IDs given to elements added in one update.
+     *
+     * @param persons        The IDs of the persons.
+     * @param medicalRecords The IDs of the medical records.
+     * @param fireStations   The IDs of the fire station mappings.
+     */
+    public record AddedIds(List<Long> persons, List<Long> medicalRecords, List<Long> fireStations) {
+    }
+
+    /**
+     * A person with the number of the station covering his address.
+     *
+     * @param station The station number.
+     * @param person  The person.
+     */
+    public record StationPerson(int station, Person person) {
+    }
+
+    private static final class PageCollector<T> {
+        private final int size;
+        private final List<T> items = new ArrayList<>();
+        private String lastKey;
+        private boolean hasMore;
+
+        private PageCollector(int size) {
+            this.size = size;
+        }
+
+        private boolean add(String key, T item) {
+            if (items.size() == size) {
+                hasMore = true;
+                return false;
+            }
+            items.add(item);
+            lastKey = key;
+            return true;
+        }
+
+        private IndexPage<T> toPage(long version) {
+            return new IndexPage<>(items, hasMore ? lastKey : null, version);
+        }
+    }
+}
@@ -7,18 +7,31 @@ import com.safetynet.alerts.model.Data;
 import com.safetynet.alerts.model.FireStation;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.model.Person;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.tinylog.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
  * Handler class for managing JSON files.
  * This class provides methods for reading and writing data to a JSON file.
  * It also provides methods for sorting persons by last name and first name, sorting medical records by last name and first name, and sorting fire stations by station number.
+ * In deferred mode, during a surge, the writes only keep a copy of the data to write, and the copy is written by a periodic flush.
+ * Each write is numbered in the order of the updates, so a write older than the one already in the file is skipped.
+ * The file is written under a ReentrantLock rather than a monitor, so a virtual thread blocked on the write doesn't pin its carrier thread.
+ * The loading and the writes of the file are timed, and the number of records of each type and of writes deferred are gauged.
  *
  * @author Perrine Dassonville
  * @version 1.0
@@ -28,21 +41,33 @@ import java.util.Comparator;
  * @see FireStation
  * @see MedicalRecord
  * @see Person
+ * @see MeterRegistry
  */
 @Component
 public class JsonFileHandler {
 
     private static final String FILE_PATH = "src/main/java/com/safetynet/alerts/repository/data.json";
     private final Data data;
+    private volatile boolean deferred;
+    private Data pending;
+    private long pendingSequence;
+    private long deferredWrites;
+    private long writeSequence;
+    private long writtenSequence;
+    private final ReentrantLock fileLock = new ReentrantLock();
+    private final Timer writeTimer;
 
 
     /**
      * Constructor for JsonFileHandler.
-     * Reads data from a JSON file and stores it in a Data object.
+     * Reads data from a JSON file and stores it in a Data object, then registers the meters of the file and of the data.
      *
+     * @param meterRegistry The registry of the meters.
      * @throws JsonFileException if an error occurs while reading the JSON file.
      */
-    public JsonFileHandler() throws JsonFileException {
+    @Autowired
+    public JsonFileHandler(MeterRegistry meterRegistry) throws JsonFileException {
+        Timer.Sample load = Timer.start(meterRegistry);
         try {
             ObjectMapper mapper = new ObjectMapper();
             mapper.registerModule(new JavaTimeModule());
@@ -51,6 +76,22 @@ public class JsonFileHandler {
             Logger.error(ex, "Failed to access to data.");
             throw new JsonFileException("Failed to access to data.");
         }
+        load.stop(Timer.builder("alerts.data.load")
+                .description("Duration of the loading of the JSON file")
+                .register(meterRegistry));
+
+        writeTimer = Timer.builder("alerts.data.write")
+                .description("Duration of the writes of the JSON file, including the wait for a write in progress")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("alerts.data.records", data, current -> current.persons().size())
+                .description("Number of records in the data").tag("type", "person").register(meterRegistry);
+        Gauge.builder("alerts.data.records", data, current -> current.fireStations().size())
+                .description("Number of records in the data").tag("type", "firestation").register(meterRegistry);
+        Gauge.builder("alerts.data.records", data, current -> current.medicalRecords().size())
+                .description("Number of records in the data").tag("type", "medicalrecord").register(meterRegistry);
+        Gauge.builder("alerts.data.deferred.writes", this, JsonFileHandler::getDeferredWrites)
+                .description("Number of writes deferred until the next flush").register(meterRegistry);
     }
 
     /**
@@ -64,19 +105,107 @@ public class JsonFileHandler {
 
 
     /**
-     * Writes data to a JSON file.
+     * Writes data to a JSON file, or at the next flush in deferred mode.
+     * Must be called under the write lock of the data : in deferred mode, the lists are copied at once, so the flush
+     * writes a consistent copy while the data keeps changing.
      *
      * @param data The data to write to the JSON file.
      * @throws JsonFileException if an error occurs while writing to the JSON file.
      */
     public void writeData(Data data) throws JsonFileException {
+        long sequence;
+        synchronized (this) {
+            sequence = ++writeSequence;
+            if (deferred) {
+                pending = new Data(new ArrayList<>(data.persons()), new ArrayList<>(data.fireStations()), new ArrayList<>(data.medicalRecords()));
+                pendingSequence = sequence;
+                deferredWrites++;
+                return;
+            }
+        }
+        write(data, sequence);
+    }
+
+    /**
+     * Switches between immediate writes and deferred writes, flushed periodically.
+     * Leaving the deferred mode does not write the pending data, the next flush does, unless a newer write did it first.
+     *
+     * @param deferred True to defer the writes, false to write immediately.
+     */
+    public synchronized void setDeferred(boolean deferred) {
+        this.deferred = deferred;
+    }
+
+    /**
+     * Indicates whether the writes are deferred.
+     *
+     * @return True if the writes are deferred until the next flush.
+     */
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    /**
+     * Retrieves the number of writes deferred since the last flush.
+     *
+     * @return The number of writes waiting for the next flush, all merged in a single write.
+     */
+    public synchronized long getDeferredWrites() {
+        return deferredWrites;
+    }
+
+    /**
+     * Writes the pending data, if writes were deferred since the last flush.
+     * If the write fails, the data stays pending until the next flush.
+     *
+     * @throws JsonFileException if an error occurs while writing to the JSON file.
+     */
+    @Scheduled(fixedDelayString = "${alerts.surge.flush-interval:5000}")
+    @PreDestroy
+    public void flush() throws JsonFileException {
+        Data toWrite;
+        long sequence;
+        long writes;
+        synchronized (this) {
+            toWrite = pending;
+            sequence = pendingSequence;
+            writes = deferredWrites;
+            pending = null;
+            deferredWrites = 0;
+        }
+        if (toWrite == null) return;
+
+        try {
+            write(toWrite, sequence);
+            Logger.info("{} deferred writes flushed to the JSON file", writes);
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                if (pending == null) {
+                    pending = toWrite;
+                    pendingSequence = sequence;
+                }
+                deferredWrites += writes;
+            }
+            throw ex;
+        }
+    }
+
+
+    private void write(Data data, long sequence) throws JsonFileException {
+        long start = System.nanoTime();
+        fileLock.lock();
         try {
+            if (sequence < writtenSequence) return;
             ObjectMapper mapper = new ObjectMapper();
             mapper.registerModule(new JavaTimeModule());
             mapper.writerWithDefaultPrettyPrinter().writeValue(new File(FILE_PATH), data);
+            writtenSequence = sequence;
         } catch (IOException ex) {
             Logger.error(ex, "Failed to write data to JSON file");
             throw new JsonFileException("Failed to write data");
+        } finally {
+            fileLock.unlock();
+            writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
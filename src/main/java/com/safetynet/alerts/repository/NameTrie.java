@@ -0,0 +1,225 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.Person;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+
+/**
+ * In-memory trie of persons keyed by a name (last name by default).
+ * Keys are normalized to lower case so that lookups are case-insensitive.
+ * The trie supports prefix matching and typo-tolerant prefix matching : a person matches when a prefix of his name
+ * is within a given Levenshtein distance of the query.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see Person
+ * @see DataIndex
+ */
+public class NameTrie {
+
+    private final Function<Person, String> keyExtractor;
+    private final Node root = new Node();
+    private int size;
+
+
+    /**
+     * Constructor for NameTrie.
+     *
+     * @param keyExtractor The function returning the name used as key for a person.
+     */
+    public NameTrie(Function<Person, String> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+
+    /**
+     * Adds a person to the trie.
+     *
+     * @param person The person to add.
+     */
+    public void add(Person person) {
+        Node node = root;
+        for (char c : normalize(keyExtractor.apply(person)).toCharArray()) {
+            node = node.children.computeIfAbsent(c, key -> new Node());
+        }
+        node.persons.add(person);
+        size++;
+    }
+
+    /**
+     * Removes a person from the trie. Nodes left empty are pruned.
+     *
+     * @param person The person to remove.
+     * @return true if the person was found and removed, false otherwise.
+     */
+    public boolean remove(Person person) {
+        String key = normalize(keyExtractor.apply(person));
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        for (char c : key.toCharArray()) {
+            path.push(node);
+            node = node.children.get(c);
+            if (node == null) return false;
+        }
+        if (!node.persons.remove(person)) return false;
+        size--;
+
+        for (int i = key.length() - 1; i >= 0 && node.isEmpty(); i--) {
+            Node parent = path.pop();
+            parent.children.remove(key.charAt(i));
+            node = parent;
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the number of persons stored in the trie.
+     *
+     * @return The number of persons.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Searches persons whose name starts with the query, allowing up to maxEdits typos.
+     * Results are ordered by edit distance, then alphabetically, and the search stops as soon as the limit is reached.
+     *
+     * @param query    The beginning of the name to search for.
+     * @param maxEdits The maximum number of insertions, deletions or substitutions allowed.
+     * @param limit    The maximum number of results.
+     * @param filter   An additional filter the persons must satisfy.
+     * @return The list of matching persons with their edit distance.
+     */
+    public List<Match> search(String query, int maxEdits, int limit, Predicate<Person> filter) {
+        char[] target = normalize(query).toCharArray();
+        int[] firstRow = new int[target.length + 1];
+        for (int i = 0; i <= target.length; i++) firstRow[i] = i;
+
+        List<Subtree> roots = new ArrayList<>();
+        if (firstRow[target.length] <= maxEdits) {
+            roots.add(new Subtree(root, firstRow[target.length]));
+        }
+        for (Map.Entry<Character, Node> child : root.children.entrySet()) {
+            collectRoots(child.getValue(), child.getKey(), target, firstRow, maxEdits, firstRow[target.length], roots);
+        }
+        roots.sort(Comparator.comparingInt(Subtree::distance));
+
+        List<Match> results = new ArrayList<>();
+        Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Subtree subtree : roots) {
+            if (results.size() >= limit) break;
+            enumerate(subtree.node(), subtree.distance(), limit, filter, visited, results);
+        }
+        return results;
+    }
+
+    /**
+     * Walks the trie computing one Levenshtein row per node and records the nodes where the whole query matches
+     * the node prefix with a better distance than any of their ancestors. Branches that can no longer match are pruned.
+     */
+    private void collectRoots(Node node, char letter, char[] target, int[] previousRow, int maxEdits, int bestAncestorDistance, List<Subtree> roots) {
+        int[] row = new int[target.length + 1];
+        row[0] = previousRow[0] + 1;
+        int rowMin = row[0];
+        for (int i = 1; i <= target.length; i++) {
+            int cost = target[i - 1] == letter ? 0 : 1;
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previousRow[i] + 1), previousRow[i - 1] + cost);
+            rowMin = Math.min(rowMin, row[i]);
+        }
+
+        int distance = row[target.length];
+        if (distance <= maxEdits && distance < bestAncestorDistance) {
+            roots.add(new Subtree(node, distance));
+            bestAncestorDistance = distance;
+        }
+        if (rowMin > maxEdits) return;
+
+        for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+            collectRoots(child.getValue(), child.getKey(), target, row, maxEdits, bestAncestorDistance, roots);
+        }
+    }
+
+    private void enumerate(Node node, int distance, int limit, Predicate<Person> filter, Set<Node> visited, List<Match> results) {
+        if (results.size() >= limit || !visited.add(node)) return;
+        for (Person person : node.persons) {
+            if (results.size() >= limit) return;
+            if (filter.test(person)) results.add(new Match(person, distance));
+        }
+        for (Node child : node.children.values()) {
+            enumerate(child, distance, limit, filter, visited, results);
+        }
+    }
+
+
+    /**
+     * Computes the smallest Levenshtein distance between a query and any prefix of a name, ignoring case.
+     *
+     * @param query The query.
+     * @param name  The name to compare.
+     * @return The smallest edit distance between the query and a prefix of the name.
+     */
+    public static int prefixDistance(String query, String name) {
+        char[] target = normalize(query).toCharArray();
+        char[] source = normalize(name).toCharArray();
+        int[] row = new int[target.length + 1];
+        for (int i = 0; i <= target.length; i++) row[i] = i;
+        int best = row[target.length];
+
+        for (char letter : source) {
+            int[] next = new int[target.length + 1];
+            next[0] = row[0] + 1;
+            for (int i = 1; i <= target.length; i++) {
+                int cost = target[i - 1] == letter ? 0 : 1;
+                next[i] = Math.min(Math.min(next[i - 1] + 1, row[i] + 1), row[i - 1] + cost);
+            }
+            row = next;
+            best = Math.min(best, row[target.length]);
+        }
+        return best;
+    }
+
+    /**
+     * Retrieves the number of typos tolerated for a query, depending on its length.
+     *
+     * @param query The query.
+     * @return 0 for queries of 2 characters or less, 1 up to 5 characters, 2 otherwise.
+     */
+    public static int defaultMaxEdits(String query) {
+        int length = query.length();
+        if (length <= 2) return 0;
+        if (length <= 5) return 1;
+        return 2;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+
+    /**
+     * A person found by a search, with the edit distance between the query and his name.
+     *
+     * @param person   The person found.
+     * @param distance The edit distance between the query and the matching prefix of the name.
+     */
+    public record Match(Person person, int distance) {
+    }
+
+    private record Subtree(Node node, int distance) {
+    }
+
+    private static final class Node {
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private final List<Person> persons = new ArrayList<>(1);
+
+        private boolean isEmpty() {
+            return children.isEmpty() && persons.isEmpty();
+        }
+    }
+}
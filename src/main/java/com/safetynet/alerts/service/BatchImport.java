@@ -0,0 +1,84 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.dto.BatchItemResultDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpStatus;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+
+/**
+ * Helper class for importing a batch of records.
+ * Every record is validated and checked for duplicates, against the existing data and inside the batch, before
+ * the accepted records are applied all at once. A result is returned for each record, in the order of the batch.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see BatchItemResultDTO
+ */
+final class BatchImport {
+
+    private BatchImport() {
+    }
+
+
+    /**
+     * Validates a batch of records and applies the accepted ones in a single call.
+     *
+     * @param records      The records to import.
+     * @param validator    The validator checking the constraints of each record.
+     * @param keyExtractor The function returning the identity of a record, compared ignoring case.
+     * @param exists       The predicate telling whether a record already exists in the data.
+     * @param applier      The function applying the accepted records and returning their IDs, in the same order.
+     * @param <T>          The type of the records.
+     * @return The result of each record : 201 with its ID, 400 if it is not valid or 409 if it already exists.
+     */
+    static <T> List<BatchItemResultDTO> apply(List<T> records, Validator validator, Function<T, String> keyExtractor,
+                                              Predicate<T> exists, Function<List<T>, List<Long>> applier) {
+        BatchItemResultDTO[] results = new BatchItemResultDTO[records.size()];
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        List<T> accepted = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
+
+        for (int i = 0; i < records.size(); i++) {
+            T record = records.get(i);
+            if (record == null) {
+                results[i] = new BatchItemResultDTO(i, HttpStatus.BAD_REQUEST.value(), null, "Record is missing");
+                continue;
+            }
+
+            Set<ConstraintViolation<T>> violations = validator.validate(record);
+            if (!violations.isEmpty()) {
+                String error = violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " : " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", "));
+                results[i] = new BatchItemResultDTO(i, HttpStatus.BAD_REQUEST.value(), null, error);
+                continue;
+            }
+
+            String key = keyExtractor.apply(record);
+            if (!keys.add(key.toLowerCase(Locale.ROOT)) || exists.test(record)) {
+                results[i] = new BatchItemResultDTO(i, HttpStatus.CONFLICT.value(), null, key + " already exists");
+                continue;
+            }
+
+            acceptedIndexes.add(i);
+            accepted.add(record);
+        }
+
+        if (!accepted.isEmpty()) {
+            List<Long> ids = applier.apply(accepted);
+            for (int i = 0; i < acceptedIndexes.size(); i++) {
+                int index = acceptedIndexes.get(i);
+                results[index] = new BatchItemResultDTO(index, HttpStatus.CREATED.value(), ids.get(i), null);
+            }
+        }
+        return Arrays.asList(results);
+    }
+}
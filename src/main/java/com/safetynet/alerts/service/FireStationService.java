@@ -1,5 +1,6 @@
 package com.safetynet.alerts.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.safetynet.alerts.dto.*;
 import com.safetynet.alerts.exception.AlreadyExistException;
 import com.safetynet.alerts.exception.NotFoundException;
@@ -7,16 +8,26 @@ import com.safetynet.alerts.model.Data;
 import com.safetynet.alerts.model.FireStation;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataIndex;
 import com.safetynet.alerts.repository.JsonFileHandler;
+import com.safetynet.alerts.util.Deadline;
+import com.safetynet.alerts.util.PageCursor;
+import com.safetynet.alerts.util.ServerTiming;
+import com.safetynet.alerts.util.TaskScope;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.tinylog.Logger;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static com.safetynet.alerts.util.BirthdateUtil.*;
 
@@ -30,21 +41,40 @@ import static com.safetynet.alerts.util.BirthdateUtil.*;
  *
  * @see StationCoverageDTO
  * @see FloodDTO
+ * @see FloodReportDTO
  * @see FireDTO
+ * @see ResourceIdDTO
+ * @see BatchItemResultDTO
+ * @see AffectedRecordsDTO
+ * @see PageDTO
+ * @see PersonInfoField
+ * @see JsonPayload
+ * @see TaskScope
+ * @see Deadline
+ * @see ServerTiming
  * @see AlreadyExistException
  * @see NotFoundException
  * @see Data
  * @see FireStation
  * @see JsonFileHandler
+ * @see DataIndex
  */
 @Service
 public class FireStationService {
 
+    // Bound of the concurrent lookups of a query, so that none of them runs on once its request is given up
+    private static final Duration SUBQUERY_TIMEOUT = Duration.ofSeconds(10);
+
     private final JsonFileHandler jsonFileHandler;
+    private final DataIndex dataIndex;
+    private final Validator validator;
+    private volatile FloodReportDTO floodReport;
 
     @Autowired
-    public FireStationService(JsonFileHandler jsonFileHandler) {
+    public FireStationService(JsonFileHandler jsonFileHandler, DataIndex dataIndex, Validator validator) {
         this.jsonFileHandler = jsonFileHandler;
+        this.dataIndex = dataIndex;
+        this.validator = validator;
     }
 
 
@@ -52,26 +82,60 @@ public class FireStationService {
      * Creates a new fire station.
      *
      * @param fireStation The fire station to create.
-     * @return A ResponseEntity with the HTTP status.
+     * @return A ResponseEntity with the HTTP status and the ID of the created fire station mapping.
      * @throws AlreadyExistException if a fire station with the same address and station number already exists.
      */
-    public ResponseEntity<Void> create(FireStation fireStation) {
+    public ResponseEntity<ResourceIdDTO> create(FireStation fireStation) {
         Logger.info("Creating fire station : {}", fireStation);
-        Data data = jsonFileHandler.getData();
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
 
-        boolean fireStationExists = data.fireStations().stream()
-                .anyMatch(fs -> fs.address().equalsIgnoreCase(fireStation.address()) && fs.station() == fireStation.station());
+            boolean fireStationExists = data.fireStations().stream()
+                    .anyMatch(fs -> fs.address().equalsIgnoreCase(fireStation.address()) && fs.station() == fireStation.station());
 
-        if (fireStationExists) {
-            Logger.error("FireStation " + fireStation.station() + " with address " + fireStation.address() + " already exists");
-            throw new AlreadyExistException("FireStation " + fireStation.station() + " with address " + fireStation.address() + " already exists");
-        }
+            if (fireStationExists) {
+                Logger.error("FireStation " + fireStation.station() + " with address " + fireStation.address() + " already exists");
+                throw new AlreadyExistException("FireStation " + fireStation.station() + " with address " + fireStation.address() + " already exists");
+            }
 
-        data.fireStations().add(fireStation);
-        jsonFileHandler.writeData(jsonFileHandler.sortFireStationsByStationNumber(data));
+            data.fireStations().add(fireStation);
+            long id = dataIndex.addFireStation(fireStation);
+            jsonFileHandler.writeData(jsonFileHandler.sortFireStationsByStationNumber(data));
 
-        Logger.info("Fire station created : {}", fireStation);
-        return new ResponseEntity<>(HttpStatus.CREATED);
+            Logger.info("Fire station created with id {} : {}", id, fireStation);
+            return new ResponseEntity<>(new ResourceIdDTO(id), HttpStatus.CREATED);
+        });
+    }
+
+
+    /**
+     * Creates several fire station mappings at once.
+     * Each mapping is validated and checked for duplicates, then the accepted mappings are indexed
+     * and written in a single update.
+     *
+     * @param fireStations The fire station mappings to create.
+     * @return The result of each mapping, in the same order : 201 with its ID, 400 if it is not valid or 409 if it already exists.
+     */
+    public List<BatchItemResultDTO> createBatch(List<FireStation> fireStations) {
+        Logger.info("Creating batch of {} fire stations", fireStations.size());
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            List<BatchItemResultDTO> results = BatchImport.apply(fireStations, validator,
+                    fireStation -> "FireStation " + fireStation.station() + " with address " + fireStation.address(),
+                    dataIndex::hasFireStation,
+                    accepted -> {
+                        data.fireStations().addAll(accepted);
+                        List<Long> ids = dataIndex.addFireStations(accepted);
+                        jsonFileHandler.writeData(jsonFileHandler.sortFireStationsByStationNumber(data));
+                        return ids;
+                    });
+
+            Logger.info("Batch of fire stations created : {} of {}", results.stream().filter(result -> result.id() != null).count(), fireStations.size());
+            return results;
+        });
     }
 
 
@@ -84,22 +148,26 @@ public class FireStationService {
      */
     public ResponseEntity<Void> update(FireStation fireStation) {
         Logger.info("Updating fire station : {}", fireStation);
-        Data data = jsonFileHandler.getData();
-
-        List<FireStation> fireStations = data.fireStations();
-        int index = IntStream.range(0, fireStations.size())
-                .filter(i -> fireStations.get(i).address().equalsIgnoreCase(fireStation.address()))
-                .findFirst()
-                .orElseThrow(() -> {
-                    Logger.error("FireStation " + fireStation.station() + " with address " + fireStation.address() + " already exists");
-                    return new NotFoundException("FireStation with address " + fireStation.address() + " not found");
-                });
-
-        fireStations.set(index, fireStation);
-        jsonFileHandler.writeData(data);
-
-        Logger.info("Fire station updated : {}", fireStation);
-        return new ResponseEntity<>(HttpStatus.OK);
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            List<FireStation> fireStations = data.fireStations();
+            int index = IntStream.range(0, fireStations.size())
+                    .filter(i -> fireStations.get(i).address().equalsIgnoreCase(fireStation.address()))
+                    .findFirst()
+                    .orElseThrow(() -> {
+                        Logger.error("FireStation " + fireStation.station() + " with address " + fireStation.address() + " already exists");
+                        return new NotFoundException("FireStation with address " + fireStation.address() + " not found");
+                    });
+
+            FireStation oldFireStation = fireStations.set(index, fireStation);
+            dataIndex.replaceFireStation(oldFireStation, fireStation);
+            jsonFileHandler.writeData(data);
+
+            Logger.info("Fire station updated : {}", fireStation);
+            return new ResponseEntity<>(HttpStatus.OK);
+        });
     }
 
 
@@ -112,22 +180,95 @@ public class FireStationService {
      */
     public ResponseEntity<Void> delete(FireStation fireStation) {
         Logger.info("Deleting fire station: {}", fireStation);
-        Data data = jsonFileHandler.getData();
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            FireStation fireStationToDelete = data.fireStations().stream()
+                    .filter(fs -> fs.address().equalsIgnoreCase(fireStation.address())
+                            && fs.station() == fireStation.station())
+                    .findFirst()
+                    .orElseThrow(() -> {
+                        Logger.error("FireStation " + fireStation.station() + " with address " + fireStation.address() + " not found");
+                        return new NotFoundException("FireStation " + fireStation.station() + " with address " + fireStation.address() + " not found");
+                    });
+
+            data.fireStations().remove(fireStationToDelete);
+            dataIndex.removeFireStation(fireStationToDelete);
+            jsonFileHandler.writeData(data);
+
+            Logger.info("Fire station deleted: {}", fireStationToDelete);
+            return new ResponseEntity<>(HttpStatus.OK);
+        });
+    }
 
-        FireStation fireStationToDelete = data.fireStations().stream()
-                .filter(fs -> fs.address().equalsIgnoreCase(fireStation.address())
-                        && fs.station() == fireStation.station())
-                .findFirst()
-                .orElseThrow(() -> {
-                    Logger.error("FireStation " + fireStation.station() + " with address " + fireStation.address() + " not found");
-                    return new NotFoundException("FireStation " + fireStation.station() + " with address " + fireStation.address() + " not found");
-                });
 
-        data.fireStations().remove(fireStationToDelete);
-        jsonFileHandler.writeData(data);
+    /**
+     * Deletes all the fire station mappings of a station in one update and one write.
+     *
+     * @param stationNumber The number of the station to delete.
+     * @return An AffectedRecordsDTO containing the number of deleted mappings.
+     * @throws NotFoundException if no station with the given number is found.
+     */
+    public AffectedRecordsDTO deleteByStation(int stationNumber) {
+        Logger.info("Deleting fire station mappings of station : {}", stationNumber);
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            List<FireStation> fireStations = getFireStationsOfStation(stationNumber);
+            Set<FireStation> toDelete = new HashSet<>(fireStations);
+            data.fireStations().removeIf(toDelete::contains);
+            dataIndex.updateFireStations(fireStations, Map.of());
+            jsonFileHandler.writeData(data);
+
+            Logger.info("{} fire station mappings deleted for station : {}", fireStations.size(), stationNumber);
+            return new AffectedRecordsDTO(fireStations.size());
+        });
+    }
+
 
-        Logger.info("Fire station deleted: {}", fireStationToDelete);
-        return new ResponseEntity<>(HttpStatus.OK);
+    /**
+     * Moves all the addresses of a station to another station in one update and one write.
+     * The addresses already covered by the target station are only removed from the source station.
+     *
+     * @param stationNumber    The number of the station to empty.
+     * @param newStationNumber The number of the station covering the addresses from now on.
+     * @return An AffectedRecordsDTO containing the number of moved mappings.
+     * @throws NotFoundException if no station with the given number is found.
+     */
+    public AffectedRecordsDTO reassignStation(int stationNumber, int newStationNumber) {
+        Logger.info("Reassigning fire station mappings of station {} to station {}", stationNumber, newStationNumber);
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            List<FireStation> fireStations = getFireStationsOfStation(stationNumber);
+            if (stationNumber == newStationNumber) {
+                return new AffectedRecordsDTO(0);
+            }
+
+            // By instance, so that duplicated mappings are each replaced in the list and in the indexes
+            List<FireStation> removed = new ArrayList<>();
+            Map<FireStation, FireStation> replacements = new IdentityHashMap<>();
+            for (FireStation fireStation : fireStations) {
+                FireStation moved = new FireStation(fireStation.address(), newStationNumber);
+                if (dataIndex.hasFireStation(moved)) {
+                    removed.add(fireStation);
+                } else {
+                    replacements.put(fireStation, moved);
+                }
+            }
+
+            Set<FireStation> toRemove = new HashSet<>(removed);
+            data.fireStations().removeIf(toRemove::contains);
+            data.fireStations().replaceAll(fireStation -> replacements.getOrDefault(fireStation, fireStation));
+            dataIndex.updateFireStations(removed, replacements);
+            jsonFileHandler.writeData(jsonFileHandler.sortFireStationsByStationNumber(data));
+
+            Logger.info("{} fire station mappings of station {} reassigned to station {}", fireStations.size(), stationNumber, newStationNumber);
+            return new AffectedRecordsDTO(fireStations.size());
+        });
     }
 
 
@@ -142,23 +283,32 @@ public class FireStationService {
         Data data = jsonFileHandler.getData();
 
         Set<String> stationAddresses = getAddressesByStation(stationNumber);
-        Map<Person, MedicalRecord> personMedicalRecordMap = PersonService.mapPersonsToMedicalRecords(data);
+        Map<Person, MedicalRecord> personMedicalRecordMap;
+        try (ServerTiming.Phase phase = ServerTiming.phase("join")) {
+            personMedicalRecordMap = PersonService.mapPersonsToMedicalRecords(data, dataIndex);
+        }
 
-        List<StationCoveragePersonInfoDTO> persons = data.persons().stream()
-                .filter(person -> stationAddresses.stream()
-                        .anyMatch(stationAddress -> stationAddress.equalsIgnoreCase(person.address())))
-                .map(person -> new StationCoveragePersonInfoDTO(person.firstName(), person.lastName(), person.address(), person.phone()))
-                .toList();
-
-        int children = (int) persons.stream()
-                .filter(person -> {
-                    Optional<MedicalRecord> medicalRecord = personMedicalRecordMap.entrySet().stream()
-                            .filter(entry -> entry.getKey().firstName().equals(person.firstName()) && entry.getKey().lastName().equals(person.lastName()))
-                            .map(Map.Entry::getValue)
-                            .findFirst();
-                    return isChild(medicalRecord.get().birthdate());
-                })
-                .count();
+        List<StationCoveragePersonInfoDTO> persons;
+        try (ServerTiming.Phase phase = ServerTiming.phase("filter")) {
+            persons = data.persons().stream()
+                    .filter(person -> stationAddresses.stream()
+                            .anyMatch(stationAddress -> stationAddress.equalsIgnoreCase(person.address())))
+                    .map(person -> new StationCoveragePersonInfoDTO(person.firstName(), person.lastName(), person.address(), person.phone()))
+                    .toList();
+        }
+
+        int children;
+        try (ServerTiming.Phase phase = ServerTiming.phase("ages")) {
+            children = (int) persons.stream()
+                    .filter(person -> {
+                        Optional<MedicalRecord> medicalRecord = personMedicalRecordMap.entrySet().stream()
+                                .filter(entry -> entry.getKey().firstName().equals(person.firstName()) && entry.getKey().lastName().equals(person.lastName()))
+                                .map(Map.Entry::getValue)
+                                .findFirst();
+                        return isChild(medicalRecord.get().birthdate());
+                    })
+                    .count();
+        }
 
         int adults = persons.size() - children;
 
@@ -168,36 +318,252 @@ public class FireStationService {
 
 
     /**
-     * Retrieves homes by station numbers.
+     * Retrieves a page of the persons station coverage by station number, ordered by address then by name.
+     * The number of adults and children are counted over the persons of the page.
+     *
+     * @param stationNumber The station number to search for.
+     * @param cursor        The cursor returned with the previous page, null for the first page.
+     * @param pageSize      The maximum number of persons of the page.
+     * @return A page containing a StationCoverageDTO and the cursor of the next page.
+     * @throws NotFoundException if no station with the given number is found.
+     */
+    public PageDTO<StationCoverageDTO> getPersonsStationCoverage(int stationNumber, String cursor, Integer pageSize) {
+        Logger.info("Getting page of persons station coverage for station number: {}", stationNumber);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+        checkStationExists(stationNumber);
+
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        DataIndex.IndexPage<Person> page = dataIndex.pagePersonsByStation(stationNumber,
+                pageCursor == null ? null : pageCursor.key(), PageCursor.pageSize(pageSize),
+                pageCursor == null ? null : pageCursor.version());
+
+        List<StationCoveragePersonInfoDTO> persons = new ArrayList<>(page.items().size());
+        int children = 0;
+        for (Person person : page.items()) {
+            persons.add(new StationCoveragePersonInfoDTO(person.firstName(), person.lastName(), person.address(), person.phone()));
+            if (isChild(getMedicalRecordOrEmpty(person).birthdate())) children++;
+        }
+
+        Logger.info("Successfully got page of persons station coverage for station number: {}", stationNumber);
+        return new PageDTO<>(new StationCoverageDTO(persons.size() - children, children, persons),
+                PageCursor.encode(page.version(), page.nextKey()), page.version());
+    }
+
+
+    /**
+     * Streams the persons covered by a station, ordered by address then by name.
+     *
+     * @param stationNumber The station number to search for.
+     * @return A lazy stream of StationCoveragePersonInfoDTOs.
+     * @throws NotFoundException if no station with the given number is found.
+     */
+    public Stream<StationCoveragePersonInfoDTO> streamPersonsStationCoverage(int stationNumber) {
+        Logger.info("Streaming persons station coverage for station number: {}", stationNumber);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+        checkStationExists(stationNumber);
+
+        return dataIndex.streamPersonsByStation(stationNumber)
+                .map(person -> new StationCoveragePersonInfoDTO(person.firstName(), person.lastName(), person.address(), person.phone()));
+    }
+
+
+    /**
+     * Retrieves homes by station numbers, with all the fields of the residents.
      *
      * @param stations The list of station numbers to search for.
      * @return A list of FloodDTOs containing the station number and a map of addresses to a list of persons living at each address.
      */
     public List<FloodDTO> getHomesByStations(List<Integer> stations) {
-        Logger.info("Getting homes by stations: {}", stations);
+        return getHomesByStations(stations, PersonInfoField.ALL);
+    }
 
-        Data data = jsonFileHandler.getData();
-        Map<Person, MedicalRecord> personMedicalRecordMap = PersonService.mapPersonsToMedicalRecords(data);
+    /**
+     * Retrieves homes by station numbers, with only the selected fields of the residents.
+     * The homes of each station are looked up concurrently in the indexes.
+     * The medical records are only looked up when one of their fields is selected.
+     *
+     * @param stations The list of station numbers to search for.
+     * @param fields   The fields of the residents to return.
+     * @return A list of FloodDTOs containing the station number and a map of addresses to a list of persons living at each address.
+     */
+    public List<FloodDTO> getHomesByStations(List<Integer> stations, Set<PersonInfoField> fields) {
+        Logger.info("Getting homes by stations: {} with fields {}", stations, fields);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+        stations.forEach(this::checkStationExists);
+
+        List<List<List<Person>>> homesByStation = getHomesOfEachStation(stations);
+
+        List<FloodDTO> floodDTOList = new ArrayList<>(stations.size());
+        try (ServerTiming.Phase phase = ServerTiming.phase("map")) {
+            for (int i = 0; i < stations.size(); i++) {
+                Deadline.check();
+                Map<String, List<FireFloodPersonInfoDTO>> personsByAddress = new LinkedHashMap<>();
+                for (List<Person> residents : homesByStation.get(i)) {
+                    personsByAddress.put(residents.getFirst().address(), residents.stream()
+                            .map(person -> toPersonInfo(person, getMedicalRecordIfNeeded(person, fields), fields))
+                            .toList());
+                }
+                floodDTOList.add(new FloodDTO(stations.get(i), personsByAddress));
+            }
+        }
 
-        List<FloodDTO> floodDTOList = stations.stream()
-                .map(stationNumber -> {
-                    Set<String> stationAddresses = getAddressesByStation(stationNumber);
+        Logger.info("Successfully got homes by stations: {}", stations);
+        return floodDTOList;
+    }
 
-                    Map<String, List<FireFloodPersonInfoDTO>> personsByAddress = data.persons().stream()
-                            .filter(person -> stationAddresses.stream()
-                                    .anyMatch(stationAddress -> stationAddress.equalsIgnoreCase(person.address())))
-                            .map(person -> {
-                                MedicalRecord medicalRecord = personMedicalRecordMap.get(person);
-                                return new AbstractMap.SimpleEntry<>(person.address(), new FireFloodPersonInfoDTO(person.firstName(), person.lastName(), person.phone(), getAge(medicalRecord.birthdate()), medicalRecord.medications(), medicalRecord.allergies()));
-                            })
-                            .collect(Collectors.groupingBy(Map.Entry::getKey, Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
 
-                    return new FloodDTO(stationNumber, personsByAddress);
-                })
-                .toList();
+    /**
+     * Retrieves a page of the homes by station numbers, ordered by station, then by address and by name.
+     * Only the stations and addresses with residents in the page are returned.
+     *
+     * @param stations The list of station numbers to search for.
+     * @param cursor   The cursor returned with the previous page, null for the first page.
+     * @param pageSize The maximum number of residents of the page.
+     * @return A page containing a list of FloodDTOs and the cursor of the next page.
+     * @throws NotFoundException if no station with one of the given numbers is found.
+     */
+    public PageDTO<List<FloodDTO>> getHomesByStations(List<Integer> stations, String cursor, Integer pageSize) {
+        return getHomesByStations(stations, cursor, pageSize, PersonInfoField.ALL);
+    }
 
-        Logger.info("Successfully got homes by stations: {}", stations);
-        return floodDTOList;
+    /**
+     * Retrieves a page of the homes by station numbers, with only the selected fields of the residents, ordered by station, then by address and by name.
+     * Only the stations and addresses with residents in the page are returned.
+     *
+     * @param stations The list of station numbers to search for.
+     * @param cursor   The cursor returned with the previous page, null for the first page.
+     * @param pageSize The maximum number of residents of the page.
+     * @param fields   The fields of the residents to return.
+     * @return A page containing a list of FloodDTOs and the cursor of the next page.
+     * @throws NotFoundException if no station with one of the given numbers is found.
+     */
+    public PageDTO<List<FloodDTO>> getHomesByStations(List<Integer> stations, String cursor, Integer pageSize, Set<PersonInfoField> fields) {
+        Logger.info("Getting page of homes by stations: {}", stations);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+        stations.forEach(this::checkStationExists);
+
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        DataIndex.IndexPage<DataIndex.StationPerson> page = dataIndex.pagePersonsByStations(stations,
+                pageCursor == null ? null : pageCursor.key(), PageCursor.pageSize(pageSize),
+                pageCursor == null ? null : pageCursor.version());
+
+        List<FloodDTO> floodDTOList = toFloodDTOs(page.items(), fields);
+
+        Logger.info("Successfully got page of homes by stations: {}", stations);
+        return new PageDTO<>(floodDTOList, PageCursor.encode(page.version(), page.nextKey()), page.version());
+    }
+
+
+    /**
+     * Retrieves the homes of all the stations, ordered by station, then by address and by name.
+     * The residents are grouped in a single pass over the indexes. The report is kept and reused
+     * as long as the data doesn't change, and only for the day it was built, since the ages change with the date.
+     *
+     * @return A FloodReportDTO containing the version of the data, the date of the ages and a FloodDTO for each station.
+     */
+    public FloodReportDTO getFloodReport() {
+        Logger.info("Getting flood report of all stations");
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+
+        LocalDate today = LocalDate.now();
+        FloodReportDTO report = floodReport;
+        if (report != null && report.version() == dataIndex.getVersion() && report.date().equals(today)) {
+            Logger.info("Flood report of all stations reused for version {}", report.version());
+            return report;
+        }
+
+        DataIndex.IndexPage<DataIndex.StationPerson> all = dataIndex.getAllPersonsByStation();
+        report = new FloodReportDTO(all.version(), today, toFloodDTOs(all.items(), PersonInfoField.ALL));
+        floodReport = report;
+
+        Logger.info("Successfully got flood report of all stations for version {}", report.version());
+        return report;
+    }
+
+
+    /**
+     * Streams the residents of the homes of all the stations, ordered by station, then by address and by name.
+     *
+     * @return A lazy stream of FloodResidentDTOs.
+     */
+    public Stream<FloodResidentDTO> streamFloodReport() {
+        Logger.info("Streaming flood report of all stations");
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+        return streamHomesByStations(dataIndex.getStations());
+    }
+
+
+    /**
+     * Streams the residents of the homes covered by stations, ordered by station, then by address and by name.
+     * The residents are read from the index and converted one at a time while the stream is consumed.
+     *
+     * @param stations The list of station numbers to search for.
+     * @return A lazy stream of FloodResidentDTOs.
+     * @throws NotFoundException if no station with one of the given numbers is found.
+     */
+    public Stream<FloodResidentDTO> streamHomesByStations(List<Integer> stations) {
+        return streamHomesByStations(stations, PersonInfoField.ALL);
+    }
+
+    /**
+     * Streams the residents of the homes covered by stations, with only their selected fields.
+     * The station and the address of each resident are always returned.
+     *
+     * @param stations The list of station numbers to search for.
+     * @param fields   The fields of the residents to return.
+     * @return A lazy stream of FloodResidentDTOs.
+     * @throws NotFoundException if no station with one of the given numbers is found.
+     */
+    public Stream<FloodResidentDTO> streamHomesByStations(List<Integer> stations, Set<PersonInfoField> fields) {
+        Logger.info("Streaming homes by stations: {} with fields {}", stations, fields);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+        stations.forEach(this::checkStationExists);
+
+        return dataIndex.streamPersonsByStations(stations)
+                .map(stationPerson -> {
+                    FireFloodPersonInfoDTO info = toPersonInfo(stationPerson.person(), getMedicalRecordIfNeeded(stationPerson.person(), fields), fields);
+                    return new FloodResidentDTO(stationPerson.station(), stationPerson.person().address(), info.firstName(), info.lastName(), info.phone(), info.age(), info.medications(), info.allergies());
+                });
+    }
+
+
+    /**
+     * Prepares the homes by station numbers, with only the selected fields of the residents, to be written directly as JSON.
+     * The homes of each station are looked up concurrently in the indexes, then their residents are written
+     * one at a time, without building the FloodDTOs, in the same format as {@link #getHomesByStations(List, Set)}.
+     *
+     * @param stations The list of station numbers to search for.
+     * @param fields   The fields of the residents to return.
+     * @return A payload writing a JSON array with a FloodDTO for each station.
+     * @throws NotFoundException if no station with one of the given numbers is found.
+     */
+    public JsonPayload writeHomesByStations(List<Integer> stations, Set<PersonInfoField> fields) {
+        Logger.info("Getting homes by stations as JSON: {} with fields {}", stations, fields);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+        stations.forEach(this::checkStationExists);
+
+        List<List<List<Person>>> homesByStation = getHomesOfEachStation(stations);
+        // Checked before the first byte is written : once the response is committed, it can't become an error anymore
+        Deadline.check();
+
+        return generator -> {
+            generator.writeStartArray();
+            for (int i = 0; i < stations.size(); i++) {
+                generator.writeStartObject();
+                generator.writeNumberField("fireStation", stations.get(i));
+                generator.writeObjectFieldStart("personsByAddress");
+                for (List<Person> residents : homesByStation.get(i)) {
+                    generator.writeArrayFieldStart(residents.getFirst().address());
+                    for (Person person : residents) {
+                        writePersonInfo(generator, person, getMedicalRecordIfNeeded(person, fields), fields);
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        };
     }
 
 
@@ -225,6 +591,39 @@ public class FireStationService {
     }
 
 
+    /**
+     * Prepares the phones of the persons covered by a station to be written directly as JSON,
+     * in the same format as {@link #getPersonsPhonesByStation(int)}.
+     *
+     * @param stationNumber The station number to search for.
+     * @return A payload writing a JSON array of the distinct phone numbers.
+     * @throws NotFoundException if no station with the given number is found.
+     */
+    public JsonPayload writePersonsPhonesByStation(int stationNumber) {
+        Logger.info("Getting persons phones by station number as JSON: {}", stationNumber);
+        try (ServerTiming.Phase phase = ServerTiming.phase("index")) {
+            dataIndex.ensureIndexed(jsonFileHandler.getData());
+        }
+
+        List<List<Person>> homes;
+        try (ServerTiming.Phase phase = ServerTiming.phase("filter")) {
+            checkStationExists(stationNumber);
+            homes = dataIndex.getHomesByStation(stationNumber);
+        }
+
+        return generator -> {
+            Set<String> written = new HashSet<>();
+            generator.writeStartArray();
+            for (List<Person> residents : homes) {
+                for (Person person : residents) {
+                    if (written.add(person.phone())) generator.writeString(person.phone());
+                }
+            }
+            generator.writeEndArray();
+        };
+    }
+
+
     /**
      * Retrieves persons and station by address.
      *
@@ -233,31 +632,146 @@ public class FireStationService {
      * @throws NotFoundException if no station covering the given address is found.
      */
     public FireDTO getPersonsAndStationByAddress(String address) {
-        Logger.info("Getting persons and station by address: {}", address);
-        Data data = jsonFileHandler.getData();
-        Map<Person, MedicalRecord> personMedicalRecordMap = PersonService.mapPersonsToMedicalRecords(data);
-
-        FireStation fireStation = data.fireStations().stream()
-                .filter(station -> address.equalsIgnoreCase(station.address()))
-                .findFirst()
-                .orElseThrow(() -> {
-                    Logger.error("No station found for address: " + address);
-                    return new NotFoundException("No station found for address: " + address);
-                });
+        return getPersonsAndStationByAddress(address, PersonInfoField.ALL);
+    }
 
-        List<FireFloodPersonInfoDTO> persons = data.persons().stream()
-                .filter(person -> address.equalsIgnoreCase(person.address()))
-                .map(person -> {
-                    MedicalRecord medicalRecord = personMedicalRecordMap.get(person);
-                    return new FireFloodPersonInfoDTO(person.firstName(), person.lastName(), person.phone(), getAge(medicalRecord.birthdate()), medicalRecord.medications(), medicalRecord.allergies());
-                })
-                .toList();
+    /**
+     * Retrieves persons and station by address, with only the selected fields of the persons.
+     * The medical records are only looked up when one of their fields is selected.
+     *
+     * @param address The address to search for.
+     * @param fields  The fields of the persons to return.
+     * @return A FireDTO containing the station number and a list of persons living at the address.
+     * @throws NotFoundException if no station covering the given address is found.
+     */
+    public FireDTO getPersonsAndStationByAddress(String address, Set<PersonInfoField> fields) {
+        Logger.info("Getting persons and station by address: {} with fields {}", address, fields);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+
+        FireStation fireStation;
+        List<Person> residents;
+        try (ServerTiming.Phase phase = ServerTiming.phase("filter")) {
+            fireStation = dataIndex.getFireStationByAddress(address)
+                    .orElseThrow(() -> {
+                        Logger.error("No station found for address: " + address);
+                        return new NotFoundException("No station found for address: " + address);
+                    });
+            residents = dataIndex.getPersonsByAddress(address);
+        }
+
+        List<FireFloodPersonInfoDTO> persons;
+        try (ServerTiming.Phase phase = ServerTiming.phase("map")) {
+            persons = residents.stream()
+                    .map(person -> toPersonInfo(person, getMedicalRecordIfNeeded(person, fields), fields))
+                    .toList();
+        }
 
         Logger.info("Successfully got persons and station by address: {}", address);
         return new FireDTO(fireStation.station(), persons);
     }
 
 
+    /**
+     * Prepares the persons and station of an address, with only the selected fields of the persons, to be written directly as JSON.
+     * The persons are read from the indexes and written one at a time, without building the FireDTO,
+     * in the same format as {@link #getPersonsAndStationByAddress(String, Set)}.
+     *
+     * @param address The address to search for.
+     * @param fields  The fields of the persons to return.
+     * @return A payload writing a FireDTO.
+     * @throws NotFoundException if no station covering the given address is found.
+     */
+    public JsonPayload writePersonsAndStationByAddress(String address, Set<PersonInfoField> fields) {
+        Logger.info("Getting persons and station by address as JSON: {} with fields {}", address, fields);
+        try (ServerTiming.Phase phase = ServerTiming.phase("index")) {
+            dataIndex.ensureIndexed(jsonFileHandler.getData());
+        }
+
+        FireStation fireStation;
+        List<Person> persons;
+        try (ServerTiming.Phase phase = ServerTiming.phase("filter")) {
+            fireStation = dataIndex.getFireStationByAddress(address)
+                    .orElseThrow(() -> {
+                        Logger.error("No station found for address: " + address);
+                        return new NotFoundException("No station found for address: " + address);
+                    });
+            persons = dataIndex.getPersonsByAddress(address);
+        }
+
+        return generator -> {
+            generator.writeStartObject();
+            generator.writeNumberField("fireStation", fireStation.station());
+            generator.writeArrayFieldStart("persons");
+            for (Person person : persons) {
+                writePersonInfo(generator, person, getMedicalRecordIfNeeded(person, fields), fields);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        };
+    }
+
+
+    /**
+     * Retrieves persons and station for several addresses at once, grouped by station and address.
+     * Each address is resolved through the indexes, so the cost grows with the number of addresses and their
+     * residents rather than with the size of the data. An address given several times is only returned once.
+     *
+     * @param addresses The addresses to search for.
+     * @return A list of FloodDTOs ordered by station number, each containing the residents of its addresses.
+     * @throws NotFoundException if no station covering one of the given addresses is found.
+     */
+    public List<FloodDTO> getPersonsAndStationByAddresses(List<String> addresses) {
+        return getPersonsAndStationByAddresses(addresses, PersonInfoField.ALL);
+    }
+
+    /**
+     * Retrieves persons and station for several addresses at once, with only the selected fields of the persons.
+     *
+     * @param addresses The addresses to search for.
+     * @param fields    The fields of the persons to return.
+     * @return A list of FloodDTOs ordered by station number, each containing the residents of its addresses.
+     * @throws NotFoundException if no station covering one of the given addresses is found.
+     */
+    public List<FloodDTO> getPersonsAndStationByAddresses(List<String> addresses, Set<PersonInfoField> fields) {
+        Logger.info("Getting persons and station by addresses: {} with fields {}", addresses, fields);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+
+        Map<Integer, FloodDTO> floodDTOByStation = new TreeMap<>();
+        Set<String> resolvedAddresses = new HashSet<>();
+        for (String address : addresses) {
+            Deadline.check();
+            if (!resolvedAddresses.add(address.toLowerCase(Locale.ROOT))) continue;
+
+            FireStation fireStation = dataIndex.getFireStationByAddress(address)
+                    .orElseThrow(() -> {
+                        Logger.error("No station found for address: " + address);
+                        return new NotFoundException("No station found for address: " + address);
+                    });
+
+            List<FireFloodPersonInfoDTO> persons = dataIndex.getPersonsByAddress(address).stream()
+                    .map(person -> toPersonInfo(person, getMedicalRecordIfNeeded(person, fields), fields))
+                    .toList();
+
+            floodDTOByStation.computeIfAbsent(fireStation.station(), station -> new FloodDTO(station, new LinkedHashMap<>()))
+                    .personsByAddress().put(fireStation.address(), persons);
+        }
+
+        Logger.info("Successfully got persons and station by addresses: {}", addresses);
+        return new ArrayList<>(floodDTOByStation.values());
+    }
+
+
+    /**
+     * Retrieves the current version of the data, which changes each time the data is modified.
+     *
+     * @return The version of the data.
+     */
+    public long getDataVersion() {
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+        return dataIndex.getVersion();
+    }
+
+
     /**
      * Retrieves addresses by station number.
      *
@@ -282,4 +796,95 @@ public class FireStationService {
         Logger.info("Successfully got addresses by station number: {}", stationNumber);
         return stationAddresses;
     }
+
+
+    private List<FireStation> getFireStationsOfStation(int stationNumber) {
+        List<FireStation> fireStations = dataIndex.getFireStationsByStation(stationNumber);
+        if (fireStations.isEmpty()) {
+            Logger.error("Station number " + stationNumber + " not found");
+            throw new NotFoundException("Station number " + stationNumber + " not found");
+        }
+        return fireStations;
+    }
+
+    private List<FloodDTO> toFloodDTOs(List<DataIndex.StationPerson> stationPersons, Set<PersonInfoField> fields) {
+        List<FloodDTO> floodDTOList = new ArrayList<>();
+        FloodDTO current = null;
+        for (DataIndex.StationPerson stationPerson : stationPersons) {
+            if (current == null || current.fireStation() != stationPerson.station()) {
+                Deadline.check();
+                current = new FloodDTO(stationPerson.station(), new LinkedHashMap<>());
+                floodDTOList.add(current);
+            }
+            Person person = stationPerson.person();
+            current.personsByAddress()
+                    .computeIfAbsent(person.address(), address -> new ArrayList<>())
+                    .add(toPersonInfo(person, getMedicalRecordIfNeeded(person, fields), fields));
+        }
+        return floodDTOList;
+    }
+
+    // The homes of each station are looked up concurrently, each lookup reading the indexes under their read lock
+    private List<List<List<Person>>> getHomesOfEachStation(List<Integer> stations) {
+        try (TaskScope scope = TaskScope.withTimeout(SUBQUERY_TIMEOUT)) {
+            List<TaskScope.Subtask<List<List<Person>>>> homesByStation = stations.stream()
+                    .map(stationNumber -> scope.fork(() -> {
+                        Deadline.check();
+                        try (ServerTiming.Phase phase = ServerTiming.phase("filter")) {
+                            return dataIndex.getHomesByStation(stationNumber);
+                        }
+                    }))
+                    .toList();
+            scope.join();
+            return homesByStation.stream().map(TaskScope.Subtask::get).toList();
+        }
+    }
+
+    private static FireFloodPersonInfoDTO toPersonInfo(Person person, MedicalRecord medicalRecord, Set<PersonInfoField> fields) {
+        return new FireFloodPersonInfoDTO(
+                fields.contains(PersonInfoField.FIRST_NAME) ? person.firstName() : null,
+                fields.contains(PersonInfoField.LAST_NAME) ? person.lastName() : null,
+                fields.contains(PersonInfoField.PHONE) ? person.phone() : null,
+                fields.contains(PersonInfoField.AGE) ? Integer.valueOf(getAge(medicalRecord.birthdate())) : null,
+                fields.contains(PersonInfoField.MEDICATIONS) ? medicalRecord.medications() : null,
+                fields.contains(PersonInfoField.ALLERGIES) ? medicalRecord.allergies() : null);
+    }
+
+    private static void writePersonInfo(JsonGenerator generator, Person person, MedicalRecord medicalRecord, Set<PersonInfoField> fields) throws IOException {
+        generator.writeStartObject();
+        if (fields.contains(PersonInfoField.FIRST_NAME)) writeStringField(generator, "firstName", person.firstName());
+        if (fields.contains(PersonInfoField.LAST_NAME)) writeStringField(generator, "lastName", person.lastName());
+        if (fields.contains(PersonInfoField.PHONE)) writeStringField(generator, "phone", person.phone());
+        if (fields.contains(PersonInfoField.AGE)) generator.writeNumberField("age", getAge(medicalRecord.birthdate()));
+        if (fields.contains(PersonInfoField.MEDICATIONS)) writeStringArrayField(generator, "medications", medicalRecord.medications());
+        if (fields.contains(PersonInfoField.ALLERGIES)) writeStringArrayField(generator, "allergies", medicalRecord.allergies());
+        generator.writeEndObject();
+    }
+
+    // Null values are left out, as FireFloodPersonInfoDTO does with @JsonInclude(NON_NULL)
+    private static void writeStringField(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) generator.writeStringField(name, value);
+    }
+
+    private static void writeStringArrayField(JsonGenerator generator, String name, String[] values) throws IOException {
+        if (values == null) return;
+        generator.writeFieldName(name);
+        generator.writeArray(values, 0, values.length);
+    }
+
+    private MedicalRecord getMedicalRecordIfNeeded(Person person, Set<PersonInfoField> fields) {
+        return PersonInfoField.needsMedicalRecord(fields) ? getMedicalRecordOrEmpty(person) : null;
+    }
+
+    private void checkStationExists(int stationNumber) {
+        if (!dataIndex.hasStation(stationNumber)) {
+            Logger.error("Station number " + stationNumber + " not found");
+            throw new NotFoundException("Station number " + stationNumber + " not found");
+        }
+    }
+
+    private MedicalRecord getMedicalRecordOrEmpty(Person person) {
+        return dataIndex.getMedicalRecord(person.firstName(), person.lastName())
+                .orElseGet(() -> PersonService.emptyMedicalRecord(person));
+    }
 }
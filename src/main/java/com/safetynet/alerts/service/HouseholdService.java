@@ -0,0 +1,135 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.dto.HouseholdDTO;
+import com.safetynet.alerts.dto.HouseholdIdsDTO;
+import com.safetynet.alerts.dto.HouseholdMemberDTO;
+import com.safetynet.alerts.exception.AlreadyExistException;
+import com.safetynet.alerts.exception.JsonFileException;
+import com.safetynet.alerts.model.Data;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataIndex;
+import com.safetynet.alerts.repository.JsonFileHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.tinylog.Logger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+
+/**
+ * Service class for onboarding households.
+ * A household is created at once : its persons, their medical records and the fire station mapping of its address.
+ * Every conflict is checked before anything is changed, and the file is written before the data in memory and
+ * the indexes are updated, so a failure leaves the data exactly as it was. The whole creation runs under the write
+ * lock of the data shared with the other services, so a concurrent update is neither lost nor interleaved.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see HouseholdDTO
+ * @see HouseholdIdsDTO
+ * @see AlreadyExistException
+ * @see JsonFileException
+ * @see JsonFileHandler
+ * @see DataIndex
+ */
+@Service
+public class HouseholdService {
+
+    private final JsonFileHandler jsonFileHandler;
+    private final DataIndex dataIndex;
+
+    @Autowired
+    public HouseholdService(JsonFileHandler jsonFileHandler, DataIndex dataIndex) {
+        this.jsonFileHandler = jsonFileHandler;
+        this.dataIndex = dataIndex;
+    }
+
+
+    /**
+     * Creates a household : its persons, their medical records and, if it does not exist yet,
+     * the fire station mapping of its address. Either everything is created or nothing is.
+     *
+     * @param household The household to create.
+     * @return A ResponseEntity with the HTTP status and the IDs of the created elements.
+     * The ID of the fire station mapping is null if the mapping already existed.
+     * @throws AlreadyExistException if a member appears twice or if a person or a medical record already exists.
+     * @throws JsonFileException     if the data could not be written, in which case nothing is created.
+     */
+    public ResponseEntity<HouseholdIdsDTO> create(HouseholdDTO household) {
+        Logger.info("Creating household of {} members at {}", household.members().size(), household.fireStation().address());
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            List<Person> persons = new ArrayList<>();
+            List<MedicalRecord> medicalRecords = new ArrayList<>();
+            Set<String> names = new HashSet<>();
+
+            for (HouseholdMemberDTO member : household.members()) {
+                Person person = member.person();
+                String name = person.firstName() + " " + person.lastName();
+
+                if (!names.add(name.toLowerCase(Locale.ROOT))) {
+                    Logger.error(name + " appears twice in the household");
+                    throw new AlreadyExistException(name + " appears twice in the household");
+                }
+                if (dataIndex.getPersonByName(person.firstName(), person.lastName()).isPresent()) {
+                    Logger.error(name + " already exists");
+                    throw new AlreadyExistException(name + " already exists");
+                }
+                if (dataIndex.getMedicalRecord(person.firstName(), person.lastName()).isPresent()) {
+                    Logger.error("Medical record of " + name + " already exists");
+                    throw new AlreadyExistException("Medical record of " + name + " already exists");
+                }
+
+                persons.add(person);
+                medicalRecords.add(member.medicalRecord());
+            }
+
+            List<FireStation> fireStations = dataIndex.hasFireStation(household.fireStation())
+                    ? List.of()
+                    : List.of(household.fireStation());
+
+            // The file is written from a copy first, so a failed write leaves the data in memory untouched
+            Data updated = new Data(
+                    concat(data.persons(), persons),
+                    concat(data.fireStations(), fireStations),
+                    concat(data.medicalRecords(), medicalRecords));
+            jsonFileHandler.sortPersonsByLastNameAndFirstName(updated);
+            jsonFileHandler.sortMedicalRecordsByLastNameAndFirstName(updated);
+            jsonFileHandler.sortFireStationsByStationNumber(updated);
+            jsonFileHandler.writeData(updated);
+
+            data.persons().addAll(persons);
+            data.fireStations().addAll(fireStations);
+            data.medicalRecords().addAll(medicalRecords);
+            jsonFileHandler.sortPersonsByLastNameAndFirstName(data);
+            jsonFileHandler.sortMedicalRecordsByLastNameAndFirstName(data);
+            jsonFileHandler.sortFireStationsByStationNumber(data);
+            DataIndex.AddedIds ids = dataIndex.addAll(persons, medicalRecords, fireStations);
+
+            Logger.info("Household created at {} : {} persons", household.fireStation().address(), persons.size());
+            return new ResponseEntity<>(new HouseholdIdsDTO(
+                    ids.fireStations().isEmpty() ? null : ids.fireStations().getFirst(),
+                    ids.persons(),
+                    ids.medicalRecords()), HttpStatus.CREATED);
+        });
+    }
+
+
+    private static <T> List<T> concat(List<T> existing, List<T> added) {
+        List<T> result = new ArrayList<>(existing.size() + added.size());
+        result.addAll(existing);
+        result.addAll(added);
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+package com.safetynet.alerts.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+
+/**
+ * A response body written directly with a JsonGenerator, without building the DTOs it stands for.
+ * Everything that can fail, such as a missing station or address, is checked when the payload is created,
+ * so only the writing itself is left once the response has started.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see JsonGenerator
+ * @see FireStationService
+ */
+@FunctionalInterface
+public interface JsonPayload {
+
+    /**
+     * Writes the payload as a single JSON document.
+     *
+     * @param generator The generator to write to. It is neither flushed nor closed.
+     * @throws IOException if the payload could not be written.
+     */
+    void writeTo(JsonGenerator generator) throws IOException;
+}
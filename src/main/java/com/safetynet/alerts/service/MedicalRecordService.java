@@ -1,19 +1,29 @@
 package com.safetynet.alerts.service;
 
+import com.safetynet.alerts.dto.AffectedRecordsDTO;
+import com.safetynet.alerts.dto.BatchItemResultDTO;
+import com.safetynet.alerts.dto.MedicalRecordTransformDTO;
 import com.safetynet.alerts.dto.PersonIdentifierDTO;
+import com.safetynet.alerts.dto.ResourceIdDTO;
 import com.safetynet.alerts.exception.AlreadyExistException;
 import com.safetynet.alerts.exception.NotFoundException;
 import com.safetynet.alerts.model.Data;
 import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.repository.DataIndex;
 import com.safetynet.alerts.repository.JsonFileHandler;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.tinylog.Logger;
 
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -23,20 +33,29 @@ import java.util.stream.IntStream;
  * @author Perrine Dassonville
  * @version 1.0
  * @see PersonIdentifierDTO
+ * @see ResourceIdDTO
+ * @see BatchItemResultDTO
+ * @see MedicalRecordTransformDTO
+ * @see AffectedRecordsDTO
  * @see AlreadyExistException
  * @see NotFoundException
  * @see Data
  * @see MedicalRecord
  * @see JsonFileHandler
+ * @see DataIndex
  */
 @Service
 public class MedicalRecordService {
 
     private final JsonFileHandler jsonFileHandler;
+    private final DataIndex dataIndex;
+    private final Validator validator;
 
     @Autowired
-    public MedicalRecordService(JsonFileHandler jsonFileHandler) {
+    public MedicalRecordService(JsonFileHandler jsonFileHandler, DataIndex dataIndex, Validator validator) {
         this.jsonFileHandler = jsonFileHandler;
+        this.dataIndex = dataIndex;
+        this.validator = validator;
     }
 
 
@@ -44,26 +63,75 @@ public class MedicalRecordService {
      * Creates a new medical record.
      *
      * @param medicalRecord The medical record to create.
-     * @return A ResponseEntity with the HTTP status.
+     * @return A ResponseEntity with the HTTP status, the location and the ID of the created medical record.
      * @throws AlreadyExistException if a medical record with the same first and last name already exists.
      */
-    public ResponseEntity<Void> create(MedicalRecord medicalRecord) {
+    public ResponseEntity<ResourceIdDTO> create(MedicalRecord medicalRecord) {
         Logger.info("Creating medical record : {}", medicalRecord);
-        Data data = jsonFileHandler.getData();
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
 
-        boolean medicalRecordExists = data.medicalRecords().stream()
-                .anyMatch(p -> p.firstName().equals(medicalRecord.firstName()) && p.lastName().equals(medicalRecord.lastName()));
+            if (dataIndex.getMedicalRecord(medicalRecord.firstName(), medicalRecord.lastName()).isPresent()) {
+                Logger.error(medicalRecord.firstName() + " " + medicalRecord.lastName() + " already exists");
+                throw new AlreadyExistException(medicalRecord.firstName() + " " + medicalRecord.lastName() + " already exists");
+            }
 
-        if (medicalRecordExists) {
-            Logger.error(medicalRecord.firstName() + " " + medicalRecord.lastName() + " already exists");
-            throw new AlreadyExistException(medicalRecord.firstName() + " " + medicalRecord.lastName() + " already exists");
-        }
+            data.medicalRecords().add(medicalRecord);
+            long id = dataIndex.addMedicalRecord(medicalRecord);
+            jsonFileHandler.writeData(jsonFileHandler.sortMedicalRecordsByLastNameAndFirstName(data));
+
+            Logger.info("Medical record created with id {} : {}", id, medicalRecord);
+            return ResponseEntity.created(URI.create("/medicalrecord/" + id)).body(new ResourceIdDTO(id));
+        });
+    }
+
+
+    /**
+     * Creates several medical records at once.
+     * Each medical record is validated and checked for duplicates, then the accepted medical records are indexed
+     * and written in a single update.
+     *
+     * @param medicalRecords The medical records to create.
+     * @return The result of each medical record, in the same order : 201 with its ID, 400 if it is not valid or 409 if it already exists.
+     */
+    public List<BatchItemResultDTO> createBatch(List<MedicalRecord> medicalRecords) {
+        Logger.info("Creating batch of {} medical records", medicalRecords.size());
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            List<BatchItemResultDTO> results = BatchImport.apply(medicalRecords, validator,
+                    medicalRecord -> medicalRecord.firstName() + " " + medicalRecord.lastName(),
+                    medicalRecord -> dataIndex.getMedicalRecord(medicalRecord.firstName(), medicalRecord.lastName()).isPresent(),
+                    accepted -> {
+                        data.medicalRecords().addAll(accepted);
+                        List<Long> ids = dataIndex.addMedicalRecords(accepted);
+                        jsonFileHandler.writeData(jsonFileHandler.sortMedicalRecordsByLastNameAndFirstName(data));
+                        return ids;
+                    });
+
+            Logger.info("Batch of medical records created : {} of {}", results.stream().filter(result -> result.id() != null).count(), medicalRecords.size());
+            return results;
+        });
+    }
+
+
+    /**
+     * Retrieves a medical record by its ID.
+     *
+     * @param id The ID of the medical record.
+     * @return The medical record.
+     * @throws NotFoundException if no medical record with the given ID is found.
+     */
+    public MedicalRecord getById(long id) {
+        Logger.info("Getting medical record by id : {}", id);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
 
-        data.medicalRecords().add(medicalRecord);
-        jsonFileHandler.writeData(jsonFileHandler.sortMedicalRecordsByLastNameAndFirstName(data));
+        MedicalRecord medicalRecord = findById(id);
 
-        Logger.info("Medical record created : {}", medicalRecord);
-        return new ResponseEntity<>(HttpStatus.CREATED);
+        Logger.info("Successfully got medical record by id : {}", id);
+        return medicalRecord;
     }
 
 
@@ -76,22 +144,55 @@ public class MedicalRecordService {
      */
     public ResponseEntity<Void> update(MedicalRecord medicalRecord) {
         Logger.info("Updating medical record : {}", medicalRecord);
-        Data data = jsonFileHandler.getData();
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
 
-        List<MedicalRecord> medicalRecords = data.medicalRecords();
-        int index = IntStream.range(0, medicalRecords.size())
-                .filter(i -> medicalRecords.get(i).firstName().equals(medicalRecord.firstName()) && medicalRecords.get(i).lastName().equals(medicalRecord.lastName()))
-                .findFirst()
-                .orElseThrow(() -> {
-                    Logger.error("No medical record found for : " + medicalRecord.firstName() + " " + medicalRecord.lastName());
-                    return new NotFoundException("No medical record found for : " + medicalRecord.firstName() + " " + medicalRecord.lastName());
-                });
+            MedicalRecord oldMedicalRecord = dataIndex.getMedicalRecord(medicalRecord.firstName(), medicalRecord.lastName())
+                    .orElseThrow(() -> {
+                        Logger.error("No medical record found for : " + medicalRecord.firstName() + " " + medicalRecord.lastName());
+                        return new NotFoundException("No medical record found for : " + medicalRecord.firstName() + " " + medicalRecord.lastName());
+                    });
 
-        medicalRecords.set(index, medicalRecord);
-        jsonFileHandler.writeData(data);
+            replace(data, oldMedicalRecord, medicalRecord);
 
-        Logger.info("Medical record updated : {}", medicalRecord);
-        return new ResponseEntity<>(HttpStatus.OK);
+            Logger.info("Medical record updated : {}", medicalRecord);
+            return new ResponseEntity<>(HttpStatus.OK);
+        });
+    }
+
+
+    /**
+     * Updates an existing medical record by its ID. The first and last name can be changed.
+     *
+     * @param id            The ID of the medical record to update.
+     * @param medicalRecord The new version of the medical record.
+     * @return A ResponseEntity with the HTTP status.
+     * @throws NotFoundException     if no medical record with the given ID is found.
+     * @throws AlreadyExistException if another medical record already has the new first and last name.
+     */
+    public ResponseEntity<Void> updateById(long id, MedicalRecord medicalRecord) {
+        Logger.info("Updating medical record with id {} : {}", id, medicalRecord);
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            MedicalRecord oldMedicalRecord = findById(id);
+
+            // Only a new name can be taken : the namesakes already in the file are kept as they are
+            boolean renamed = !oldMedicalRecord.firstName().equals(medicalRecord.firstName()) || !oldMedicalRecord.lastName().equals(medicalRecord.lastName());
+            boolean nameTaken = renamed && dataIndex.getMedicalRecord(medicalRecord.firstName(), medicalRecord.lastName()).isPresent();
+
+            if (nameTaken) {
+                Logger.error(medicalRecord.firstName() + " " + medicalRecord.lastName() + " already exists");
+                throw new AlreadyExistException(medicalRecord.firstName() + " " + medicalRecord.lastName() + " already exists");
+            }
+
+            replace(data, oldMedicalRecord, medicalRecord);
+
+            Logger.info("Medical record with id {} updated : {}", id, medicalRecord);
+            return new ResponseEntity<>(HttpStatus.OK);
+        });
     }
 
 
@@ -100,25 +201,131 @@ public class MedicalRecordService {
      *
      * @param personIdentifier The identifier of the person whose medical record to delete.
      * @return A ResponseEntity with the HTTP status.
-     * @throws NotFoundException if no medical record with the same first and last name is found.
+     * @throws NotFoundException if no medical record with the same first and last name, ignoring case, is found.
      */
     public ResponseEntity<Void> delete(PersonIdentifierDTO personIdentifier) {
         Logger.info("Deleting medical record of : {}", personIdentifier);
-        Data data = jsonFileHandler.getData();
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
 
-        MedicalRecord medicalRecordToDelete = data.medicalRecords().stream()
-                .filter(medicalRecord -> medicalRecord.firstName().equalsIgnoreCase(personIdentifier.firstName())
-                        && medicalRecord.lastName().equalsIgnoreCase(personIdentifier.lastName()))
-                .findFirst()
+            MedicalRecord medicalRecordToDelete = dataIndex.getMedicalRecordIgnoringCase(personIdentifier.firstName(), personIdentifier.lastName())
+                    .orElseThrow(() -> {
+                        Logger.error(personIdentifier.firstName() + " " + personIdentifier.lastName() + " not found");
+                        return new NotFoundException(personIdentifier.firstName() + " " + personIdentifier.lastName() + " not found");
+                    });
+
+            remove(data, medicalRecordToDelete);
+
+            Logger.info("Person deleted : {}", medicalRecordToDelete);
+            return new ResponseEntity<>(HttpStatus.OK);
+        });
+    }
+
+
+    /**
+     * Deletes a medical record by its ID.
+     *
+     * @param id The ID of the medical record to delete.
+     * @return A ResponseEntity with the HTTP status.
+     * @throws NotFoundException if no medical record with the given ID is found.
+     */
+    public ResponseEntity<Void> deleteById(long id) {
+        Logger.info("Deleting medical record with id : {}", id);
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            MedicalRecord medicalRecordToDelete = findById(id);
+            remove(data, medicalRecordToDelete);
+
+            Logger.info("Medical record with id {} deleted : {}", id, medicalRecordToDelete);
+            return new ResponseEntity<>(HttpStatus.OK);
+        });
+    }
+
+
+    /**
+     * Replaces or removes a medication or an allergy in every medical record containing it.
+     * The medical records are found through the index, then all the changes are applied in one update and written once.
+     * A medication given without dose matches every dose, and a new medication given without dose keeps the dose
+     * of the one it replaces.
+     *
+     * @param transform The medication or allergy to replace, and its replacement or nothing to remove it.
+     * @return The number of medical records changed.
+     */
+    public AffectedRecordsDTO transform(MedicalRecordTransformDTO transform) {
+        Logger.info("Transforming medical records : {}", transform);
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            boolean medication = transform.field() == MedicalRecordTransformDTO.Field.MEDICATION;
+            List<MedicalRecord> candidates = medication
+                    ? dataIndex.getMedicalRecordsByMedication(transform.from())
+                    : dataIndex.getMedicalRecordsByAllergy(transform.from());
+
+            Map<MedicalRecord, MedicalRecord> replacements = new LinkedHashMap<>();
+            for (MedicalRecord medicalRecord : candidates) {
+                String[] items = transformItems(medication ? medicalRecord.medications() : medicalRecord.allergies(), transform.from(), transform.to());
+                if (items == null) continue;
+                replacements.put(medicalRecord, new MedicalRecord(medicalRecord.firstName(), medicalRecord.lastName(), medicalRecord.birthdate(),
+                        medication ? items : medicalRecord.medications(),
+                        medication ? medicalRecord.allergies() : items));
+            }
+
+            if (!replacements.isEmpty()) {
+                data.medicalRecords().replaceAll(medicalRecord -> replacements.getOrDefault(medicalRecord, medicalRecord));
+                dataIndex.replaceMedicalRecords(replacements);
+                jsonFileHandler.writeData(data);
+            }
+
+            Logger.info("Medical records transformed : {}", replacements.size());
+            return new AffectedRecordsDTO(replacements.size());
+        });
+    }
+
+
+    private MedicalRecord findById(long id) {
+        return dataIndex.getMedicalRecordById(id)
                 .orElseThrow(() -> {
-                    Logger.error(personIdentifier.firstName() + " " + personIdentifier.lastName() + " not found");
-                    return new NotFoundException(personIdentifier.firstName() + " " + personIdentifier.lastName() + " not found");
+                    Logger.error("Medical record with id " + id + " not found");
+                    return new NotFoundException("Medical record with id " + id + " not found");
                 });
+    }
 
-        data.medicalRecords().remove(medicalRecordToDelete);
+    private void replace(Data data, MedicalRecord oldMedicalRecord, MedicalRecord newMedicalRecord) {
+        List<MedicalRecord> medicalRecords = data.medicalRecords();
+        medicalRecords.set(medicalRecords.indexOf(oldMedicalRecord), newMedicalRecord);
+        dataIndex.replaceMedicalRecord(oldMedicalRecord, newMedicalRecord);
         jsonFileHandler.writeData(data);
+    }
+
+    private static String[] transformItems(String[] items, String from, String to) {
+        boolean matchDose = from.indexOf(':') >= 0;
+        boolean changed = false;
+        Set<String> result = new LinkedHashSet<>();
+
+        for (String item : items) {
+            boolean matches = item != null && (matchDose
+                    ? item.trim().equalsIgnoreCase(from.trim())
+                    : DataIndex.itemKey(item).equals(DataIndex.itemKey(from)));
+            if (!matches) {
+                result.add(item);
+                continue;
+            }
 
-        Logger.info("Person deleted : {}", medicalRecordToDelete);
-        return new ResponseEntity<>(HttpStatus.OK);
+            changed = true;
+            if (to == null || to.isBlank()) continue;
+            int dose = item.indexOf(':');
+            result.add(to.indexOf(':') < 0 && dose >= 0 ? to.trim() + item.substring(dose) : to.trim());
+        }
+        return changed ? result.toArray(String[]::new) : null;
+    }
+
+    private void remove(Data data, MedicalRecord medicalRecord) {
+        data.medicalRecords().remove(medicalRecord);
+        dataIndex.removeMedicalRecord(medicalRecord);
+        jsonFileHandler.writeData(data);
     }
 }
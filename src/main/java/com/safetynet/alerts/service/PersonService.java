@@ -1,28 +1,46 @@
 package com.safetynet.alerts.service;
 
+import com.safetynet.alerts.dto.BatchItemResultDTO;
 import com.safetynet.alerts.dto.ChildInfoDTO;
+import com.safetynet.alerts.dto.FireFloodPersonInfoDTO;
+import com.safetynet.alerts.dto.PageDTO;
 import com.safetynet.alerts.dto.PersonIdentifierDTO;
 import com.safetynet.alerts.dto.PersonInfoDTO;
+import com.safetynet.alerts.dto.PersonSearchResultDTO;
+import com.safetynet.alerts.dto.PhoneLookupAddressDTO;
+import com.safetynet.alerts.dto.PhoneLookupDTO;
+import com.safetynet.alerts.dto.ResourceIdDTO;
 import com.safetynet.alerts.exception.AlreadyExistException;
+import com.safetynet.alerts.exception.DeadlineExceededException;
 import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.repository.DataIndex;
 import com.safetynet.alerts.repository.JsonFileHandler;
+import com.safetynet.alerts.repository.NameTrie;
+import com.safetynet.alerts.util.Deadline;
+import com.safetynet.alerts.util.PageCursor;
+import com.safetynet.alerts.util.ServerTiming;
 import com.safetynet.alerts.exception.NotFoundException;
 import com.safetynet.alerts.model.Data;
+import com.safetynet.alerts.model.FireStation;
 import com.safetynet.alerts.model.Person;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.tinylog.Logger;
 
+import java.net.URI;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static com.safetynet.alerts.util.BirthdateUtil.*;
 
@@ -38,20 +56,35 @@ import static com.safetynet.alerts.util.BirthdateUtil.*;
  * @see ChildInfoDTO
  * @see PersonIdentifierDTO
  * @see PersonInfoDTO
+ * @see PersonSearchResultDTO
+ * @see PageDTO
+ * @see PhoneLookupDTO
+ * @see ResourceIdDTO
+ * @see BatchItemResultDTO
  * @see AlreadyExistException
  * @see NotFoundException
  * @see MedicalRecord
  * @see Person
  * @see JsonFileHandler
+ * @see DataIndex
+ * @see Deadline
+ * @see ServerTiming
  */
 @Service
 public class PersonService {
 
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final int DEADLINE_CHECK_CHUNK = 256;
+
     private final JsonFileHandler jsonFileHandler;
+    private final DataIndex dataIndex;
+    private final Validator validator;
 
     @Autowired
-    public PersonService(JsonFileHandler jsonFileHandler) {
+    public PersonService(JsonFileHandler jsonFileHandler, DataIndex dataIndex, Validator validator) {
         this.jsonFileHandler = jsonFileHandler;
+        this.dataIndex = dataIndex;
+        this.validator = validator;
     }
 
 
@@ -59,26 +92,75 @@ public class PersonService {
      * Creates a new person.
      *
      * @param person The person to create.
-     * @return A ResponseEntity with the HTTP status.
+     * @return A ResponseEntity with the HTTP status, the location and the ID of the created person.
      * @throws AlreadyExistException if a person with the same first and last name already exists.
      */
-    public ResponseEntity<Void> create(Person person) {
+    public ResponseEntity<ResourceIdDTO> create(Person person) {
         Logger.info("Creating person : {}", person);
-        Data data = jsonFileHandler.getData();
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            if (dataIndex.getPersonByName(person.firstName(), person.lastName()).isPresent()) {
+                Logger.error(person.firstName() + " " + person.lastName() + " already exists");
+                throw new AlreadyExistException(person.firstName() + " " + person.lastName() + " already exists");
+            }
+
+            data.persons().add(person);
+            long id = dataIndex.addPerson(person);
+            jsonFileHandler.writeData(jsonFileHandler.sortPersonsByLastNameAndFirstName(data));
+
+            Logger.info("Person created with id {} : {}", id, person);
+            return ResponseEntity.created(URI.create("/person/" + id)).body(new ResourceIdDTO(id));
+        });
+    }
 
-        boolean personExists = data.persons().stream()
-                .anyMatch(p -> p.firstName().equals(person.firstName()) && p.lastName().equals(person.lastName()));
 
-        if (personExists) {
-            Logger.error(person.firstName() + " " + person.lastName() + " already exists");
-            throw new AlreadyExistException(person.firstName() + " " + person.lastName() + " already exists");
-        }
+    /**
+     * Creates several persons at once.
+     * Each person is validated and checked for duplicates, then the accepted persons are indexed
+     * and written in a single update.
+     *
+     * @param persons The persons to create.
+     * @return The result of each person, in the same order : 201 with his ID, 400 if he is not valid or 409 if he already exists.
+     */
+    public List<BatchItemResultDTO> createBatch(List<Person> persons) {
+        Logger.info("Creating batch of {} persons", persons.size());
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            List<BatchItemResultDTO> results = BatchImport.apply(persons, validator,
+                    person -> person.firstName() + " " + person.lastName(),
+                    person -> dataIndex.getPersonByName(person.firstName(), person.lastName()).isPresent(),
+                    accepted -> {
+                        data.persons().addAll(accepted);
+                        List<Long> ids = dataIndex.addPersons(accepted);
+                        jsonFileHandler.writeData(jsonFileHandler.sortPersonsByLastNameAndFirstName(data));
+                        return ids;
+                    });
+
+            Logger.info("Batch of persons created : {} of {}", results.stream().filter(result -> result.id() != null).count(), persons.size());
+            return results;
+        });
+    }
+
 
-        data.persons().add(person);
-        jsonFileHandler.writeData(jsonFileHandler.sortPersonsByLastNameAndFirstName(data));
+    /**
+     * Retrieves a person by his ID.
+     *
+     * @param id The ID of the person.
+     * @return The person.
+     * @throws NotFoundException if no person with the given ID is found.
+     */
+    public Person getById(long id) {
+        Logger.info("Getting person by id : {}", id);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
 
-        Logger.info("Person created : {}", person);
-        return new ResponseEntity<>(HttpStatus.CREATED);
+        Person person = findById(id);
+
+        Logger.info("Successfully got person by id : {}", id);
+        return person;
     }
 
 
@@ -91,22 +173,50 @@ public class PersonService {
      */
     public ResponseEntity<Void> update(Person person) {
         Logger.info("Updating person : {}", person);
-        Data data = jsonFileHandler.getData();
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
 
-        List<Person> persons = data.persons();
-        int index = IntStream.range(0, persons.size())
-                .filter(i -> persons.get(i).firstName().equals(person.firstName()) && persons.get(i).lastName().equals(person.lastName()))
-                .findFirst()
-                .orElseThrow(() -> {
-                    Logger.error(person.firstName() + " " + person.lastName() + " not found");
-                    return new NotFoundException(person.firstName() + " " + person.lastName() + " not found");
-                });
+            Person oldPerson = findByName(person.firstName(), person.lastName());
+            replace(data, oldPerson, person);
 
-        persons.set(index, person);
-        jsonFileHandler.writeData(data);
+            Logger.info("Person updated : {}", person);
+            return new ResponseEntity<>(HttpStatus.OK);
+        });
+    }
 
-        Logger.info("Person updated : {}", person);
-        return new ResponseEntity<>(HttpStatus.OK);
+
+    /**
+     * Updates an existing person by his ID. The first and last name can be changed.
+     *
+     * @param id     The ID of the person to update.
+     * @param person The new information of the person.
+     * @return A ResponseEntity with the HTTP status.
+     * @throws NotFoundException     if no person with the given ID is found.
+     * @throws AlreadyExistException if another person already has the new first and last name.
+     */
+    public ResponseEntity<Void> updateById(long id, Person person) {
+        Logger.info("Updating person with id {} : {}", id, person);
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            Person oldPerson = findById(id);
+
+            // Only a new name can be taken : the namesakes already in the file are kept as they are
+            boolean renamed = !oldPerson.firstName().equals(person.firstName()) || !oldPerson.lastName().equals(person.lastName());
+            boolean nameTaken = renamed && dataIndex.getPersonByName(person.firstName(), person.lastName()).isPresent();
+
+            if (nameTaken) {
+                Logger.error(person.firstName() + " " + person.lastName() + " already exists");
+                throw new AlreadyExistException(person.firstName() + " " + person.lastName() + " already exists");
+            }
+
+            replace(data, oldPerson, person);
+
+            Logger.info("Person with id {} updated : {}", id, person);
+            return new ResponseEntity<>(HttpStatus.OK);
+        });
     }
 
 
@@ -115,26 +225,76 @@ public class PersonService {
      *
      * @param personIdentifier The identifier of the person to delete.
      * @return A ResponseEntity with the HTTP status.
-     * @throws NotFoundException if no person with the same first and last name is found.
+     * @throws NotFoundException if no person with the same first and last name, ignoring case, is found.
      */
     public ResponseEntity<Void> delete(PersonIdentifierDTO personIdentifier) {
         Logger.info("Deleting person : {}", personIdentifier);
-        Data data = jsonFileHandler.getData();
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            Person personToDelete = dataIndex.getPersonByNameIgnoringCase(personIdentifier.firstName(), personIdentifier.lastName())
+                    .orElseThrow(() -> {
+                        Logger.error(personIdentifier.firstName() + " " + personIdentifier.lastName() + " not found");
+                        return new NotFoundException(personIdentifier.firstName() + " " + personIdentifier.lastName() + " not found");
+                    });
+            remove(data, personToDelete);
+
+            Logger.info("Person deleted : {}", personToDelete);
+            return new ResponseEntity<>(HttpStatus.OK);
+        });
+    }
+
+
+    /**
+     * Deletes a person by his ID.
+     *
+     * @param id The ID of the person to delete.
+     * @return A ResponseEntity with the HTTP status.
+     * @throws NotFoundException if no person with the given ID is found.
+     */
+    public ResponseEntity<Void> deleteById(long id) {
+        Logger.info("Deleting person with id : {}", id);
+        return dataIndex.update(() -> {
+            Data data = jsonFileHandler.getData();
+            dataIndex.ensureIndexed(data);
+
+            Person personToDelete = findById(id);
+            remove(data, personToDelete);
+
+            Logger.info("Person with id {} deleted : {}", id, personToDelete);
+            return new ResponseEntity<>(HttpStatus.OK);
+        });
+    }
+
+
+    private Person findById(long id) {
+        return dataIndex.getPersonById(id)
+                .orElseThrow(() -> {
+                    Logger.error("Person with id " + id + " not found");
+                    return new NotFoundException("Person with id " + id + " not found");
+                });
+    }
 
-        Person personToDelete = data.persons().stream()
-                .filter(person -> person.firstName().equalsIgnoreCase(personIdentifier.firstName())
-                        && person.lastName().equalsIgnoreCase(personIdentifier.lastName()))
-                .findFirst()
+    private Person findByName(String firstName, String lastName) {
+        return dataIndex.getPersonByName(firstName, lastName)
                 .orElseThrow(() -> {
-                    Logger.error(personIdentifier.firstName() + " " + personIdentifier.lastName() + " not found");
-                    return new NotFoundException(personIdentifier.firstName() + " " + personIdentifier.lastName() + " not found");
+                    Logger.error(firstName + " " + lastName + " not found");
+                    return new NotFoundException(firstName + " " + lastName + " not found");
                 });
+    }
 
-        data.persons().remove(personToDelete);
+    private void replace(Data data, Person oldPerson, Person newPerson) {
+        List<Person> persons = data.persons();
+        persons.set(persons.indexOf(oldPerson), newPerson);
+        dataIndex.replacePerson(oldPerson, newPerson);
         jsonFileHandler.writeData(data);
+    }
 
-        Logger.info("Person deleted : {}", personToDelete);
-        return new ResponseEntity<>(HttpStatus.OK);
+    private void remove(Data data, Person person) {
+        data.persons().remove(person);
+        dataIndex.removePerson(person);
+        jsonFileHandler.writeData(data);
     }
 
 
@@ -149,7 +309,7 @@ public class PersonService {
         Logger.info("Getting persons by lastname : {}", lastname);
 
         Data data = jsonFileHandler.getData();
-        Map<Person, MedicalRecord> personMedicalRecordMap = mapPersonsToMedicalRecords(data);
+        Map<Person, MedicalRecord> personMedicalRecordMap = mapPersonsToMedicalRecords(data, dataIndex);
 
         List<PersonInfoDTO> personsInfo = data.persons().stream()
                 .filter(person -> person.lastName().equalsIgnoreCase(lastname))
@@ -174,6 +334,151 @@ public class PersonService {
     }
 
 
+    /**
+     * Retrieves a page of the persons with a last name, ordered by first name.
+     * Only the persons of the requested page are read and converted.
+     *
+     * @param lastname The last name to search for.
+     * @param cursor   The cursor returned with the previous page, null for the first page.
+     * @param pageSize The maximum number of persons of the page.
+     * @return A page of PersonInfoDTOs and the cursor of the next page.
+     * @throws NotFoundException if no persons with the given last name are found.
+     */
+    public PageDTO<List<PersonInfoDTO>> getPersonByLastname(String lastname, String cursor, Integer pageSize) {
+        Logger.info("Getting page of persons by lastname : {}", lastname);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        DataIndex.IndexPage<Person> page = dataIndex.pagePersonsByLastName(lastname,
+                pageCursor == null ? null : pageCursor.key(), PageCursor.pageSize(pageSize),
+                pageCursor == null ? null : pageCursor.version());
+
+        if (pageCursor == null && page.items().isEmpty()) {
+            Logger.error("Lastname: " + lastname + " not found");
+            throw new NotFoundException("Lastname: " + lastname + " not found");
+        }
+
+        List<PersonInfoDTO> personsInfo = page.items().stream()
+                .map(person -> {
+                    MedicalRecord medicalRecord = getMedicalRecordOrEmpty(person);
+                    return new PersonInfoDTO(person.firstName(), person.lastName(), person.address(), person.email(), getAge(medicalRecord.birthdate()), medicalRecord.medications(), medicalRecord.allergies());
+                })
+                .toList();
+
+        Logger.info("Successfully got page of persons by lastname : {}", lastname);
+        return new PageDTO<>(personsInfo, PageCursor.encode(page.version(), page.nextKey()), page.version());
+    }
+
+
+    /**
+     * Streams the persons with a last name, ordered by first name.
+     * The persons are read from the index and converted one at a time while the stream is consumed.
+     *
+     * @param lastname The last name to search for.
+     * @return A lazy stream of PersonInfoDTOs.
+     * @throws NotFoundException if no persons with the given last name are found.
+     */
+    public Stream<PersonInfoDTO> streamPersonByLastname(String lastname) {
+        Logger.info("Streaming persons by lastname : {}", lastname);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+
+        if (dataIndex.pagePersonsByLastName(lastname, null, 1, null).items().isEmpty()) {
+            Logger.error("Lastname: " + lastname + " not found");
+            throw new NotFoundException("Lastname: " + lastname + " not found");
+        }
+
+        return dataIndex.streamPersonsByLastName(lastname)
+                .map(person -> {
+                    MedicalRecord medicalRecord = getMedicalRecordOrEmpty(person);
+                    return new PersonInfoDTO(person.firstName(), person.lastName(), person.address(), person.email(), getAge(medicalRecord.birthdate()), medicalRecord.medications(), medicalRecord.allergies());
+                });
+    }
+
+
+    /**
+     * Searches persons by the beginning of their last name, and optionally of their first name, tolerating typos.
+     * The number of typos allowed depends on the length of the searched name.
+     *
+     * @param lastname  The beginning of the last name to search for.
+     * @param firstname The beginning of the first name to search for, can be null or blank.
+     * @param limit     The maximum number of results, capped to 100.
+     * @return A list of PersonSearchResultDTOs ordered from the closest match to the farthest.
+     * @throws NotFoundException if no persons match the search.
+     */
+    public List<PersonSearchResultDTO> searchPersons(String lastname, String firstname, int limit) {
+        Logger.info("Searching persons by lastname : {} and firstname : {}", lastname, firstname);
+        Data data = jsonFileHandler.getData();
+        dataIndex.ensureIndexed(data);
+
+        boolean hasFirstname = firstname != null && !firstname.isBlank();
+        int firstnameMaxEdits = hasFirstname ? NameTrie.defaultMaxEdits(firstname.trim()) : 0;
+        int maxResults = Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+
+        List<PersonSearchResultDTO> results = dataIndex.searchByLastName(lastname, NameTrie.defaultMaxEdits(lastname.trim()), maxResults,
+                        person -> !hasFirstname || NameTrie.prefixDistance(firstname, person.firstName()) <= firstnameMaxEdits)
+                .stream()
+                .map(match -> {
+                    Person person = match.person();
+                    return new PersonSearchResultDTO(person.firstName(), person.lastName(), person.address(), person.city(), person.phone(), match.distance());
+                })
+                .toList();
+
+        if (results.isEmpty()) {
+            Logger.error("No person found for lastname: " + lastname + " and firstname: " + firstname);
+            throw new NotFoundException("No person found for lastname: " + lastname);
+        }
+
+        Logger.info("Successfully searched persons by lastname : {}", lastname);
+        return results;
+    }
+
+
+    /**
+     * Retrieves the residents sharing a phone number, grouped by address with the fire station covering each address
+     * and their medical record.
+     *
+     * @param phone The phone number, in the format 123-456-7890.
+     * @return A PhoneLookupDTO containing the addresses where the phone number is registered.
+     * @throws NotFoundException if no person has the given phone number.
+     */
+    public PhoneLookupDTO getResidentsByPhone(String phone) {
+        Logger.info("Getting residents by phone : {}", phone);
+        Data data = jsonFileHandler.getData();
+        dataIndex.ensureIndexed(data);
+
+        List<Person> persons = dataIndex.getPersonsByPhone(phone);
+
+        if (persons.isEmpty()) {
+            Logger.error("Phone: " + phone + " not found");
+            throw new NotFoundException("Phone: " + phone + " not found");
+        }
+
+        Map<String, List<Person>> personsByAddress = persons.stream()
+                .collect(Collectors.groupingBy(Person::address, LinkedHashMap::new, Collectors.toList()));
+
+        List<PhoneLookupAddressDTO> addresses = personsByAddress.values().stream()
+                .map(residents -> {
+                    Person firstResident = residents.get(0);
+                    Integer station = dataIndex.getFireStationByAddress(firstResident.address())
+                            .map(FireStation::station)
+                            .orElse(null);
+
+                    List<FireFloodPersonInfoDTO> residentsInfo = residents.stream()
+                            .map(person -> {
+                                MedicalRecord medicalRecord = getMedicalRecordOrEmpty(person);
+                                return new FireFloodPersonInfoDTO(person.firstName(), person.lastName(), person.phone(), getAge(medicalRecord.birthdate()), medicalRecord.medications(), medicalRecord.allergies());
+                            })
+                            .toList();
+
+                    return new PhoneLookupAddressDTO(firstResident.address(), firstResident.city(), station, residentsInfo);
+                })
+                .toList();
+
+        Logger.info("Successfully got residents by phone : {}", phone);
+        return new PhoneLookupDTO(phone, addresses);
+    }
+
+
     /**
      * Retrieves emails of persons living in a given city.
      *
@@ -200,6 +505,54 @@ public class PersonService {
     }
 
 
+    /**
+     * Retrieves a page of the distinct emails of persons living in a given city, in alphabetical order.
+     *
+     * @param city     The city to search for.
+     * @param cursor   The cursor returned with the previous page, null for the first page.
+     * @param pageSize The maximum number of emails of the page.
+     * @return A page of emails and the cursor of the next page.
+     * @throws NotFoundException if no persons living in the given city are found.
+     */
+    public PageDTO<Set<String>> getEmailsByCity(String city, String cursor, Integer pageSize) {
+        Logger.info("Getting page of emails by city : {}", city);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        DataIndex.IndexPage<String> page = dataIndex.pageEmailsByCity(city,
+                pageCursor == null ? null : pageCursor.key(), PageCursor.pageSize(pageSize),
+                pageCursor == null ? null : pageCursor.version());
+
+        if (pageCursor == null && page.items().isEmpty()) {
+            Logger.error("City: " + city + " not found");
+            throw new NotFoundException("City : " + city + " not found");
+        }
+
+        Logger.info("Successfully got page of emails by city : {}", city);
+        return new PageDTO<>(new LinkedHashSet<>(page.items()), PageCursor.encode(page.version(), page.nextKey()), page.version());
+    }
+
+
+    /**
+     * Streams the distinct emails of persons living in a given city, in alphabetical order.
+     *
+     * @param city The city to search for.
+     * @return A lazy stream of emails.
+     * @throws NotFoundException if no persons living in the given city are found.
+     */
+    public Stream<String> streamEmailsByCity(String city) {
+        Logger.info("Streaming emails by city : {}", city);
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+
+        if (dataIndex.pageEmailsByCity(city, null, 1, null).items().isEmpty()) {
+            Logger.error("City: " + city + " not found");
+            throw new NotFoundException("City : " + city + " not found");
+        }
+
+        return dataIndex.streamEmailsByCity(city);
+    }
+
+
     /**
      * Retrieves children living at a given address.
      *
@@ -211,34 +564,44 @@ public class PersonService {
 
         Data data = jsonFileHandler.getData();
 
-        boolean addressExists = data.persons().stream()
-                .anyMatch(person -> person.address().equalsIgnoreCase(address));
+        boolean addressExists;
+        try (ServerTiming.Phase phase = ServerTiming.phase("filter")) {
+            addressExists = data.persons().stream()
+                    .anyMatch(person -> person.address().equalsIgnoreCase(address));
+        }
 
         if (!addressExists) {
             Logger.error("Address: " + address + " not found");
             throw new NotFoundException("Address: " + address + " not found");
         }
 
-        Map<Person, MedicalRecord> personMedicalRecordMap = mapPersonsToMedicalRecords(data);
+        Map<Person, MedicalRecord> personMedicalRecordMap;
+        try (ServerTiming.Phase phase = ServerTiming.phase("join")) {
+            personMedicalRecordMap = mapPersonsToMedicalRecords(data, dataIndex);
+        }
 
-        List<ChildInfoDTO> children = data.persons().stream()
-                .filter(person -> person.address().equalsIgnoreCase(address))
-                .map(person -> {
-                    MedicalRecord medicalRecord = personMedicalRecordMap.get(person);
+        List<ChildInfoDTO> children;
+        try (ServerTiming.Phase phase = ServerTiming.phase("ages")) {
+            children = data.persons().stream()
+                    .filter(person -> person.address().equalsIgnoreCase(address))
+                    .map(person -> {
+                        Deadline.check();
+                        MedicalRecord medicalRecord = personMedicalRecordMap.get(person);
 
-                    if (!isChild(medicalRecord.birthdate())) return null;
+                        if (!isChild(medicalRecord.birthdate())) return null;
 
-                    List<String> familyMembers = data.persons().stream()
-                            .filter(familyMember -> familyMember.lastName().equals(person.lastName()) && !familyMember.firstName().equals(person.firstName()))
-                            .map(familyMember -> familyMember.firstName() + " " + familyMember.lastName())
-                            .toList();
+                        List<String> familyMembers = data.persons().stream()
+                                .filter(familyMember -> familyMember.lastName().equals(person.lastName()) && !familyMember.firstName().equals(person.firstName()))
+                                .map(familyMember -> familyMember.firstName() + " " + familyMember.lastName())
+                                .toList();
 
-                    int age = getAge(medicalRecord.birthdate());
+                        int age = getAge(medicalRecord.birthdate());
 
-                    return new ChildInfoDTO(person.firstName(), person.lastName(), age, familyMembers);
-                })
-                .filter(Objects::nonNull)
-                .toList();
+                        return new ChildInfoDTO(person.firstName(), person.lastName(), age, familyMembers);
+                    })
+                    .filter(Objects::nonNull)
+                    .toList();
+        }
 
         Logger.info("Successfully got children by address : {}", address);
         return children;
@@ -246,25 +609,46 @@ public class PersonService {
 
 
     /**
-     * Maps persons to their medical records.
+     * Maps persons to their medical records, looked up by name in the indexes.
+     * The deadline of the request is checked before each chunk of persons.
      *
-     * @param data The data containing the persons and medical records.
+     * @param data      The data containing the persons and medical records.
+     * @param dataIndex The indexes of the data.
      * @return A map of persons to their medical records.
+     * @throws DeadlineExceededException if the deadline of the request is reached.
+     */
+    public static Map<Person, MedicalRecord> mapPersonsToMedicalRecords(Data data, DataIndex dataIndex) {
+        dataIndex.ensureIndexed(data);
+        List<Person> persons = data.persons();
+        Map<Person, MedicalRecord> personMedicalRecordMap = new HashMap<>(persons.size() * 4 / 3 + 1);
+        for (int i = 0; i < persons.size(); i++) {
+            if (i % DEADLINE_CHECK_CHUNK == 0) Deadline.check();
+            Person person = persons.get(i);
+            personMedicalRecordMap.putIfAbsent(person, dataIndex.getMedicalRecord(person.firstName(), person.lastName())
+                    .orElseGet(() -> emptyMedicalRecord(person)));
+        }
+        return personMedicalRecordMap;
+    }
+
+
+    private MedicalRecord getMedicalRecordOrEmpty(Person person) {
+        return dataIndex.getMedicalRecord(person.firstName(), person.lastName())
+                .orElseGet(() -> emptyMedicalRecord(person));
+    }
+
+
+    /**
+     * Creates an empty medical record for a person who has none, so that he is always counted as an adult.
+     *
+     * @param person The person without medical record.
+     * @return An empty medical record.
      */
-    public static Map<Person, MedicalRecord> mapPersonsToMedicalRecords(Data data) {
-        return data.persons().stream()
-                .collect(Collectors.toMap(
-                        Function.identity(),
-                        person -> data.medicalRecords().stream()
-                                .filter(record -> record.lastName().equals(person.lastName()) && record.firstName().equals(person.firstName()))
-                                .findFirst()
-                                .orElseGet(() -> new MedicalRecord(
-                                        person.firstName(),
-                                        person.lastName(),
-                                        LocalDate.now().minusYears(999),
-                                        new String[0],
-                                        new String[0])
-                                )
-                ));
+    public static MedicalRecord emptyMedicalRecord(Person person) {
+        return new MedicalRecord(
+                person.firstName(),
+                person.lastName(),
+                LocalDate.now().minusYears(999),
+                new String[0],
+                new String[0]);
     }
 }
@@ -0,0 +1,176 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.dto.ChildInfoDTO;
+import com.safetynet.alerts.dto.FireDTO;
+import com.safetynet.alerts.dto.FireFloodPersonInfoDTO;
+import com.safetynet.alerts.dto.QueryBatchResultDTO;
+import com.safetynet.alerts.dto.QueryDTO;
+import com.safetynet.alerts.dto.QueryResultDTO;
+import com.safetynet.alerts.dto.StationCoverageDTO;
+import com.safetynet.alerts.dto.StationCoveragePersonInfoDTO;
+import com.safetynet.alerts.exception.NotFoundException;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataIndex;
+import com.safetynet.alerts.repository.JsonFileHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.tinylog.Logger;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.safetynet.alerts.util.BirthdateUtil.getAge;
+import static com.safetynet.alerts.util.BirthdateUtil.isChild;
+
+
+/**
+ * Service class for running several read queries at once.
+ * All the queries of a batch are run against the indexes of the data under one read lock, so their results are
+ * consistent with each other and with the version returned. A query repeated in the batch is only run once.
+ * Each query returns the same result as its own endpoint : /fire, /childalert, /phonealert and /firestation,
+ * with the persons in the order of the indexes.
+ *
+ * @author Perrine Dassonville
+ * @version 1.0
+ *
+ * @see QueryDTO
+ * @see QueryResultDTO
+ * @see QueryBatchResultDTO
+ * @see NotFoundException
+ * @see JsonFileHandler
+ * @see DataIndex
+ */
+@Service
+public class QueryService {
+
+    private final JsonFileHandler jsonFileHandler;
+    private final DataIndex dataIndex;
+
+    @Autowired
+    public QueryService(JsonFileHandler jsonFileHandler, DataIndex dataIndex) {
+        this.jsonFileHandler = jsonFileHandler;
+        this.dataIndex = dataIndex;
+    }
+
+
+    /**
+     * Runs several read queries against the same version of the data.
+     *
+     * @param queries The queries to run.
+     * @return The version of the data the queries were run on, and the result of each query in the same order :
+     * 200 with its result, 400 if its value is not valid or 404 if nothing was found.
+     */
+    public QueryBatchResultDTO query(List<QueryDTO> queries) {
+        Logger.info("Running batch of {} queries", queries.size());
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+
+        // The queries and the version are read together under the read lock, so no update is seen half done
+        QueryBatchResultDTO batch = dataIndex.read(() -> {
+            Map<String, QueryResultDTO> outcomes = new HashMap<>();
+            List<QueryResultDTO> results = new ArrayList<>(queries.size());
+            for (int i = 0; i < queries.size(); i++) {
+                QueryDTO query = queries.get(i);
+                QueryResultDTO outcome = outcomes.computeIfAbsent(query.type() + " " + query.value().trim().toLowerCase(Locale.ROOT),
+                        key -> run(query));
+                results.add(new QueryResultDTO(i, outcome.status(), outcome.result(), outcome.error()));
+            }
+            return new QueryBatchResultDTO(dataIndex.getVersion(), results);
+        });
+
+        Logger.info("Batch of queries run : {} queries on version {}", queries.size(), batch.version());
+        return batch;
+    }
+
+
+    private QueryResultDTO run(QueryDTO query) {
+        try {
+            String value = query.value().trim();
+            Object result = switch (query.type()) {
+                case FIRE -> getFire(value);
+                case CHILD_ALERT -> getChildAlert(value);
+                case PHONE_ALERT -> getPhoneAlert(parseStation(value));
+                case FIRESTATION -> getStationCoverage(parseStation(value));
+            };
+            return new QueryResultDTO(0, HttpStatus.OK.value(), result, null);
+        } catch (NotFoundException ex) {
+            return new QueryResultDTO(0, HttpStatus.NOT_FOUND.value(), null, ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            return new QueryResultDTO(0, HttpStatus.BAD_REQUEST.value(), null, ex.getMessage());
+        }
+    }
+
+    private static int parseStation(String value) {
+        try {
+            int station = Integer.parseInt(value);
+            if (station > 0) return station;
+        } catch (NumberFormatException ignored) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Station number must be a positive number");
+    }
+
+    private FireDTO getFire(String address) {
+        FireStation fireStation = dataIndex.getFireStationByAddress(address)
+                .orElseThrow(() -> new NotFoundException("No station found for address: " + address));
+
+        List<FireFloodPersonInfoDTO> persons = dataIndex.getPersonsByAddress(address).stream()
+                .map(person -> {
+                    MedicalRecord medicalRecord = getMedicalRecord(person);
+                    return new FireFloodPersonInfoDTO(person.firstName(), person.lastName(), person.phone(), getAge(medicalRecord.birthdate()), medicalRecord.medications(), medicalRecord.allergies());
+                })
+                .toList();
+
+        return new FireDTO(fireStation.station(), persons);
+    }
+
+    private List<ChildInfoDTO> getChildAlert(String address) {
+        List<Person> residents = dataIndex.getPersonsByAddress(address);
+        if (residents.isEmpty()) throw new NotFoundException("Address: " + address + " not found");
+
+        List<ChildInfoDTO> children = new ArrayList<>();
+        for (Person person : residents) {
+            MedicalRecord medicalRecord = getMedicalRecord(person);
+            if (!isChild(medicalRecord.birthdate())) continue;
+
+            List<String> familyMembers = dataIndex.getPersonsByLastName(person.lastName()).stream()
+                    .filter(familyMember -> familyMember.lastName().equals(person.lastName()) && !familyMember.firstName().equals(person.firstName()))
+                    .map(familyMember -> familyMember.firstName() + " " + familyMember.lastName())
+                    .toList();
+            children.add(new ChildInfoDTO(person.firstName(), person.lastName(), getAge(medicalRecord.birthdate()), familyMembers));
+        }
+        return children;
+    }
+
+    private Set<String> getPhoneAlert(int station) {
+        return getPersonsByStation(station).stream()
+                .map(Person::phone)
+                .collect(Collectors.toSet());
+    }
+
+    private StationCoverageDTO getStationCoverage(int station) {
+        List<Person> persons = getPersonsByStation(station);
+        int children = (int) persons.stream()
+                .filter(person -> isChild(getMedicalRecord(person).birthdate()))
+                .count();
+
+        List<StationCoveragePersonInfoDTO> personsInfo = persons.stream()
+                .map(person -> new StationCoveragePersonInfoDTO(person.firstName(), person.lastName(), person.address(), person.phone()))
+                .toList();
+        return new StationCoverageDTO(persons.size() - children, children, personsInfo);
+    }
+
+    private List<Person> getPersonsByStation(int station) {
+        if (!dataIndex.hasStation(station)) throw new NotFoundException("Station number " + station + " not found");
+        return dataIndex.getHomesByStation(station).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    private MedicalRecord getMedicalRecord(Person person) {
+        return dataIndex.getMedicalRecord(person.firstName(), person.lastName())
+                .orElseGet(() -> PersonService.emptyMedicalRecord(person));
+    }
+}
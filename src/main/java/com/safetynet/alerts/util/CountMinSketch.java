@@ -0,0 +1,85 @@
+package com.safetynet.alerts.util;
+
+
+/**
+ * Count-min sketch estimating how many times keys were seen, in a fixed amount of memory.
+ * Each key increments one counter per row, and its estimate is the smallest of these counters : it is never
+ * below the real count, and only above it when other keys share all its counters. Not thread safe.
+ */
+public final class CountMinSketch {
+
+    private final long[][] counters;
+    private final int width;
+
+
+    /**
+     * Constructor for CountMinSketch.
+     *
+     * @param depth The number of rows, each with its own hash of the keys. More rows make overestimates less likely.
+     * @param width The number of counters per row. More counters make overestimates smaller.
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) throw new IllegalArgumentException("Depth and width must be positive");
+        this.counters = new long[depth][width];
+        this.width = width;
+    }
+
+
+    /**
+     * Counts an occurrence of a key.
+     *
+     * @param key The key seen.
+     * @return The estimated number of occurrences of the key, including this one.
+     */
+    public long add(String key) {
+        int hash = key.hashCode();
+        int secondHash = spread(hash);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counters.length; row++) {
+            int column = index(hash, secondHash, row);
+            estimate = Math.min(estimate, ++counters[row][column]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Estimates the number of occurrences of a key.
+     *
+     * @param key The key.
+     * @return The estimated number of occurrences, 0 if the key was never seen.
+     */
+    public long estimate(String key) {
+        int hash = key.hashCode();
+        int secondHash = spread(hash);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counters.length; row++) {
+            estimate = Math.min(estimate, counters[row][index(hash, secondHash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves all the counters, so that the keys seen long ago weigh less than the recent ones.
+     */
+    public void halve() {
+        for (long[] row : counters) {
+            for (int column = 0; column < row.length; column++) {
+                row[column] >>>= 1;
+            }
+        }
+    }
+
+
+    // Double hashing : row i uses hash + i * secondHash, which is as good as independent hashes for a sketch
+    private int index(int hash, int secondHash, int row) {
+        return Math.floorMod(hash + row * secondHash, width);
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h | 1;
+    }
+}
@@ -0,0 +1,84 @@
+package com.safetynet.alerts.util;
+
+import com.safetynet.alerts.exception.DeadlineExceededException;
+
+import java.util.concurrent.Callable;
+
+
+/**
+ * Deadline of the request handled by the current thread, checked by the long loops of the services at each chunk
+ * of work, so that a query still running after its deadline stops instead of consuming CPU for a response nobody
+ * waits for anymore. A check also stops the work of a cancelled subtask, whose thread was interrupted.
+ * The deadline is set per thread, and propagated to the subtasks forked for the request.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private Deadline() {
+    }
+
+
+    /**
+     * Sets the deadline of the request handled by the current thread.
+     *
+     * @param timeoutMillis The time left to the request, in milliseconds.
+     */
+    public static void start(long timeoutMillis) {
+        DEADLINE.set(System.nanoTime() + timeoutMillis * 1_000_000);
+    }
+
+    /**
+     * Removes the deadline of the current thread, once its request is handled.
+     */
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * Stops the current work if its request is past its deadline, or if its thread was interrupted.
+     *
+     * @throws DeadlineExceededException if the deadline is reached or the work was cancelled.
+     */
+    public static void check() {
+        Long deadline = DEADLINE.get();
+        if (deadline != null && System.nanoTime() - deadline >= 0) {
+            throw new DeadlineExceededException("Request deadline exceeded, the query was aborted");
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new DeadlineExceededException("Query was cancelled");
+        }
+    }
+
+    /**
+     * Retrieves the time left before the deadline of the current thread.
+     *
+     * @param timeoutNanos The time left if there is no deadline, or if it is further.
+     * @return The time left in nanoseconds, at most the given timeout, 0 if the deadline is past.
+     */
+    public static long remainingNanos(long timeoutNanos) {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) return timeoutNanos;
+        return Math.max(0, Math.min(timeoutNanos, deadline - System.nanoTime()));
+    }
+
+    /**
+     * Wraps a task so that it runs with the deadline of the current thread, in the thread that will run it.
+     *
+     * @param task The task.
+     * @param <T>  The type of the result of the task.
+     * @return The task, running with the same deadline.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) return task;
+        return () -> {
+            DEADLINE.set(deadline);
+            try {
+                return task.call();
+            } finally {
+                DEADLINE.remove();
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package com.safetynet.alerts.util;
+
+import com.safetynet.alerts.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+
+/**
+ * Opaque cursor used to resume a paginated query.
+ * A cursor holds the version of the data the previous page was read from and the key of its last element,
+ * encoded in URL-safe Base64 so that clients don't rely on its content.
+ *
+ * @param version The version of the data the previous page was read from.
+ * @param key     The key of the last element of the previous page.
+ */
+public record PageCursor(long version, String key) {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final char SEPARATOR = ':';
+
+
+    /**
+     * Encodes a cursor.
+     *
+     * @param version The version of the data.
+     * @param key     The key of the last element of the page, null if there are no more pages.
+     * @return The encoded cursor, or null if the key is null.
+     */
+    public static String encode(long version, String key) {
+        if (key == null) return null;
+        String raw = version + "" + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor.
+     *
+     * @param cursor The encoded cursor, can be null for the first page.
+     * @return The decoded cursor, or null if no cursor was given.
+     * @throws InvalidCursorException if the cursor can't be decoded.
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new PageCursor(Long.parseLong(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new InvalidCursorException("Cursor is not valid");
+        }
+    }
+
+    /**
+     * Brings a requested page size within the allowed bounds.
+     *
+     * @param pageSize The requested page size, can be null.
+     * @return The page size to use, between 1 and 1000, 100 if none was requested.
+     */
+    public static int pageSize(Integer pageSize) {
+        if (pageSize == null) return DEFAULT_PAGE_SIZE;
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+}
@@ -0,0 +1,57 @@
+package com.safetynet.alerts.util;
+
+
+/**
+ * Token bucket limiting the rate of requests : the bucket refills at a steady rate, up to one second of requests,
+ * and each request admitted takes a token. A rate of 0 means no limit. Thread safe.
+ */
+public final class RateLimiter {
+
+    private double permitsPerSecond;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+
+    /**
+     * Takes a token, if one is available.
+     *
+     * @return True if the request is admitted, false if the rate is exceeded.
+     */
+    public synchronized boolean tryAcquire() {
+        if (permitsPerSecond <= 0) return true;
+
+        long now = System.nanoTime();
+        tokens = Math.min(capacity(), tokens + (now - refilledAt) * permitsPerSecond / 1_000_000_000d);
+        refilledAt = now;
+        if (tokens < 1) return false;
+        tokens--;
+        return true;
+    }
+
+    /**
+     * Sets the rate of requests admitted.
+     *
+     * @param permitsPerSecond The number of requests admitted per second, 0 for no limit.
+     */
+    public synchronized void setRate(double permitsPerSecond) {
+        if (permitsPerSecond < 0) throw new IllegalArgumentException("Rate must not be negative");
+        this.permitsPerSecond = permitsPerSecond;
+        this.tokens = capacity();
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Retrieves the rate of requests admitted.
+     *
+     * @return The number of requests admitted per second, 0 if there is no limit.
+     */
+    public synchronized double getRate() {
+        return permitsPerSecond;
+    }
+
+
+    // At least one token, so that a rate under one request per second still admits requests
+    private double capacity() {
+        return Math.max(1, permitsPerSecond);
+    }
+}
@@ -0,0 +1,62 @@
+package com.safetynet.alerts.util;
+
+import org.tinylog.Level;
+import org.tinylog.configuration.Configuration;
+import org.tinylog.format.AdvancedMessageFormatter;
+import org.tinylog.format.MessageFormatter;
+import org.tinylog.provider.LoggingProvider;
+import org.tinylog.provider.ProviderRegistry;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * Logs the requests received by the controllers at the INFO level, like Logger.info, with the class, method and line
+ * of the controller. During a surge, only a sample of the requests is logged, so the log file doesn't slow down
+ * the requests : with a sample rate of n, one request in n on average is logged.
+ */
+public final class RequestLog {
+
+    // The caller of info, as for Logger.info : 1 is this class, 2 is the controller
+    private static final int STACKTRACE_DEPTH = 2;
+
+    private static final LoggingProvider PROVIDER = ProviderRegistry.getLoggingProvider();
+    private static final MessageFormatter FORMATTER = new AdvancedMessageFormatter(Configuration.getLocale(), Configuration.isEscapingEnabled());
+
+    private static volatile int sampleRate = 1;
+
+    private RequestLog() {
+    }
+
+
+    /**
+     * Logs a request, or only a sample of the requests during a surge.
+     *
+     * @param message   The message, with {} placeholders for the arguments.
+     * @param arguments The arguments of the message.
+     */
+    public static void info(String message, Object... arguments) {
+        int rate = sampleRate;
+        if (rate > 1 && ThreadLocalRandom.current().nextInt(rate) != 0) return;
+        PROVIDER.log(STACKTRACE_DEPTH, null, Level.INFO, null, FORMATTER, message, arguments);
+    }
+
+    /**
+     * Sets the sample rate of the request logs.
+     *
+     * @param rate One request in rate is logged, 1 to log all the requests.
+     */
+    public static void setSampleRate(int rate) {
+        if (rate < 1) throw new IllegalArgumentException("Sample rate must be at least 1");
+        sampleRate = rate;
+    }
+
+    /**
+     * Retrieves the sample rate of the request logs.
+     *
+     * @return The sample rate, 1 if all the requests are logged.
+     */
+    public static int getSampleRate() {
+        return sampleRate;
+    }
+}
@@ -0,0 +1,114 @@
+package com.safetynet.alerts.util;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+
+
+/**
+ * Durations of the phases of the request handled by the current thread, returned in its Server-Timing header.
+ * The services wrap each phase of their queries, loading, joining, filtering, computing ages or serializing, in a
+ * phase closed when it ends. The durations of the phases of the same name are summed, also when they run
+ * concurrently in the subtasks forked for the request. When the timing of the request is not enabled, a phase
+ * is a shared instance doing nothing, so a disabled timing only costs a thread local read per phase.
+ */
+public final class ServerTiming {
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+    private static final Phase NO_PHASE = () -> {
+    };
+
+    private final Map<String, Long> durations = new LinkedHashMap<>();
+
+
+    /**
+     * A phase of a request, timed until it is closed.
+     */
+    @FunctionalInterface
+    public interface Phase extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+
+    private ServerTiming() {
+    }
+
+
+    /**
+     * Enables the timing of the request handled by the current thread.
+     *
+     * @return The timing of the request.
+     */
+    public static ServerTiming start() {
+        ServerTiming timing = new ServerTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * Removes the timing of the current thread, once its request is handled.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Starts a phase of the request handled by the current thread.
+     *
+     * @param name The name of the phase, a token of the Server-Timing header.
+     * @return The phase to close when it ends, doing nothing if the timing of the request is not enabled.
+     */
+    public static Phase phase(String name) {
+        ServerTiming timing = CURRENT.get();
+        if (timing == null) return NO_PHASE;
+
+        long start = System.nanoTime();
+        return () -> timing.add(name, System.nanoTime() - start);
+    }
+
+    /**
+     * Wraps a task so that its phases are added to the timing of the current thread, in the thread that will run it.
+     *
+     * @param task The task.
+     * @param <T>  The type of the result of the task.
+     * @return The task, timed with the same timing.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        ServerTiming timing = CURRENT.get();
+        if (timing == null) return task;
+        return () -> {
+            CURRENT.set(timing);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Formats the durations of the phases, followed by the total duration, as the value of a Server-Timing header.
+     *
+     * @param totalNanos The total duration of the request so far, in nanoseconds.
+     * @return The phases and their durations in milliseconds, for example "filter;dur=0.125, total;dur=1.500".
+     */
+    public synchronized String toHeader(long totalNanos) {
+        StringJoiner header = new StringJoiner(", ");
+        durations.forEach((name, nanos) -> header.add(metric(name, nanos)));
+        header.add(metric("total", totalNanos));
+        return header.toString();
+    }
+
+
+    private synchronized void add(String name, long nanos) {
+        durations.merge(name, nanos, Long::sum);
+    }
+
+    private static String metric(String name, long nanos) {
+        return String.format(Locale.ROOT, "%s;dur=%.3f", name, nanos / 1_000_000.0);
+    }
+}
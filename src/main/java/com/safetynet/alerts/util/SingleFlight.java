@@ -0,0 +1,84 @@
+package com.safetynet.alerts.util;
+
+import com.safetynet.alerts.exception.DeadlineExceededException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+
+/**
+ * Coalesces identical computations running at the same time.
+ * The first caller of a key runs the computation, and the callers arriving with the same key while it runs
+ * wait for it and receive the same result, or the same exception. Once the computation is done, the key is
+ * released and the next caller runs it again.
+ * A computation aborted by the deadline of its caller is not shared : the deadline was only that caller's,
+ * so each waiting caller runs the computation again, within its own deadline. A caller waits for the computation
+ * of another one only until its own deadline.
+ *
+ * @param <V> The type of the result of the computations.
+ */
+public final class SingleFlight<V> {
+
+    private final ConcurrentHashMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+
+    /**
+     * Runs a computation, or joins the one already running for the same key.
+     *
+     * @param key         The key identifying the computation.
+     * @param computation The computation to run if none is running for the key.
+     * @return The result of the computation.
+     * @throws DeadlineExceededException if the deadline of the caller is reached while waiting for the running computation.
+     */
+    public V execute(String key, Supplier<V> computation) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.get(Deadline.remainingNanos(Long.MAX_VALUE), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                throw new DeadlineExceededException("Request deadline exceeded while waiting for an identical query");
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new DeadlineExceededException("Query was cancelled");
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof DeadlineExceededException) return execute(key, computation);
+                throw rethrow(ex.getCause());
+            }
+        }
+
+        try {
+            V result = computation.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Retrieves the number of callers that joined a running computation instead of running their own.
+     *
+     * @return The number of coalesced callers since the creation.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+
+    // Only runtime exceptions and errors complete a computation exceptionally
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof Error error) throw error;
+        return (RuntimeException) cause;
+    }
+}
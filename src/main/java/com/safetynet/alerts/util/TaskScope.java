@@ -0,0 +1,167 @@
+package com.safetynet.alerts.util;
+
+import com.safetynet.alerts.exception.DeadlineExceededException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Runs the independent parts of a query concurrently, each in its own thread, within a deadline.
+ * The threads are virtual by default, or taken from a pool of platform threads, to compare both modes.
+ * The subtasks are forked in the scope, then joined all at once : if one of them fails, the others are cancelled
+ * and its exception is thrown, and if the deadline is reached or the joining thread is interrupted, all of them
+ * are cancelled. Closing the scope cancels the subtasks still running, so none outlives the query that forked it.
+ * A cancelled subtask is interrupted, and stops at its next blocking call or check of its interrupt status.
+ * The subtasks run with the deadline of the request that forked them, and the scope never waits past it.
+ * Their phases are added to the Server-Timing of the request.
+ * Same shape as the StructuredTaskScope of the JDK, still a preview in Java 21. Used by a single thread.
+ */
+public final class TaskScope implements AutoCloseable {
+
+    private static final ExecutorService VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+    private static final ExecutorService PLATFORM_THREADS = Executors.newCachedThreadPool(Thread.ofPlatform().name("task-scope-", 0).daemon().factory());
+    private static volatile ExecutorService executor = VIRTUAL_THREADS;
+
+    private final long deadline;
+    private final List<FutureTask<?>> subtasks = new CopyOnWriteArrayList<>();
+    private final Semaphore completed = new Semaphore(0);
+    private volatile Throwable failure;
+
+
+    private TaskScope(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Opens a scope whose subtasks must all complete within a timeout, or before the deadline of the request if it is sooner.
+     *
+     * @param timeout The maximum time from now to join all the subtasks.
+     * @return The scope, to be closed once the subtasks are joined.
+     */
+    public static TaskScope withTimeout(Duration timeout) {
+        return new TaskScope(System.nanoTime() + Deadline.remainingNanos(timeout.toNanos()));
+    }
+
+
+    /**
+     * Chooses whether the subtasks forked from now on run in virtual threads or in platform threads.
+     *
+     * @param virtual True for a virtual thread per subtask, false for a pool of platform threads.
+     */
+    public static void useVirtualThreads(boolean virtual) {
+        executor = virtual ? VIRTUAL_THREADS : PLATFORM_THREADS;
+    }
+
+
+    /**
+     * Starts a subtask in its own thread.
+     *
+     * @param task The subtask.
+     * @param <T>  The type of the result of the subtask.
+     * @return The subtask, whose result can be read once the scope is joined.
+     */
+    public <T> Subtask<T> fork(Callable<T> task) {
+        FutureTask<T> subtask = new FutureTask<>(Deadline.propagate(ServerTiming.propagate(task))) {
+            @Override
+            protected void done() {
+                if (!isCancelled()) {
+                    try {
+                        get();
+                    } catch (ExecutionException ex) {
+                        fail(ex.getCause());
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                completed.release();
+            }
+        };
+        subtasks.add(subtask);
+        executor.execute(subtask);
+        return new Subtask<>(subtask);
+    }
+
+    /**
+     * Waits for all the subtasks to complete, or for the first of them to fail.
+     *
+     * @throws DeadlineExceededException if the subtasks didn't complete before the deadline, or the thread was interrupted.
+     * @throws RuntimeException          the exception of the first subtask that failed, wrapped if it is checked.
+     */
+    public void join() {
+        try {
+            boolean done = completed.tryAcquire(subtasks.size(), Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (failure != null) throw rethrow(failure);
+            if (!done) {
+                cancelAll();
+                throw new DeadlineExceededException("Query took too long and was aborted");
+            }
+        } catch (InterruptedException ex) {
+            cancelAll();
+            Thread.currentThread().interrupt();
+            throw new DeadlineExceededException("Query was cancelled");
+        }
+    }
+
+    /**
+     * Cancels the subtasks still running.
+     */
+    @Override
+    public void close() {
+        cancelAll();
+    }
+
+
+    private void fail(Throwable cause) {
+        synchronized (this) {
+            if (failure != null) return;
+            failure = cause;
+        }
+        cancelAll();
+    }
+
+    private void cancelAll() {
+        for (FutureTask<?> subtask : subtasks) {
+            subtask.cancel(true);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable failure) {
+        if (failure instanceof RuntimeException runtimeException) return runtimeException;
+        if (failure instanceof Error error) throw error;
+        return new IllegalStateException(failure);
+    }
+
+
+    /**
+     * A subtask forked in a scope.
+     *
+     * @param <T> The type of the result of the subtask.
+     */
+    public static final class Subtask<T> {
+
+        private final FutureTask<T> future;
+
+        private Subtask(FutureTask<T> future) {
+            this.future = future;
+        }
+
+        /**
+         * Retrieves the result of the subtask, once the scope is joined.
+         *
+         * @return The result of the subtask.
+         * @throws IllegalStateException if the scope was not joined, or the subtask didn't complete successfully.
+         */
+        public T get() {
+            return future.resultNow();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.safetynet.alerts.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.safetynet.alerts.controller.AdmissionInterceptor;
+import com.safetynet.alerts.controller.CachedResponses;
+import com.safetynet.alerts.controller.DeadlineInterceptor;
+import com.safetynet.alerts.controller.FireStationController;
+import com.safetynet.alerts.controller.HotKeyTracker;
+import com.safetynet.alerts.controller.PersonController;
+import com.safetynet.alerts.controller.ResponseCache;
+import com.safetynet.alerts.exception.GlobalExceptionHandler;
+import com.safetynet.alerts.model.Data;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataIndex;
+import com.safetynet.alerts.repository.JsonFileHandler;
+import com.safetynet.alerts.service.FireStationService;
+import com.safetynet.alerts.service.PersonService;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.web.servlet.setup.StandaloneMockMvcBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+
+/**
+ * Load test of the admission control : measures the p99 latency of /fire reads alone, then during a flood of
+ * /person creations, without and with the admission control. The requests go through the real controllers and
+ * services, with the deadline and admission interceptors registered as in the application, and each creation writes
+ * the whole data to a temporary file under the write lock of the data, as it would write the data file.
+ * The request threads of the server are simulated by a fixed pool, and a request waits in its queue as it would
+ * in the queue of the connector. Run with the benchmark task.
+ */
+@Tag("benchmark")
+public class AdmissionLoadBenchmarkTest {
+
+    private static final int REQUEST_THREADS = 50;
+    private static final int READS = 300;
+    private static final int WRITES_PER_READ = 5;
+    private static final int STATIONS = 10;
+    private static final int ADDRESSES_PER_STATION = 50;
+    private static final int RESIDENTS_PER_ADDRESS = 4;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final AtomicInteger createdPersons = new AtomicInteger();
+    private final List<Path> dataFiles = new ArrayList<>();
+
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        for (Path dataFile : dataFiles) {
+            Files.deleteIfExists(dataFile);
+        }
+    }
+
+
+    @Test
+    @DisplayName("Benchmark read p99 during a write flood, without and with admission control")
+    public void readP99_ShouldStayFlatDuringWriteFlood() throws Exception {
+        // Given
+        readP99("warm up                     ", mockMvc(false), WRITES_PER_READ);
+
+        // When
+        long alone = readP99("reads alone                 ", mockMvc(false), 0);
+        long withoutAdmission = readP99("write flood, no admission   ", mockMvc(false), WRITES_PER_READ);
+        long withAdmission = readP99("write flood, with admission ", mockMvc(true), WRITES_PER_READ);
+
+        // Then
+        System.out.printf("p99 with admission / reads alone : %.1f%n", (double) withAdmission / alone);
+        assertThat(withAdmission).isLessThan(withoutAdmission);
+    }
+
+
+    // A new application for each run, with its own data, so that the writes of a run don't slow down the next one
+    private MockMvc mockMvc(boolean admission) throws Exception {
+        Path dataFile = Files.createTempFile("alerts-benchmark", ".json");
+        dataFiles.add(dataFile);
+        JsonFileHandler jsonFileHandler = mock(JsonFileHandler.class);
+        when(jsonFileHandler.getData()).thenReturn(generateData());
+        when(jsonFileHandler.sortPersonsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(dataFile.toFile(), invocation.getArgument(0));
+            return null;
+        }).when(jsonFileHandler).writeData(any());
+
+        DataIndex dataIndex = new DataIndex();
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        FireStationService fireStationService = new FireStationService(jsonFileHandler, dataIndex, validator);
+        PersonService personService = new PersonService(jsonFileHandler, dataIndex, validator);
+        CachedResponses cachedResponses = new CachedResponses(fireStationService, new ResponseCache(16 * 1024 * 1024), objectMapper);
+        StandaloneMockMvcBuilder builder = MockMvcBuilders.standaloneSetup(
+                        new FireStationController(fireStationService, objectMapper, cachedResponses, new HotKeyTracker(20)),
+                        new PersonController(personService, objectMapper))
+                .setControllerAdvice(new GlobalExceptionHandler());
+        if (admission) {
+            // Same order and same settings as in the application
+            builder.addInterceptors(
+                    new DeadlineInterceptor(List.of("/flood/stations=5000", "/flood/stations/all=10000"), 30000, 60000),
+                    new AdmissionInterceptor(Set.of("/fire", "/fire/addresses", "/phonealert", "/childalert", "/flood/stations", "/flood/stations/all"),
+                            Set.of("/query"), 100, 100, 16, 32, 2, 16, 2000, 1));
+        }
+        return builder.build();
+    }
+
+    private long readP99(String name, MockMvc mockMvc, int writesPerRead) throws Exception {
+        ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+        LongAdder rejectedWrites = new LongAdder();
+        List<Future<Long>> reads = new ArrayList<>(READS);
+        try {
+            for (int i = 0; i < READS; i++) {
+                for (int w = 0; w < writesPerRead; w++) {
+                    String created = letters(createdPersons.incrementAndGet());
+                    requestThreads.submit(() -> {
+                        int status = mockMvc.perform(post("/person")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content("""
+                                                {"firstName": "Created%s", "lastName": "Bench", "address": "0 Bench St", "city": "Culver",
+                                                 "zip": "97451", "phone": "841-874-6512", "email": "created%s@example.com"}
+                                                """.formatted(created, created)))
+                                .andReturn().getResponse().getStatus();
+                        if (status == HttpStatus.SERVICE_UNAVAILABLE.value()) rejectedWrites.increment();
+                        return status;
+                    });
+                }
+                String address = (i % (STATIONS * ADDRESSES_PER_STATION)) + " Bench St";
+                long submitted = System.nanoTime();
+                reads.add(requestThreads.submit(() -> {
+                    int status = mockMvc.perform(get("/fire").param("address", address)).andReturn().getResponse().getStatus();
+                    assertThat(status).isEqualTo(HttpStatus.OK.value());
+                    return System.nanoTime() - submitted;
+                }));
+                Thread.sleep(1);
+            }
+
+            List<Long> latencies = new ArrayList<>(READS);
+            for (Future<Long> read : reads) {
+                latencies.add(read.get());
+            }
+            latencies.sort(null);
+            long p50 = latencies.get(READS / 2);
+            long p99 = latencies.get(READS * 99 / 100);
+            System.out.printf("%s : read p50 %6d us, p99 %7d us, writes rejected %5d / %d%n",
+                    name, p50 / 1000, p99 / 1000, rejectedWrites.sum(), READS * writesPerRead);
+            return p99;
+        } finally {
+            requestThreads.shutdown();
+            requestThreads.awaitTermination(5, TimeUnit.MINUTES);
+        }
+    }
+
+    // Names only accept letters
+    private static String letters(int number) {
+        StringBuilder letters = new StringBuilder();
+        do {
+            letters.append((char) ('a' + number % 26));
+            number /= 26;
+        } while (number > 0);
+        return letters.toString();
+    }
+
+    private static Data generateData() {
+        List<Person> persons = new ArrayList<>();
+        List<FireStation> fireStations = new ArrayList<>();
+        List<MedicalRecord> medicalRecords = new ArrayList<>();
+        int address = 0;
+        for (int station = 1; station <= STATIONS; station++) {
+            for (int a = 0; a < ADDRESSES_PER_STATION; a++, address++) {
+                fireStations.add(new FireStation(address + " Bench St", station));
+                for (int r = 0; r < RESIDENTS_PER_ADDRESS; r++) {
+                    String firstName = "Resident" + r;
+                    String lastName = "Bench" + address;
+                    persons.add(new Person(firstName, lastName, address + " Bench St", "Culver", "97451", "123-456-" + String.format("%04d", address * RESIDENTS_PER_ADDRESS + r), firstName + "." + lastName + "@example.com"));
+                    medicalRecords.add(new MedicalRecord(firstName, lastName, LocalDate.of(1950 + r * 15, 1 + a % 12, 1), new String[]{"aznol:350mg"}, new String[]{"nillacilan"}));
+                }
+            }
+        }
+        return new Data(persons, fireStations, medicalRecords);
+    }
+}
@@ -0,0 +1,108 @@
+package com.safetynet.alerts.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.safetynet.alerts.data.DataList;
+import com.safetynet.alerts.dto.BatchItemResultDTO;
+import com.safetynet.alerts.model.Data;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataIndex;
+import com.safetynet.alerts.repository.JsonFileHandler;
+import com.safetynet.alerts.service.PersonService;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+
+/**
+ * Compares the throughput of the single record and the batch ingest of persons.
+ * The JSON file is not written : the data is serialized to a discarded stream, so that the cost of each flush
+ * is still measured. Run with the benchmark task.
+ */
+@Tag("benchmark")
+public class BatchIngestBenchmarkTest {
+
+    private static final int WARMUP_RECORDS = 500;
+    private static final int RECORDS = 2000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+
+    @Test
+    @DisplayName("Benchmark single record and batch ingest of persons")
+    public void createBatch_ShouldIngestFasterThanSingleRecordCreate() {
+        // Given
+        ingestOneByOne(generatePersons(WARMUP_RECORDS));
+        ingestBatch(generatePersons(WARMUP_RECORDS));
+
+        // When
+        long singleNanos = ingestOneByOne(generatePersons(RECORDS));
+        long batchNanos = ingestBatch(generatePersons(RECORDS));
+
+        // Then
+        System.out.printf("Single record ingest : %d records in %d ms (%.0f records/s)%n", RECORDS, singleNanos / 1_000_000, RECORDS * 1e9 / singleNanos);
+        System.out.printf("Batch ingest         : %d records in %d ms (%.0f records/s)%n", RECORDS, batchNanos / 1_000_000, RECORDS * 1e9 / batchNanos);
+        assertThat(batchNanos).isLessThan(singleNanos);
+    }
+
+
+    private long ingestOneByOne(List<Person> persons) {
+        PersonService personService = newPersonService();
+        long start = System.nanoTime();
+        persons.forEach(personService::create);
+        return System.nanoTime() - start;
+    }
+
+    private long ingestBatch(List<Person> persons) {
+        PersonService personService = newPersonService();
+        long start = System.nanoTime();
+        List<BatchItemResultDTO> results = personService.createBatch(persons);
+        long elapsed = System.nanoTime() - start;
+        assertThat(results).allMatch(result -> result.status() == 201);
+        return elapsed;
+    }
+
+    private PersonService newPersonService() {
+        DataList dataList = new DataList();
+        Data data = new Data(dataList.getPersons(), dataList.getFireStations(), dataList.getMedicalRecords());
+
+        JsonFileHandler jsonFileHandler = mock(JsonFileHandler.class);
+        when(jsonFileHandler.getData()).thenReturn(data);
+        when(jsonFileHandler.sortPersonsByLastNameAndFirstName(any(Data.class))).thenCallRealMethod();
+        doAnswer(invocation -> {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(OutputStream.nullOutputStream(), invocation.getArgument(0));
+            return null;
+        }).when(jsonFileHandler).writeData(any(Data.class));
+
+        return new PersonService(jsonFileHandler, new DataIndex(), validator);
+    }
+
+    private static List<Person> generatePersons(int count) {
+        List<Person> persons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String suffix = toLetters(i);
+            persons.add(new Person("Bench" + suffix, "Ingest" + suffix, i + " Bench St", "Culver", "97451", "123-456-7890", "bench" + i + "@example.com"));
+        }
+        return persons;
+    }
+
+    private static String toLetters(int number) {
+        StringBuilder letters = new StringBuilder();
+        do {
+            letters.append((char) ('a' + number % 26));
+            number /= 26;
+        } while (number > 0);
+        return letters.toString();
+    }
+}
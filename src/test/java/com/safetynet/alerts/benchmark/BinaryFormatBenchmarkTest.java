@@ -0,0 +1,127 @@
+package com.safetynet.alerts.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.safetynet.alerts.dto.FireFloodPersonInfoDTO;
+import com.safetynet.alerts.dto.FloodDTO;
+import com.safetynet.alerts.model.MedicalRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Compares the size and the encode and decode times of a large /flood/stations response and of a bulk of medical records
+ * in JSON, CBOR and Smile. The mappers are configured the same way, only their factory differs. Run with the benchmark task.
+ */
+@Tag("benchmark")
+public class BinaryFormatBenchmarkTest {
+
+    private static final int STATIONS = 20;
+    private static final int ADDRESSES_PER_STATION = 50;
+    private static final int RESIDENTS_PER_ADDRESS = 4;
+    private static final int MEDICAL_RECORDS = 5000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ObjectMapper cborMapper = jsonMapper.copyWith(new CBORFactory());
+    private final ObjectMapper smileMapper = jsonMapper.copyWith(new SmileFactory());
+
+
+    @Test
+    @DisplayName("Benchmark JSON, CBOR and Smile on a large flood response")
+    public void floodStations_ShouldBeSmallerInBinaryFormats() throws IOException {
+        // Given
+        List<FloodDTO> flood = generateFlood();
+        TypeReference<List<FloodDTO>> type = new TypeReference<>() {};
+
+        // When
+        int jsonSize = measure("flood JSON ", jsonMapper, flood, type);
+        int cborSize = measure("flood CBOR ", cborMapper, flood, type);
+        int smileSize = measure("flood Smile", smileMapper, flood, type);
+
+        // Then
+        assertThat(cborSize).isLessThan(jsonSize);
+        assertThat(smileSize).isLessThan(jsonSize);
+    }
+
+    @Test
+    @DisplayName("Benchmark JSON, CBOR and Smile on a bulk of medical records")
+    public void medicalRecords_ShouldBeSmallerInBinaryFormats() throws IOException {
+        // Given
+        List<MedicalRecord> medicalRecords = generateMedicalRecords();
+        TypeReference<List<MedicalRecord>> type = new TypeReference<>() {};
+
+        // When
+        int jsonSize = measure("bulk JSON  ", jsonMapper, medicalRecords, type);
+        int cborSize = measure("bulk CBOR  ", cborMapper, medicalRecords, type);
+        int smileSize = measure("bulk Smile ", smileMapper, medicalRecords, type);
+
+        // Then
+        assertThat(cborSize).isLessThan(jsonSize);
+        assertThat(smileSize).isLessThan(jsonSize);
+    }
+
+
+    private <T> int measure(String name, ObjectMapper mapper, T value, TypeReference<T> type) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(value);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            mapper.readValue(mapper.writeValueAsBytes(value), type);
+        }
+
+        long encodeStart = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            bytes = mapper.writeValueAsBytes(value);
+        }
+        long encodeNanos = System.nanoTime() - encodeStart;
+
+        long decodeStart = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            mapper.readValue(bytes, type);
+        }
+        long decodeNanos = System.nanoTime() - decodeStart;
+
+        System.out.printf("%s : %9d bytes, encode %6d us, decode %6d us%n", name, bytes.length, encodeNanos / ROUNDS / 1000, decodeNanos / ROUNDS / 1000);
+        return bytes.length;
+    }
+
+    private static List<FloodDTO> generateFlood() {
+        List<FloodDTO> flood = new ArrayList<>();
+        int address = 0;
+        for (int station = 1; station <= STATIONS; station++) {
+            Map<String, List<FireFloodPersonInfoDTO>> personsByAddress = new LinkedHashMap<>();
+            for (int a = 0; a < ADDRESSES_PER_STATION; a++, address++) {
+                List<FireFloodPersonInfoDTO> residents = new ArrayList<>();
+                for (int r = 0; r < RESIDENTS_PER_ADDRESS; r++) {
+                    residents.add(new FireFloodPersonInfoDTO("Resident" + r, "Bench" + address, "841-874-" + String.format("%04d", address % 10000), 20 + r * 15,
+                            new String[]{"aznol:350mg", "hydrapermazol:100mg"}, new String[]{"nillacilan"}));
+                }
+                personsByAddress.put(address + " Bench St", residents);
+            }
+            flood.add(new FloodDTO(station, personsByAddress));
+        }
+        return flood;
+    }
+
+    private static List<MedicalRecord> generateMedicalRecords() {
+        List<MedicalRecord> medicalRecords = new ArrayList<>(MEDICAL_RECORDS);
+        for (int i = 0; i < MEDICAL_RECORDS; i++) {
+            medicalRecords.add(new MedicalRecord("Resident", "Bench" + i, LocalDate.of(1950 + i % 70, 1 + i % 12, 1 + i % 28),
+                    new String[]{"aznol:350mg", "hydrapermazol:100mg"}, new String[]{"nillacilan", "peanut"}));
+        }
+        return medicalRecords;
+    }
+}
@@ -0,0 +1,148 @@
+package com.safetynet.alerts.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.safetynet.alerts.dto.PersonInfoField;
+import com.safetynet.alerts.model.Data;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataIndex;
+import com.safetynet.alerts.repository.JsonFileHandler;
+import com.safetynet.alerts.service.FireStationService;
+import com.safetynet.alerts.service.JsonPayload;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Compares the memory allocated per request by the DTO serialization and by the direct JsonGenerator writing
+ * of /fire, /phonealert and /flood/stations. Both write to a discarded stream, so that only the building and the
+ * serialization of the response are measured. Run with the benchmark task.
+ */
+@Tag("benchmark")
+public class JsonWriteBenchmarkTest {
+
+    private static final int STATIONS = 10;
+    private static final int ADDRESSES_PER_STATION = 50;
+    private static final int RESIDENTS_PER_ADDRESS = 4;
+    private static final int WARMUP_REQUESTS = 200;
+    private static final int REQUESTS = 1000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private FireStationService fireStationService;
+
+
+    @BeforeEach
+    public void setUp() {
+        Data data = generateData();
+        JsonFileHandler jsonFileHandler = mock(JsonFileHandler.class);
+        when(jsonFileHandler.getData()).thenReturn(data);
+        fireStationService = new FireStationService(jsonFileHandler, new DataIndex(), Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+
+    @Test
+    @DisplayName("Benchmark allocation per request of /fire")
+    public void writePersonsAndStationByAddress_ShouldAllocateLessThanDTOs() {
+        compare("/fire",
+                () -> fireStationService.getPersonsAndStationByAddress("7 Bench St"),
+                () -> fireStationService.writePersonsAndStationByAddress("7 Bench St", PersonInfoField.ALL));
+    }
+
+    @Test
+    @DisplayName("Benchmark allocation per request of /phonealert")
+    public void writePersonsPhonesByStation_ShouldAllocateLessThanDTOs() {
+        compare("/phonealert",
+                () -> fireStationService.getPersonsPhonesByStation(3),
+                () -> fireStationService.writePersonsPhonesByStation(3));
+    }
+
+    @Test
+    @DisplayName("Benchmark allocation per request of /flood/stations")
+    public void writeHomesByStations_ShouldAllocateLessThanDTOs() {
+        compare("/flood/stations",
+                () -> fireStationService.getHomesByStations(List.of(1, 2)),
+                () -> fireStationService.writeHomesByStations(List.of(1, 2), PersonInfoField.ALL));
+    }
+
+
+    private void compare(String endpoint, Supplier<Object> dto, Supplier<JsonPayload> payload) {
+        // Given
+        Runnable dtoRequest = () -> {
+            try {
+                objectMapper.writeValue(OutputStream.nullOutputStream(), dto.get());
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        };
+        Runnable directRequest = () -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(OutputStream.nullOutputStream())) {
+                payload.get().writeTo(generator);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        };
+        run(dtoRequest, WARMUP_REQUESTS);
+        run(directRequest, WARMUP_REQUESTS);
+
+        // When
+        long dtoStart = System.nanoTime();
+        long dtoBytes = run(dtoRequest, REQUESTS);
+        long dtoNanos = System.nanoTime() - dtoStart;
+        long directStart = System.nanoTime();
+        long directBytes = run(directRequest, REQUESTS);
+        long directNanos = System.nanoTime() - directStart;
+
+        // Then
+        System.out.printf("%-16s DTO serialization : %8d bytes/request, %6d us/request%n", endpoint, dtoBytes / REQUESTS, dtoNanos / REQUESTS / 1000);
+        System.out.printf("%-16s direct writing    : %8d bytes/request, %6d us/request%n", endpoint, directBytes / REQUESTS, directNanos / REQUESTS / 1000);
+        assertThat(directBytes).isLessThan(dtoBytes);
+    }
+
+    private long run(Runnable request, int count) {
+        long threadId = Thread.currentThread().threadId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < count; i++) {
+            request.run();
+        }
+        return threadMXBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private static Data generateData() {
+        List<Person> persons = new ArrayList<>();
+        List<FireStation> fireStations = new ArrayList<>();
+        List<MedicalRecord> medicalRecords = new ArrayList<>();
+        int address = 0;
+        for (int station = 1; station <= STATIONS; station++) {
+            for (int a = 0; a < ADDRESSES_PER_STATION; a++, address++) {
+                fireStations.add(new FireStation(address + " Bench St", station));
+                for (int r = 0; r < RESIDENTS_PER_ADDRESS; r++) {
+                    String firstName = "Resident" + r;
+                    String lastName = "Bench" + address;
+                    persons.add(new Person(firstName, lastName, address + " Bench St", "Culver", "97451", "123-456-" + String.format("%04d", address * RESIDENTS_PER_ADDRESS + r), firstName + "." + lastName + "@example.com"));
+                    medicalRecords.add(new MedicalRecord(firstName, lastName, LocalDate.of(1950 + r * 15, 1 + a % 12, 1), new String[]{"aznol:350mg", "hydrapermazol:100mg"}, new String[]{"nillacilan"}));
+                }
+            }
+        }
+        return new Data(persons, fireStations, medicalRecords);
+    }
+}
@@ -0,0 +1,194 @@
+package com.safetynet.alerts.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.safetynet.alerts.controller.CachedResponses;
+import com.safetynet.alerts.controller.FireStationController;
+import com.safetynet.alerts.controller.HotKeyTracker;
+import com.safetynet.alerts.controller.PersonController;
+import com.safetynet.alerts.controller.ResponseCache;
+import com.safetynet.alerts.exception.GlobalExceptionHandler;
+import com.safetynet.alerts.model.Data;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataIndex;
+import com.safetynet.alerts.repository.JsonFileHandler;
+import com.safetynet.alerts.service.FireStationService;
+import com.safetynet.alerts.service.PersonService;
+import com.safetynet.alerts.util.TaskScope;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+
+/**
+ * Compares the throughput of the real endpoints at high concurrency on a pool of platform threads, sized like the
+ * default pool of Tomcat, and on a virtual thread per request, as with alerts.threads.virtual. The subtasks of the
+ * queries run in the same mode. The requests mix /flood/stations and /fire reads with /person creations, each written
+ * to a temporary file under the write lock of the data, as the data file would be. The numbers are only reported :
+ * which mode is faster depends on the machine and on the mix. Run with the benchmark task.
+ */
+@Tag("benchmark")
+public class VirtualThreadBenchmarkTest {
+
+    private static final int PLATFORM_THREADS = 200;
+    private static final int CONCURRENT_REQUESTS = 5000;
+    private static final int WRITE_EVERY = 50;
+    private static final int STATIONS = 10;
+    private static final int ADDRESSES_PER_STATION = 20;
+    private static final int RESIDENTS_PER_ADDRESS = 4;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final AtomicInteger createdPersons = new AtomicInteger();
+
+    private MockMvc mockMvc;
+    private Path dataFile;
+
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dataFile = Files.createTempFile("alerts-benchmark", ".json");
+        JsonFileHandler jsonFileHandler = mock(JsonFileHandler.class);
+        when(jsonFileHandler.getData()).thenReturn(generateData());
+        when(jsonFileHandler.sortPersonsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(dataFile.toFile(), invocation.getArgument(0));
+            return null;
+        }).when(jsonFileHandler).writeData(any());
+
+        DataIndex dataIndex = new DataIndex();
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        FireStationService fireStationService = new FireStationService(jsonFileHandler, dataIndex, validator);
+        PersonService personService = new PersonService(jsonFileHandler, dataIndex, validator);
+        CachedResponses cachedResponses = new CachedResponses(fireStationService, new ResponseCache(16 * 1024 * 1024), objectMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                        new FireStationController(fireStationService, objectMapper, cachedResponses, new HotKeyTracker(20)),
+                        new PersonController(personService, objectMapper))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        TaskScope.useVirtualThreads(true);
+        Files.deleteIfExists(dataFile);
+    }
+
+
+    @Test
+    @DisplayName("Benchmark throughput of the endpoints on platform threads and on virtual threads at high concurrency")
+    public void endpoints_ShouldServeEveryRequestInBothModes() throws Exception {
+        // Given
+        run(false);
+        run(true);
+
+        // When
+        double platform = measure("platform threads", false);
+        double virtual = measure("virtual threads ", true);
+
+        // Then
+        System.out.printf("virtual / platform : %.2f%n", virtual / platform);
+    }
+
+
+    private double measure(String name, boolean virtual) throws Exception {
+        long start = System.nanoTime();
+        run(virtual);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        double throughput = CONCURRENT_REQUESTS / seconds;
+        System.out.printf("%s : %6d requests in %5d ms, %8.0f requests/s%n", name, CONCURRENT_REQUESTS, Math.round(seconds * 1000), throughput);
+        return throughput;
+    }
+
+    private void run(boolean virtual) throws Exception {
+        TaskScope.useVirtualThreads(virtual);
+        ExecutorService requestThreads = virtual ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        try {
+            List<Future<Integer>> responses = new ArrayList<>(CONCURRENT_REQUESTS);
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                RequestBuilder request = request(i);
+                responses.add(requestThreads.submit(() -> mockMvc.perform(request).andReturn().getResponse().getStatus()));
+            }
+            for (Future<Integer> response : responses) {
+                assertThat(response.get()).isBetween(200, 299);
+            }
+        } finally {
+            requestThreads.shutdown();
+            requestThreads.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private RequestBuilder request(int i) {
+        if (i % WRITE_EVERY == 0) {
+            String created = letters(createdPersons.incrementAndGet());
+            return post("/person")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                            {"firstName": "Created%s", "lastName": "Bench", "address": "0 Bench St", "city": "Culver",
+                             "zip": "97451", "phone": "841-874-6512", "email": "created%s@example.com"}
+                            """.formatted(created, created));
+        }
+        int station = 1 + i % STATIONS;
+        if (i % 2 == 0) {
+            return get("/flood/stations").param("stations", String.valueOf(station), String.valueOf(1 + station % STATIONS));
+        }
+        return get("/fire").param("address", (i % (STATIONS * ADDRESSES_PER_STATION)) + " Bench St");
+    }
+
+    // Names only accept letters
+    private static String letters(int number) {
+        StringBuilder letters = new StringBuilder();
+        do {
+            letters.append((char) ('a' + number % 26));
+            number /= 26;
+        } while (number > 0);
+        return letters.toString();
+    }
+
+    private static Data generateData() {
+        List<Person> persons = new ArrayList<>();
+        List<FireStation> fireStations = new ArrayList<>();
+        List<MedicalRecord> medicalRecords = new ArrayList<>();
+        int address = 0;
+        for (int station = 1; station <= STATIONS; station++) {
+            for (int a = 0; a < ADDRESSES_PER_STATION; a++, address++) {
+                fireStations.add(new FireStation(address + " Bench St", station));
+                for (int r = 0; r < RESIDENTS_PER_ADDRESS; r++) {
+                    String firstName = "Resident" + r;
+                    String lastName = "Bench" + address;
+                    persons.add(new Person(firstName, lastName, address + " Bench St", "Culver", "97451", "123-456-" + String.format("%04d", address * RESIDENTS_PER_ADDRESS + r), firstName + "." + lastName + "@example.com"));
+                    medicalRecords.add(new MedicalRecord(firstName, lastName, LocalDate.of(1950 + r * 15, 1 + a % 12, 1), new String[]{"aznol:350mg"}, new String[]{"nillacilan"}));
+                }
+            }
+        }
+        return new Data(persons, fireStations, medicalRecords);
+    }
+}
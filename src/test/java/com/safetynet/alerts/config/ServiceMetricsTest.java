@@ -0,0 +1,121 @@
+package com.safetynet.alerts.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.PageDTO;
+import com.safetynet.alerts.exception.NotFoundException;
+import com.safetynet.alerts.service.JsonPayload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+public class ServiceMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StationService service;
+
+
+    @BeforeEach
+    public void setUp() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new StationService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ServiceMetrics(meterRegistry));
+        service = factory.getProxy();
+    }
+
+
+    @Test
+    @DisplayName("Test service method is timed and the size of its result is recorded")
+    public void measure_ShouldTimeAndRecordResultSize() {
+        // When
+        service.getAddresses(1);
+        service.getAddresses(2);
+        service.getPage();
+
+        // Then
+        assertThat(meterRegistry.get(ServiceMetrics.DURATION).tags("class", "StationService", "method", "getAddresses", "exception", "none")
+                .timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(ServiceMetrics.RESULT_SIZE).tags("method", "getAddresses").summary().totalAmount()).isEqualTo(3);
+        assertThat(meterRegistry.get(ServiceMetrics.RESULT_SIZE).tags("method", "getPage").summary().max()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Test not found error is counted and timed with its exception")
+    public void measure_ShouldCountNotFound() {
+        // When & Then
+        assertThatThrownBy(() -> service.getAddresses(0)).isInstanceOf(NotFoundException.class);
+
+        assertThat(meterRegistry.get(ServiceMetrics.NOT_FOUND).tags("class", "StationService", "method", "getAddresses")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(ServiceMetrics.DURATION).tags("exception", "NotFoundException").timer().count()).isEqualTo(1);
+    }
+
+
+    @Test
+    @DisplayName("Test service method returning a stream is timed until the stream is closed")
+    public void measure_ShouldTimeStreamUntilClosed() {
+        // Given
+        Stream<String> addresses = service.streamAddresses();
+        assertThat(meterRegistry.find(ServiceMetrics.DURATION).tags("method", "streamAddresses").timer()).isNull();
+
+        // When
+        try (addresses) {
+            assertThat(addresses).hasSize(2);
+        }
+
+        // Then
+        assertThat(meterRegistry.get(ServiceMetrics.DURATION).tags("method", "streamAddresses", "exception", "none")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Test service method returning a payload is timed until the payload is written")
+    public void measure_ShouldTimePayloadUntilWritten() throws IOException {
+        // Given
+        JsonPayload payload = service.writeAddresses();
+        assertThat(meterRegistry.find(ServiceMetrics.DURATION).tags("method", "writeAddresses").timer()).isNull();
+
+        // When
+        try (JsonGenerator generator = new ObjectMapper().createGenerator(OutputStream.nullOutputStream())) {
+            payload.writeTo(generator);
+        }
+
+        // Then
+        assertThat(meterRegistry.get(ServiceMetrics.DURATION).tags("method", "writeAddresses", "exception", "none")
+                .timer().count()).isEqualTo(1);
+    }
+
+
+    @Service
+    static class StationService {
+
+        public List<String> getAddresses(int station) {
+            if (station == 0) throw new NotFoundException("Station not found");
+            return station == 1 ? List.of("1509 Culver St") : List.of("29 15th St", "892 Downing Ct");
+        }
+
+        public PageDTO<List<String>> getPage() {
+            return new PageDTO<>(List.of("1509 Culver St", "29 15th St"), null, 1);
+        }
+
+        public Stream<String> streamAddresses() {
+            return Stream.of("1509 Culver St", "29 15th St");
+        }
+
+        public JsonPayload writeAddresses() {
+            return generator -> generator.writeObject(List.of("1509 Culver St", "29 15th St"));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.AdmissionStatsDTO;
+import com.safetynet.alerts.exception.OverloadedException;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+public class AdmissionInterceptorTest {
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+
+    @Test
+    @DisplayName("Test requests are classified by path and method")
+    public void classify_ShouldClassifyByPathAndMethod() {
+        // Given
+        AdmissionInterceptor interceptor = interceptor(1, 0, 1, 0);
+
+        // When & Then
+        assertThat(interceptor.classify(new MockHttpServletRequest("GET", "/fire"))).isEqualTo(AdmissionInterceptor.EndpointClass.EMERGENCY);
+        assertThat(interceptor.classify(new MockHttpServletRequest("GET", "/phonealert"))).isEqualTo(AdmissionInterceptor.EndpointClass.EMERGENCY);
+        assertThat(interceptor.classify(new MockHttpServletRequest("GET", "/person/search"))).isEqualTo(AdmissionInterceptor.EndpointClass.READ);
+        assertThat(interceptor.classify(new MockHttpServletRequest("POST", "/query"))).isEqualTo(AdmissionInterceptor.EndpointClass.READ);
+        assertThat(interceptor.classify(new MockHttpServletRequest("POST", "/person"))).isEqualTo(AdmissionInterceptor.EndpointClass.WRITE);
+        assertThat(interceptor.classify(new MockHttpServletRequest("DELETE", "/firestation"))).isEqualTo(AdmissionInterceptor.EndpointClass.WRITE);
+    }
+
+    @Test
+    @DisplayName("Test write over the limit and the queue is rejected, and admitted again once a write completed")
+    public void preHandle_ShouldRejectWriteOverQueue() throws Exception {
+        // Given
+        AdmissionInterceptor interceptor = interceptor(1, 0, 1, 0);
+        MockHttpServletRequest running = new MockHttpServletRequest("POST", "/person");
+        interceptor.preHandle(running, response, null);
+
+        // When & Then
+        assertThatThrownBy(() -> interceptor.preHandle(new MockHttpServletRequest("PUT", "/person"), response, null))
+                .isInstanceOf(OverloadedException.class)
+                .satisfies(ex -> assertThat(((OverloadedException) ex).getRetryAfterSeconds()).isEqualTo(1));
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/fire"), response, null)).isTrue();
+
+        interceptor.afterCompletion(running, response, null, null);
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("PUT", "/person"), response, null)).isTrue();
+        assertThat(interceptor.getStats()).contains(new AdmissionStatsDTO("WRITE", 1, 1, 0, 2, 1));
+    }
+
+    @Test
+    @DisplayName("Test other requests are refused while emergency reads are queued")
+    public void preHandle_ShouldRefuseOtherClassesWhileEmergencyQueued() throws Exception {
+        // Given
+        AdmissionInterceptor interceptor = interceptor(1, 1, 4, 4);
+        MockHttpServletRequest running = new MockHttpServletRequest("GET", "/fire");
+        interceptor.preHandle(running, response, null);
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> {
+            try {
+                return interceptor.preHandle(new MockHttpServletRequest("GET", "/phonealert"), new MockHttpServletResponse(), null);
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        while (interceptor.getStats().get(0).queued() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // When & Then
+        assertThatThrownBy(() -> interceptor.preHandle(new MockHttpServletRequest("POST", "/person"), response, null))
+                .isInstanceOf(OverloadedException.class);
+        interceptor.afterCompletion(running, response, null, null);
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Test asynchronous and error dispatches are not admitted twice")
+    public void preHandle_ShouldIgnoreOtherDispatches() throws Exception {
+        // Given
+        AdmissionInterceptor interceptor = interceptor(1, 0, 1, 0);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/fire");
+        interceptor.preHandle(request, response, null);
+
+        // When
+        request.setDispatcherType(DispatcherType.ASYNC);
+        boolean redispatched = interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+
+        // Then
+        assertThat(redispatched).isTrue();
+        assertThat(interceptor.getStats().get(0)).isEqualTo(new AdmissionStatsDTO("EMERGENCY", 1, 0, 0, 1, 0));
+    }
+
+
+    private static AdmissionInterceptor interceptor(int emergencyLimit, int emergencyQueue, int writeLimit, int writeQueue) {
+        return new AdmissionInterceptor(Set.of("/fire", "/phonealert"), Set.of("/query"),
+                emergencyLimit, emergencyQueue, 4, 4, writeLimit, writeQueue, 2000, 1);
+    }
+}
@@ -0,0 +1,85 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.exception.DeadlineExceededException;
+import com.safetynet.alerts.util.Deadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+public class DeadlineInterceptorTest {
+
+    private final DeadlineInterceptor interceptor = new DeadlineInterceptor(List.of("/flood/stations=5000"), 30000, 60000);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+
+    @AfterEach
+    public void tearDown() {
+        Deadline.clear();
+    }
+
+
+    @Test
+    @DisplayName("Test timeout of the endpoint applies, else the default timeout")
+    public void getTimeoutMillis_ShouldUseEndpointThenDefaultTimeout() {
+        // When & Then
+        assertThat(interceptor.getTimeoutMillis(new MockHttpServletRequest("GET", "/flood/stations"))).isEqualTo(5000);
+        assertThat(interceptor.getTimeoutMillis(new MockHttpServletRequest("GET", "/fire"))).isEqualTo(30000);
+    }
+
+    @Test
+    @DisplayName("Test timeout header overrides the endpoint timeout, up to the maximum")
+    public void getTimeoutMillis_ShouldUseHeaderUpToMaximum() {
+        // Given
+        MockHttpServletRequest shortRequest = new MockHttpServletRequest("GET", "/flood/stations");
+        shortRequest.addHeader(DeadlineInterceptor.TIMEOUT_HEADER, "200");
+        MockHttpServletRequest longRequest = new MockHttpServletRequest("GET", "/flood/stations");
+        longRequest.addHeader(DeadlineInterceptor.TIMEOUT_HEADER, "600000");
+
+        // When & Then
+        assertThat(interceptor.getTimeoutMillis(shortRequest)).isEqualTo(200);
+        assertThat(interceptor.getTimeoutMillis(longRequest)).isEqualTo(60000);
+    }
+
+    @Test
+    @DisplayName("Test invalid timeout header is ignored")
+    public void getTimeoutMillis_ShouldIgnoreInvalidHeader() {
+        // Given
+        MockHttpServletRequest invalid = new MockHttpServletRequest("GET", "/flood/stations");
+        invalid.addHeader(DeadlineInterceptor.TIMEOUT_HEADER, "soon");
+        MockHttpServletRequest negative = new MockHttpServletRequest("GET", "/flood/stations");
+        negative.addHeader(DeadlineInterceptor.TIMEOUT_HEADER, "-1");
+
+        // When & Then
+        assertThat(interceptor.getTimeoutMillis(invalid)).isEqualTo(5000);
+        assertThat(interceptor.getTimeoutMillis(negative)).isEqualTo(5000);
+    }
+
+    @Test
+    @DisplayName("Test deadline is set for the request and cleared once it is handled")
+    public void preHandle_ShouldSetDeadlineUntilCompletion() {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/flood/stations");
+        request.addHeader(DeadlineInterceptor.TIMEOUT_HEADER, "1");
+
+        // When
+        interceptor.preHandle(request, response, null);
+
+        // Then
+        assertThatThrownBy(() -> {
+            Thread.sleep(5);
+            Deadline.check();
+        }).isInstanceOf(DeadlineExceededException.class);
+
+        interceptor.afterCompletion(request, response, null, null);
+        assertThatCode(Deadline::check).doesNotThrowAnyException();
+    }
+}
@@ -2,6 +2,7 @@ package com.safetynet.alerts.controller;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.safetynet.alerts.dto.*;
 import com.safetynet.alerts.exception.AlreadyExistException;
@@ -9,30 +10,50 @@ import com.safetynet.alerts.exception.NotFoundException;
 import com.safetynet.alerts.model.FireStation;
 import com.safetynet.alerts.service.FireStationService;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
 @WebMvcTest(FireStationController.class)
+@Import({ResponseCache.class, CachedResponses.class, HotKeyTracker.class})
 public class FireStationControllerTest {
 
     private static ObjectMapper objectMapper;
@@ -40,6 +61,9 @@ public class FireStationControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ResponseCache responseCache;
+
     @MockBean
     private FireStationService fireStationService;
 
@@ -49,6 +73,11 @@ public class FireStationControllerTest {
         objectMapper.registerModule(new JavaTimeModule());
     }
 
+    @BeforeEach
+    public void clearCache() {
+        responseCache.clear();
+    }
+
     @Nested
     @DisplayName("Mutable Operations")
     class MutableOperationTest {
@@ -192,6 +221,23 @@ public class FireStationControllerTest {
                     .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DisplayName("firestation - NDJSON")
+        void getPersonsStationCoverage_ndjson() throws Exception {
+            StationCoveragePersonInfoDTO john = new StationCoveragePersonInfoDTO("John", "Doe", "1509 Culver St", "841-874-6512");
+            StationCoveragePersonInfoDTO jane = new StationCoveragePersonInfoDTO("Jane", "Doe", "1509 Culver St", "841-874-6513");
+            when(fireStationService.streamPersonsStationCoverage(1)).thenReturn(Stream.of(john, jane));
+
+            MvcResult result = mockMvc.perform(get("/firestation?stationnumber=1").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andExpect(content().string(objectMapper.writeValueAsString(john) + "\n" + objectMapper.writeValueAsString(jane) + "\n"));
+        }
+
         @Test
         @DisplayName("flood/stations - Success")
         void getHomesByStations_success() throws Exception {
@@ -211,27 +257,158 @@ public class FireStationControllerTest {
                                     )
                             ))
             );
-            when(fireStationService.getHomesByStations(List.of(1, 2))).thenReturn(flood);
+            when(fireStationService.writeHomesByStations(List.of(1, 2), PersonInfoField.ALL)).thenReturn(generator -> objectMapper.writeValue(generator, flood));
 
             mockMvc.perform(get("/flood/stations?stations=1,2"))
                     .andExpect(status().isOk())
                     .andExpect(content().json(objectMapper.writeValueAsString(flood)));
         }
 
+        @Test
+        @DisplayName("fire/addresses - Success")
+        void getPersonsAndStationByAddresses_success() throws Exception {
+            List<FloodDTO> fire = List.of(
+                    new FloodDTO(3,
+                            Map.of(
+                                    "1509 Culver St", List.of(
+                                            new FireFloodPersonInfoDTO("John", "Boyd", "841-874-6512", 40, new String[0], new String[0])
+                                    ),
+                                    "834 Binoc Ave", List.of(
+                                            new FireFloodPersonInfoDTO("Tessa", "Carman", "841-874-6512", 12, new String[0], new String[0])
+                                    )
+                            ))
+            );
+            when(fireStationService.getPersonsAndStationByAddresses(List.of("1509 Culver St", "834 Binoc Ave"), PersonInfoField.ALL)).thenReturn(fire);
+
+            mockMvc.perform(get("/fire/addresses")
+                            .param("addresses", "1509 Culver St", "834 Binoc Ave"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(fire)));
+        }
+
+        @Test
+        @DisplayName("fire/addresses - Not Found")
+        void getPersonsAndStationByAddresses_notFound() throws Exception {
+            when(fireStationService.getPersonsAndStationByAddresses(any(), any())).thenThrow(new NotFoundException("No station found for address: 1 Nowhere St"));
+
+            mockMvc.perform(get("/fire/addresses")
+                            .param("addresses", "1 Nowhere St"))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("flood/stations/all - Success with ETag")
+        void getFloodReport_success() throws Exception {
+            List<FloodDTO> flood = List.of(
+                    new FloodDTO(1,
+                            Map.of(
+                                    "1509 Culver St", List.of(
+                                            new FireFloodPersonInfoDTO("John", "Doe", "841-874-6512", 35, new String[0], new String[0])
+                                    )
+                            ))
+            );
+            when(fireStationService.getFloodReport()).thenReturn(new FloodReportDTO(7, LocalDate.now(), flood));
+
+            MvcResult result = mockMvc.perform(get("/flood/stations/all"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Data-Version", "7"))
+                    .andExpect(header().exists("ETag"))
+                    .andExpect(content().json(objectMapper.writeValueAsString(flood)))
+                    .andReturn();
+
+            mockMvc.perform(get("/flood/stations/all")
+                            .header("If-None-Match", result.getResponse().getHeader("ETag")))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+        }
+
+        @Test
+        @DisplayName("flood/stations/all - NDJSON")
+        void getFloodReport_ndjson() throws Exception {
+            FloodResidentDTO john = new FloodResidentDTO(1, "1509 Culver St", "John", "Doe", "841-874-6512", 35, new String[0], new String[0]);
+            FloodResidentDTO jane = new FloodResidentDTO(2, "29 15th St", "Jane", "Doe", "841-874-6513", 33, new String[0], new String[]{"peanut"});
+            when(fireStationService.streamFloodReport()).thenReturn(Stream.of(john, jane));
+
+            MvcResult result = mockMvc.perform(get("/flood/stations/all").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andExpect(content().string(objectMapper.writeValueAsString(john) + "\n" + objectMapper.writeValueAsString(jane) + "\n"));
+        }
+
         @Test
         @DisplayName("flood/stations - Not Found")
         void getHomesByStations_notFound() throws Exception {
-            when(fireStationService.getHomesByStations(List.of(999))).thenThrow(new NotFoundException("Stations numbers not found"));
+            when(fireStationService.writeHomesByStations(List.of(999), PersonInfoField.ALL)).thenThrow(new NotFoundException("Stations numbers not found"));
 
             mockMvc.perform(get("/flood/stations?stations=999"))
                     .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DisplayName("flood/stations - NDJSON")
+        void getHomesByStations_ndjson() throws Exception {
+            FloodResidentDTO john = new FloodResidentDTO(1, "123 Main St", "John", "Doe", "123-456-7890", 24, new String[]{"medication1"}, new String[0]);
+            FloodResidentDTO bob = new FloodResidentDTO(1, "321 Pine St", "Bob", "Johnson", "123-456-7893", 55, new String[0], new String[0]);
+            when(fireStationService.streamHomesByStations(List.of(1), PersonInfoField.ALL)).thenReturn(Stream.of(john, bob));
+
+            MvcResult result = mockMvc.perform(get("/flood/stations?stations=1").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andExpect(content().string(objectMapper.writeValueAsString(john) + "\n" + objectMapper.writeValueAsString(bob) + "\n"));
+        }
+
+        @Test
+        @DisplayName("flood/stations - NDJSON stopped at the deadline of the request")
+        void getHomesByStations_ndjsonPastDeadline() throws Exception {
+            FloodResidentDTO john = new FloodResidentDTO(1, "123 Main St", "John", "Doe", "123-456-7890", 24, new String[]{"medication1"}, new String[0]);
+            AtomicBoolean closed = new AtomicBoolean();
+            Stream<FloodResidentDTO> endless = Stream.generate(() -> {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+                return john;
+            }).onClose(() -> closed.set(true));
+            when(fireStationService.streamHomesByStations(List.of(1), PersonInfoField.ALL)).thenReturn(endless);
+
+            MvcResult result = mockMvc.perform(get("/flood/stations?stations=1")
+                            .header(DeadlineInterceptor.TIMEOUT_HEADER, "100")
+                            .accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(startsWith(objectMapper.writeValueAsString(john) + "\n")));
+            assertThat(closed).isTrue();
+        }
+
+        @Test
+        @DisplayName("phonealert - Served from cache until the data changes")
+        void getPersonsPhonesByStation_cached() throws Exception {
+            Set<String> phones = Set.of("123-456-7890");
+            when(fireStationService.getDataVersion()).thenReturn(1L, 1L, 2L);
+            when(fireStationService.writePersonsPhonesByStation(1)).thenReturn(generator -> objectMapper.writeValue(generator, phones));
+
+            for (int i = 0; i < 3; i++) {
+                mockMvc.perform(get("/phonealert?firestation=1"))
+                        .andExpect(status().isOk())
+                        .andExpect(content().json("[\"123-456-7890\"]"));
+            }
+
+            verify(fireStationService, times(2)).writePersonsPhonesByStation(1);
+        }
+
         @Test
         @DisplayName("phonealert - Success")
         void getPersonsPhonesByStation_success() throws Exception {
             Set<String> phones = Set.of("123-456-7890", "098-765-4321");
-            when(fireStationService.getPersonsPhonesByStation(1)).thenReturn(phones);
+            when(fireStationService.writePersonsPhonesByStation(1)).thenReturn(generator -> objectMapper.writeValue(generator, phones));
 
             mockMvc.perform(get("/phonealert?firestation=1"))
                     .andExpect(status().isOk())
@@ -241,7 +418,7 @@ public class FireStationControllerTest {
         @Test
         @DisplayName("phonealert - Not Found")
         void getPersonsPhonesByStation_notFound() throws Exception {
-            when(fireStationService.getPersonsPhonesByStation(999)).thenThrow(new NotFoundException("Station number not found"));
+            when(fireStationService.writePersonsPhonesByStation(999)).thenThrow(new NotFoundException("Station number not found"));
 
             mockMvc.perform(get("/phonealert?firestation=999"))
                     .andExpect(status().isNotFound());
@@ -257,18 +434,86 @@ public class FireStationControllerTest {
                             new FireFloodPersonInfoDTO("Jane", "Doe", "841-874-6513", 34, new String[0], new String[0])
                     )
             );
-            when(fireStationService.getPersonsAndStationByAddress("123 Main St")).thenReturn(fire);
+            when(fireStationService.writePersonsAndStationByAddress("123 Main St", PersonInfoField.ALL)).thenReturn(generator -> objectMapper.writeValue(generator, fire));
 
             mockMvc.perform(get("/fire?address=123 Main St"))
                     .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                     .andExpect(content().json(objectMapper.writeValueAsString(fire)));
         }
 
 
+        @Test
+        @DisplayName("fire - Success in CBOR")
+        void getPersonsAndStationByAddress_cbor() throws Exception {
+            FireDTO fire = new FireDTO(1, List.of(new FireFloodPersonInfoDTO("John", "Doe", "841-874-6512", 35, new String[]{"aznol:350mg"}, new String[0])));
+            when(fireStationService.writePersonsAndStationByAddress("123 Main St", PersonInfoField.ALL)).thenReturn(generator -> objectMapper.writeValue(generator, fire));
+
+            byte[] body = mockMvc.perform(get("/fire?address=123 Main St").accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            assertThat(new ObjectMapper(new CBORFactory()).readTree(body)).isEqualTo(objectMapper.valueToTree(fire));
+
+            mockMvc.perform(get("/fire?address=123 Main St"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(content().json(objectMapper.writeValueAsString(fire)));
+        }
+
+        @Test
+        @DisplayName("fire - Compressed with gzip when accepted")
+        void getPersonsAndStationByAddress_gzip() throws Exception {
+            FireDTO fire = new FireDTO(
+                    1,
+                    IntStream.range(0, 10)
+                            .mapToObj(i -> new FireFloodPersonInfoDTO("John" + i, "Doe", "841-874-6512", 35, new String[]{"aznol:350mg"}, new String[0]))
+                            .toList()
+            );
+            when(fireStationService.writePersonsAndStationByAddress("123 Main St", PersonInfoField.ALL)).thenReturn(generator -> objectMapper.writeValue(generator, fire));
+
+            byte[] body = mockMvc.perform(get("/fire?address=123 Main St").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                    .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                assertThat(objectMapper.readTree(gzip)).isEqualTo(objectMapper.valueToTree(fire));
+            }
+
+            mockMvc.perform(get("/fire?address=123 Main St"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                    .andExpect(content().json(objectMapper.writeValueAsString(fire)));
+        }
+
+        @Test
+        @DisplayName("fire - Success with selected fields")
+        void getPersonsAndStationByAddress_withFields() throws Exception {
+            FireDTO fire = new FireDTO(
+                    1,
+                    List.of(new FireFloodPersonInfoDTO("John", null, "841-874-6512", null, null, null))
+            );
+            when(fireStationService.writePersonsAndStationByAddress("123 Main St", EnumSet.of(PersonInfoField.FIRST_NAME, PersonInfoField.PHONE))).thenReturn(generator -> objectMapper.writeValue(generator, fire));
+
+            mockMvc.perform(get("/fire?address=123 Main St&fields=firstName,phone"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json("{\"fireStation\":1,\"persons\":[{\"firstName\":\"John\",\"phone\":\"841-874-6512\"}]}", true));
+        }
+
+        @Test
+        @DisplayName("fire - Bad Request with unknown field")
+        void getPersonsAndStationByAddress_invalidFields() throws Exception {
+            mockMvc.perform(get("/fire?address=123 Main St&fields=firstName,weight"))
+                    .andExpect(status().isBadRequest());
+        }
+
         @Test
         @DisplayName("fire - Not Found")
         void getPersonsAndStationByAddress_notFound() throws Exception {
-            when(fireStationService.getPersonsAndStationByAddress("Unknown Address")).thenThrow(new NotFoundException("Address not found"));
+            when(fireStationService.writePersonsAndStationByAddress("Unknown Address", PersonInfoField.ALL)).thenThrow(new NotFoundException("Address not found"));
 
             mockMvc.perform(get("/fire?address=Unknown Address"))
                     .andExpect(status().isNotFound());
@@ -0,0 +1,33 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.HotKeyDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class HotKeyTrackerTest {
+
+    @Test
+    @DisplayName("Test only the most requested keys are kept, the hottest first")
+    public void record_ShouldKeepHottestKeys() {
+        // Given
+        HotKeyTracker hotKeyTracker = new HotKeyTracker(2);
+
+        // When
+        for (int i = 0; i < 5; i++) hotKeyTracker.record(HotKeyTracker.Endpoint.FIRE, "1509 culver st");
+        for (int i = 0; i < 3; i++) hotKeyTracker.record(HotKeyTracker.Endpoint.FIRE, "29 15th st");
+        hotKeyTracker.record(HotKeyTracker.Endpoint.FIRE, "834 binoc ave");
+        for (int i = 0; i < 4; i++) hotKeyTracker.record(HotKeyTracker.Endpoint.FIRE, "644 gershwin cir");
+        hotKeyTracker.record(HotKeyTracker.Endpoint.PHONE_ALERT, "3");
+
+        // Then
+        assertThat(hotKeyTracker.getHotKeys(HotKeyTracker.Endpoint.FIRE)).containsExactly("1509 culver st", "644 gershwin cir");
+        assertThat(hotKeyTracker.getHotKeys(HotKeyTracker.Endpoint.STATION_COVERAGE)).isEmpty();
+        assertThat(hotKeyTracker.getHotKeys()).containsExactly(
+                new HotKeyDTO("/fire", "1509 culver st", 5),
+                new HotKeyDTO("/fire", "644 gershwin cir", 4),
+                new HotKeyDTO("/phonealert", "3", 1));
+    }
+}
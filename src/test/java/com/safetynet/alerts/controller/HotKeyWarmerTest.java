@@ -0,0 +1,105 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.PersonInfoField;
+import com.safetynet.alerts.exception.NotFoundException;
+import com.safetynet.alerts.service.FireStationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+@ExtendWith(MockitoExtension.class)
+public class HotKeyWarmerTest {
+
+    @Mock
+    private CachedResponses cachedResponses;
+
+    @Mock
+    private FireStationService fireStationService;
+
+    @TempDir
+    private Path logDirectory;
+
+    private HotKeyTracker hotKeyTracker;
+    private HotKeyWarmer hotKeyWarmer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path logFile = logDirectory.resolve("log.info.txt");
+        Files.write(logFile, List.of(
+                "2024-05-02 10:15:31 [INFO] com.safetynet.alerts.controller.FireStationController.getPersonsAndStationByAddress() [line : 312] http-nio-8080-exec-1",
+                "Request to get persons and the station by the address : 1509 Culver St ",
+                "----------------------------------------",
+                "Request to get persons and the station by the address :  1509 culver st ",
+                "Request to get telephone numbers of persons covered by the station : 3 ",
+                "Request to get persons covered by the station : 2 ",
+                "Request to get persons covered by the station : [1, 2] ",
+                "Request to get homes by this one or several stations : [1, 2] "));
+        hotKeyTracker = new HotKeyTracker(20);
+        hotKeyWarmer = new HotKeyWarmer(hotKeyTracker, cachedResponses, fireStationService, logFile.toString());
+    }
+
+
+    @Test
+    @DisplayName("Test tracker is seeded with the requests of the log file")
+    public void seed_ShouldRecordRequestsOfLogFile() {
+        // When
+        int seeded = hotKeyWarmer.seed();
+
+        // Then
+        assertThat(seeded).isEqualTo(4);
+        assertThat(hotKeyTracker.getHotKeys(HotKeyTracker.Endpoint.FIRE)).containsExactly("1509 culver st");
+        assertThat(hotKeyTracker.getHotKeys(HotKeyTracker.Endpoint.PHONE_ALERT)).containsExactly("3");
+        assertThat(hotKeyTracker.getHotKeys(HotKeyTracker.Endpoint.STATION_COVERAGE)).containsExactly("2");
+    }
+
+    @Test
+    @DisplayName("Test hot responses are warmed on startup, skipping the keys no longer found")
+    public void onStartup_ShouldWarmHotResponses() {
+        // Given
+        when(fireStationService.getDataVersion()).thenReturn(1L);
+        when(cachedResponses.getPersonsStationCoverage(2, ResponseFormat.JSON)).thenThrow(new NotFoundException("Station not found"));
+
+        // When
+        hotKeyWarmer.onStartup();
+
+        // Then
+        verify(cachedResponses).getPersonsAndStationByAddress("1509 culver st", PersonInfoField.ALL, ResponseFormat.JSON);
+        verify(cachedResponses).getPersonsPhonesByStation(3, ResponseFormat.JSON);
+        verify(cachedResponses).getPersonsStationCoverage(2, ResponseFormat.JSON);
+    }
+
+    @Test
+    @DisplayName("Test hot responses are warmed again only when the data changed")
+    public void warmIfDataChanged_ShouldWarmOnNewVersionOnly() {
+        // Given
+        hotKeyTracker.record(HotKeyTracker.Endpoint.PHONE_ALERT, "3");
+        when(fireStationService.getDataVersion()).thenReturn(1L, 1L, 1L, 2L, 2L);
+
+        // When
+        hotKeyWarmer.warmIfDataChanged();
+        hotKeyWarmer.warmIfDataChanged();
+        hotKeyWarmer.warmIfDataChanged();
+
+        // Then
+        verify(cachedResponses, times(2)).getPersonsPhonesByStation(3, ResponseFormat.JSON);
+        verify(cachedResponses, never()).getPersonsAndStationByAddress(anyString(), any(), any());
+    }
+}
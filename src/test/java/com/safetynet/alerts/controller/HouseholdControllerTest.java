@@ -0,0 +1,116 @@
+package com.safetynet.alerts.controller;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.safetynet.alerts.dto.HouseholdDTO;
+import com.safetynet.alerts.dto.HouseholdIdsDTO;
+import com.safetynet.alerts.dto.HouseholdMemberDTO;
+import com.safetynet.alerts.exception.AlreadyExistException;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.HouseholdService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+
+@WebMvcTest(HouseholdController.class)
+public class HouseholdControllerTest {
+
+    private static ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private HouseholdService householdService;
+
+    @BeforeAll
+    public static void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    private static HouseholdMemberDTO member(String firstName, String lastName, String address) {
+        return new HouseholdMemberDTO(
+                new Person(firstName, lastName, address, "Culver", "97451", "123-456-7899", "family@example.com"),
+                new MedicalRecord(firstName, lastName, LocalDate.of(1990, 5, 25), new String[0], new String[0]));
+    }
+
+
+    @Nested
+    @DisplayName("Mutable Operations")
+    class MutableOperationTest {
+
+        @Test
+        @DisplayName("201 when household is successfully created")
+        void create_success() throws Exception {
+            HouseholdDTO household = new HouseholdDTO(new FireStation("12 Willow St", 3), List.of(member("Paul", "Martin", "12 Willow St")));
+            when(householdService.create(any(HouseholdDTO.class)))
+                    .thenReturn(new ResponseEntity<>(new HouseholdIdsDTO(8L, List.of(9L), List.of(9L)), HttpStatus.CREATED));
+
+            mockMvc.perform(post("/household")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(household)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.fireStationId").value(8))
+                    .andExpect(jsonPath("$.personIds[0]").value(9));
+        }
+
+        @Test
+        @DisplayName("400 when a member does not live at the address of the household")
+        void create_invalidAddress() throws Exception {
+            HouseholdDTO household = new HouseholdDTO(new FireStation("12 Willow St", 3), List.of(member("Paul", "Martin", "14 Willow St")));
+
+            mockMvc.perform(post("/household")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(household)))
+                    .andExpect(status().isBadRequest());
+
+            verify(householdService, never()).create(any(HouseholdDTO.class));
+        }
+
+        @Test
+        @DisplayName("400 when a medical record does not match its member")
+        void create_invalidMedicalRecord() throws Exception {
+            HouseholdMemberDTO member = new HouseholdMemberDTO(member("Paul", "Martin", "12 Willow St").person(),
+                    new MedicalRecord("Lea", "Martin", LocalDate.of(1990, 5, 25), new String[0], new String[0]));
+            HouseholdDTO household = new HouseholdDTO(new FireStation("12 Willow St", 3), List.of(member));
+
+            mockMvc.perform(post("/household")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(household)))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("409 when a member already exists")
+        void create_conflict() throws Exception {
+            HouseholdDTO household = new HouseholdDTO(new FireStation("12 Willow St", 3), List.of(member("John", "Doe", "12 Willow St")));
+            when(householdService.create(any(HouseholdDTO.class))).thenThrow(new AlreadyExistException("John Doe already exists"));
+
+            mockMvc.perform(post("/household")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(household)))
+                    .andExpect(status().isConflict());
+        }
+    }
+}
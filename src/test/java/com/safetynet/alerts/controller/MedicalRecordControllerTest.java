@@ -2,7 +2,11 @@ package com.safetynet.alerts.controller;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.safetynet.alerts.config.BinaryFormatsConfig;
+import com.safetynet.alerts.dto.AffectedRecordsDTO;
+import com.safetynet.alerts.dto.MedicalRecordTransformDTO;
 import com.safetynet.alerts.dto.PersonIdentifierDTO;
 import com.safetynet.alerts.exception.AlreadyExistException;
 import com.safetynet.alerts.exception.NotFoundException;
@@ -12,6 +16,7 @@ import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -19,15 +24,19 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
 
 
 @WebMvcTest(MedicalRecordController.class)
+@Import(BinaryFormatsConfig.class)
 public class MedicalRecordControllerTest {
 
     private static ObjectMapper objectMapper;
@@ -85,6 +94,30 @@ public class MedicalRecordControllerTest {
                     .andExpect(status().isConflict());
         }
 
+        @Test
+        @DisplayName("200 when medical records are successfully transformed")
+        void transform_success() throws Exception {
+            MedicalRecordTransformDTO transform = new MedicalRecordTransformDTO(MedicalRecordTransformDTO.Field.MEDICATION, "aznol", "bznol");
+            when(medicalRecordService.transform(any(MedicalRecordTransformDTO.class))).thenReturn(new AffectedRecordsDTO(3));
+
+            mockMvc.perform(post("/medicalrecord/transform")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(transform)))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json("{\"affected\":3}"));
+        }
+
+        @Test
+        @DisplayName("400 when transformation data is invalid")
+        void transform_invalidData() throws Exception {
+            MedicalRecordTransformDTO transform = new MedicalRecordTransformDTO(null, "", "bznol");
+
+            mockMvc.perform(post("/medicalrecord/transform")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(transform)))
+                    .andExpect(status().isBadRequest());
+        }
+
         @Test
         @DisplayName("200 when medical record is successfully updated")
         void update_success() throws Exception {
@@ -120,6 +153,74 @@ public class MedicalRecordControllerTest {
                     .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DisplayName("200 when medical record is successfully updated by id")
+        void updateById_success() throws Exception {
+            MedicalRecord updatedMedicalRecord = new MedicalRecord("John", "Doe", LocalDate.of(1990, 1, 1), new String[]{"med1"}, new String[0]);
+            when(medicalRecordService.updateById(eq(1L), any(MedicalRecord.class))).thenReturn(ResponseEntity.ok().build());
+
+            mockMvc.perform(put("/medicalrecord/1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(updatedMedicalRecord)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("404 when medical record to update by id is not found")
+        void updateById_notFound() throws Exception {
+            MedicalRecord updatedMedicalRecord = new MedicalRecord("John", "Doe", LocalDate.of(1990, 1, 1), new String[]{"med1"}, new String[0]);
+            when(medicalRecordService.updateById(eq(42L), any(MedicalRecord.class))).thenThrow(new NotFoundException("Medical record not found"));
+
+            mockMvc.perform(put("/medicalrecord/42")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(updatedMedicalRecord)))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("200 when medical record is successfully deleted by id")
+        void deleteById_success() throws Exception {
+            when(medicalRecordService.deleteById(1)).thenReturn(ResponseEntity.ok().build());
+
+            mockMvc.perform(delete("/medicalrecord/1"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("200 when medical record is found by id")
+        void getById_success() throws Exception {
+            MedicalRecord medicalRecord = new MedicalRecord("John", "Doe", LocalDate.of(1990, 1, 1), new String[]{"med1"}, new String[0]);
+            when(medicalRecordService.getById(1)).thenReturn(medicalRecord);
+
+            mockMvc.perform(get("/medicalrecord/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(medicalRecord)));
+        }
+
+        @Test
+        @DisplayName("200 with the medical record in CBOR, with the same shape as in JSON")
+        void getById_cbor() throws Exception {
+            MedicalRecord medicalRecord = new MedicalRecord("John", "Doe", LocalDate.of(1990, 1, 1), new String[]{"med1"}, new String[0]);
+            when(medicalRecordService.getById(1)).thenReturn(medicalRecord);
+
+            byte[] body = mockMvc.perform(get("/medicalrecord/1").accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            assertThat(new ObjectMapper(new CBORFactory()).readTree(body))
+                    .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsString(medicalRecord)));
+        }
+
+        @Test
+        @DisplayName("404 when medical record is not found by id")
+        void getById_notFound() throws Exception {
+            when(medicalRecordService.getById(42)).thenThrow(new NotFoundException("Medical record not found"));
+
+            mockMvc.perform(get("/medicalrecord/42"))
+                    .andExpect(status().isNotFound());
+        }
+
         @Test
         @DisplayName("200 when medical record is successfully deleted")
         void delete_success() throws Exception {
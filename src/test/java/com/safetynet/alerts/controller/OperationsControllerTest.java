@@ -0,0 +1,87 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.HotKeyDTO;
+import com.safetynet.alerts.dto.ResponseCacheStatsDTO;
+import com.safetynet.alerts.dto.SurgeStatusDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+
+@WebMvcTest(OperationsController.class)
+public class OperationsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ResponseCache responseCache;
+
+    @MockBean
+    private HotKeyTracker hotKeyTracker;
+
+    @MockBean
+    private SurgeMode surgeMode;
+
+
+    @Test
+    @DisplayName("ops/responsecache - Success")
+    void getResponseCacheStats_success() throws Exception {
+        when(responseCache.getStats()).thenReturn(new ResponseCacheStatsDTO(3, 2048, 40, 3, 12));
+
+        mockMvc.perform(get("/ops/responsecache"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"entries\":3,\"bytes\":2048,\"hits\":40,\"misses\":3,\"coalesced\":12}"));
+    }
+
+    @Test
+    @DisplayName("ops/hotkeys - Success")
+    void getHotKeys_success() throws Exception {
+        when(hotKeyTracker.getHotKeys()).thenReturn(List.of(new HotKeyDTO("/fire", "1509 culver st", 42), new HotKeyDTO("/phonealert", "3", 17)));
+
+        mockMvc.perform(get("/ops/hotkeys"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"endpoint\":\"/fire\",\"key\":\"1509 culver st\",\"estimatedCount\":42},{\"endpoint\":\"/phonealert\",\"key\":\"3\",\"estimatedCount\":17}]"));
+    }
+
+    @Test
+    @DisplayName("ops/admission - Success")
+    void getAdmissionStats_success() throws Exception {
+        mockMvc.perform(get("/ops/admission"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"endpointClass\":\"EMERGENCY\",\"active\":0,\"queued\":0},{\"endpointClass\":\"READ\"},{\"endpointClass\":\"WRITE\",\"rejected\":0}]"));
+    }
+
+    @Test
+    @DisplayName("ops/surge - Success")
+    void getSurgeStatus_success() throws Exception {
+        when(surgeMode.getStatus()).thenReturn(new SurgeStatusDTO(false, null, null, 1, 0, false, false, 0));
+
+        mockMvc.perform(get("/ops/surge"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"active\":false,\"logSampleRate\":1,\"cachePinned\":false,\"deferredWrites\":false}"));
+    }
+
+    @Test
+    @DisplayName("PUT ops/surge - Success")
+    void setSurgeMode_success() throws Exception {
+        when(surgeMode.enable(SurgeMode.Trigger.OPERATOR)).thenReturn(
+                new SurgeStatusDTO(true, "OPERATOR", Instant.parse("2024-05-02T10:15:30Z"), 100, 20, true, true, 0));
+
+        mockMvc.perform(put("/ops/surge").param("enabled", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"active\":true,\"trigger\":\"OPERATOR\",\"logSampleRate\":100,\"rateLimit\":20.0,\"cachePinned\":true}"));
+    }
+}
@@ -2,12 +2,25 @@ package com.safetynet.alerts.controller;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.safetynet.alerts.config.BinaryFormatsConfig;
+import com.safetynet.alerts.dto.BatchItemResultDTO;
 import com.safetynet.alerts.dto.ChildInfoDTO;
+import com.safetynet.alerts.dto.IngestErrorDTO;
+import com.safetynet.alerts.dto.IngestProgressDTO;
+import com.safetynet.alerts.dto.PageDTO;
 import com.safetynet.alerts.dto.PersonIdentifierDTO;
 import com.safetynet.alerts.dto.PersonInfoDTO;
+import com.safetynet.alerts.dto.FireFloodPersonInfoDTO;
+import com.safetynet.alerts.dto.PersonSearchResultDTO;
+import com.safetynet.alerts.dto.PhoneLookupAddressDTO;
+import com.safetynet.alerts.dto.PhoneLookupDTO;
+import com.safetynet.alerts.dto.ResourceIdDTO;
 import com.safetynet.alerts.exception.AlreadyExistException;
 import com.safetynet.alerts.exception.NotFoundException;
+import com.safetynet.alerts.exception.StaleCursorException;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.service.PersonService;
 import org.junit.jupiter.api.BeforeAll;
@@ -17,25 +30,36 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(PersonController.class)
+@Import(BinaryFormatsConfig.class)
 public class PersonControllerTest {
 
     private static ObjectMapper objectMapper;
+    private static ObjectMapper cborMapper;
+    private static ObjectMapper smileMapper;
 
     @Autowired
     private MockMvc mockMvc;
@@ -47,6 +71,8 @@ public class PersonControllerTest {
     public static void setUp() {
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
+        cborMapper = new ObjectMapper(new CBORFactory());
+        smileMapper = new ObjectMapper(new SmileFactory());
     }
 
     @Nested
@@ -65,6 +91,103 @@ public class PersonControllerTest {
                     .andExpect(status().isCreated());
         }
 
+        @Test
+        @DisplayName("201 when person is created from a CBOR body")
+        void create_cbor() throws Exception {
+            Person newPerson = new Person("Johnny", "Donut", "123 Main St", "Culver", "97451", "123-456-7890", "johnny.donut@example.com");
+            when(personService.create(newPerson)).thenReturn(ResponseEntity.status(HttpStatus.CREATED).body(new ResourceIdDTO(9)));
+
+            byte[] body = mockMvc.perform(post("/person")
+                            .contentType(MediaType.APPLICATION_CBOR)
+                            .accept(MediaType.APPLICATION_CBOR)
+                            .content(cborMapper.writeValueAsBytes(newPerson)))
+                    .andExpect(status().isCreated())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            assertThat(cborMapper.readValue(body, ResourceIdDTO.class)).isEqualTo(new ResourceIdDTO(9));
+        }
+
+        @Test
+        @DisplayName("200 with the result of each person of a batch")
+        void createBatch_success() throws Exception {
+            Person newPerson = new Person("Johnny", "Donut", "123 Main St", "Culver", "97451", "123-456-7890", "johnny.donut@example.com");
+            List<BatchItemResultDTO> results = List.of(new BatchItemResultDTO(0, 201, 24L, null), new BatchItemResultDTO(1, 409, null, "Johnny Donut already exists"));
+            when(personService.createBatch(any())).thenReturn(results);
+
+            mockMvc.perform(post("/person/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(List.of(newPerson, newPerson))))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(results)));
+        }
+
+        @Test
+        @DisplayName("200 streaming the rejected persons and the progress of an import")
+        void ingest_success() throws Exception {
+            Person johnny = new Person("Johnny", "Donut", "123 Main St", "Culver", "97451", "123-456-7890", "johnny.donut@example.com");
+            Person john = new Person("John", "Doe", "123 Main St", "Culver", "97451", "123-456-7890", "john.doe@example.com");
+            String body = objectMapper.writeValueAsString(johnny) + "\n{not json\n\n" + objectMapper.writeValueAsString(john) + "\n";
+            when(personService.createBatch(List.of(johnny, john)))
+                    .thenReturn(List.of(new BatchItemResultDTO(0, 201, 9L, null), new BatchItemResultDTO(1, 409, null, "John Doe already exists")));
+
+            MvcResult result = mockMvc.perform(post("/person/ingest")
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .content(body))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            String[] lines = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andReturn().getResponse().getContentAsString().split("\n");
+
+            assertThat(lines).hasSize(4);
+            assertThat(objectMapper.readTree(lines[0]).get("line").asLong()).isEqualTo(2);
+            assertThat(objectMapper.readTree(lines[0]).get("status").asInt()).isEqualTo(400);
+            assertThat(lines[1]).isEqualTo(objectMapper.writeValueAsString(new IngestErrorDTO(4, 409, "John Doe already exists")));
+            assertThat(lines[2]).isEqualTo(objectMapper.writeValueAsString(new IngestProgressDTO(4, 1, 2, false)));
+            assertThat(lines[3]).isEqualTo(objectMapper.writeValueAsString(new IngestProgressDTO(4, 1, 2, true)));
+        }
+
+        @Test
+        @DisplayName("200 rejecting a record longer than the maximum line length of an import")
+        void ingest_lineTooLong() throws Exception {
+            Person johnny = new Person("Johnny", "Donut", "123 Main St", "Culver", "97451", "123-456-7890", "johnny.donut@example.com");
+            String tooLong = "{\"firstName\": \"" + "A".repeat(NdjsonIngest.MAX_LINE_LENGTH) + "\"}";
+            String body = tooLong + "\r\n" + objectMapper.writeValueAsString(johnny) + "\r\n";
+            when(personService.createBatch(List.of(johnny))).thenReturn(List.of(new BatchItemResultDTO(0, 201, 9L, null)));
+
+            MvcResult result = mockMvc.perform(post("/person/ingest")
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .content(body))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            String[] lines = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString().split("\n");
+
+            assertThat(lines).hasSize(3);
+            assertThat(lines[0]).isEqualTo(objectMapper.writeValueAsString(
+                    new IngestErrorDTO(1, 413, "Record is longer than " + NdjsonIngest.MAX_LINE_LENGTH + " characters")));
+            assertThat(lines[1]).isEqualTo(objectMapper.writeValueAsString(new IngestProgressDTO(2, 1, 1, false)));
+            assertThat(lines[2]).isEqualTo(objectMapper.writeValueAsString(new IngestProgressDTO(2, 1, 1, true)));
+        }
+
+        @Test
+        @DisplayName("201 with the id of the created person")
+        void create_returnsId() throws Exception {
+            Person newPerson = new Person("Johnny", "Donut", "123 Main St", "Culver", "97451", "123-456-7890", "johnny.donut@example.com");
+            when(personService.create(any(Person.class))).thenReturn(ResponseEntity.status(HttpStatus.CREATED).body(new ResourceIdDTO(24)));
+
+            mockMvc.perform(post("/person")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(newPerson)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.id").value(24));
+        }
+
         @Test
         @DisplayName("400 when person data is invalid")
         void create_invalidData() throws Exception {
@@ -125,6 +248,48 @@ public class PersonControllerTest {
         }
 
 
+        @Test
+        @DisplayName("200 when person is successfully updated by id")
+        void updateById_success() throws Exception {
+            Person updatedPerson = new Person("Johnny", "Donut", "123 Main St", "Culver", "97451", "123-456-7890", "johnny.donut@example.com");
+            when(personService.updateById(eq(1L), any(Person.class))).thenReturn(ResponseEntity.ok().build());
+
+            mockMvc.perform(put("/person/1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(updatedPerson)))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("409 when the new name of the person is already taken")
+        void updateById_conflict() throws Exception {
+            Person updatedPerson = new Person("Johnny", "Donut", "123 Main St", "Culver", "97451", "123-456-7890", "johnny.donut@example.com");
+            when(personService.updateById(eq(1L), any(Person.class))).thenThrow(new AlreadyExistException("Person already exist"));
+
+            mockMvc.perform(put("/person/1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(updatedPerson)))
+                    .andExpect(status().isConflict());
+        }
+
+        @Test
+        @DisplayName("200 when person is successfully deleted by id")
+        void deleteById_success() throws Exception {
+            when(personService.deleteById(1)).thenReturn(ResponseEntity.ok().build());
+
+            mockMvc.perform(delete("/person/1"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("404 when person to delete by id is not found")
+        void deleteById_notFound() throws Exception {
+            when(personService.deleteById(42)).thenThrow(new NotFoundException("Person not found"));
+
+            mockMvc.perform(delete("/person/42"))
+                    .andExpect(status().isNotFound());
+        }
+
         @Test
         @DisplayName("200 when person is successfully deleted")
         void delete_success() throws Exception {
@@ -166,6 +331,40 @@ public class PersonControllerTest {
     @DisplayName("Read Operations")
     class ReadOperationTest {
 
+        @Test
+        @DisplayName("person/{id} - Success")
+        void getById_success() throws Exception {
+            Person person = new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com");
+            when(personService.getById(1)).thenReturn(person);
+
+            mockMvc.perform(get("/person/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(person)));
+        }
+
+        @Test
+        @DisplayName("person/{id} - Success in Smile")
+        void getById_smile() throws Exception {
+            Person person = new Person("John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com");
+            when(personService.getById(1)).thenReturn(person);
+
+            byte[] body = mockMvc.perform(get("/person/1").accept("application/x-jackson-smile"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-jackson-smile"))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            assertThat(smileMapper.readValue(body, Person.class)).isEqualTo(person);
+        }
+
+        @Test
+        @DisplayName("person/{id} - Not Found")
+        void getById_notFound() throws Exception {
+            when(personService.getById(42)).thenThrow(new NotFoundException("Person not found"));
+
+            mockMvc.perform(get("/person/42"))
+                    .andExpect(status().isNotFound());
+        }
+
         @Test
         @DisplayName("personinfo - Success")
         void getPersonByLastname_success() throws Exception {
@@ -186,6 +385,71 @@ public class PersonControllerTest {
                     .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DisplayName("personinfo - NDJSON")
+        void getPersonByLastname_ndjson() throws Exception {
+            PersonInfoDTO john = new PersonInfoDTO("John", "Doe", "1509 Culver St", "johndoe@example.com", 35, new String[0], new String[0]);
+            PersonInfoDTO jane = new PersonInfoDTO("Jane", "Doe", "1509 Culver St", "janedoe@example.com", 33, new String[]{"aznol:350mg"}, new String[0]);
+            when(personService.streamPersonByLastname("Doe")).thenReturn(Stream.of(john, jane));
+
+            MvcResult result = mockMvc.perform(get("/personinfo?lastname=Doe").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andExpect(content().string(objectMapper.writeValueAsString(john) + "\n" + objectMapper.writeValueAsString(jane) + "\n"));
+        }
+
+        @Test
+        @DisplayName("person/search - Success")
+        void searchPersons_success() throws Exception {
+            List<PersonSearchResultDTO> results = List.of(new PersonSearchResultDTO("John", "Boyd", "1509 Culver St", "Culver", "841-874-6512", 1));
+            when(personService.searchPersons("Boid", null, 20)).thenReturn(results);
+
+            mockMvc.perform(get("/person/search?lastname=Boid"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(results)));
+        }
+
+        @Test
+        @DisplayName("person/search - Not Found")
+        void searchPersons_notFound() throws Exception {
+            when(personService.searchPersons("Xyz", "Jo", 5)).thenThrow(new NotFoundException("No person found"));
+
+            mockMvc.perform(get("/person/search?lastname=Xyz&firstname=Jo&limit=5"))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("phonelookup - Success")
+        void getResidentsByPhone_success() throws Exception {
+            PhoneLookupDTO result = new PhoneLookupDTO("841-874-6512", List.of(new PhoneLookupAddressDTO("1509 Culver St", "Culver", 3,
+                    List.of(new FireFloodPersonInfoDTO("John", "Boyd", "841-874-6512", 40, new String[0], new String[0])))));
+            when(personService.getResidentsByPhone("841-874-6512")).thenReturn(result);
+
+            mockMvc.perform(get("/phonelookup?phone=841-874-6512"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(result)));
+        }
+
+        @Test
+        @DisplayName("phonelookup - Bad Request")
+        void getResidentsByPhone_invalidFormat() throws Exception {
+            mockMvc.perform(get("/phonelookup?phone=8418746512"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("phonelookup - Not Found")
+        void getResidentsByPhone_notFound() throws Exception {
+            when(personService.getResidentsByPhone("000-000-0000")).thenThrow(new NotFoundException("Phone not found"));
+
+            mockMvc.perform(get("/phonelookup?phone=000-000-0000"))
+                    .andExpect(status().isNotFound());
+        }
+
         @Test
         @DisplayName("communityemail - Success")
         void getEmailsByCity_success() throws Exception {
@@ -206,6 +470,43 @@ public class PersonControllerTest {
                     .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DisplayName("communityemail - NDJSON")
+        void getEmailsByCity_ndjson() throws Exception {
+            when(personService.streamEmailsByCity("Culver")).thenReturn(Stream.of("janedoe@example.com", "johndoe@example.com"));
+
+            MvcResult result = mockMvc.perform(get("/communityemail?city=Culver").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andExpect(content().string("\"janedoe@example.com\"\n\"johndoe@example.com\"\n"));
+        }
+
+        @Test
+        @DisplayName("communityemail - Paginated")
+        void getEmailsByCity_paginated() throws Exception {
+            Set<String> emails = Set.of("janedoe@example.com");
+            when(personService.getEmailsByCity("Culver", null, 1)).thenReturn(new PageDTO<>(emails, "next", 3));
+
+            mockMvc.perform(get("/communityemail?city=Culver&pagesize=1"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Next-Cursor", "next"))
+                    .andExpect(header().string("X-Data-Version", "3"))
+                    .andExpect(content().json(objectMapper.writeValueAsString(emails)));
+        }
+
+        @Test
+        @DisplayName("communityemail - Stale Cursor")
+        void getEmailsByCity_staleCursor() throws Exception {
+            when(personService.getEmailsByCity("Culver", "old", null)).thenThrow(new StaleCursorException("Data changed"));
+
+            mockMvc.perform(get("/communityemail?city=Culver&cursor=old"))
+                    .andExpect(status().isConflict());
+        }
+
         @Test
         @DisplayName("childalert - Success")
         void getChildrenByAddress_success() throws Exception {
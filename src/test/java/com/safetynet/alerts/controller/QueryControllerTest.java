@@ -0,0 +1,76 @@
+package com.safetynet.alerts.controller;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.QueryBatchDTO;
+import com.safetynet.alerts.dto.QueryBatchResultDTO;
+import com.safetynet.alerts.dto.QueryDTO;
+import com.safetynet.alerts.dto.QueryResultDTO;
+import com.safetynet.alerts.service.QueryService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+
+@WebMvcTest(QueryController.class)
+public class QueryControllerTest {
+
+    private static ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private QueryService queryService;
+
+    @BeforeAll
+    public static void setUp() {
+        objectMapper = new ObjectMapper();
+    }
+
+
+    @Nested
+    @DisplayName("Read Operations")
+    class ReadOperationTest {
+
+        @Test
+        @DisplayName("200 when queries are run")
+        void query_success() throws Exception {
+            QueryBatchDTO batch = new QueryBatchDTO(List.of(
+                    new QueryDTO(QueryDTO.Type.PHONE_ALERT, "1"),
+                    new QueryDTO(QueryDTO.Type.FIRESTATION, "9")));
+            when(queryService.query(anyList())).thenReturn(new QueryBatchResultDTO(3, List.of(
+                    new QueryResultDTO(0, 200, Set.of("123-456-7890"), null),
+                    new QueryResultDTO(1, 404, null, "Station number 9 not found"))));
+
+            mockMvc.perform(post("/query")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(batch)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.version").value(3))
+                    .andExpect(jsonPath("$.results[0].result[0]").value("123-456-7890"))
+                    .andExpect(jsonPath("$.results[1].status").value(404));
+        }
+
+        @Test
+        @DisplayName("400 when no query is given")
+        void query_invalidData() throws Exception {
+            mockMvc.perform(post("/query")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new QueryBatchDTO(List.of()))))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.ResponseCacheStatsDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class ResponseCacheTest {
+
+    private static final byte[] SMALL = "[\"123-456-7890\"]".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LARGE = ("[" + "\"123-456-7890\",".repeat(100) + "\"123-456-7890\"]").getBytes(StandardCharsets.UTF_8);
+
+
+    @Test
+    @DisplayName("Test cached response is returned for the same version only")
+    public void get_ShouldReturnEntryOfSameVersionOnly() {
+        // Given
+        ResponseCache responseCache = new ResponseCache(10_000);
+        responseCache.put("phonealert?1", 1, SMALL);
+
+        // When & Then
+        assertThat(responseCache.get("phonealert?1", 1).body()).isEqualTo(SMALL);
+        assertThat(responseCache.get("phonealert?1", 2)).isNull();
+        assertThat(responseCache.get("phonealert?1", 1)).isNull();
+        assertThat(responseCache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Test large response is compressed with gzip")
+    public void put_ShouldCompressLargeResponse() throws IOException {
+        // Given
+        ResponseCache responseCache = new ResponseCache(10_000);
+
+        // When
+        ResponseCache.Entry small = responseCache.put("phonealert?1", 1, SMALL);
+        ResponseCache.Entry large = responseCache.put("phonealert?2", 1, LARGE);
+
+        // Then
+        assertThat(small.gzip()).isNull();
+        assertThat(large.gzip()).hasSizeLessThan(LARGE.length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(large.gzip()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(LARGE);
+        }
+        assertThat(responseCache.size()).isEqualTo(SMALL.length + LARGE.length + large.gzip().length);
+    }
+
+    @Test
+    @DisplayName("Test least recently used responses are evicted over the budget")
+    public void put_ShouldEvictLeastRecentlyUsedOverBudget() {
+        // Given
+        ResponseCache responseCache = new ResponseCache(SMALL.length * 2L);
+        responseCache.put("phonealert?1", 1, SMALL);
+        responseCache.put("phonealert?2", 1, SMALL);
+        responseCache.get("phonealert?1", 1);
+
+        // When
+        responseCache.put("phonealert?3", 1, SMALL);
+
+        // Then
+        assertThat(responseCache.get("phonealert?1", 1)).isNotNull();
+        assertThat(responseCache.get("phonealert?2", 1)).isNull();
+        assertThat(responseCache.get("phonealert?3", 1)).isNotNull();
+        assertThat(responseCache.size()).isEqualTo(SMALL.length * 2L);
+    }
+
+    @Test
+    @DisplayName("Test response is built on a miss and reused on the following hits")
+    public void getOrBuild_ShouldBuildOncePerVersion() {
+        // Given
+        ResponseCache responseCache = new ResponseCache(10_000);
+        AtomicInteger builds = new AtomicInteger();
+
+        // When
+        responseCache.getOrBuild("phonealert?1", 1, () -> { builds.incrementAndGet(); return SMALL; });
+        responseCache.getOrBuild("phonealert?1", 1, () -> { builds.incrementAndGet(); return SMALL; });
+        ResponseCache.Entry entry = responseCache.getOrBuild("phonealert?1", 2, () -> { builds.incrementAndGet(); return LARGE; });
+
+        // Then
+        assertThat(entry.body()).isEqualTo(LARGE);
+        assertThat(builds).hasValue(2);
+        assertThat(responseCache.getStats()).isEqualTo(new ResponseCacheStatsDTO(1, responseCache.size(), 1, 2, 0));
+    }
+
+    @Test
+    @DisplayName("Test response bigger than the budget is not cached")
+    public void put_ShouldNotCacheResponseBiggerThanBudget() {
+        // Given
+        ResponseCache responseCache = new ResponseCache(SMALL.length - 1);
+
+        // When
+        ResponseCache.Entry entry = responseCache.put("phonealert?1", 1, SMALL);
+
+        // Then
+        assertThat(entry.body()).isEqualTo(SMALL);
+        assertThat(responseCache.get("phonealert?1", 1)).isNull();
+        assertThat(responseCache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Test responses cached before pinning are evicted after the ones cached since, within the budget")
+    public void setPinned_ShouldEvictResponsesCachedSincePinningFirst() {
+        // Given
+        ResponseCache responseCache = new ResponseCache(SMALL.length * 3L);
+        responseCache.put("phonealert?1", 1, SMALL);
+        responseCache.put("phonealert?2", 1, SMALL);
+        responseCache.setPinned(true);
+
+        // When
+        responseCache.put("phonealert?3", 1, SMALL);
+        responseCache.put("phonealert?4", 1, SMALL);
+        responseCache.put("phonealert?5", 1, SMALL);
+
+        // Then
+        assertThat(responseCache.size()).isEqualTo(SMALL.length * 3L);
+        assertThat(responseCache.get("phonealert?1", 1)).isNotNull();
+        assertThat(responseCache.get("phonealert?2", 1)).isNotNull();
+        assertThat(responseCache.get("phonealert?3", 1)).isNull();
+        assertThat(responseCache.get("phonealert?4", 1)).isNull();
+        assertThat(responseCache.get("phonealert?5", 1)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Test pinned cache stays within the budget")
+    public void setPinned_ShouldKeepSizeWithinBudget() {
+        // Given
+        ResponseCache responseCache = new ResponseCache(SMALL.length * 2L);
+        responseCache.put("phonealert?1", 1, SMALL);
+        responseCache.put("phonealert?2", 1, SMALL);
+        responseCache.setPinned(true);
+
+        // When
+        ResponseCache.Entry large = responseCache.put("phonealert?3", 1, LARGE);
+        responseCache.put("phonealert?4", 1, SMALL);
+
+        // Then
+        assertThat(large.body()).isEqualTo(LARGE);
+        assertThat(responseCache.get("phonealert?3", 1)).isNull();
+        assertThat(responseCache.get("phonealert?4", 1)).isNotNull();
+        assertThat(responseCache.size()).isEqualTo(SMALL.length * 2L);
+    }
+}
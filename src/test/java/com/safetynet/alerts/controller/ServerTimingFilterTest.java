@@ -0,0 +1,80 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.util.ServerTiming;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class ServerTimingFilterTest {
+
+    // Times a phase, then starts the body, then times another phase which can no longer be reported
+    private final HttpServlet servlet = new HttpServlet() {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            try (ServerTiming.Phase phase = ServerTiming.phase("filter")) {
+                response.setContentType("application/json");
+            }
+            response.getOutputStream().print("[]");
+            try (ServerTiming.Phase phase = ServerTiming.phase("late")) {
+                response.flushBuffer();
+            }
+        }
+    };
+
+
+    @Test
+    @DisplayName("Test no Server-Timing header when the timing is not enabled")
+    public void doFilter_ShouldNotTimeWhenDisabled() throws Exception {
+        // Given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        new ServerTimingFilter(false).doFilter(new MockHttpServletRequest("GET", "/fire"), response, new MockFilterChain(servlet));
+
+        // Then
+        assertThat(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("[]");
+    }
+
+    @Test
+    @DisplayName("Test Server-Timing header holds the phases completed before the body when enabled by the request")
+    public void doFilter_ShouldTimeWhenEnabledByHeader() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/fire");
+        request.addHeader(ServerTimingFilter.ENABLE_HEADER, "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        new ServerTimingFilter(false).doFilter(request, response, new MockFilterChain(servlet));
+
+        // Then
+        assertThat(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER))
+                .startsWith("filter;dur=")
+                .contains(", total;dur=")
+                .doesNotContain("late");
+        assertThat(response.getContentAsString()).isEqualTo("[]");
+    }
+
+    @Test
+    @DisplayName("Test Server-Timing header on every request when enabled by configuration")
+    public void doFilter_ShouldTimeWhenEnabledByConfiguration() throws Exception {
+        // Given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        new ServerTimingFilter(true).doFilter(new MockHttpServletRequest("GET", "/fire"), response, new MockFilterChain(servlet));
+
+        // Then
+        assertThat(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER)).startsWith("filter;dur=");
+    }
+}
@@ -0,0 +1,162 @@
+package com.safetynet.alerts.controller;
+
+import com.safetynet.alerts.dto.SurgeStatusDTO;
+import com.safetynet.alerts.repository.JsonFileHandler;
+import com.safetynet.alerts.util.RequestLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+
+@ExtendWith(MockitoExtension.class)
+public class SurgeModeTest {
+
+    @Mock
+    private JsonFileHandler jsonFileHandler;
+
+    private ResponseCache responseCache;
+    private AdmissionInterceptor admissionInterceptor;
+
+    @BeforeEach
+    public void setUp() {
+        responseCache = new ResponseCache(10_000);
+        admissionInterceptor = new AdmissionInterceptor(Set.of("/fire", "/phonealert"), Set.of("/query"),
+                100, 100, 16, 32, 2, 16, 2000, 1);
+    }
+
+    @AfterEach
+    public void resetRequestLog() {
+        RequestLog.setSampleRate(1);
+    }
+
+
+    @Test
+    @DisplayName("Test surge mode applies all the measures and restores them when left")
+    public void enableAndDisable_ShouldApplyAndRestoreMeasures() {
+        // Given
+        SurgeMode surgeMode = new SurgeMode(jsonFileHandler, responseCache, admissionInterceptor, 100, 20, 0, 60);
+
+        // When
+        SurgeStatusDTO enabled = surgeMode.enable(SurgeMode.Trigger.OPERATOR);
+
+        // Then
+        verify(jsonFileHandler).setDeferred(true);
+        assertThat(enabled.active()).isTrue();
+        assertThat(enabled.trigger()).isEqualTo("OPERATOR");
+        assertThat(enabled.since()).isNotNull();
+        assertThat(RequestLog.getSampleRate()).isEqualTo(100);
+        assertThat(admissionInterceptor.getRateLimit()).isEqualTo(20);
+        assertThat(responseCache.isPinned()).isTrue();
+
+        // When
+        SurgeStatusDTO disabled = surgeMode.disable();
+
+        // Then
+        verify(jsonFileHandler).setDeferred(false);
+        verify(jsonFileHandler).flush();
+        assertThat(disabled.active()).isFalse();
+        assertThat(RequestLog.getSampleRate()).isEqualTo(1);
+        assertThat(admissionInterceptor.getRateLimit()).isZero();
+        assertThat(responseCache.isPinned()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Test surge mode is entered automatically over the threshold and left after the cool down")
+    public void detect_ShouldEnterAndLeaveAutomatically() throws Exception {
+        // Given
+        SurgeMode surgeMode = new SurgeMode(jsonFileHandler, responseCache, admissionInterceptor, 100, 20, 1, 2);
+        surgeMode.detect();
+
+        // When
+        admitEmergencyReads(1000);
+        surgeMode.detect();
+
+        // Then
+        assertThat(surgeMode.getStatus().trigger()).isEqualTo("AUTOMATIC");
+
+        // When
+        Thread.sleep(10);
+        surgeMode.detect();
+        Thread.sleep(10);
+        surgeMode.detect();
+
+        // Then
+        assertThat(surgeMode.getStatus().active()).isFalse();
+        verify(jsonFileHandler).setDeferred(false);
+        verify(jsonFileHandler).flush();
+    }
+
+    @Test
+    @DisplayName("Test surge mode entered by an operator is not left automatically")
+    public void detect_ShouldNotLeaveOperatorSurge() throws Exception {
+        // Given
+        SurgeMode surgeMode = new SurgeMode(jsonFileHandler, responseCache, admissionInterceptor, 100, 20, 1, 1);
+        surgeMode.enable(SurgeMode.Trigger.OPERATOR);
+        surgeMode.detect();
+
+        // When
+        Thread.sleep(10);
+        surgeMode.detect();
+
+        // Then
+        assertThat(surgeMode.getStatus().trigger()).isEqualTo("OPERATOR");
+        verify(jsonFileHandler, never()).setDeferred(false);
+    }
+
+    @Test
+    @DisplayName("Test status and detection do not wait for the flush of the deferred writes")
+    public void disable_ShouldFlushOutsideLock() throws Exception {
+        // Given
+        SurgeMode surgeMode = new SurgeMode(jsonFileHandler, responseCache, admissionInterceptor, 100, 20, 1, 60);
+        surgeMode.enable(SurgeMode.Trigger.OPERATOR);
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            flushing.countDown();
+            release.await();
+            return null;
+        }).when(jsonFileHandler).flush();
+
+        // When
+        CompletableFuture<SurgeStatusDTO> disabled = CompletableFuture.supplyAsync(surgeMode::disable);
+        flushing.await();
+        CompletableFuture<SurgeStatusDTO> status = CompletableFuture.supplyAsync(() -> {
+            surgeMode.detect();
+            return surgeMode.getStatus();
+        });
+
+        // Then
+        try {
+            assertThat(status.get(1, TimeUnit.SECONDS).active()).isFalse();
+            assertThat(disabled).isNotDone();
+        } finally {
+            release.countDown();
+        }
+        assertThat(disabled.get(1, TimeUnit.SECONDS).active()).isFalse();
+    }
+
+
+    private void admitEmergencyReads(int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/fire");
+            admissionInterceptor.preHandle(request, new MockHttpServletResponse(), null);
+            admissionInterceptor.afterCompletion(request, null, null, null);
+        }
+    }
+}
@@ -1,14 +1,30 @@
 package com.safetynet.alerts.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.safetynet.alerts.data.DataList;
+import com.safetynet.alerts.dto.AffectedRecordsDTO;
+import com.safetynet.alerts.dto.BatchItemResultDTO;
 import com.safetynet.alerts.dto.FireDTO;
+import com.safetynet.alerts.dto.FireFloodPersonInfoDTO;
 import com.safetynet.alerts.dto.FloodDTO;
+import com.safetynet.alerts.dto.FloodReportDTO;
+import com.safetynet.alerts.dto.FloodResidentDTO;
+import com.safetynet.alerts.dto.PageDTO;
+import com.safetynet.alerts.dto.PersonInfoField;
+import com.safetynet.alerts.dto.ResourceIdDTO;
 import com.safetynet.alerts.dto.StationCoverageDTO;
 import com.safetynet.alerts.exception.AlreadyExistException;
+import com.safetynet.alerts.exception.DeadlineExceededException;
 import com.safetynet.alerts.exception.NotFoundException;
 import com.safetynet.alerts.model.Data;
 import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.repository.DataIndex;
 import com.safetynet.alerts.repository.JsonFileHandler;
+import com.safetynet.alerts.util.Deadline;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -16,14 +32,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -36,9 +58,17 @@ public class FireStationServiceTest {
     @Mock
     private JsonFileHandler jsonFileHandler;
 
+    @Spy
+    private DataIndex dataIndex = new DataIndex();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private FireStationService fireStationService;
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @BeforeEach
     public void setUp() {
         DataList dataList = new DataList();
@@ -46,6 +76,14 @@ public class FireStationServiceTest {
         when(jsonFileHandler.getData()).thenReturn(this.data);
     }
 
+    private String write(JsonPayload payload) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = objectMapper.createGenerator(writer)) {
+            payload.writeTo(generator);
+        }
+        return writer.toString();
+    }
+
 
     @Nested
     @DisplayName("Mutable Operations")
@@ -61,13 +99,115 @@ public class FireStationServiceTest {
             doNothing().when(jsonFileHandler).writeData(any(Data.class));
 
             // When
-            ResponseEntity<Void> result = fireStationService.create(fireStation);
+            ResponseEntity<ResourceIdDTO> result = fireStationService.create(fireStation);
 
             // Then
             verify(jsonFileHandler).sortFireStationsByStationNumber(any(Data.class));
             verify(jsonFileHandler).writeData(any(Data.class));
             assertThat(data.fireStations().contains(fireStation)).isTrue();
             assertThat(result.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(dataIndex.getFireStationById(result.getBody().id())).contains(fireStation);
+        }
+
+        @Test
+        @DisplayName("Test creating a batch of fire stations")
+        public void createBatch_ShouldReturnResultOfEachFireStationAndWriteOnce() {
+            // Given
+            FireStation newStation = new FireStation("111 Spruce St", 5);
+            FireStation existing = new FireStation("123 MAIN ST", 1);
+            FireStation invalid = new FireStation("111 Spruce St", 0);
+
+            when(jsonFileHandler.sortFireStationsByStationNumber(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+
+            // When
+            List<BatchItemResultDTO> results = fireStationService.createBatch(List.of(newStation, existing, invalid));
+
+            // Then
+            verify(jsonFileHandler, times(1)).writeData(any(Data.class));
+            assertThat(results).extracting("status").containsExactly(201, 409, 400);
+            assertThat(dataIndex.getFireStationById(results.get(0).id())).contains(newStation);
+            assertThat(fireStationService.getAddressesByStation(5)).containsExactly("111 Spruce St");
+        }
+
+        @Test
+        @DisplayName("Test deleting all the mappings of a station")
+        public void deleteByStation_ShouldDeleteAllMappingsAndWriteOnce() {
+            // Given
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+
+            // When
+            AffectedRecordsDTO result = fireStationService.deleteByStation(2);
+
+            // Then
+            verify(jsonFileHandler, times(1)).writeData(any(Data.class));
+            assertThat(result.affected()).isEqualTo(3);
+            assertThat(data.fireStations()).extracting("station").doesNotContain(2).hasSize(4);
+            assertThatThrownBy(() -> fireStationService.getPersonsStationCoverage(2))
+                    .isInstanceOf(NotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Test deleting the mappings of a non existent station")
+        public void deleteByStation_ShouldReturnNotFoundException_WhenNoStationExisting() {
+            // When / Then
+            assertThatThrownBy(() -> fireStationService.deleteByStation(9))
+                    .isInstanceOf(NotFoundException.class);
+
+            verify(jsonFileHandler, never()).writeData(any(Data.class));
+        }
+
+        @Test
+        @DisplayName("Test reassigning all the addresses of a station")
+        public void reassignStation_ShouldMoveAddressesAndMergeAlreadyCoveredOnes() {
+            // Given
+            data.fireStations().add(new FireStation("123 Main St", 2));
+            when(jsonFileHandler.sortFireStationsByStationNumber(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+
+            // When
+            AffectedRecordsDTO result = fireStationService.reassignStation(1, 2);
+
+            // Then
+            verify(jsonFileHandler, times(1)).writeData(any(Data.class));
+            assertThat(result.affected()).isEqualTo(2);
+            assertThat(data.fireStations()).hasSize(7).extracting("station").doesNotContain(1);
+            assertThat(fireStationService.getPersonsStationCoverage(2).persons())
+                    .extracting("firstName")
+                    .containsExactlyInAnyOrder("John", "Bob", "Ember", "Alice", "Mark", "Charlie", "Eve");
+        }
+
+        @Test
+        @DisplayName("Test reassigning a station whose mapping is duplicated in the file")
+        public void reassignStation_ShouldMoveEachDuplicatedMapping() {
+            // Given
+            data.fireStations().add(new FireStation("123 Main St", 1));
+            when(jsonFileHandler.sortFireStationsByStationNumber(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+
+            // When
+            AffectedRecordsDTO result = fireStationService.reassignStation(1, 5);
+
+            // Then
+            assertThat(result.affected()).isEqualTo(3);
+            assertThat(data.fireStations()).extracting("station").doesNotContain(1);
+            assertThatThrownBy(() -> fireStationService.getPersonsStationCoverage(1))
+                    .isInstanceOf(NotFoundException.class);
+            assertThat(fireStationService.getPersonsStationCoverage(5).persons())
+                    .extracting("firstName")
+                    .containsExactlyInAnyOrder("John", "Bob");
+        }
+
+        @Test
+        @DisplayName("Test replacing a fire station mapping missing from the indexes is not found")
+        public void replaceFireStation_ShouldThrowNotFoundException_WhenMappingIsNotIndexed() {
+            // Given
+            dataIndex.ensureIndexed(jsonFileHandler.getData());
+
+            // When / Then
+            assertThatThrownBy(() -> dataIndex.replaceFireStation(new FireStation("130 Yolo St", 1), new FireStation("130 Yolo St", 2)))
+                    .isInstanceOf(NotFoundException.class);
+            assertThat(dataIndex.hasFireStation(new FireStation("130 Yolo St", 2))).isFalse();
         }
 
         @Test
@@ -172,6 +312,299 @@ public class FireStationServiceTest {
                     .extracting("firstName")
                     .containsExactlyInAnyOrderElementsOf(expectedFirstName);
         }
+        @Test
+        @DisplayName("Test getting homes by stations past the deadline of the request is aborted")
+        public void getHomesByStations_ShouldThrowPastDeadline() {
+            // Given
+            Deadline.start(0);
+
+            // When & Then
+            try {
+                assertThatThrownBy(() -> fireStationService.getHomesByStations(List.of(1, 2)))
+                        .isInstanceOf(DeadlineExceededException.class);
+            } finally {
+                Deadline.clear();
+            }
+        }
+
+        @Test
+        @DisplayName("Test getting persons and station by several addresses")
+        public void getPersonsAndStationByAddresses_ShouldReturnFloodDTOGroupedByStation() {
+            // When
+            List<FloodDTO> result = fireStationService.getPersonsAndStationByAddresses(
+                    List.of("789 oak st", "123 Main St", "654 Elm St", "789 Oak St"));
+
+            // Then
+            assertThat(result).extracting("fireStation").containsExactly(1, 2);
+            assertThat(result.get(0).personsByAddress()).containsOnlyKeys("123 Main St");
+            assertThat(result.get(1).personsByAddress().keySet()).containsExactly("789 Oak St", "654 Elm St");
+            assertThat(result.get(1).personsByAddress().get("789 Oak St"))
+                    .extracting("firstName")
+                    .containsExactly("Alice", "Ember", "Mark");
+        }
+
+        @Test
+        @DisplayName("Test writing persons and station by address as JSON")
+        public void writePersonsAndStationByAddress_ShouldWriteSameJsonAsFireDTO() throws IOException {
+            // When
+            String json = write(fireStationService.writePersonsAndStationByAddress("123 Main St", PersonInfoField.ALL));
+
+            // Then
+            assertThat(objectMapper.readTree(json))
+                    .isEqualTo(objectMapper.valueToTree(fireStationService.getPersonsAndStationByAddress("123 Main St")));
+        }
+
+        @Test
+        @DisplayName("Test writing persons and station by address as JSON with selected fields")
+        public void writePersonsAndStationByAddress_ShouldOnlyWriteSelectedFields() throws IOException {
+            // When
+            String json = write(fireStationService.writePersonsAndStationByAddress("123 main st", EnumSet.of(PersonInfoField.FIRST_NAME, PersonInfoField.PHONE)));
+
+            // Then
+            assertThat(json).isEqualTo("{\"fireStation\":1,\"persons\":[{\"firstName\":\"John\",\"phone\":\"123-456-7890\"}]}");
+            verify(dataIndex, never()).getMedicalRecord(any(), any());
+        }
+
+        @Test
+        @DisplayName("Test writing persons and station by address not found as JSON")
+        public void writePersonsAndStationByAddress_ShouldThrowNotFoundException() {
+            // When & Then
+            assertThatThrownBy(() -> fireStationService.writePersonsAndStationByAddress("Unknown Address", PersonInfoField.ALL))
+                    .isInstanceOf(NotFoundException.class)
+                    .hasMessage("No station found for address: Unknown Address");
+        }
+
+        @Test
+        @DisplayName("Test writing homes by stations as JSON")
+        public void writeHomesByStations_ShouldWriteSameJsonAsFloodDTOs() throws IOException {
+            // When
+            String json = write(fireStationService.writeHomesByStations(List.of(1, 3), PersonInfoField.ALL));
+
+            // Then
+            assertThat(objectMapper.readTree(json))
+                    .isEqualTo(objectMapper.valueToTree(fireStationService.getHomesByStations(List.of(1, 3))));
+        }
+
+        @Test
+        @DisplayName("Test writing homes by stations past the deadline of the request is aborted before the first byte")
+        public void writeHomesByStations_ShouldThrowPastDeadline() {
+            // Given
+            Deadline.start(0);
+
+            // When & Then
+            try {
+                assertThatThrownBy(() -> fireStationService.writeHomesByStations(List.of(1, 3), PersonInfoField.ALL))
+                        .isInstanceOf(DeadlineExceededException.class);
+            } finally {
+                Deadline.clear();
+            }
+        }
+
+        @Test
+        @DisplayName("Test writing homes by stations is never aborted once the body is being written")
+        public void writeHomesByStations_ShouldWriteWholeBodyPastDeadline() throws IOException {
+            // Given
+            JsonPayload payload = fireStationService.writeHomesByStations(List.of(1, 3), PersonInfoField.ALL);
+            Deadline.start(0);
+
+            // When
+            String json;
+            try {
+                json = write(payload);
+            } finally {
+                Deadline.clear();
+            }
+
+            // Then
+            assertThat(objectMapper.readTree(json))
+                    .isEqualTo(objectMapper.valueToTree(fireStationService.getHomesByStations(List.of(1, 3))));
+        }
+
+        @Test
+        @DisplayName("Test writing homes by stations not found as JSON")
+        public void writeHomesByStations_ShouldThrowNotFoundException() {
+            // When & Then
+            assertThatThrownBy(() -> fireStationService.writeHomesByStations(List.of(1, 999), PersonInfoField.ALL))
+                    .isInstanceOf(NotFoundException.class)
+                    .hasMessage("Station number 999 not found");
+        }
+
+        @Test
+        @DisplayName("Test writing persons phones by station as JSON")
+        public void writePersonsPhonesByStation_ShouldWriteDistinctPhones() throws IOException {
+            // When
+            String json = write(fireStationService.writePersonsPhonesByStation(2));
+
+            // Then
+            List<String> phones = objectMapper.readValue(json, new TypeReference<>() {});
+            assertThat(phones)
+                    .doesNotHaveDuplicates()
+                    .containsExactlyInAnyOrderElementsOf(fireStationService.getPersonsPhonesByStation(2));
+        }
+
+        @Test
+        @DisplayName("Test writing persons phones by station not found as JSON")
+        public void writePersonsPhonesByStation_ShouldThrowNotFoundException() {
+            // When & Then
+            assertThatThrownBy(() -> fireStationService.writePersonsPhonesByStation(999))
+                    .isInstanceOf(NotFoundException.class)
+                    .hasMessage("Station number 999 not found");
+        }
+
+        @Test
+        @DisplayName("Test getting persons and station by several addresses with selected fields")
+        public void getPersonsAndStationByAddresses_ShouldOnlyBuildSelectedFields() {
+            // When
+            List<FloodDTO> result = fireStationService.getPersonsAndStationByAddresses(
+                    List.of("123 Main St"), EnumSet.of(PersonInfoField.FIRST_NAME, PersonInfoField.PHONE));
+
+            // Then
+            assertThat(result.getFirst().personsByAddress().get("123 Main St"))
+                    .containsExactly(new FireFloodPersonInfoDTO("John", null, "123-456-7890", null, null, null));
+            verify(dataIndex, never()).getMedicalRecord(any(), any());
+        }
+
+        @Test
+        @DisplayName("Test getting persons and station by address with selected fields")
+        public void getPersonsAndStationByAddress_ShouldOnlyBuildSelectedFields() {
+            // When
+            FireDTO result = fireStationService.getPersonsAndStationByAddress("123 Main St", EnumSet.of(PersonInfoField.AGE));
+
+            // Then
+            assertThat(result.persons()).singleElement()
+                    .satisfies(person -> {
+                        assertThat(person.age()).isNotNull();
+                        assertThat(person.firstName()).isNull();
+                        assertThat(person.medications()).isNull();
+                    });
+        }
+
+        @Test
+        @DisplayName("Test getting persons and station by several addresses with one not found")
+        public void getPersonsAndStationByAddresses_ShouldReturnNotFoundException_WhenOneAddressNotCovered() {
+            // When / Then
+            assertThatThrownBy(() -> fireStationService.getPersonsAndStationByAddresses(List.of("123 Main St", "1 Nowhere St")))
+                    .isInstanceOf(NotFoundException.class)
+                    .hasMessage("No station found for address: 1 Nowhere St");
+        }
+
+        @Test
+        @DisplayName("Test getting the flood report of all stations")
+        public void getFloodReport_ShouldGroupEveryResidentByStationAndReuseReport() {
+            // When
+            FloodReportDTO report = fireStationService.getFloodReport();
+
+            // Then
+            assertThat(report.version()).isEqualTo(dataIndex.getVersion());
+            assertThat(report.stations()).extracting("fireStation").containsExactly(1, 2, 3);
+            assertThat(report.stations())
+                    .flatExtracting(floodDTO -> floodDTO.personsByAddress().values())
+                    .flatExtracting(ArrayList::new)
+                    .extracting("firstName")
+                    .containsExactlyInAnyOrder("John", "Jane", "Ember", "Alice", "Mark", "Bob", "Charlie", "Eve");
+            assertThat(fireStationService.getFloodReport()).isSameAs(report);
+            assertThat(report.stations()).usingRecursiveComparison()
+                    .isEqualTo(fireStationService.getHomesByStations(List.of(1, 2, 3), null, 1000).content());
+        }
+
+        @Test
+        @DisplayName("Test getting the flood report of all stations after a change")
+        public void getFloodReport_ShouldBuildNewReport_WhenDataChanged() {
+            // Given
+            FloodReportDTO report = fireStationService.getFloodReport();
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+            fireStationService.deleteByStation(3);
+
+            // When
+            FloodReportDTO newReport = fireStationService.getFloodReport();
+
+            // Then
+            assertThat(newReport.version()).isGreaterThan(report.version());
+            assertThat(newReport.stations()).extracting("fireStation").containsExactly(1, 2);
+        }
+
+        @Test
+        @DisplayName("Test getting the flood report of all stations on a later day")
+        public void getFloodReport_ShouldBuildNewReport_WhenDayChanged() {
+            // Given
+            FloodReportDTO report = fireStationService.getFloodReport();
+            ReflectionTestUtils.setField(fireStationService, "floodReport",
+                    new FloodReportDTO(report.version(), report.date().minusDays(1), report.stations()));
+
+            // When
+            FloodReportDTO newReport = fireStationService.getFloodReport();
+
+            // Then
+            assertThat(newReport.version()).isEqualTo(report.version());
+            assertThat(newReport.date()).isEqualTo(LocalDate.now());
+            assertThat(newReport).isNotSameAs(report);
+        }
+
+        @Test
+        @DisplayName("Test getting homes by a list of station number page by page")
+        public void getHomesByStations_ShouldReturnFloodDTOPageByPage() {
+            // When
+            PageDTO<List<FloodDTO>> firstPage = fireStationService.getHomesByStations(Arrays.asList(1, 2), null, 4);
+            PageDTO<List<FloodDTO>> secondPage = fireStationService.getHomesByStations(Arrays.asList(1, 2), firstPage.nextCursor(), 4);
+            // Then
+            assertThat(firstPage.content()).extracting("fireStation").containsExactly(1, 2);
+            assertThat(firstPage.content().get(0).personsByAddress()).containsOnlyKeys("123 Main St", "321 Pine St");
+            assertThat(firstPage.content().get(1).personsByAddress()).containsOnlyKeys("345 Cedar St", "654 Elm St");
+            assertThat(secondPage.content()).extracting("fireStation").containsExactly(2);
+            assertThat(secondPage.content().get(0).personsByAddress().get("789 Oak St"))
+                    .extracting("firstName")
+                    .containsExactly("Alice", "Ember", "Mark");
+            assertThat(secondPage.nextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Test getting persons covered by a station page by page")
+        public void getPersonsStationCoverage_ShouldCountAdultsAndChildrenOverThePage() {
+            // When
+            PageDTO<StationCoverageDTO> firstPage = fireStationService.getPersonsStationCoverage(2, null, 3);
+            PageDTO<StationCoverageDTO> secondPage = fireStationService.getPersonsStationCoverage(2, firstPage.nextCursor(), 3);
+            // Then
+            assertThat(firstPage.content().persons()).extracting("firstName").containsExactly("Eve", "Charlie", "Alice");
+            assertThat(firstPage.content().adults()).isEqualTo(2);
+            assertThat(firstPage.content().children()).isEqualTo(1);
+            assertThat(secondPage.content().persons()).extracting("firstName").containsExactly("Ember", "Mark");
+            assertThat(secondPage.nextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Test paginated station coverage exception")
+        public void getPersonsStationCoverage_ShouldThrowNotFoundException_WhenPaginatedStationDoesNotExist() {
+            // When / Then
+            assertThatThrownBy(() -> fireStationService.getPersonsStationCoverage(9, null, 3))
+                    .isInstanceOf(NotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Test streaming homes by a list of station number")
+        public void streamHomesByStations_ShouldReturnResidentsOrderedByStationAndAddress() {
+            // When
+            List<FloodResidentDTO> result = fireStationService.streamHomesByStations(Arrays.asList(2, 1)).toList();
+            // Then
+            assertThat(result)
+                    .extracting("fireStation", "address", "firstName")
+                    .containsExactly(
+                            tuple(2, "345 Cedar St", "Eve"),
+                            tuple(2, "654 Elm St", "Charlie"),
+                            tuple(2, "789 Oak St", "Alice"),
+                            tuple(2, "789 Oak St", "Ember"),
+                            tuple(2, "789 Oak St", "Mark"),
+                            tuple(1, "123 Main St", "John"),
+                            tuple(1, "321 Pine St", "Bob"));
+        }
+
+        @Test
+        @DisplayName("Test streaming persons covered by a station exception")
+        public void streamPersonsStationCoverage_ShouldThrowNotFoundExceptionForNonExistentStation() {
+            // When / Then
+            assertThatThrownBy(() -> fireStationService.streamPersonsStationCoverage(9))
+                    .isInstanceOf(NotFoundException.class);
+        }
+
         @Test
         @DisplayName("Test getting number of adults, children and persons by station number")
         public void getPersonsStationCoverage_ShouldReturnStationCoverageDTO() {
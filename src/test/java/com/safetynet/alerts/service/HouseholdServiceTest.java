@@ -0,0 +1,206 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.data.DataList;
+import com.safetynet.alerts.dto.HouseholdDTO;
+import com.safetynet.alerts.dto.HouseholdIdsDTO;
+import com.safetynet.alerts.dto.HouseholdMemberDTO;
+import com.safetynet.alerts.exception.AlreadyExistException;
+import com.safetynet.alerts.exception.JsonFileException;
+import com.safetynet.alerts.model.Data;
+import com.safetynet.alerts.model.FireStation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataIndex;
+import com.safetynet.alerts.repository.JsonFileHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+public class HouseholdServiceTest {
+
+    private Data data;
+
+    @Mock
+    private JsonFileHandler jsonFileHandler;
+
+    @Spy
+    private DataIndex dataIndex = new DataIndex();
+
+    @InjectMocks
+    private HouseholdService householdService;
+
+    @BeforeEach
+    public void setUp() {
+        DataList dataList = new DataList();
+        this.data = new Data(dataList.getPersons(), dataList.getFireStations(), dataList.getMedicalRecords());
+        when(jsonFileHandler.getData()).thenReturn(this.data);
+    }
+
+    private static HouseholdMemberDTO member(String firstName, String lastName, String address) {
+        return new HouseholdMemberDTO(
+                new Person(firstName, lastName, address, "Culver", "97451", "123-456-7899", "family@example.com"),
+                new MedicalRecord(firstName, lastName, LocalDate.of(1990, 5, 25), new String[0], new String[0]));
+    }
+
+
+    @Nested
+    @DisplayName("Mutable Operations")
+    class MutableOperationTest {
+
+        @Test
+        @DisplayName("Test creating a household at a new address")
+        public void create_ShouldCreateEverythingWithOneWrite() {
+            // Given
+            HouseholdDTO household = new HouseholdDTO(new FireStation("12 Willow St", 3),
+                    List.of(member("Paul", "Martin", "12 Willow St"), member("Lea", "Martin", "12 Willow St")));
+            long version = dataIndex.getVersion();
+
+            when(jsonFileHandler.sortPersonsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(jsonFileHandler.sortMedicalRecordsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(jsonFileHandler.sortFireStationsByStationNumber(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+
+            // When
+            ResponseEntity<HouseholdIdsDTO> response = householdService.create(household);
+
+            // Then
+            verify(jsonFileHandler, times(1)).writeData(any(Data.class));
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(response.getBody().fireStationId()).isNotNull();
+            assertThat(response.getBody().personIds()).hasSize(2);
+            assertThat(response.getBody().medicalRecordIds()).hasSize(2);
+            assertThat(dataIndex.getVersion()).isEqualTo(version + 2);
+            assertThat(data.persons()).extracting("firstName").contains("Paul", "Lea");
+            assertThat(data.medicalRecords()).extracting("firstName").contains("Paul", "Lea");
+            assertThat(data.fireStations()).contains(new FireStation("12 Willow St", 3));
+            assertThat(dataIndex.getPersonByName("Paul", "Martin")).isPresent();
+        }
+
+        @Test
+        @DisplayName("Test person created during the creation of a household is neither lost nor interleaved")
+        public void create_ShouldKeepPersonCreatedConcurrently() throws Exception {
+            // Given
+            HouseholdDTO household = new HouseholdDTO(new FireStation("12 Willow St", 3),
+                    List.of(member("Paul", "Martin", "12 Willow St")));
+            Person jack = new Person("Jack", "Martin", "12 Willow St", "Culver", "97451", "123-456-7899", "family@example.com");
+            PersonService personService = new PersonService(jsonFileHandler, dataIndex, null);
+            List<CompletableFuture<?>> concurrentCreation = new ArrayList<>();
+
+            when(jsonFileHandler.sortPersonsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(jsonFileHandler.sortMedicalRecordsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(jsonFileHandler.sortFireStationsByStationNumber(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            doAnswer(invocation -> {
+                if (concurrentCreation.isEmpty()) {
+                    concurrentCreation.add(CompletableFuture.runAsync(() -> personService.create(jack)));
+                    Thread.sleep(50);
+                    assertThat(concurrentCreation.getFirst()).isNotDone();
+                }
+                return null;
+            }).when(jsonFileHandler).writeData(any(Data.class));
+
+            // When
+            householdService.create(household);
+            concurrentCreation.getFirst().get(5, TimeUnit.SECONDS);
+
+            // Then
+            assertThat(data.persons()).extracting("firstName").contains("Paul", "Jack");
+            assertThat(dataIndex.getPersonByName("Paul", "Martin")).isPresent();
+            assertThat(dataIndex.getPersonByName("Jack", "Martin")).isPresent();
+        }
+
+        @Test
+        @DisplayName("Test creating a household at an address already covered")
+        public void create_ShouldReuseFireStation_WhenMappingAlreadyExists() {
+            // Given
+            HouseholdDTO household = new HouseholdDTO(new FireStation("123 MAIN ST", 1),
+                    List.of(member("Paul", "Martin", "123 Main St")));
+
+            when(jsonFileHandler.sortPersonsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(jsonFileHandler.sortMedicalRecordsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(jsonFileHandler.sortFireStationsByStationNumber(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+
+            // When
+            ResponseEntity<HouseholdIdsDTO> response = householdService.create(household);
+
+            // Then
+            assertThat(response.getBody().fireStationId()).isNull();
+            assertThat(data.fireStations()).hasSize(7);
+        }
+
+        @Test
+        @DisplayName("Test creating a household with an existing member")
+        public void create_ShouldReturnAlreadyExistException_AndChangeNothing_WhenMemberAlreadyExists() {
+            // Given
+            HouseholdDTO household = new HouseholdDTO(new FireStation("12 Willow St", 3),
+                    List.of(member("Paul", "Martin", "12 Willow St"), member("John", "Doe", "12 Willow St")));
+
+            // When / Then
+            assertThatThrownBy(() -> householdService.create(household))
+                    .isInstanceOf(AlreadyExistException.class);
+
+            verify(jsonFileHandler, never()).writeData(any(Data.class));
+            assertThat(data.persons()).hasSize(8).extracting("firstName").doesNotContain("Paul");
+            assertThat(dataIndex.getPersonByName("Paul", "Martin")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Test creating a household with the same member twice")
+        public void create_ShouldReturnAlreadyExistException_WhenMemberAppearsTwice() {
+            // Given
+            HouseholdDTO household = new HouseholdDTO(new FireStation("12 Willow St", 3),
+                    List.of(member("Paul", "Martin", "12 Willow St"), member("PAUL", "MARTIN", "12 Willow St")));
+
+            // When / Then
+            assertThatThrownBy(() -> householdService.create(household))
+                    .isInstanceOf(AlreadyExistException.class);
+
+            verify(jsonFileHandler, never()).writeData(any(Data.class));
+        }
+
+        @Test
+        @DisplayName("Test creating a household when the file can't be written")
+        public void create_ShouldChangeNothing_WhenWriteFails() {
+            // Given
+            HouseholdDTO household = new HouseholdDTO(new FireStation("12 Willow St", 3),
+                    List.of(member("Paul", "Martin", "12 Willow St")));
+            long version = dataIndex.getVersion();
+
+            when(jsonFileHandler.sortPersonsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(jsonFileHandler.sortMedicalRecordsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(jsonFileHandler.sortFireStationsByStationNumber(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            doThrow(new JsonFileException("Failed to write data")).when(jsonFileHandler).writeData(any(Data.class));
+
+            // When / Then
+            assertThatThrownBy(() -> householdService.create(household))
+                    .isInstanceOf(JsonFileException.class);
+
+            assertThat(data.persons()).hasSize(8);
+            assertThat(data.medicalRecords()).extracting("firstName").doesNotContain("Paul");
+            assertThat(data.fireStations()).hasSize(7);
+            assertThat(dataIndex.getPersonByName("Paul", "Martin")).isEmpty();
+            assertThat(dataIndex.getVersion()).isEqualTo(version + 1);
+        }
+    }
+}
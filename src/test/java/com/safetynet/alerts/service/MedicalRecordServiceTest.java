@@ -1,13 +1,20 @@
 package com.safetynet.alerts.service;
 
 import com.safetynet.alerts.data.DataList;
+import com.safetynet.alerts.dto.AffectedRecordsDTO;
+import com.safetynet.alerts.dto.BatchItemResultDTO;
+import com.safetynet.alerts.dto.MedicalRecordTransformDTO;
 import com.safetynet.alerts.dto.PersonIdentifierDTO;
+import com.safetynet.alerts.dto.ResourceIdDTO;
 import com.safetynet.alerts.exception.AlreadyExistException;
 import com.safetynet.alerts.exception.NotFoundException;
 import com.safetynet.alerts.model.Data;
 import com.safetynet.alerts.model.FireStation;
 import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.repository.DataIndex;
 import com.safetynet.alerts.repository.JsonFileHandler;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -15,11 +22,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -36,6 +45,12 @@ public class MedicalRecordServiceTest {
     @Mock
     private JsonFileHandler jsonFileHandler;
 
+    @Spy
+    private DataIndex dataIndex = new DataIndex();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private MedicalRecordService medicalRecordService;
 
@@ -46,6 +61,11 @@ public class MedicalRecordServiceTest {
         when(jsonFileHandler.getData()).thenReturn(this.data);
     }
 
+    private long idOf(MedicalRecord medicalRecord) {
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+        return dataIndex.getMedicalRecordId(medicalRecord).orElseThrow();
+    }
+
 
     @Nested
     @DisplayName("Mutable Operations")
@@ -61,13 +81,86 @@ public class MedicalRecordServiceTest {
             doNothing().when(jsonFileHandler).writeData(any(Data.class));
 
             // When
-            ResponseEntity<Void> result = medicalRecordService.create(medicalRecord);
+            ResponseEntity<ResourceIdDTO> result = medicalRecordService.create(medicalRecord);
 
             // Then
             verify(jsonFileHandler).sortMedicalRecordsByLastNameAndFirstName(any(Data.class));
             verify(jsonFileHandler).writeData(any(Data.class));
             assertThat(data.medicalRecords().contains(medicalRecord)).isTrue();
             assertThat(result.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(result.getBody().id()).isEqualTo(idOf(medicalRecord));
+            assertThat(medicalRecordService.getById(result.getBody().id())).isEqualTo(medicalRecord);
+        }
+
+        @Test
+        @DisplayName("Test creating a batch of medical records")
+        public void createBatch_ShouldReturnResultOfEachMedicalRecordAndWriteOnce() {
+            // Given
+            MedicalRecord charlotte = new MedicalRecord("Charlotte", "Brownie", LocalDate.of(1990, 5, 25), new String[0], new String[0]);
+            MedicalRecord future = new MedicalRecord("Lily", "Brownie", LocalDate.now().plusDays(1), new String[0], new String[0]);
+            MedicalRecord existing = new MedicalRecord("John", "Doe", LocalDate.of(2000, 1, 1), new String[0], new String[0]);
+
+            when(jsonFileHandler.sortMedicalRecordsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+
+            // When
+            List<BatchItemResultDTO> results = medicalRecordService.createBatch(List.of(charlotte, future, existing));
+
+            // Then
+            verify(jsonFileHandler, times(1)).writeData(any(Data.class));
+            assertThat(results).extracting("status").containsExactly(201, 400, 409);
+            assertThat(results.get(0).id()).isEqualTo(idOf(charlotte));
+            assertThat(results.get(1).error()).contains("birthdate");
+            assertThat(medicalRecordService.getById(results.get(0).id())).isEqualTo(charlotte);
+        }
+
+        @Test
+        @DisplayName("Test replacing a medication in every medical record")
+        public void transform_ShouldReplaceMedicationKeepingDoseAndWriteOnce() {
+            // Given
+            data.medicalRecords().add(new MedicalRecord("Eve", "Jones", LocalDate.of(1985, 3, 2), new String[]{"aznol:350mg", "terazine:10mg"}, new String[0]));
+            data.medicalRecords().add(new MedicalRecord("Tom", "Jones", LocalDate.of(1987, 3, 2), new String[]{"AZNOL:100mg"}, new String[0]));
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+
+            // When
+            AffectedRecordsDTO result = medicalRecordService.transform(
+                    new MedicalRecordTransformDTO(MedicalRecordTransformDTO.Field.MEDICATION, "aznol", "bznol"));
+
+            // Then
+            verify(jsonFileHandler, times(1)).writeData(any(Data.class));
+            assertThat(result.affected()).isEqualTo(2);
+            assertThat(dataIndex.getMedicalRecordsByMedication("aznol")).isEmpty();
+            assertThat(dataIndex.getMedicalRecordsByMedication("bznol")).extracting("firstName").containsExactly("Eve", "Tom");
+            assertThat(data.medicalRecords().get(7).medications()).containsExactly("bznol:350mg", "terazine:10mg");
+            assertThat(data.medicalRecords().get(8).medications()).containsExactly("bznol:100mg");
+        }
+
+        @Test
+        @DisplayName("Test removing an allergy from every medical record")
+        public void transform_ShouldRemoveAllergy() {
+            // Given
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+
+            // When
+            AffectedRecordsDTO result = medicalRecordService.transform(
+                    new MedicalRecordTransformDTO(MedicalRecordTransformDTO.Field.ALLERGY, "Allergy1", null));
+
+            // Then
+            assertThat(result.affected()).isEqualTo(1);
+            assertThat(data.medicalRecords().getFirst().allergies()).containsExactly("allergy2");
+            assertThat(medicalRecordService.getById(idOf(data.medicalRecords().getFirst())).allergies()).containsExactly("allergy2");
+        }
+
+        @Test
+        @DisplayName("Test transforming a medication no medical record contains")
+        public void transform_ShouldChangeNothing_WhenNoMedicalRecordMatches() {
+            // When
+            AffectedRecordsDTO result = medicalRecordService.transform(
+                    new MedicalRecordTransformDTO(MedicalRecordTransformDTO.Field.MEDICATION, "unknown", "other"));
+
+            // Then
+            assertThat(result.affected()).isZero();
+            verify(jsonFileHandler, never()).writeData(any(Data.class));
         }
 
         @Test
@@ -136,6 +229,69 @@ public class MedicalRecordServiceTest {
             assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
         }
 
+        @Test
+        @DisplayName("Test updating medical record by id")
+        public void updateById_ShouldReplaceMedicalRecord() {
+            // Given
+            MedicalRecord medicalRecordUpdate = new MedicalRecord("Jane", "Doe", LocalDate.of(2001, 2, 2), new String[0], new String[0]);
+            long id = idOf(data.medicalRecords().get(1));
+
+            // When
+            ResponseEntity<Void> result = medicalRecordService.updateById(id, medicalRecordUpdate);
+
+            // Then
+            verify(jsonFileHandler).writeData(any(Data.class));
+            assertThat(data.medicalRecords().contains(medicalRecordUpdate)).isTrue();
+            assertThat(medicalRecordService.getById(id)).isEqualTo(medicalRecordUpdate);
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+
+        @Test
+        @DisplayName("Test update by id already exist exception")
+        public void updateById_ShouldReturnAlreadyExistException_WhenNameIsTaken() {
+            // Given
+            MedicalRecord medicalRecordUpdate = new MedicalRecord("John", "Doe", LocalDate.of(2001, 2, 2), new String[0], new String[0]);
+            long id = idOf(data.medicalRecords().get(1));
+
+            // When / Then
+            assertThatThrownBy(() -> medicalRecordService.updateById(id, medicalRecordUpdate))
+                    .isInstanceOf(AlreadyExistException.class);
+
+            verify(jsonFileHandler, never()).writeData(any(Data.class));
+        }
+
+        @Test
+        @DisplayName("Test deleting medical record by id")
+        public void deleteById_ShouldRemoveMedicalRecord() {
+            // Given
+            long id = idOf(data.medicalRecords().getFirst());
+
+            // When
+            ResponseEntity<Void> result = medicalRecordService.deleteById(id);
+
+            // Then
+            verify(jsonFileHandler).writeData(any(Data.class));
+            assertThat(data.medicalRecords()).hasSize(6);
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThatThrownBy(() -> medicalRecordService.getById(id))
+                    .isInstanceOf(NotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Test deleting medical record by a name differing only by case")
+        public void delete_ShouldRemoveMedicalRecord_WhenNameDiffersOnlyByCase() {
+            // Given
+            PersonIdentifierDTO personIdentifier = new PersonIdentifierDTO("JOHN", "DOE");
+
+            // When
+            ResponseEntity<Void> result = medicalRecordService.delete(personIdentifier);
+
+            // Then
+            verify(jsonFileHandler).writeData(any(Data.class));
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(data.medicalRecords()).noneMatch(medicalRecord -> medicalRecord.firstName().equals("John") && medicalRecord.lastName().equals("Doe"));
+        }
+
         @Test
         @DisplayName("Test delete not found exception")
         public void delete_ShouldReturnNotFoundException_WhenNoMedicalRecordExisting() {
@@ -1,14 +1,26 @@
 package com.safetynet.alerts.service;
 
 import com.safetynet.alerts.data.DataList;
+import com.safetynet.alerts.dto.BatchItemResultDTO;
 import com.safetynet.alerts.dto.ChildInfoDTO;
+import com.safetynet.alerts.dto.PageDTO;
 import com.safetynet.alerts.dto.PersonIdentifierDTO;
 import com.safetynet.alerts.dto.PersonInfoDTO;
+import com.safetynet.alerts.dto.PersonSearchResultDTO;
+import com.safetynet.alerts.dto.PhoneLookupDTO;
+import com.safetynet.alerts.dto.ResourceIdDTO;
 import com.safetynet.alerts.exception.AlreadyExistException;
+import com.safetynet.alerts.exception.DeadlineExceededException;
+import com.safetynet.alerts.exception.InvalidCursorException;
 import com.safetynet.alerts.exception.NotFoundException;
+import com.safetynet.alerts.exception.StaleCursorException;
 import com.safetynet.alerts.model.Data;
 import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataIndex;
 import com.safetynet.alerts.repository.JsonFileHandler;
+import com.safetynet.alerts.util.Deadline;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -16,6 +28,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -37,6 +50,12 @@ public class PersonServiceTest {
     @Mock
     private JsonFileHandler jsonFileHandler;
 
+    @Spy
+    private DataIndex dataIndex = new DataIndex();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private PersonService personService;
 
@@ -47,6 +66,11 @@ public class PersonServiceTest {
         when(jsonFileHandler.getData()).thenReturn(this.data);
     }
 
+    private long idOf(Person person) {
+        dataIndex.ensureIndexed(jsonFileHandler.getData());
+        return dataIndex.getPersonId(person).orElseThrow();
+    }
+
 
     @Nested
     @DisplayName("Mutable Operations")
@@ -62,13 +86,55 @@ public class PersonServiceTest {
             doNothing().when(jsonFileHandler).writeData(any(Data.class));
 
             // When
-            ResponseEntity<Void> result = personService.create(person);
+            ResponseEntity<ResourceIdDTO> result = personService.create(person);
 
             // Then
             verify(jsonFileHandler).sortPersonsByLastNameAndFirstName(any(Data.class));
             verify(jsonFileHandler).writeData(any(Data.class));
             assertThat(data.persons().contains(person)).isTrue();
             assertThat(result.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(result.getBody().id()).isEqualTo(idOf(person));
+            assertThat(personService.getById(result.getBody().id())).isEqualTo(person);
+        }
+
+        @Test
+        @DisplayName("Test creating a batch of persons")
+        public void createBatch_ShouldReturnResultOfEachPersonAndWriteOnce() {
+            // Given
+            Person johnny = new Person("Johnny", "Donut", "123 Main St", "Culver", "97451", "123-456-7898", "johnny.donut@example.com");
+            Person invalid = new Person("x", "Donut", "123 Main St", "Culver", "97451", "123-456-7898", "johnny.donut@example.com");
+            Person existing = new Person("John", "Doe", "123 Main St", "Culver", "97451", "123-456-7890", "john.doe@example.com");
+            Person duplicate = new Person("Johnny", "Donut", "456 Maple St", "Culver", "97451", "123-456-7898", "johnny.donut@example.com");
+            Person lily = new Person("Lily", "Donut", "123 Main St", "Culver", "97451", "123-456-7899", "lily.donut@example.com");
+
+            when(jsonFileHandler.sortPersonsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+
+            // When
+            List<BatchItemResultDTO> results = personService.createBatch(Arrays.asList(johnny, invalid, existing, duplicate, lily, null));
+
+            // Then
+            verify(jsonFileHandler, times(1)).writeData(any(Data.class));
+            assertThat(results).extracting("index").containsExactly(0, 1, 2, 3, 4, 5);
+            assertThat(results).extracting("status").containsExactly(201, 400, 409, 409, 201, 400);
+            assertThat(results).extracting("id").containsExactly(idOf(johnny), null, null, null, idOf(lily), null);
+            assertThat(results.get(1).error()).contains("firstName");
+            assertThat(data.persons()).contains(johnny, lily).doesNotContain(invalid, duplicate);
+            assertThat(personService.getById(results.get(4).id())).isEqualTo(lily);
+        }
+
+        @Test
+        @DisplayName("Test creating a batch without any valid person")
+        public void createBatch_ShouldNotWrite_WhenNoPersonIsAccepted() {
+            // Given
+            Person existing = new Person("John", "Doe", "123 Main St", "Culver", "97451", "123-456-7890", "john.doe@example.com");
+
+            // When
+            List<BatchItemResultDTO> results = personService.createBatch(List.of(existing));
+
+            // Then
+            assertThat(results).extracting("status").containsExactly(409);
+            verify(jsonFileHandler, never()).writeData(any(Data.class));
         }
 
         @Test
@@ -85,6 +151,27 @@ public class PersonServiceTest {
             verify(jsonFileHandler, never()).writeData(any(Data.class));
         }
 
+        @Test
+        @DisplayName("Test creating person whose name differs from an existing one only by case")
+        public void create_ShouldCreatePerson_WhenNameDiffersOnlyByCase() {
+            // Given
+            Person person = new Person("Johnny", "Van Doe-Smith", "123 Main St", "Culver", "97451", "123-456-7898", "johnny.vandoesmith@example.com");
+            Person personOtherCase = new Person("Johnny", "Van Doe-smith", "123 Main St", "Culver", "97451", "123-456-7899", "johnny.vandoe@example.com");
+
+            when(jsonFileHandler.sortPersonsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+
+            // When
+            ResponseEntity<ResourceIdDTO> result = personService.create(person);
+            ResponseEntity<ResourceIdDTO> resultOtherCase = personService.create(personOtherCase);
+
+            // Then
+            assertThat(resultOtherCase.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(resultOtherCase.getBody().id()).isNotEqualTo(result.getBody().id());
+            assertThat(personService.getById(result.getBody().id())).isEqualTo(person);
+            assertThat(personService.getById(resultOtherCase.getBody().id())).isEqualTo(personOtherCase);
+        }
+
         @Test
         @DisplayName("Test updating person")
         public void update_ShouldReturnOkResponseEntity() {
@@ -137,6 +224,152 @@ public class PersonServiceTest {
             assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
         }
 
+        @Test
+        @DisplayName("Test updating person by id")
+        public void updateById_ShouldKeepIdWhenNameChanges() {
+            // Given
+            Person personUpdate = new Person("Johnny", "Doe", "123 Main St", "Culver", "97451", "333-333-3333", "john.douille@example.com");
+            long id = idOf(data.persons().get(0));
+
+            // When
+            ResponseEntity<Void> result = personService.updateById(id, personUpdate);
+
+            // Then
+            verify(jsonFileHandler).writeData(any(Data.class));
+            assertThat(data.persons().get(0)).isEqualTo(personUpdate);
+            assertThat(personService.getById(id)).isEqualTo(personUpdate);
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+
+        @Test
+        @DisplayName("Test update by id already exist exception")
+        public void updateById_ShouldReturnAlreadyExistException_WhenNameIsTaken() {
+            // Given
+            Person personUpdate = new Person("Jane", "Doe", "123 Main St", "Culver", "97451", "333-333-3333", "john.douille@example.com");
+            long id = idOf(data.persons().get(0));
+
+            // When / Then
+            assertThatThrownBy(() -> personService.updateById(id, personUpdate))
+                    .isInstanceOf(AlreadyExistException.class);
+
+            verify(jsonFileHandler, never()).writeData(any(Data.class));
+        }
+
+        @Test
+        @DisplayName("Test deleting person by id")
+        public void deleteById_ShouldRemovePersonAndNotReuseId() {
+            // Given
+            long id = idOf(data.persons().get(1));
+
+            // When
+            ResponseEntity<Void> result = personService.deleteById(id);
+
+            // Then
+            verify(jsonFileHandler).writeData(any(Data.class));
+            assertThat(data.persons()).extracting("firstName").doesNotContain("Jane");
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThatThrownBy(() -> personService.getById(id))
+                    .isInstanceOf(NotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Test deleting by id the second of two persons with the same name")
+        public void deleteById_ShouldRemoveOnlyThatPerson_WhenNameIsDuplicated() {
+            // Given
+            Person namesake = new Person("John", "Doe", "9 Other St", "Culver", "97451", "123-456-7899", "other.john@example.com");
+            data.persons().add(namesake);
+            long johnId = idOf(data.persons().get(0));
+            long namesakeId = idOf(namesake);
+
+            // When
+            personService.deleteById(namesakeId);
+
+            // Then
+            assertThat(data.persons()).contains(personService.getById(johnId)).doesNotContain(namesake);
+            assertThat(personService.getById(johnId).address()).isEqualTo("123 Main St");
+            assertThatThrownBy(() -> personService.getById(namesakeId))
+                    .isInstanceOf(NotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Test updating by id the second of two persons with the same name")
+        public void updateById_ShouldReplaceOnlyThatPerson_WhenNameIsDuplicated() {
+            // Given
+            Person namesake = new Person("John", "Doe", "9 Other St", "Culver", "97451", "123-456-7899", "other.john@example.com");
+            data.persons().add(namesake);
+            Person personUpdate = new Person("John", "Doe", "10 Other St", "Culver", "97451", "123-456-7899", "other.john@example.com");
+            long johnId = idOf(data.persons().get(0));
+            long namesakeId = idOf(namesake);
+
+            // When
+            ResponseEntity<Void> result = personService.updateById(namesakeId, personUpdate);
+
+            // Then
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(personService.getById(namesakeId)).isEqualTo(personUpdate);
+            assertThat(personService.getById(johnId).address()).isEqualTo("123 Main St");
+            assertThat(data.persons()).contains(personUpdate, personService.getById(johnId));
+        }
+
+        @Test
+        @DisplayName("Test delete by id not found exception")
+        public void deleteById_ShouldReturnNotFoundException_WhenNoPersonExisting() {
+            // When / Then
+            assertThatThrownBy(() -> personService.deleteById(42))
+                    .isInstanceOf(NotFoundException.class);
+
+            verify(jsonFileHandler, never()).writeData(any(Data.class));
+        }
+
+        @Test
+        @DisplayName("Test an id given before the data was indexed again is not found")
+        public void getById_ShouldReturnNotFoundException_WhenIdIsFromPreviousIndexing() {
+            // Given
+            long staleId = idOf(data.persons().get(0));
+            DataList dataList = new DataList();
+            Data reloaded = new Data(dataList.getPersons(), dataList.getFireStations(), dataList.getMedicalRecords());
+            dataIndex.ensureIndexed(reloaded);
+            when(jsonFileHandler.getData()).thenReturn(reloaded);
+
+            // When / Then
+            assertThatThrownBy(() -> personService.getById(staleId))
+                    .isInstanceOf(NotFoundException.class);
+            assertThatThrownBy(() -> personService.deleteById(staleId))
+                    .isInstanceOf(NotFoundException.class);
+            assertThat(reloaded.persons()).contains(data.persons().get(0));
+            assertThat(idOf(reloaded.persons().get(0))).isNotEqualTo(staleId);
+        }
+
+        @Test
+        @DisplayName("Test deleting person by a name differing only by case")
+        public void delete_ShouldRemovePerson_WhenNameDiffersOnlyByCase() {
+            // Given
+            PersonIdentifierDTO personIdentifier = new PersonIdentifierDTO("john", "doe");
+
+            // When
+            ResponseEntity<Void> result = personService.delete(personIdentifier);
+
+            // Then
+            verify(jsonFileHandler).writeData(any(Data.class));
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(data.persons()).noneMatch(person -> person.firstName().equals("John") && person.lastName().equals("Doe"));
+        }
+
+        @Test
+        @DisplayName("Test deleting person prefers the exact case of the name")
+        public void delete_ShouldRemoveExactCase_WhenNamesDifferOnlyByCase() {
+            // Given
+            Person otherCase = new Person("john", "doe", "9 Other St", "Culver", "97451", "123-456-7899", "other.john@example.com");
+            data.persons().add(0, otherCase);
+
+            // When
+            personService.delete(new PersonIdentifierDTO("John", "Doe"));
+
+            // Then
+            assertThat(data.persons()).contains(otherCase)
+                    .noneMatch(person -> person.firstName().equals("John") && person.lastName().equals("Doe"));
+        }
+
         @Test
         @DisplayName("Test delete not found exception")
         public void delete_ShouldReturnNotFoundException_WhenNoPersonExisting() {
@@ -203,6 +436,165 @@ public class PersonServiceTest {
                     .isInstanceOf(NotFoundException.class);
         }
 
+        @Test
+        @DisplayName("Test getting emails page by page")
+        public void getEmailsByCity_ShouldReturnEmailsPageByPage() {
+            // When
+            PageDTO<Set<String>> firstPage = personService.getEmailsByCity("Culver", null, 4);
+            PageDTO<Set<String>> secondPage = personService.getEmailsByCity("Culver", firstPage.nextCursor(), 4);
+            // Then
+            assertThat(firstPage.content()).containsExactly("bob.johnson@example.com", "charlie.brown@example.com", "ember.smith@example.com", "eve.jones@example.com");
+            assertThat(firstPage.nextCursor()).isNotNull();
+            assertThat(secondPage.content()).containsExactly("jane.doe@example.com", "john.doe@example.com");
+            assertThat(secondPage.nextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Test getting persons by last name page by page")
+        public void getPersonByLastname_ShouldReturnPersonsPageByPage() {
+            // When
+            PageDTO<List<PersonInfoDTO>> firstPage = personService.getPersonByLastname("Smith", null, 2);
+            PageDTO<List<PersonInfoDTO>> secondPage = personService.getPersonByLastname("Smith", firstPage.nextCursor(), 2);
+            // Then
+            assertThat(firstPage.content()).extracting("firstName").containsExactly("Alice", "Ember");
+            assertThat(secondPage.content()).extracting("firstName").containsExactly("Mark");
+            assertThat(secondPage.nextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Test stale cursor exception")
+        public void getEmailsByCity_ShouldThrowStaleCursorException_WhenDataChangedBetweenPages() {
+            // Given
+            doNothing().when(jsonFileHandler).writeData(any(Data.class));
+            PageDTO<Set<String>> firstPage = personService.getEmailsByCity("Culver", null, 4);
+            personService.delete(new PersonIdentifierDTO("Eve", "Jones"));
+            // When / Then
+            assertThatThrownBy(() -> personService.getEmailsByCity("Culver", firstPage.nextCursor(), 4))
+                    .isInstanceOf(StaleCursorException.class);
+        }
+
+        @Test
+        @DisplayName("Test invalid cursor exception")
+        public void getPersonByLastname_ShouldThrowInvalidCursorException_WhenCursorIsMalformed() {
+            // When / Then
+            assertThatThrownBy(() -> personService.getPersonByLastname("Smith", "not-a-cursor", 2))
+                    .isInstanceOf(InvalidCursorException.class);
+        }
+
+        @Test
+        @DisplayName("Test streaming emails")
+        public void streamEmailsByCity_ShouldReturnEmailsInAlphabeticalOrder() {
+            // When
+            List<String> emails = personService.streamEmailsByCity("culver").toList();
+            // Then
+            assertThat(emails).containsExactly("bob.johnson@example.com", "charlie.brown@example.com", "ember.smith@example.com", "eve.jones@example.com", "jane.doe@example.com", "john.doe@example.com");
+        }
+
+        @Test
+        @DisplayName("Test streaming persons by last name exception")
+        public void streamPersonByLastname_ShouldThrowNotFoundExceptionForNonExistentLastname() {
+            // When / Then
+            assertThatThrownBy(() -> personService.streamPersonByLastname("Alf"))
+                    .isInstanceOf(NotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Test searching persons by the beginning of the last name")
+        public void searchPersons_ShouldReturnPersonsWhoseLastNameStartsWithQuery() {
+            // When
+            List<PersonSearchResultDTO> results = personService.searchPersons("smi", null, 20);
+            // Then
+            assertThat(results).extracting("firstName").containsExactlyInAnyOrder("Ember", "Alice", "Mark");
+            assertThat(results).extracting("editDistance").containsOnly(0);
+        }
+
+        @Test
+        @DisplayName("Test searching persons with a typo in the last name")
+        public void searchPersons_ShouldTolerateTypos() {
+            // When
+            List<PersonSearchResultDTO> results = personService.searchPersons("Jonhson", null, 20);
+            // Then
+            assertThat(results).extracting("firstName").containsExactly("Bob");
+            assertThat(results.get(0).editDistance()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Test searching persons by last name and first name")
+        public void searchPersons_ShouldFilterByFirstName() {
+            // When
+            List<PersonSearchResultDTO> results = personService.searchPersons("Smith", "Alise", 20);
+            // Then
+            assertThat(results).extracting("firstName").containsExactly("Alice");
+        }
+
+        @Test
+        @DisplayName("Test search limit")
+        public void searchPersons_ShouldReturnAtMostLimitResults() {
+            // When
+            List<PersonSearchResultDTO> results = personService.searchPersons("Smith", null, 2);
+            // Then
+            assertThat(results).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("Test search index is updated when a person is created")
+        public void searchPersons_ShouldFindCreatedPerson() {
+            // Given
+            Person person = new Person("Johnny", "Donut", "123 Main St", "Culver", "97451", "123-456-7898", "johnny.donut@example.com");
+            when(jsonFileHandler.sortPersonsByLastNameAndFirstName(any(Data.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            personService.create(person);
+            // When
+            List<PersonSearchResultDTO> results = personService.searchPersons("Donu", null, 20);
+            // Then
+            assertThat(results).extracting("firstName").containsExactly("Johnny");
+        }
+
+        @Test
+        @DisplayName("Test search not found exception")
+        public void searchPersons_ShouldThrowNotFoundException_WhenNothingMatches() {
+            // When / Then
+            assertThatThrownBy(() -> personService.searchPersons("Xyzzyx", null, 20))
+                    .isInstanceOf(NotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Test getting residents by phone")
+        public void getResidentsByPhone_ShouldReturnResidentsWithStationAndMedicalRecord() {
+            // When
+            PhoneLookupDTO result = personService.getResidentsByPhone("123-456-7892");
+            // Then
+            assertThat(result.addresses()).hasSize(1);
+            assertThat(result.addresses().get(0).address()).isEqualTo("789 Oak St");
+            assertThat(result.addresses().get(0).fireStation()).isEqualTo(2);
+            assertThat(result.addresses().get(0).persons()).extracting("firstName").containsExactlyInAnyOrder("Ember", "Alice", "Mark");
+            assertThat(result.addresses().get(0).persons())
+                    .filteredOn(person -> person.firstName().equals("Alice"))
+                    .singleElement()
+                    .satisfies(alice -> assertThat(alice.medications()).containsExactly("medication5", "medication6"));
+        }
+
+        @Test
+        @DisplayName("Test phone index is updated when a person is updated")
+        public void getResidentsByPhone_ShouldFollowPersonUpdate() {
+            // Given
+            Person personUpdate = new Person("John", "Doe", "123 Main St", "Culver", "97451", "333-333-3333", "john.doe@example.com");
+            personService.update(personUpdate);
+            // When
+            PhoneLookupDTO result = personService.getResidentsByPhone("333-333-3333");
+            // Then
+            assertThat(result.addresses().get(0).persons()).extracting("firstName").containsExactly("John");
+            assertThatThrownBy(() -> personService.getResidentsByPhone("123-456-7890"))
+                    .isInstanceOf(NotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Test phone not found exception")
+        public void getResidentsByPhone_ShouldThrowNotFoundExceptionForUnknownPhone() {
+            // When / Then
+            assertThatThrownBy(() -> personService.getResidentsByPhone("000-000-0000"))
+                    .isInstanceOf(NotFoundException.class);
+        }
+
         @Test
         @DisplayName("Test getting children by address")
         public void getChildrenByAddress_ShouldReturnAListOfChildInfoDTO() {
@@ -235,5 +627,34 @@ public class PersonServiceTest {
             assertThatThrownBy(() -> personService.getChildrenByAddress(nonExistentAddress))
                     .isInstanceOf(NotFoundException.class);
         }
+
+        @Test
+        @DisplayName("Test getting children by address when a person is duplicated in the file")
+        public void getChildrenByAddress_ShouldJoinMedicalRecords_WhenPersonIsDuplicated() {
+            // Given
+            Person alice = data.persons().stream().filter(person -> person.firstName().equals("Alice")).findFirst().orElseThrow();
+            data.persons().add(alice);
+
+            // When
+            List<ChildInfoDTO> children = personService.getChildrenByAddress("789 Oak St");
+
+            // Then
+            assertThat(children).extracting("firstName").containsExactlyInAnyOrder("Alice", "Alice", "Mark");
+        }
+
+        @Test
+        @DisplayName("Test getting children by address past the deadline of the request is aborted")
+        public void getChildrenByAddress_ShouldThrowPastDeadline() {
+            // Given
+            Deadline.start(0);
+
+            // When / Then
+            try {
+                assertThatThrownBy(() -> personService.getChildrenByAddress("789 Oak St"))
+                        .isInstanceOf(DeadlineExceededException.class);
+            } finally {
+                Deadline.clear();
+            }
+        }
     }
 }
@@ -0,0 +1,156 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.data.DataList;
+import com.safetynet.alerts.dto.FireDTO;
+import com.safetynet.alerts.dto.QueryBatchResultDTO;
+import com.safetynet.alerts.dto.QueryDTO;
+import com.safetynet.alerts.model.Data;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataIndex;
+import com.safetynet.alerts.repository.JsonFileHandler;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+public class QueryServiceTest {
+
+    private Data data;
+
+    @Mock
+    private JsonFileHandler jsonFileHandler;
+
+    @Spy
+    private DataIndex dataIndex = new DataIndex();
+
+    @InjectMocks
+    private QueryService queryService;
+
+    @BeforeEach
+    public void setUp() {
+        DataList dataList = new DataList();
+        this.data = new Data(dataList.getPersons(), dataList.getFireStations(), dataList.getMedicalRecords());
+        when(jsonFileHandler.getData()).thenReturn(this.data);
+    }
+
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    @Nested
+    @DisplayName("Read Operations")
+    class ReadOperationTest {
+
+        @Test
+        @DisplayName("Test running several queries against the same data")
+        public void query_ShouldReturnSameResultsAsEachEndpoint() {
+            // Given
+            Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+            FireStationService fireStationService = new FireStationService(jsonFileHandler, dataIndex, validator);
+            PersonService personService = new PersonService(jsonFileHandler, dataIndex, validator);
+
+            List<QueryDTO> queries = List.of(
+                    new QueryDTO(QueryDTO.Type.FIRE, "123 main st"),
+                    new QueryDTO(QueryDTO.Type.CHILD_ALERT, "789 Oak St"),
+                    new QueryDTO(QueryDTO.Type.PHONE_ALERT, "2"),
+                    new QueryDTO(QueryDTO.Type.FIRESTATION, "1"),
+                    new QueryDTO(QueryDTO.Type.FIRE, "123 Main St"));
+
+            // When
+            QueryBatchResultDTO batch = queryService.query(queries);
+
+            // Then
+            assertThat(batch.version()).isEqualTo(dataIndex.getVersion());
+            assertThat(batch.results()).extracting("index").containsExactly(0, 1, 2, 3, 4);
+            assertThat(batch.results()).extracting("status").containsOnly(200);
+            assertThat(batch.results().get(0).result()).usingRecursiveComparison()
+                    .isEqualTo(fireStationService.getPersonsAndStationByAddress("123 main st"));
+            assertThat(batch.results().get(1).result()).usingRecursiveComparison().ignoringCollectionOrder()
+                    .isEqualTo(personService.getChildrenByAddress("789 Oak St"));
+            assertThat(batch.results().get(2).result())
+                    .isEqualTo(Set.of("123-456-7892", "123-456-7894", "123-456-7896"));
+            assertThat(batch.results().get(3).result()).usingRecursiveComparison().ignoringCollectionOrder()
+                    .isEqualTo(fireStationService.getPersonsStationCoverage(1));
+            assertThat(batch.results().get(4).result()).isSameAs(batch.results().get(0).result());
+        }
+
+        @Test
+        @DisplayName("Test queries wait for an update in progress and see all of it")
+        public void query_ShouldNotSeeUpdateHalfDone() throws Exception {
+            // Given
+            dataIndex.ensureIndexed(data);
+            Person newcomer = new Person("Paul", "Martin", "123 Main St", "Culver", "97451", "123-456-7899", "paul@example.com");
+            CountDownLatch updating = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Void> update = CompletableFuture.runAsync(() -> dataIndex.update(() -> {
+                data.persons().add(newcomer);
+                updating.countDown();
+                await(release);
+                data.medicalRecords().add(new MedicalRecord("Paul", "Martin", LocalDate.of(1990, 5, 25), new String[0], new String[0]));
+                return dataIndex.addPerson(newcomer);
+            }));
+            updating.await();
+
+            // When
+            CompletableFuture<QueryBatchResultDTO> batch = CompletableFuture.supplyAsync(() ->
+                    queryService.query(List.of(new QueryDTO(QueryDTO.Type.FIRE, "123 Main St"))));
+            Thread.sleep(50);
+            boolean doneDuringUpdate = batch.isDone();
+            release.countDown();
+            update.get(5, TimeUnit.SECONDS);
+
+            // Then
+            assertThat(doneDuringUpdate).isFalse();
+            assertThat(batch.get(5, TimeUnit.SECONDS).version()).isEqualTo(dataIndex.getVersion());
+            assertThat(batch.get().results().getFirst().status()).isEqualTo(200);
+            assertThat(((FireDTO) batch.get().results().getFirst().result()).persons())
+                    .extracting("firstName").contains("Paul");
+        }
+
+        @Test
+        @DisplayName("Test running queries that fail")
+        public void query_ShouldReturnErrorOfEachFailingQuery() {
+            // Given
+            List<QueryDTO> queries = List.of(
+                    new QueryDTO(QueryDTO.Type.PHONE_ALERT, "two"),
+                    new QueryDTO(QueryDTO.Type.FIRESTATION, "9"),
+                    new QueryDTO(QueryDTO.Type.CHILD_ALERT, "1 Nowhere St"),
+                    new QueryDTO(QueryDTO.Type.PHONE_ALERT, "1"));
+
+            // When
+            QueryBatchResultDTO batch = queryService.query(queries);
+
+            // Then
+            assertThat(batch.results()).extracting("status").containsExactly(400, 404, 404, 200);
+            assertThat(batch.results().get(1).error()).isEqualTo("Station number 9 not found");
+            assertThat(batch.results().get(3).result()).isEqualTo(Set.of("123-456-7890", "123-456-7893"));
+            verify(jsonFileHandler, never()).writeData(any(Data.class));
+        }
+    }
+}
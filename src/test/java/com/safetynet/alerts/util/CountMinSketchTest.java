@@ -0,0 +1,50 @@
+package com.safetynet.alerts.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class CountMinSketchTest {
+
+    @Test
+    @DisplayName("Test estimates are never below the real counts")
+    public void add_ShouldNeverUnderestimate() {
+        // Given
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("key" + (i % 200));
+        }
+        long hot = 0;
+        for (int i = 0; i < 50; i++) {
+            hot = sketch.add("1509 culver st");
+        }
+
+        // Then
+        assertThat(hot).isGreaterThanOrEqualTo(50);
+        assertThat(sketch.estimate("1509 culver st")).isEqualTo(hot);
+        for (int i = 0; i < 200; i++) {
+            assertThat(sketch.estimate("key" + i)).isGreaterThanOrEqualTo(5);
+        }
+    }
+
+    @Test
+    @DisplayName("Test estimates are exact without collisions and halved on decay")
+    public void halve_ShouldHalveEstimates() {
+        // Given
+        CountMinSketch sketch = new CountMinSketch(4, 2048);
+        for (int i = 0; i < 10; i++) {
+            sketch.add("1");
+        }
+
+        // When
+        sketch.halve();
+
+        // Then
+        assertThat(sketch.estimate("1")).isEqualTo(5);
+        assertThat(sketch.estimate("2")).isZero();
+    }
+}
@@ -0,0 +1,90 @@
+package com.safetynet.alerts.util;
+
+import com.safetynet.alerts.exception.DeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+public class DeadlineTest {
+
+    @AfterEach
+    public void tearDown() {
+        Deadline.clear();
+        Thread.interrupted();
+    }
+
+
+    @Test
+    @DisplayName("Test check passes without deadline and before the deadline")
+    public void check_ShouldPassBeforeDeadline() {
+        // When & Then
+        assertThatCode(Deadline::check).doesNotThrowAnyException();
+
+        Deadline.start(10_000);
+        assertThatCode(Deadline::check).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Test check throws once the deadline is past")
+    public void check_ShouldThrowPastDeadline() {
+        // Given
+        Deadline.start(0);
+
+        // When & Then
+        assertThatThrownBy(Deadline::check)
+                .isInstanceOf(DeadlineExceededException.class)
+                .hasMessage("Request deadline exceeded, the query was aborted");
+    }
+
+    @Test
+    @DisplayName("Test check throws when the thread was interrupted")
+    public void check_ShouldThrowWhenInterrupted() {
+        // Given
+        Thread.currentThread().interrupt();
+
+        // When & Then
+        assertThatThrownBy(Deadline::check)
+                .isInstanceOf(DeadlineExceededException.class)
+                .hasMessage("Query was cancelled");
+    }
+
+    @Test
+    @DisplayName("Test remaining time is bounded by the timeout and by the deadline")
+    public void remainingNanos_ShouldBeBoundedByDeadline() {
+        // Given
+        long timeout = TimeUnit.SECONDS.toNanos(5);
+
+        // When & Then
+        assertThat(Deadline.remainingNanos(timeout)).isEqualTo(timeout);
+
+        Deadline.start(1000);
+        assertThat(Deadline.remainingNanos(timeout)).isBetween(0L, TimeUnit.SECONDS.toNanos(1));
+
+        Deadline.start(0);
+        assertThat(Deadline.remainingNanos(timeout)).isZero();
+    }
+
+    @Test
+    @DisplayName("Test deadline is propagated to the subtasks and stops them")
+    public void propagate_ShouldStopSubtasksPastDeadline() {
+        // Given
+        Deadline.start(0);
+
+        // When & Then
+        try (TaskScope scope = TaskScope.withTimeout(Duration.ofSeconds(5))) {
+            scope.fork(() -> {
+                Deadline.check();
+                return null;
+            });
+            assertThatThrownBy(scope::join).isInstanceOf(DeadlineExceededException.class);
+        }
+    }
+}
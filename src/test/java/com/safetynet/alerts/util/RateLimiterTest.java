@@ -0,0 +1,41 @@
+package com.safetynet.alerts.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+public class RateLimiterTest {
+
+    @Test
+    @DisplayName("Test requests are not limited without a rate")
+    public void tryAcquire_ShouldAdmitAllWithoutRate() {
+        // Given
+        RateLimiter rateLimiter = new RateLimiter();
+
+        // When & Then
+        for (int i = 0; i < 1000; i++) {
+            assertThat(rateLimiter.tryAcquire()).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Test requests over one second of the rate are refused")
+    public void tryAcquire_ShouldRefuseOverRate() {
+        // Given
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.setRate(10);
+
+        // When
+        int admitted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (rateLimiter.tryAcquire()) admitted++;
+        }
+
+        // Then
+        assertThat(admitted).isBetween(10, 11);
+        assertThatThrownBy(() -> rateLimiter.setRate(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,84 @@
+package com.safetynet.alerts.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class ServerTimingTest {
+
+    @AfterEach
+    public void tearDown() {
+        ServerTiming.clear();
+    }
+
+
+    @Test
+    @DisplayName("Test phase does nothing when the timing is not enabled")
+    public void phase_ShouldBeSharedWhenDisabled() {
+        // When & Then
+        assertThat(ServerTiming.phase("filter")).isSameAs(ServerTiming.phase("join"));
+    }
+
+    @Test
+    @DisplayName("Test phases of the same name are summed in the order they were first closed")
+    public void toHeader_ShouldSumPhasesByName() {
+        // Given
+        ServerTiming timing = ServerTiming.start();
+
+        // When
+        try (ServerTiming.Phase phase = ServerTiming.phase("join")) {
+            sleep(2);
+        }
+        try (ServerTiming.Phase phase = ServerTiming.phase("filter")) {
+            sleep(1);
+        }
+        try (ServerTiming.Phase phase = ServerTiming.phase("join")) {
+            sleep(2);
+        }
+        String header = timing.toHeader(12_500_000);
+
+        // Then
+        assertThat(header).matches("join;dur=\\d+\\.\\d{3}, filter;dur=\\d+\\.\\d{3}, total;dur=12\\.500");
+        double join = Double.parseDouble(header.substring("join;dur=".length(), header.indexOf(',')));
+        assertThat(join).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Test phases of the subtasks are added to the timing of the request")
+    public void propagate_ShouldTimeSubtaskPhases() {
+        // Given
+        ServerTiming timing = ServerTiming.start();
+
+        // When
+        try (TaskScope scope = TaskScope.withTimeout(Duration.ofSeconds(5))) {
+            scope.fork(() -> {
+                try (ServerTiming.Phase phase = ServerTiming.phase("filter")) {
+                    return 1;
+                }
+            });
+            scope.fork(() -> {
+                try (ServerTiming.Phase phase = ServerTiming.phase("join")) {
+                    return 2;
+                }
+            });
+            scope.join();
+        }
+
+        // Then
+        assertThat(timing.toHeader(0)).contains("filter;dur=", "join;dur=", "total;dur=0.000");
+    }
+
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.safetynet.alerts.util;
+
+import com.safetynet.alerts.exception.DeadlineExceededException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+
+    @Test
+    @DisplayName("Test concurrent identical computations are run once")
+    public void execute_ShouldShareRunningComputation() throws Exception {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+        // When
+        List<Future<String>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("phonealert?3", () -> {
+                    runs.incrementAndGet();
+                    await(release);
+                    return "result";
+                })));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (singleFlight.getCoalescedCount() < CALLERS - 1 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            // Then
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(runs).hasValue(1);
+        assertThat(singleFlight.getCoalescedCount()).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    @DisplayName("Test key is released once the computation is done")
+    public void execute_ShouldRunAgainAfterCompletion() {
+        // Given
+        SingleFlight<Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger runs = new AtomicInteger();
+
+        // When
+        singleFlight.execute("fire?1509 culver st", runs::incrementAndGet);
+        int second = singleFlight.execute("fire?1509 culver st", runs::incrementAndGet);
+
+        // Then
+        assertThat(second).isEqualTo(2);
+        assertThat(singleFlight.getCoalescedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Test exception of the computation is thrown to the caller")
+    public void execute_ShouldThrowExceptionOfComputation() {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+
+        // When & Then
+        assertThatThrownBy(() -> singleFlight.execute("phonealert?999", () -> {
+            throw new IllegalStateException("Station number 999 not found");
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Station number 999 not found");
+        assertThat(singleFlight.execute("phonealert?999", () -> "retried")).isEqualTo("retried");
+    }
+
+
+    @Test
+    @DisplayName("Test computation aborted by the deadline of its caller is run again by the waiting callers")
+    public void execute_ShouldRunAgainForWaitersWhenDeadlineExceeded() throws Exception {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> singleFlight.execute("flood?1", () -> {
+            started.countDown();
+            await(release);
+            throw new DeadlineExceededException("Query took too long and was aborted");
+        }));
+        await(started);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> singleFlight.execute("flood?1", () -> "result"));
+        while (singleFlight.getCoalescedCount() < 1 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        release.countDown();
+
+        // Then
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(DeadlineExceededException.class);
+    }
+
+    @Test
+    @DisplayName("Test waiting caller stops at its own deadline while the computation still runs")
+    public void execute_ShouldThrowDeadlineExceededException_WhenWaiterDeadlineIsReached() throws Exception {
+        // Given
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> singleFlight.execute("flood?1", () -> {
+            started.countDown();
+            await(release);
+            return "result";
+        }));
+        await(started);
+
+        // When
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> {
+            Deadline.start(50);
+            try {
+                return singleFlight.execute("flood?1", () -> "own result");
+            } finally {
+                Deadline.clear();
+            }
+        });
+
+        // Then
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(DeadlineExceededException.class);
+        assertThat(first).isNotDone();
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(singleFlight.getCoalescedCount()).isEqualTo(1);
+    }
+
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.safetynet.alerts.util;
+
+import com.safetynet.alerts.exception.DeadlineExceededException;
+import com.safetynet.alerts.exception.NotFoundException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+public class TaskScopeTest {
+
+    @Test
+    @DisplayName("Test subtasks run concurrently and their results are read after the join")
+    public void join_ShouldWaitForAllSubtasks() {
+        // Given
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        // When
+        try (TaskScope scope = TaskScope.withTimeout(Duration.ofSeconds(5))) {
+            TaskScope.Subtask<String> station = scope.fork(() -> {
+                bothStarted.countDown();
+                bothStarted.await();
+                return "3";
+            });
+            TaskScope.Subtask<Integer> residents = scope.fork(() -> {
+                bothStarted.countDown();
+                bothStarted.await();
+                return 4;
+            });
+            scope.join();
+
+            // Then
+            assertThat(station.get()).isEqualTo("3");
+            assertThat(residents.get()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    @DisplayName("Test failure of a subtask cancels the others and is thrown")
+    public void join_ShouldCancelOthersOnFailure() {
+        // Given
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        // When & Then
+        try (TaskScope scope = TaskScope.withTimeout(Duration.ofSeconds(5))) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+            scope.fork(() -> {
+                throw new NotFoundException("Station number 9 not found");
+            });
+
+            assertThatThrownBy(scope::join)
+                    .isInstanceOf(NotFoundException.class)
+                    .hasMessage("Station number 9 not found");
+        }
+        assertThat(awaitQuietly(interrupted)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Test subtasks still running at the deadline are cancelled")
+    public void join_ShouldThrowDeadlineExceededAtDeadline() {
+        // Given
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        // When & Then
+        try (TaskScope scope = TaskScope.withTimeout(Duration.ofMillis(50))) {
+            TaskScope.Subtask<Object> slow = scope.fork(() -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+
+            assertThatThrownBy(scope::join).isInstanceOf(DeadlineExceededException.class);
+            assertThatThrownBy(slow::get).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(awaitQuietly(interrupted)).isTrue();
+    }
+
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}